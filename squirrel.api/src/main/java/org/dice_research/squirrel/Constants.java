@@ -31,6 +31,18 @@ public class Constants {
     public static final String URI_HTTP_CHARSET_KEY = "http-charset";
     public static final String URI_HTTP_STATUS_CODE = "http-status";
 
+    /**
+     * The following keys describe the content of the file that is currently
+     * analyzed. They are determined once by sniffing the first bytes of the file
+     * and are shared by the decompression and all analyzers. They are removed
+     * before the URI is sent back to the frontier.
+     */
+    public static final String URI_CONTENT_FILE_KEY = "content-file";
+    public static final String URI_CONTENT_MIME_TYPE_KEY = "content-mime-type";
+    public static final String URI_CONTENT_COMPRESSION_KEY = "content-compression";
+    public static final String URI_CONTENT_CHARSET_KEY = "content-charset";
+    public static final String URI_CONTENT_RDF_LANG_KEY = "content-rdf-lang";
+
     public static final String URI_HTTP_ACCEPT_HEADER = "http-" + HttpHeaders.ACCEPT;
     public static final String URI_HTTP_ACCEPT_CHARSET_HEADER = "http-" + HttpHeaders.ACCEPT_CHARSET;
 
@@ -46,6 +58,14 @@ public class Constants {
      */
     public static final String URI_PREFERRED_RECRAWL_ON = "recrawl-on";
 
+    /**
+     * The minimum time (in ms) that has to pass before the next request is sent
+     * to the server of a URI. It is set by the worker (e.g., based on the
+     * robots.txt file) and used by the frontier to delay the release of the
+     * URI's group.
+     */
+    public static final String URI_CRAWL_DELAY_KEY = "crawl-delay";
+
     //////////////////////////////////////////////////
     // URIs
     //////////////////////////////////////////////////
@@ -72,6 +92,14 @@ public class Constants {
     public static final String DEDUPLICATOR_QUEUE_NAME = "squirrel.deduplicator";
     public static final String FRONTIER_QUEUE_NAME = "squirrel.frontier";
 
+    public static final String FRONTIER_MAX_URIS_PER_GROUP_KEY = "FRONTIER_MAX_URIS_PER_GROUP";
+
+    public static final String FRONTIER_MIN_DELAY_KEY = "FRONTIER_MIN_DELAY";
+
+    public static final String FRONTIER_DNS_LOOKUP_THREADS_KEY = "FRONTIER_DNS_LOOKUP_THREADS";
+
+    public static final String FRONTIER_DNS_TTL_KEY = "FRONTIER_DNS_TTL";
+
     //////////////////////////////////////////////////
     // General constants
     //////////////////////////////////////////////////
@@ -0,0 +1,185 @@
+package org.dice_research.squirrel.data.uri;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Creates 64-bit fingerprints of URIs that can be used as compact and stable
+ * identifiers, e.g., as primary keys of database entries. The fingerprint is
+ * the first half of the 128-bit MurmurHash3 (x64 variant, seed 0) of the UTF-8
+ * encoded string representation of the URI. Since the frontier normalizes all
+ * URIs before they are handled, the fingerprint should be created for the
+ * normalized URI.
+ *
+ * <p>
+ * In contrast to {@link String#hashCode()}, collisions are very unlikely even
+ * for billions of URIs (the probability of a single collision among one
+ * billion URIs is below 3%).
+ * </p>
+ */
+public class UriFingerprint {
+
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private UriFingerprint() {
+    }
+
+    /**
+     * Returns the fingerprint of the given URI.
+     *
+     * @param uri
+     *            the URI for which the fingerprint should be created
+     * @return the 64-bit fingerprint of the given URI
+     */
+    public static long fingerprint(CrawleableUri uri) {
+        return fingerprint(uri.getUri());
+    }
+
+    /**
+     * Returns the fingerprint of the given URI.
+     *
+     * @param uri
+     *            the URI for which the fingerprint should be created
+     * @return the 64-bit fingerprint of the given URI
+     */
+    public static long fingerprint(URI uri) {
+        return fingerprint(uri.toString());
+    }
+
+    /**
+     * Returns the fingerprint of the given URI.
+     *
+     * @param uri
+     *            the string representation of the URI for which the fingerprint
+     *            should be created
+     * @return the 64-bit fingerprint of the given URI
+     */
+    public static long fingerprint(String uri) {
+        return murmur3(uri.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the fingerprint of the given URI as hexadecimal string with 16
+     * characters.
+     *
+     * @param uri
+     *            the string representation of the URI for which the fingerprint
+     *            should be created
+     * @return the hexadecimal representation of the fingerprint
+     */
+    public static String fingerprintAsHex(String uri) {
+        String hex = Long.toHexString(fingerprint(uri));
+        StringBuilder builder = new StringBuilder(16);
+        for (int i = hex.length(); i < 16; ++i) {
+            builder.append('0');
+        }
+        builder.append(hex);
+        return builder.toString();
+    }
+
+    /**
+     * Computes the first 64 bits of the 128-bit MurmurHash3 (x64 variant) of the
+     * given data using the seed 0.
+     */
+    protected static long murmur3(byte[] data) {
+        long h1 = 0;
+        long h2 = 0;
+        int length = data.length;
+        int nblocks = length >>> 4;
+        long k1;
+        long k2;
+        int pos;
+        for (int i = 0; i < nblocks; ++i) {
+            pos = i << 4;
+            k1 = getLongLittleEndian(data, pos);
+            k2 = getLongLittleEndian(data, pos + 8);
+
+            k1 *= C1;
+            k1 = Long.rotateLeft(k1, 31);
+            k1 *= C2;
+            h1 ^= k1;
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+
+            k2 *= C2;
+            k2 = Long.rotateLeft(k2, 33);
+            k2 *= C1;
+            h2 ^= k2;
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+        // handle the remaining bytes
+        k1 = 0;
+        k2 = 0;
+        pos = nblocks << 4;
+        switch (length & 15) {
+        case 15:
+            k2 ^= (data[pos + 14] & 0xFFL) << 48;
+        case 14:
+            k2 ^= (data[pos + 13] & 0xFFL) << 40;
+        case 13:
+            k2 ^= (data[pos + 12] & 0xFFL) << 32;
+        case 12:
+            k2 ^= (data[pos + 11] & 0xFFL) << 24;
+        case 11:
+            k2 ^= (data[pos + 10] & 0xFFL) << 16;
+        case 10:
+            k2 ^= (data[pos + 9] & 0xFFL) << 8;
+        case 9:
+            k2 ^= (data[pos + 8] & 0xFFL);
+            k2 *= C2;
+            k2 = Long.rotateLeft(k2, 33);
+            k2 *= C1;
+            h2 ^= k2;
+        case 8:
+            k1 ^= (data[pos + 7] & 0xFFL) << 56;
+        case 7:
+            k1 ^= (data[pos + 6] & 0xFFL) << 48;
+        case 6:
+            k1 ^= (data[pos + 5] & 0xFFL) << 40;
+        case 5:
+            k1 ^= (data[pos + 4] & 0xFFL) << 32;
+        case 4:
+            k1 ^= (data[pos + 3] & 0xFFL) << 24;
+        case 3:
+            k1 ^= (data[pos + 2] & 0xFFL) << 16;
+        case 2:
+            k1 ^= (data[pos + 1] & 0xFFL) << 8;
+        case 1:
+            k1 ^= (data[pos] & 0xFFL);
+            k1 *= C1;
+            k1 = Long.rotateLeft(k1, 31);
+            k1 *= C2;
+            h1 ^= k1;
+        default:
+            // nothing to do
+        }
+        // finalization
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix64(h1);
+        h2 = fmix64(h2);
+        h1 += h2;
+        return h1;
+    }
+
+    private static long getLongLittleEndian(byte[] data, int pos) {
+        return (data[pos] & 0xFFL) | ((data[pos + 1] & 0xFFL) << 8) | ((data[pos + 2] & 0xFFL) << 16)
+                | ((data[pos + 3] & 0xFFL) << 24) | ((data[pos + 4] & 0xFFL) << 32) | ((data[pos + 5] & 0xFFL) << 40)
+                | ((data[pos + 6] & 0xFFL) << 48) | ((data[pos + 7] & 0xFFL) << 56);
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -28,6 +28,11 @@ public abstract class AbstractKnownUriFilterDecorator implements KnownUriFilterD
         decorated.add(uri, nextCrawlTimestamp);
     }
 
+    @Override
+    public void add(List<CrawleableUri> uris, long nextCrawlTimestamp) {
+        decorated.add(uris, nextCrawlTimestamp);
+    }
+
     @Override
     public List<CrawleableUri> getOutdatedUris() {
         return decorated.getOutdatedUris();
@@ -43,6 +48,11 @@ public abstract class AbstractKnownUriFilterDecorator implements KnownUriFilterD
         return decorated.isUriGood(uri);
     }
 
+    @Override
+    public List<CrawleableUri> getGoodUris(List<CrawleableUri> uris) {
+        return decorated.getGoodUris(uris);
+    }
+
     @Override
     public KnownUriFilter getDecorated() {
         return decorated;
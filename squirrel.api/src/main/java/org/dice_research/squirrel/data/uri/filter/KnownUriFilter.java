@@ -1,6 +1,9 @@
 package org.dice_research.squirrel.data.uri.filter;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.dice_research.squirrel.data.uri.CrawleableUri;
 
@@ -29,6 +32,42 @@ public interface KnownUriFilter extends UriFilter {
      */
     void add(CrawleableUri uri, long lastCrawlTimestamp, long nextCrawlTimestamp);
 
+    /**
+     * Adds the given URIs to the list of already known URIs. Works like calling
+     * {@link #add(CrawleableUri, long)} for every single URI but implementations
+     * may add all URIs with a single request.
+     *
+     * @param uris the URIs that should be added to the list.
+     * @param nextCrawlTimestamp The time at which the given URIs should be crawled next.
+     */
+    public default void add(List<CrawleableUri> uris, long nextCrawlTimestamp) {
+        long lastCrawlTimestamp = System.currentTimeMillis();
+        for (CrawleableUri uri : uris) {
+            add(uri, lastCrawlTimestamp, nextCrawlTimestamp);
+        }
+    }
+
+    /**
+     * Returns the good URIs of the given list. Works like calling
+     * {@link #isUriGood(CrawleableUri)} for every single URI but implementations
+     * may check all URIs with a single request. A URI that occurs several times
+     * in the given list is returned only once.
+     *
+     * @param uris the URIs that should be checked.
+     * @return the URIs of the given list that are good in the order of their
+     *         first occurrence.
+     */
+    public default List<CrawleableUri> getGoodUris(List<CrawleableUri> uris) {
+        List<CrawleableUri> goodUris = new ArrayList<>(uris.size());
+        Set<CrawleableUri> checkedUris = new HashSet<>();
+        for (CrawleableUri uri : uris) {
+            if (checkedUris.add(uri) && isUriGood(uri)) {
+                goodUris.add(uri);
+            }
+        }
+        return goodUris;
+    }
+
     /**
      * Returns all {@link CrawleableUri}s which have to be recrawled. This means their time to next crawl has passed.
      *
@@ -0,0 +1,491 @@
+package org.dice_research.squirrel.data.uri.filter;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.List;
+
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.data.uri.UriFingerprint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link KnownUriFilter} that does not keep the known URIs on the heap.
+ * Instead, it stores a 64-bit fingerprint of every URI together with the time
+ * stamps of its last and its next crawl (in seconds) in an open-addressing
+ * hash table with linear probing that is located in off-heap memory. If a file
+ * is given, the table is memory-mapped to this file and survives restarts of
+ * the frontier. A Bloom filter in front of the table answers the question for
+ * most of the unknown URIs without touching the table.
+ *
+ * <p>
+ * A single entry of the table needs 16 bytes and the Bloom filter uses
+ * {@link #BLOOM_BITS_PER_SLOT} bits per slot. The table grows by
+ * {@link #GROWTH_FACTOR} when its load factor exceeds
+ * {@link #MAX_LOAD_FACTOR}, i.e., its load factor stays between 0.64 and 0.8.
+ * Hence, the filter needs between 21 and 27 bytes per known URI. Note that a
+ * single table can not be larger than 2 GB, i.e., it can hold roughly 100
+ * million URIs.
+ * </p>
+ *
+ * <p>
+ * Growing the table rehashes all its entries while adding URIs is blocked.
+ * Hence, the table should be created for the number of URIs the crawl is
+ * expected to find (see {@link #expectedNumberOfUris}). A persisted table that
+ * is smaller than this number is grown once when it is opened.
+ * </p>
+ *
+ * <p>
+ * {@link #isUriGood(CrawleableUri)} does not acquire any lock. Adding URIs is
+ * done by a single thread at a time. A new entry is published by updating the
+ * volatile size of the table. When the table gets too full, a new, larger
+ * table is created and replaces the old one while lookups still can use the
+ * old table. A closed filter throws an {@link IllegalStateException} if it is
+ * used.
+ * </p>
+ *
+ * <p>
+ * Since the URIs themselves are not stored, {@link #getOutdatedUris()} always
+ * returns an empty list. If the frontier does recrawling, a URI is accepted
+ * again by {@link #isUriGood(CrawleableUri)} as soon as the time stamp of its
+ * next crawl has passed and it is found again. A frontier that relies on
+ * {@link #getOutdatedUris()} to recrawl URIs should use a different filter,
+ * e.g., the {@link InMemoryKnownUriFilter}.
+ * </p>
+ */
+public class OffHeapKnownUriFilter implements KnownUriFilter, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OffHeapKnownUriFilter.class);
+
+    /**
+     * Default number of URIs the table is created for.
+     */
+    public static final int DEFAULT_EXPECTED_NUMBER_OF_URIS = 1 << 20;
+    /**
+     * The maximum ratio of used slots before the table is grown.
+     */
+    public static final double MAX_LOAD_FACTOR = 0.8;
+    /**
+     * The factor by which the capacity of the table is increased when it is
+     * grown. A small factor keeps the load factor high after growing at the
+     * cost of growing more often.
+     */
+    public static final double GROWTH_FACTOR = 1.25;
+    /**
+     * Number of Bloom filter bits per table slot.
+     */
+    public static final int BLOOM_BITS_PER_SLOT = 8;
+    /**
+     * Number of hash functions of the Bloom filter.
+     */
+    public static final int BLOOM_HASH_FUNCTIONS = 5;
+
+    private static final long MAGIC = 0x5371726c4b555246L;
+    private static final int HEADER_SIZE = 32;
+    private static final int SLOT_SIZE = 16;
+    private static final int CAPACITY_POSITION = 8;
+    private static final int SIZE_POSITION = 12;
+    private static final long EMPTY_SLOT = 0;
+    private static final long MAX_SECONDS = 0xFFFFFFFFL;
+    /**
+     * The largest capacity of a table that fits into a single buffer.
+     */
+    private static final int MAX_CAPACITY = (int) ((Integer.MAX_VALUE - HEADER_SIZE)
+            / (SLOT_SIZE + (BLOOM_BITS_PER_SLOT / 8)));
+
+    /**
+     * The file the table is mapped to or {@code null} if the table should not be
+     * persisted.
+     */
+    protected File file;
+    /**
+     * The number of URIs the table is created for. The table does not have to
+     * grow before this number is reached.
+     */
+    protected int expectedNumberOfUris;
+    /**
+     * Indicates whether the {@link org.dice_research.squirrel.frontier.Frontier}
+     * using this filter does recrawling.
+     */
+    protected boolean frontierDoesRecrawling;
+    /**
+     * The current table.
+     */
+    private volatile Table table;
+
+    /**
+     * Constructor for a filter that is not persisted.
+     */
+    public OffHeapKnownUriFilter() {
+        this(null, DEFAULT_EXPECTED_NUMBER_OF_URIS, false);
+    }
+
+    /**
+     * Constructor for a filter that is not persisted.
+     *
+     * @param frontierDoesRecrawling
+     *            Value for {@link #frontierDoesRecrawling}.
+     */
+    public OffHeapKnownUriFilter(boolean frontierDoesRecrawling) {
+        this(null, DEFAULT_EXPECTED_NUMBER_OF_URIS, frontierDoesRecrawling);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param file
+     *            the file the table is mapped to or {@code null} if the table
+     *            should not be persisted
+     * @param expectedNumberOfUris
+     *            the number of URIs the first table is created for
+     * @param frontierDoesRecrawling
+     *            Value for {@link #frontierDoesRecrawling}.
+     */
+    public OffHeapKnownUriFilter(File file, int expectedNumberOfUris, boolean frontierDoesRecrawling) {
+        this.file = file;
+        this.expectedNumberOfUris = expectedNumberOfUris;
+        this.frontierDoesRecrawling = frontierDoesRecrawling;
+    }
+
+    @Override
+    public void open() {
+        try {
+            int capacity = (int) Math.max(Math.min(Math.ceil(expectedNumberOfUris / MAX_LOAD_FACTOR), MAX_CAPACITY),
+                    2);
+            if ((file != null) && file.exists() && (file.length() > HEADER_SIZE)) {
+                table = Table.load(file);
+                LOGGER.info("Loaded {} known URIs from {}.", table.size, file);
+                if (table.capacity < capacity) {
+                    grow(capacity);
+                }
+            } else {
+                table = Table.create(file, capacity);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Couldn't open the known URI filter.", e);
+        }
+    }
+
+    @Override
+    public void add(CrawleableUri uri, long nextCrawlTimestamp) {
+        add(uri, System.currentTimeMillis(), nextCrawlTimestamp);
+    }
+
+    @Override
+    public synchronized void add(CrawleableUri uri, long lastCrawlTimestamp, long nextCrawlTimestamp) {
+        long fingerprint = fingerprint(uri);
+        Table current = getTable();
+        if ((current.size + 1) > (current.capacity * MAX_LOAD_FACTOR)) {
+            grow();
+        }
+        table.put(fingerprint, toSeconds(lastCrawlTimestamp), toSeconds(nextCrawlTimestamp));
+    }
+
+    @Override
+    public boolean isUriGood(CrawleableUri uri) {
+        Table current = getTable();
+        int slot = current.find(fingerprint(uri));
+        if (slot < 0) {
+            return true;
+        }
+        if (!frontierDoesRecrawling) {
+            return false;
+        }
+        return (current.getNextCrawl(slot) * 1000) < System.currentTimeMillis();
+    }
+
+    /**
+     * Returns an empty list since the URIs themselves are not stored.
+     */
+    @Override
+    public List<CrawleableUri> getOutdatedUris() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public long count() {
+        return getTable().size;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (table != null) {
+            table.flush();
+            table = null;
+        }
+    }
+
+    /**
+     * Returns the current table.
+     *
+     * @throws IllegalStateException
+     *             if the filter has not been opened or has been closed
+     */
+    private Table getTable() {
+        Table current = table;
+        if (current == null) {
+            throw new IllegalStateException("The known URI filter is not open.");
+        }
+        return current;
+    }
+
+    /**
+     * Replaces the current table with a table whose capacity is larger by
+     * {@link #GROWTH_FACTOR}.
+     */
+    protected void grow() {
+        Table oldTable = table;
+        if (oldTable.capacity >= MAX_CAPACITY) {
+            if (oldTable.size < (oldTable.capacity - 1)) {
+                // we can not grow anymore but there are still empty slots
+                LOGGER.warn("The known URI filter reached its maximum size. Its performance will decrease.");
+                return;
+            }
+            throw new IllegalStateException("The known URI filter is full.");
+        }
+        LOGGER.info(
+                "The known URI filter holds {} URIs and has to grow. Consider creating it for a larger number of URIs.",
+                oldTable.size);
+        grow((int) Math.min(Math.max(oldTable.capacity * GROWTH_FACTOR, oldTable.capacity + 1), MAX_CAPACITY));
+    }
+
+    /**
+     * Replaces the current table with a table with the given capacity.
+     *
+     * @param newCapacity
+     *            the capacity of the new table
+     */
+    protected void grow(int newCapacity) {
+        Table oldTable = table;
+        try {
+            File newFile = null;
+            if (file != null) {
+                newFile = new File(file.getPath() + ".tmp");
+            }
+            Table newTable = Table.create(newFile, newCapacity);
+            for (int i = 0; i < oldTable.capacity; ++i) {
+                long fingerprint = oldTable.getFingerprint(i);
+                if (fingerprint != EMPTY_SLOT) {
+                    newTable.put(fingerprint, oldTable.getLastCrawl(i), oldTable.getNextCrawl(i));
+                }
+            }
+            if (file != null) {
+                newTable.flush();
+                // the old mapping stays valid after replacing the file
+                Files.move(newFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            }
+            table = newTable;
+        } catch (IOException e) {
+            throw new IllegalStateException("Couldn't grow the known URI filter.", e);
+        }
+    }
+
+    /**
+     * Returns the {@link UriFingerprint} of the given URI.
+     *
+     * @param uri
+     *            the URI for which the fingerprint should be created
+     * @return the fingerprint of the given URI (never {@link #EMPTY_SLOT})
+     */
+    protected long fingerprint(CrawleableUri uri) {
+        long h = UriFingerprint.fingerprint(uri);
+        return (h == EMPTY_SLOT) ? 1 : h;
+    }
+
+    protected static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    protected static long toSeconds(long timestamp) {
+        return Math.min(Math.max(timestamp / 1000, 0), MAX_SECONDS);
+    }
+
+    /**
+     * The open-addressing table together with its Bloom filter. The layout of
+     * the buffer is a header of {@link OffHeapKnownUriFilter#HEADER_SIZE} bytes
+     * (magic number, capacity and size), the bits of the Bloom filter and the
+     * slots of the table. Each slot comprises the fingerprint (8 bytes) and the
+     * time stamps of the last and next crawl in seconds (4 bytes each).
+     */
+    protected static class Table {
+
+        protected final ByteBuffer buffer;
+        protected final int capacity;
+        protected final long bloomBits;
+        protected final int slotsStart;
+        /**
+         * The number of used slots. Writing it publishes new entries to the
+         * reading threads.
+         */
+        protected volatile int size;
+
+        protected Table(ByteBuffer buffer, int capacity, int size) {
+            this.buffer = buffer;
+            this.capacity = capacity;
+            this.bloomBits = ((long) capacity) * BLOOM_BITS_PER_SLOT;
+            this.slotsStart = HEADER_SIZE + (int) (bloomBits >>> 3);
+            this.size = size;
+        }
+
+        protected static long getBufferSize(int capacity) {
+            return HEADER_SIZE + (((long) capacity) * BLOOM_BITS_PER_SLOT / 8) + (((long) capacity) * SLOT_SIZE);
+        }
+
+        public static Table create(File file, int capacity) throws IOException {
+            ByteBuffer buffer;
+            if (file == null) {
+                buffer = ByteBuffer.allocateDirect((int) getBufferSize(capacity));
+            } else {
+                Files.deleteIfExists(file.toPath());
+                buffer = map(file, getBufferSize(capacity));
+            }
+            buffer.putLong(0, MAGIC);
+            buffer.putInt(CAPACITY_POSITION, capacity);
+            buffer.putInt(SIZE_POSITION, 0);
+            return new Table(buffer, capacity, 0);
+        }
+
+        public static Table load(File file) throws IOException {
+            MappedByteBuffer buffer = map(file, file.length());
+            if (buffer.getLong(0) != MAGIC) {
+                throw new IOException("The file " + file + " does not contain a known URI filter.");
+            }
+            return new Table(buffer, buffer.getInt(CAPACITY_POSITION), buffer.getInt(SIZE_POSITION));
+        }
+
+        protected static MappedByteBuffer map(File file, long size) throws IOException {
+            try (RandomAccessFile raFile = new RandomAccessFile(file, "rw");
+                    FileChannel channel = raFile.getChannel()) {
+                // the mapping stays valid after the channel is closed
+                return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+        }
+
+        /**
+         * Returns the slot of the given fingerprint or -1 if it is not part of
+         * the table.
+         */
+        public int find(long fingerprint) {
+            // make sure that we see all entries that have been published
+            if (size == 0 || !mightContain(fingerprint)) {
+                return -1;
+            }
+            int slot = slotOf(fingerprint, capacity);
+            long current;
+            for (int i = 0; i < capacity; ++i) {
+                current = getFingerprint(slot);
+                if (current == fingerprint) {
+                    return slot;
+                } else if (current == EMPTY_SLOT) {
+                    return -1;
+                }
+                if (++slot == capacity) {
+                    slot = 0;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Adds or updates the entry of the given fingerprint. Must not be
+         * called by more than one thread at the same time.
+         */
+        public void put(long fingerprint, long lastCrawl, long nextCrawl) {
+            int slot = slotOf(fingerprint, capacity);
+            long current;
+            for (int i = 0; i < capacity; ++i) {
+                current = getFingerprint(slot);
+                if (current == fingerprint) {
+                    buffer.putInt(getPosition(slot) + 8, (int) lastCrawl);
+                    buffer.putInt(getPosition(slot) + 12, (int) nextCrawl);
+                    return;
+                } else if (current == EMPTY_SLOT) {
+                    // write the time stamps before the fingerprint makes the entry visible
+                    buffer.putInt(getPosition(slot) + 8, (int) lastCrawl);
+                    buffer.putInt(getPosition(slot) + 12, (int) nextCrawl);
+                    buffer.putLong(getPosition(slot), fingerprint);
+                    addToBloomFilter(fingerprint);
+                    buffer.putInt(SIZE_POSITION, size + 1);
+                    size = size + 1;
+                    return;
+                }
+                if (++slot == capacity) {
+                    slot = 0;
+                }
+            }
+            throw new IllegalStateException("The known URI filter is full.");
+        }
+
+        public long getFingerprint(int slot) {
+            return buffer.getLong(getPosition(slot));
+        }
+
+        public long getLastCrawl(int slot) {
+            return buffer.getInt(getPosition(slot) + 8) & MAX_SECONDS;
+        }
+
+        public long getNextCrawl(int slot) {
+            return buffer.getInt(getPosition(slot) + 12) & MAX_SECONDS;
+        }
+
+        public void flush() {
+            if (buffer instanceof MappedByteBuffer) {
+                ((MappedByteBuffer) buffer).force();
+            }
+        }
+
+        protected int getPosition(int slot) {
+            return slotsStart + (slot * SLOT_SIZE);
+        }
+
+        /**
+         * Maps the fingerprint to a slot. Since the capacity doesn't have to be
+         * a power of two, the folded fingerprint is scaled to the range of the
+         * slots.
+         */
+        protected static int slotOf(long fingerprint, int capacity) {
+            return (int) ((((fingerprint ^ (fingerprint >>> 32)) & 0xFFFFFFFFL) * capacity) >>> 32);
+        }
+
+        protected boolean mightContain(long fingerprint) {
+            long hash = mix(fingerprint);
+            long h1 = hash & 0xFFFFFFFFL;
+            long h2 = (hash >>> 32) | 1;
+            long bit;
+            for (int i = 0; i < BLOOM_HASH_FUNCTIONS; ++i) {
+                bit = (h1 + i * h2) % bloomBits;
+                if ((buffer.get(HEADER_SIZE + (int) (bit >>> 3)) & (1 << (bit & 7))) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        protected void addToBloomFilter(long fingerprint) {
+            long hash = mix(fingerprint);
+            long h1 = hash & 0xFFFFFFFFL;
+            long h2 = (hash >>> 32) | 1;
+            long bit;
+            int position;
+            for (int i = 0; i < BLOOM_HASH_FUNCTIONS; ++i) {
+                bit = (h1 + i * h2) % bloomBits;
+                position = HEADER_SIZE + (int) (bit >>> 3);
+                buffer.put(position, (byte) (buffer.get(position) | (1 << (bit & 7))));
+            }
+        }
+    }
+}
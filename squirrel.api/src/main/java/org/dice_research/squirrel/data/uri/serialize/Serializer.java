@@ -1,11 +1,34 @@
 package org.dice_research.squirrel.data.uri.serialize;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 public interface Serializer {
 
     public <T> byte[] serialize(T object) throws IOException;
 
+    /**
+     * Serializes the given object into the given buffer starting at its current
+     * position. The position of the buffer is moved behind the written bytes.
+     * This allows a caller to reuse a single buffer for many objects.
+     *
+     * @param object
+     *            the object that should be serialized
+     * @param buffer
+     *            the buffer to which the serialized object is written
+     * @return the number of bytes that have been written
+     * @throws IOException
+     *             if the object couldn't be serialized
+     * @throws java.nio.BufferOverflowException
+     *             if the remaining space of the buffer is too small. In this
+     *             case, nothing is written to the buffer.
+     */
+    public default <T> int serialize(T object, ByteBuffer buffer) throws IOException {
+        byte[] data = serialize(object);
+        buffer.put(data);
+        return data.length;
+    }
+
     public default <T> byte[] serializeSafely(T object) {
         try {
             return serialize(object);
@@ -0,0 +1,742 @@
+package org.dice_research.squirrel.data.uri.serialize.binary;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import org.dice_research.squirrel.Constants;
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.data.uri.UriType;
+import org.dice_research.squirrel.data.uri.serialize.Serializer;
+import org.dice_research.squirrel.data.uri.serialize.java.GzipJavaUriSerializer;
+import org.dice_research.squirrel.data.uri.serialize.java.SnappyJavaUriSerializer;
+import org.dice_research.squirrel.deduplication.hashing.impl.MinHashValue;
+import org.dice_research.squirrel.rabbit.msgs.CrawlingResult;
+import org.dice_research.squirrel.rabbit.msgs.UriSet;
+import org.dice_research.squirrel.rabbit.msgs.UriSetRequest;
+import org.dice_research.squirrel.worker.AliveMessage;
+import org.xerial.snappy.Snappy;
+
+/**
+ * A serializer that writes {@link CrawleableUri} instances and the messages
+ * exchanged between the components ({@link UriSet}, {@link UriSetRequest},
+ * {@link CrawlingResult} and {@link AliveMessage}) in a compact binary format.
+ * The fields of these classes are written in a fixed order, lengths and
+ * numbers are written as variable-length integers and the keys of the URI data
+ * as well as short string values are interned, i.e., each of them is written
+ * only once per message and referenced by its ID afterwards. Frequently used
+ * keys are part of a static dictionary and are never written. Messages that
+ * are larger than the compression threshold are compressed with Snappy.
+ *
+ * <p>
+ * Data values that are not strings, numbers, booleans, lists, URIs or MinHash
+ * signatures are written using Java serialization. Objects of other classes are completely
+ * written with Java serialization. All these objects are written into a single
+ * object stream that is appended to the message, i.e., class descriptions are
+ * written only once per message. Data that does not start with {@link #MAGIC} is
+ * handed to a {@link GzipJavaUriSerializer} or a
+ * {@link SnappyJavaUriSerializer}, i.e., this serializer can read messages of
+ * components that still use the old serializers.
+ * </p>
+ *
+ * <p>
+ * Note that the IDs of the tags and the entries of the static dictionary are
+ * part of the format. They must not be changed or removed. New entries have to
+ * be appended.
+ * </p>
+ */
+public class BinaryUriSerializer implements Serializer {
+
+    /**
+     * The first byte of every message written by this serializer. It differs
+     * from the first bytes of GZIP streams ({@code 0x1f}) and Java serialization
+     * streams ({@code 0xac}).
+     */
+    public static final byte MAGIC = (byte) 0xb5;
+    /**
+     * Messages with a payload larger than this number of bytes are compressed by
+     * default.
+     */
+    public static final int DEFAULT_COMPRESSION_THRESHOLD = 1024;
+    /**
+     * Compression threshold that disables the compression.
+     */
+    public static final int NO_COMPRESSION = -1;
+    /**
+     * String values up to this length are interned.
+     */
+    protected static final int MAX_INTERNED_VALUE_LENGTH = 64;
+
+    protected static final int HEADER_LENGTH = 2;
+    protected static final int TRAILER_LENGTH = 4;
+    protected static final byte FLAG_SNAPPY = 1;
+
+    protected static final int TAG_NULL = 0;
+    protected static final int TAG_URI = 1;
+    protected static final int TAG_URI_SET = 2;
+    protected static final int TAG_URI_SET_REQUEST = 3;
+    protected static final int TAG_CRAWLING_RESULT = 4;
+    protected static final int TAG_ALIVE_MESSAGE = 5;
+    protected static final int TAG_JAVA = 6;
+
+    protected static final int VALUE_NULL = 0;
+    protected static final int VALUE_STRING = 1;
+    protected static final int VALUE_INTERNED_STRING = 2;
+    protected static final int VALUE_INT = 3;
+    protected static final int VALUE_LONG = 4;
+    protected static final int VALUE_TRUE = 5;
+    protected static final int VALUE_FALSE = 6;
+    protected static final int VALUE_DOUBLE = 7;
+    protected static final int VALUE_LIST = 8;
+    protected static final int VALUE_JAVA = 9;
+    protected static final int VALUE_URI = 10;
+    protected static final int VALUE_MIN_HASH = 11;
+
+    /**
+     * Strings that are known to both sides and do not have to be written. New
+     * entries have to be appended since the position of a string is its ID.
+     */
+    protected static final String[] DICTIONARY = new String[] { Constants.URI_TYPE_KEY,
+            Constants.URI_TYPE_VALUE_DEREF, Constants.URI_TYPE_VALUE_SPARQL, Constants.URI_TYPE_VALUE_CKAN,
+            Constants.URI_TYPE_VALUE_DUMP, Constants.URI_TYPE_VALUE_CSV, Constants.URI_TYPE_VALUE_HTML,
+            Constants.URI_DATA_FILE_NAME, Constants.URI_HTTP_MIME_TYPE_KEY, Constants.URI_HTTP_CHARSET_KEY,
+            Constants.URI_HTTP_STATUS_CODE, Constants.URI_HTTP_ACCEPT_HEADER, Constants.URI_HTTP_ACCEPT_CHARSET_HEADER,
+            Constants.URI_CRAWLING_ACTIVITY_URI, Constants.URI_CRAWLING_ACTIVITY, Constants.URI_HASH_KEY,
+            Constants.UUID_KEY, Constants.URI_PREFERRED_RECRAWL_ON, Constants.URI_CRAWL_DELAY_KEY, "fetcher",
+            "LIST_ANALYZERS", "http-response-Accept-Ranges", "http-response-Age", "http-response-Cache-Control",
+            "http-response-Connection", "http-response-Content-Encoding", "http-response-Content-Language",
+            "http-response-Content-Length", "http-response-Content-Type", "http-response-Date",
+            "http-response-ETag", "http-response-Expires", "http-response-Keep-Alive",
+            "http-response-Last-Modified", "http-response-Link", "http-response-Location", "http-response-Server",
+            "http-response-Set-Cookie", "http-response-Strict-Transport-Security",
+            "http-response-Transfer-Encoding", "http-response-Vary", "http-response-Via",
+            "http-response-X-Content-Type-Options", "http-response-X-Frame-Options",
+            "http-response-X-Powered-By", "http-response-X-XSS-Protection", "text/html", "text/plain",
+            "text/turtle", "application/rdf+xml", "application/n-triples", "application/ld+json",
+            "application/json", "application/xml", "UTF-8", "utf-8", "keep-alive", "close", "chunked", "gzip",
+            "bytes", "Accept-Encoding" };
+    protected static final Map<String, Integer> DICTIONARY_IDS = new HashMap<>();
+
+    static {
+        for (int i = 0; i < DICTIONARY.length; ++i) {
+            DICTIONARY_IDS.putIfAbsent(DICTIONARY[i], i);
+        }
+    }
+
+    /**
+     * Serializers that are used for data that has not been written by this
+     * class.
+     */
+    private final Serializer gzipFallback = new GzipJavaUriSerializer();
+    private final Serializer snappyFallback = new SnappyJavaUriSerializer();
+    /**
+     * Messages with a payload larger than this number of bytes are compressed.
+     * Negative values disable the compression.
+     */
+    private final int compressionThreshold;
+
+    /**
+     * Constructor using the {@link #DEFAULT_COMPRESSION_THRESHOLD}.
+     */
+    public BinaryUriSerializer() {
+        this(DEFAULT_COMPRESSION_THRESHOLD);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param compressionThreshold
+     *            messages with a payload larger than this number of bytes are
+     *            compressed with Snappy ({@link #NO_COMPRESSION} disables the
+     *            compression)
+     */
+    public BinaryUriSerializer(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    @Override
+    public <T> byte[] serialize(T object) throws IOException {
+        BinaryOutput out = new BinaryOutput();
+        out.writeByte(MAGIC);
+        out.writeByte(0);
+        writeObject(out, object);
+        out.finish();
+        int payloadLength = out.size() - HEADER_LENGTH;
+        if ((compressionThreshold >= 0) && (payloadLength > compressionThreshold)) {
+            byte[] compressed = new byte[HEADER_LENGTH + Snappy.maxCompressedLength(payloadLength)];
+            int compressedLength = Snappy.compress(out.buffer(), HEADER_LENGTH, payloadLength, compressed,
+                    HEADER_LENGTH);
+            // only use the compressed version if it is smaller
+            if (compressedLength < payloadLength) {
+                compressed[0] = MAGIC;
+                compressed[1] = FLAG_SNAPPY;
+                return Arrays.copyOf(compressed, HEADER_LENGTH + compressedLength);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T deserialize(byte[] data) throws IOException {
+        if ((data == null) || (data.length == 0)) {
+            throw new IOException("Got no data to deserialize.");
+        }
+        if (data[0] != MAGIC) {
+            if ((data.length > 1) && (data[0] == (byte) 0x1f) && (data[1] == (byte) 0x8b)) {
+                return gzipFallback.deserialize(data);
+            } else {
+                return snappyFallback.deserialize(data);
+            }
+        }
+        if (data.length < (HEADER_LENGTH + TRAILER_LENGTH)) {
+            throw new IOException("Got a truncated message.");
+        }
+        BinaryInput in;
+        if ((data[1] & FLAG_SNAPPY) != 0) {
+            byte[] payload = new byte[Snappy.uncompressedLength(data, HEADER_LENGTH, data.length - HEADER_LENGTH)];
+            Snappy.uncompress(data, HEADER_LENGTH, data.length - HEADER_LENGTH, payload, 0);
+            in = new BinaryInput(payload, 0, payload.length);
+        } else {
+            in = new BinaryInput(data, HEADER_LENGTH, data.length);
+        }
+        return (T) readObject(in);
+    }
+
+    protected void writeObject(BinaryOutput out, Object object) throws IOException {
+        if (object == null) {
+            out.writeVarInt(TAG_NULL);
+        } else if (object instanceof CrawleableUri) {
+            out.writeVarInt(TAG_URI);
+            writeUri(out, (CrawleableUri) object);
+        } else if (object instanceof UriSet) {
+            out.writeVarInt(TAG_URI_SET);
+            writeUris(out, ((UriSet) object).uris);
+        } else if (object instanceof UriSetRequest) {
+            UriSetRequest request = (UriSetRequest) object;
+            out.writeVarInt(TAG_URI_SET_REQUEST);
+            out.writeString(request.getWorkerId());
+            out.writeByte(request.workerSendsAliveMessages() ? 1 : 0);
+        } else if (object instanceof CrawlingResult) {
+            CrawlingResult result = (CrawlingResult) object;
+            out.writeVarInt(TAG_CRAWLING_RESULT);
+            out.writeString(result.idOfWorker);
+            writeUris(out, result.uris);
+        } else if (object instanceof AliveMessage) {
+            out.writeVarInt(TAG_ALIVE_MESSAGE);
+            out.writeString(((AliveMessage) object).getWorkerId());
+        } else {
+            out.writeVarInt(TAG_JAVA);
+            writeJavaObject(out, object);
+        }
+    }
+
+    protected Object readObject(BinaryInput in) throws IOException {
+        int tag = in.readVarInt();
+        switch (tag) {
+        case TAG_NULL:
+            return null;
+        case TAG_URI:
+            return readUri(in);
+        case TAG_URI_SET:
+            return new UriSet(readUris(in));
+        case TAG_URI_SET_REQUEST: {
+            String workerId = in.readString();
+            return new UriSetRequest(workerId, in.readByte() != 0);
+        }
+        case TAG_CRAWLING_RESULT: {
+            String workerId = in.readString();
+            return new CrawlingResult(readUris(in), workerId);
+        }
+        case TAG_ALIVE_MESSAGE:
+            return new AliveMessage(in.readString());
+        case TAG_JAVA:
+            return readJavaObject(in);
+        default:
+            throw new IOException("Got an unknown object tag " + tag + ".");
+        }
+    }
+
+    protected void writeUris(BinaryOutput out, List<CrawleableUri> uris) throws IOException {
+        if (uris == null) {
+            out.writeVarInt(0);
+            return;
+        }
+        out.writeVarInt(uris.size() + 1);
+        for (CrawleableUri uri : uris) {
+            writeUri(out, uri);
+        }
+    }
+
+    protected List<CrawleableUri> readUris(BinaryInput in) throws IOException {
+        int size = in.readVarInt() - 1;
+        if (size < 0) {
+            return null;
+        }
+        List<CrawleableUri> uris = new ArrayList<>(Math.min(size, in.remaining()));
+        for (int i = 0; i < size; ++i) {
+            uris.add(readUri(in));
+        }
+        return uris;
+    }
+
+    @SuppressWarnings("deprecation")
+    protected void writeUri(BinaryOutput out, CrawleableUri uri) throws IOException {
+        out.writeString(uri.getUri().toString());
+        out.writeVarInt(uri.getType().ordinal());
+        InetAddress address = uri.getIpAddress();
+        if (address == null) {
+            out.writeVarInt(0);
+        } else {
+            // getHostName() could trigger a reverse lookup while toString() only
+            // contains a host name that is already known
+            String addressString = address.toString();
+            int pos = addressString.indexOf('/');
+            byte[] ip = address.getAddress();
+            // the lowest bit marks whether a host name follows the IP
+            out.writeVarInt((ip.length << 1) | (pos > 0 ? 1 : 0));
+            out.writeBytes(ip, 0, ip.length);
+            if (pos > 0) {
+                out.writeInternedString(addressString.substring(0, pos));
+            }
+        }
+        out.writeVarLong(zigZag(uri.getTimestampNextCrawl()));
+        Map<String, Object> data = uri.getData();
+        if (data == null) {
+            out.writeVarInt(0);
+            return;
+        }
+        out.writeVarInt(data.size() + 1);
+        for (Entry<String, Object> entry : data.entrySet()) {
+            out.writeInternedString(entry.getKey());
+            writeValue(out, entry.getValue());
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    protected CrawleableUri readUri(BinaryInput in) throws IOException {
+        String uriString = in.readString();
+        int typeId = in.readVarInt();
+        if ((uriString == null) || (typeId < 0) || (typeId >= UriType.values().length)) {
+            throw new IOException("Got a malformed URI.");
+        }
+        InetAddress address = null;
+        int addressInfo = in.readVarInt();
+        if (addressInfo > 0) {
+            byte[] ip = in.readBytes(addressInfo >>> 1);
+            address = InetAddress.getByAddress(((addressInfo & 1) != 0) ? in.readInternedString() : null, ip);
+        }
+        CrawleableUri uri;
+        try {
+            uri = new CrawleableUri(new URI(uriString), address, UriType.values()[typeId]);
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
+        }
+        uri.setTimestampNextCrawl(unZigZag(in.readVarLong()));
+        int size = in.readVarInt() - 1;
+        if (size < 0) {
+            uri.setData(null);
+        } else {
+            Map<String, Object> data = new TreeMap<>();
+            String key;
+            for (int i = 0; i < size; ++i) {
+                key = in.readInternedString();
+                data.put(key, readValue(in));
+            }
+            uri.setData(data);
+        }
+        return uri;
+    }
+
+    protected void writeValue(BinaryOutput out, Object value) throws IOException {
+        if (value == null) {
+            out.writeVarInt(VALUE_NULL);
+        } else if (value instanceof String) {
+            String string = (String) value;
+            if (string.length() <= MAX_INTERNED_VALUE_LENGTH) {
+                out.writeVarInt(VALUE_INTERNED_STRING);
+                out.writeInternedString(string);
+            } else {
+                out.writeVarInt(VALUE_STRING);
+                out.writeString(string);
+            }
+        } else if (value instanceof Integer) {
+            out.writeVarInt(VALUE_INT);
+            out.writeVarLong(zigZag((Integer) value));
+        } else if (value instanceof Long) {
+            out.writeVarInt(VALUE_LONG);
+            out.writeVarLong(zigZag((Long) value));
+        } else if (value instanceof Boolean) {
+            out.writeVarInt(((Boolean) value) ? VALUE_TRUE : VALUE_FALSE);
+        } else if (value instanceof Double) {
+            out.writeVarInt(VALUE_DOUBLE);
+            out.writeLong(Double.doubleToRawLongBits((Double) value));
+        } else if (value instanceof URI) {
+            out.writeVarInt(VALUE_URI);
+            out.writeString(value.toString());
+        } else if (value instanceof MinHashValue) {
+            int[] signature = ((MinHashValue) value).getSignature();
+            out.writeVarInt(VALUE_MIN_HASH);
+            out.writeVarInt(signature.length);
+            for (int i = 0; i < signature.length; ++i) {
+                out.writeInt(signature[i]);
+            }
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            out.writeVarInt(VALUE_LIST);
+            out.writeVarInt(list.size());
+            for (Object element : list) {
+                writeValue(out, element);
+            }
+        } else {
+            out.writeVarInt(VALUE_JAVA);
+            writeJavaObject(out, value);
+        }
+    }
+
+    protected Object readValue(BinaryInput in) throws IOException {
+        int tag = in.readVarInt();
+        switch (tag) {
+        case VALUE_NULL:
+            return null;
+        case VALUE_STRING:
+            return in.readString();
+        case VALUE_INTERNED_STRING:
+            return in.readInternedString();
+        case VALUE_INT:
+            return (int) unZigZag(in.readVarLong());
+        case VALUE_LONG:
+            return unZigZag(in.readVarLong());
+        case VALUE_TRUE:
+            return Boolean.TRUE;
+        case VALUE_FALSE:
+            return Boolean.FALSE;
+        case VALUE_DOUBLE:
+            return Double.longBitsToDouble(in.readLong());
+        case VALUE_LIST: {
+            int size = in.readVarInt();
+            List<Object> list = new ArrayList<>(Math.min(size, in.remaining()));
+            for (int i = 0; i < size; ++i) {
+                list.add(readValue(in));
+            }
+            return list;
+        }
+        case VALUE_JAVA:
+            return readJavaObject(in);
+        case VALUE_URI:
+            try {
+                return new URI(in.readString());
+            } catch (URISyntaxException | NullPointerException e) {
+                throw new IOException("Got a malformed URI value.", e);
+            }
+        case VALUE_MIN_HASH: {
+            int length = in.readVarInt();
+            if ((length < 0) || (length > (in.remaining() / 4))) {
+                throw new IOException("Got a signature length of " + length + " that exceeds the end of the message.");
+            }
+            int[] signature = new int[length];
+            for (int i = 0; i < length; ++i) {
+                signature[i] = in.readInt();
+            }
+            return new MinHashValue(signature);
+        }
+        default:
+            throw new IOException("Got an unknown value tag " + tag + ".");
+        }
+    }
+
+    protected void writeJavaObject(BinaryOutput out, Object object) throws IOException {
+        if (!(object instanceof Serializable)) {
+            throw new IllegalArgumentException("The given instance of " + object.getClass().getCanonicalName()
+                    + " does not implement the java.io.Serializable interface. This serializer does not support that.");
+        }
+        out.getObjectStream().writeObject(object);
+    }
+
+    protected Object readJavaObject(BinaryInput in) throws IOException {
+        try {
+            return in.getObjectStream().readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+
+    protected static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    protected static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * A growing byte array that offers the primitive write operations of the
+     * format. It holds the table of strings that have been interned while
+     * writing the current message and the stream of Java objects that is
+     * appended by {@link #finish()}.
+     */
+    protected static class BinaryOutput {
+        private byte[] buffer = new byte[256];
+        private int size = 0;
+        private Map<String, Integer> strings = new HashMap<>();
+        private ByteArrayOutputStream objectBytes;
+        private ObjectOutputStream objectStream;
+
+        public ObjectOutputStream getObjectStream() throws IOException {
+            if (objectStream == null) {
+                objectBytes = new ByteArrayOutputStream();
+                objectStream = new ObjectOutputStream(objectBytes);
+            }
+            return objectStream;
+        }
+
+        /**
+         * Appends the stream of Java objects followed by its length.
+         */
+        public void finish() throws IOException {
+            int length = 0;
+            if (objectStream != null) {
+                objectStream.close();
+                length = objectBytes.size();
+                writeBytes(objectBytes.toByteArray(), 0, length);
+            }
+            ensureCapacity(TRAILER_LENGTH);
+            for (int i = 24; i >= 0; i -= 8) {
+                buffer[size++] = (byte) (length >>> i);
+            }
+        }
+
+        public void writeByte(int b) {
+            ensureCapacity(1);
+            buffer[size++] = (byte) b;
+        }
+
+        public void writeBytes(byte[] bytes, int offset, int length) {
+            ensureCapacity(length);
+            System.arraycopy(bytes, offset, buffer, size, length);
+            size += length;
+        }
+
+        public void writeVarInt(int value) {
+            ensureCapacity(5);
+            while ((value & ~0x7F) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        public void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        public void writeInt(int value) {
+            ensureCapacity(4);
+            for (int i = 24; i >= 0; i -= 8) {
+                buffer[size++] = (byte) (value >>> i);
+            }
+        }
+
+        public void writeLong(long value) {
+            ensureCapacity(8);
+            for (int i = 56; i >= 0; i -= 8) {
+                buffer[size++] = (byte) (value >>> i);
+            }
+        }
+
+        /**
+         * Writes the given string (which may be {@code null}) with its length.
+         */
+        public void writeString(String string) {
+            if (string == null) {
+                writeVarInt(0);
+                return;
+            }
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length + 1);
+            writeBytes(bytes, 0, bytes.length);
+        }
+
+        /**
+         * Writes the ID of the given (non-null) string if it is already known.
+         * Otherwise, the string is written and gets the next free ID.
+         */
+        public void writeInternedString(String string) {
+            Integer id = DICTIONARY_IDS.get(string);
+            if (id == null) {
+                id = strings.get(string);
+            }
+            if (id != null) {
+                writeVarInt(id + 1);
+            } else {
+                writeVarInt(0);
+                writeString(string);
+                strings.put(string, DICTIONARY.length + strings.size());
+            }
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public byte[] buffer() {
+            return buffer;
+        }
+
+        public byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+
+        private void ensureCapacity(int additionalBytes) {
+            if ((size + additionalBytes) > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, size + additionalBytes));
+            }
+        }
+    }
+
+    /**
+     * Reads the primitives written by {@link BinaryOutput} from a byte array.
+     */
+    protected static class BinaryInput {
+        private final byte[] buffer;
+        private int position;
+        private final int end;
+        private List<String> strings = new ArrayList<>();
+        private final int objectsLength;
+        private ObjectInputStream objectStream;
+
+        public BinaryInput(byte[] buffer, int start, int end) throws IOException {
+            this.buffer = buffer;
+            this.position = start;
+            if ((end - start) < TRAILER_LENGTH) {
+                throw new IOException("Got a truncated message.");
+            }
+            int length = 0;
+            for (int i = end - TRAILER_LENGTH; i < end; ++i) {
+                length = (length << 8) | (buffer[i] & 0xFF);
+            }
+            if ((length < 0) || (length > (end - start - TRAILER_LENGTH))) {
+                throw new IOException("Got a malformed message.");
+            }
+            this.objectsLength = length;
+            this.end = end - TRAILER_LENGTH - length;
+        }
+
+        public ObjectInputStream getObjectStream() throws IOException {
+            if (objectStream == null) {
+                objectStream = new ObjectInputStream(new ByteArrayInputStream(buffer, end, objectsLength));
+            }
+            return objectStream;
+        }
+
+        public int readByte() throws IOException {
+            if (position >= end) {
+                throw new IOException("Reached the end of the message.");
+            }
+            return buffer[position++];
+        }
+
+        public byte[] readBytes(int length) throws IOException {
+            int start = skip(length);
+            return Arrays.copyOfRange(buffer, start, start + length);
+        }
+
+        /**
+         * Skips the given number of bytes and returns the position of the first
+         * skipped byte.
+         */
+        public int skip(int length) throws IOException {
+            if ((length < 0) || (length > remaining())) {
+                throw new IOException("Got a length of " + length + " that exceeds the end of the message.");
+            }
+            int start = position;
+            position += length;
+            return start;
+        }
+
+        public int readVarInt() throws IOException {
+            long value = readVarLong();
+            if ((value < 0) || (value > Integer.MAX_VALUE)) {
+                throw new IOException("Got a variable-length number that exceeds the range of an int.");
+            }
+            return (int) value;
+        }
+
+        public long readVarLong() throws IOException {
+            long value = 0;
+            int b;
+            for (int shift = 0; shift < 64; shift += 7) {
+                b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Got a malformed variable-length number.");
+        }
+
+        public int readInt() throws IOException {
+            int start = skip(4);
+            return ((buffer[start] & 0xFF) << 24) | ((buffer[start + 1] & 0xFF) << 16)
+                    | ((buffer[start + 2] & 0xFF) << 8) | (buffer[start + 3] & 0xFF);
+        }
+
+        public long readLong() throws IOException {
+            long value = 0;
+            for (int i = 0; i < 8; ++i) {
+                value = (value << 8) | (readByte() & 0xFF);
+            }
+            return value;
+        }
+
+        public String readString() throws IOException {
+            int length = readVarInt() - 1;
+            if (length < 0) {
+                return null;
+            }
+            int start = skip(length);
+            return new String(buffer, start, length, StandardCharsets.UTF_8);
+        }
+
+        public String readInternedString() throws IOException {
+            int id = readVarInt();
+            if (id == 0) {
+                String string = readString();
+                strings.add(string);
+                return string;
+            }
+            --id;
+            if ((id >= 0) && (id < DICTIONARY.length)) {
+                return DICTIONARY[id];
+            }
+            id -= DICTIONARY.length;
+            if ((id < 0) || (id >= strings.size())) {
+                throw new IOException("Got an unknown string ID.");
+            }
+            return strings.get(id);
+        }
+
+        public int remaining() {
+            return end - position;
+        }
+    }
+}
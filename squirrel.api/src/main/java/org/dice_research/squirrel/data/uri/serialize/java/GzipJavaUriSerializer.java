@@ -2,25 +2,140 @@ package org.dice_research.squirrel.data.uri.serialize.java;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
 import org.apache.commons.io.IOUtils;
 import org.dice_research.squirrel.data.uri.serialize.Serializer;
 
-public class GzipJavaUriSerializer implements Serializer {
+/**
+ * A serializer that uses Java serialization and compresses the result with
+ * GZIP.
+ *
+ * <p>
+ * By default, the serializer reuses its buffers as well as its {@link Deflater}
+ * and {@link Inflater} instead of creating new streams (and with them new
+ * native zlib structures) for every message. They are used through the JDK's
+ * {@link DeflaterOutputStream} and {@link InflaterInputStream}. Only the GZIP
+ * header and trailer are handled by this class since the JDK's GZIP streams
+ * can not reuse a {@link Deflater} or {@link Inflater}. The format is the same
+ * in both modes and data with several GZIP members (e.g., concatenated GZIP
+ * files) can be read.
+ * </p>
+ *
+ * <p>
+ * The reused structures are kept in a pool of at most
+ * {@link #MAX_POOLED_STATES} entries. Structures that do not fit into the pool
+ * and all pooled structures of a closed serializer are freed immediately.
+ * </p>
+ */
+public class GzipJavaUriSerializer implements Serializer, Closeable {
+
+    protected static final int INITIAL_BUFFER_SIZE = 4096;
+    /**
+     * Buffers that grew larger than this size are not kept after a message has
+     * been handled.
+     */
+    protected static final int MAX_RETAINED_BUFFER_SIZE = 1 << 20;
+    /**
+     * The size of the buffers of the deflater and inflater streams.
+     */
+    protected static final int STREAM_BUFFER_SIZE = 512;
+    /**
+     * The maximum number of reused buffers and zlib structures that are kept
+     * while they are not used.
+     */
+    protected static final int MAX_POOLED_STATES = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+    protected static final int GZIP_MAGIC = 0x8b1f;
+    protected static final int GZIP_TRAILER_LENGTH = 8;
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+    /**
+     * The header written by {@link GZIPOutputStream}.
+     */
+    private static final byte[] GZIP_HEADER = new byte[] { (byte) GZIP_MAGIC, (byte) (GZIP_MAGIC >> 8),
+            Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0 };
+
+    /**
+     * The buffers and zlib structures that are currently not used.
+     */
+    private final Queue<GzipState> pooledStates = new ConcurrentLinkedQueue<>();
+    /**
+     * The number of entries of {@link #pooledStates}.
+     */
+    private final AtomicInteger numberOfPooledStates = new AtomicInteger();
+    private volatile boolean closed = false;
+
+    /**
+     * Flag indicating whether the buffers and zlib structures are reused.
+     */
+    private final boolean reuseStreams;
+
+    /**
+     * Constructor. Creates a serializer that reuses its streams.
+     */
+    public GzipJavaUriSerializer() {
+        this(true);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param reuseStreams
+     *            flag indicating whether the buffers and zlib structures should
+     *            be reused instead of allocating new streams for every message
+     */
+    public GzipJavaUriSerializer(boolean reuseStreams) {
+        this.reuseStreams = reuseStreams;
+    }
 
     @Override
     public <T> byte[] serialize(T object) throws IOException {
-        if (object instanceof Serializable) {
-            return toString((Serializable) object);
+        Serializable serializable = checkSerializable(object);
+        if (reuseStreams) {
+            GzipState state = acquireState();
+            try {
+                compress(serializable, state);
+                return Arrays.copyOf(state.compressed.getBuffer(), state.compressed.size());
+            } finally {
+                releaseState(state);
+            }
         } else {
-            throw new IllegalArgumentException("The given instance of " + object.getClass().getCanonicalName()
-                    + " does not implement the java.io.Serializable interface. This serializer does not support that.");
+            return toString(serializable);
+        }
+    }
+
+    @Override
+    public <T> int serialize(T object, ByteBuffer buffer) throws IOException {
+        Serializable serializable = checkSerializable(object);
+        if (reuseStreams) {
+            GzipState state = acquireState();
+            try {
+                compress(serializable, state);
+                return state.compressed.writeTo(buffer);
+            } finally {
+                releaseState(state);
+            }
+        } else {
+            return Serializer.super.serialize(object, buffer);
         }
     }
 
@@ -28,12 +143,202 @@ public class GzipJavaUriSerializer implements Serializer {
     @Override
     public <T> T deserialize(byte[] data) throws IOException {
         try {
-            return (T) fromString(data);
+            if (reuseStreams) {
+                GzipState state = acquireState();
+                try {
+                    return (T) decompress(data, state);
+                } finally {
+                    releaseState(state);
+                }
+            } else {
+                return (T) fromString(data);
+            }
         } catch (ClassNotFoundException e) {
             throw new IOException(e);
         }
     }
 
+    private static Serializable checkSerializable(Object object) {
+        if (object instanceof Serializable) {
+            return (Serializable) object;
+        } else {
+            throw new IllegalArgumentException("The given instance of " + object.getClass().getCanonicalName()
+                    + " does not implement the java.io.Serializable interface. This serializer does not support that.");
+        }
+    }
+
+    /**
+     * Frees all pooled zlib structures. The serializer can still be used
+     * afterwards but the zlib structures are not reused anymore.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        GzipState state;
+        while ((state = pooledStates.poll()) != null) {
+            numberOfPooledStates.decrementAndGet();
+            state.end();
+        }
+    }
+
+    /**
+     * Returns pooled buffers and zlib structures or creates new ones if the
+     * pool is empty.
+     */
+    protected GzipState acquireState() {
+        GzipState state = pooledStates.poll();
+        if (state != null) {
+            numberOfPooledStates.decrementAndGet();
+            return state;
+        }
+        return new GzipState();
+    }
+
+    /**
+     * Prepares the given state for the next message and puts it back into the
+     * pool. If the pool is full or the serializer has been closed, the zlib
+     * structures of the state are freed.
+     */
+    protected void releaseState(GzipState state) {
+        state.reset();
+        if (!closed) {
+            if (numberOfPooledStates.incrementAndGet() <= MAX_POOLED_STATES) {
+                pooledStates.offer(state);
+                // close() might have been called in the meantime
+                if (closed) {
+                    close();
+                }
+                return;
+            }
+            numberOfPooledStates.decrementAndGet();
+        }
+        state.end();
+    }
+
+    /**
+     * Serializes the given object and writes it GZIP compressed into the
+     * {@link GzipState#compressed} stream of the given state.
+     */
+    private static void compress(Serializable obj, GzipState state) throws IOException {
+        ReusableByteArrayOutputStream compressed = state.compressed;
+        compressed.write(GZIP_HEADER, 0, GZIP_HEADER.length);
+        // closing the stream finishes the deflater but does not end it since it is
+        // not owned by the stream
+        try (ObjectOutputStream os = new ObjectOutputStream(new CheckedOutputStream(
+                new DeflaterOutputStream(compressed, state.deflater, STREAM_BUFFER_SIZE), state.crc))) {
+            os.writeObject(obj);
+        }
+        writeIntLittleEndian(compressed, (int) state.crc.getValue());
+        writeIntLittleEndian(compressed, (int) state.deflater.getBytesRead());
+    }
+
+    /**
+     * Decompresses the given GZIP data into the {@link GzipState#raw} stream of
+     * the given state and deserializes the object. Like the
+     * {@link GZIPInputStream}, all members of the data are decompressed and
+     * trailing bytes that are not a GZIP member are ignored.
+     */
+    private static Object decompress(byte[] data, GzipState state) throws IOException, ClassNotFoundException {
+        ReusableByteArrayOutputStream raw = state.raw;
+        Inflater inflater = state.inflater;
+        CRC32 crc = state.crc;
+        int pos = readHeader(data, 0);
+        int memberStart;
+        int read;
+        while (true) {
+            memberStart = raw.size();
+            ByteArrayInputStream member = new ByteArrayInputStream(data, pos, data.length - pos);
+            // the stream does not end the inflater since it is not owned by the stream
+            InflaterInputStream in = new InflaterInputStream(member, inflater, STREAM_BUFFER_SIZE);
+            do {
+                raw.ensureCapacity(STREAM_BUFFER_SIZE);
+                read = in.read(raw.getBuffer(), raw.size(), raw.getBuffer().length - raw.size());
+                if (read > 0) {
+                    raw.setSize(raw.size() + read);
+                }
+            } while (read >= 0);
+            // check the trailer
+            pos = data.length - member.available() - inflater.getRemaining();
+            if ((data.length - pos) < GZIP_TRAILER_LENGTH) {
+                throw new IOException("Got GZIP data without trailer.");
+            }
+            crc.reset();
+            crc.update(raw.getBuffer(), memberStart, raw.size() - memberStart);
+            if ((readIntLittleEndian(data, pos) != (int) crc.getValue())
+                    || (readIntLittleEndian(data, pos + 4) != (raw.size() - memberStart))) {
+                throw new IOException("Got corrupt GZIP data.");
+            }
+            pos += GZIP_TRAILER_LENGTH;
+            if (!isHeader(data, pos)) {
+                break;
+            }
+            pos = readHeader(data, pos);
+            inflater.reset();
+        }
+        try (ObjectInputStream ois = new ObjectInputStream(
+                new ByteArrayInputStream(raw.getBuffer(), 0, raw.size()))) {
+            return ois.readObject();
+        }
+    }
+
+    /**
+     * Checks whether a GZIP member starts at the given position.
+     */
+    private static boolean isHeader(byte[] data, int pos) {
+        return ((data.length - pos) >= GZIP_HEADER.length)
+                && (((data[pos] & 0xFF) | ((data[pos + 1] & 0xFF) << 8)) == GZIP_MAGIC);
+    }
+
+    /**
+     * Checks the GZIP header starting at the given position and returns the
+     * position of the compressed data.
+     */
+    private static int readHeader(byte[] data, int pos) throws IOException {
+        if (!isHeader(data, pos) || (data[pos + 2] != Deflater.DEFLATED)) {
+            throw new IOException("Got data that is not in GZIP format.");
+        }
+        int flags = data[pos + 3] & 0xFF;
+        pos += GZIP_HEADER.length;
+        if ((flags & FEXTRA) != 0) {
+            if ((pos + 2) > data.length) {
+                throw new IOException("Got a malformed GZIP header.");
+            }
+            pos += 2 + ((data[pos] & 0xFF) | ((data[pos + 1] & 0xFF) << 8));
+        }
+        if ((flags & FNAME) != 0) {
+            pos = skipZeroTerminated(data, pos);
+        }
+        if ((flags & FCOMMENT) != 0) {
+            pos = skipZeroTerminated(data, pos);
+        }
+        if ((flags & FHCRC) != 0) {
+            pos += 2;
+        }
+        if (pos > data.length) {
+            throw new IOException("Got a malformed GZIP header.");
+        }
+        return pos;
+    }
+
+    private static int skipZeroTerminated(byte[] data, int pos) throws IOException {
+        while (pos < data.length && data[pos] != 0) {
+            ++pos;
+        }
+        return pos + 1;
+    }
+
+    private static void writeIntLittleEndian(ByteArrayOutputStream out, int value) {
+        out.write(value);
+        out.write(value >>> 8);
+        out.write(value >>> 16);
+        out.write(value >>> 24);
+    }
+
+    private static int readIntLittleEndian(byte[] data, int pos) {
+        return (data[pos] & 0xFF) | ((data[pos + 1] & 0xFF) << 8) | ((data[pos + 2] & 0xFF) << 16)
+                | ((data[pos + 3] & 0xFF) << 24);
+    }
+
     private static byte[] toString(Serializable obj) throws IOException {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         ObjectOutputStream os = null;
@@ -58,4 +363,36 @@ public class GzipJavaUriSerializer implements Serializer {
         }
     }
 
+    /**
+     * The buffers and zlib structures that are reused for several messages.
+     * They are used by a single thread at a time.
+     */
+    protected static class GzipState {
+        private final ReusableByteArrayOutputStream raw = new ReusableByteArrayOutputStream(INITIAL_BUFFER_SIZE);
+        private final ReusableByteArrayOutputStream compressed = new ReusableByteArrayOutputStream(
+                INITIAL_BUFFER_SIZE);
+        private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        private final Inflater inflater = new Inflater(true);
+        private final CRC32 crc = new CRC32();
+
+        /**
+         * Prepares the state for the next message.
+         */
+        public void reset() {
+            raw.reset(MAX_RETAINED_BUFFER_SIZE, INITIAL_BUFFER_SIZE);
+            compressed.reset(MAX_RETAINED_BUFFER_SIZE, INITIAL_BUFFER_SIZE);
+            deflater.reset();
+            inflater.reset();
+            crc.reset();
+        }
+
+        /**
+         * Frees the native zlib structures. The state can not be used anymore
+         * afterwards.
+         */
+        public void end() {
+            deflater.end();
+            inflater.end();
+        }
+    }
 }
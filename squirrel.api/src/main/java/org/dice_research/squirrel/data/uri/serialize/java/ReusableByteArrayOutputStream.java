@@ -0,0 +1,84 @@
+package org.dice_research.squirrel.data.uri.serialize.java;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link ByteArrayOutputStream} that gives access to its internal buffer.
+ * It is meant to be reused for several serializations without allocating a
+ * new array for every one of them.
+ */
+public class ReusableByteArrayOutputStream extends ByteArrayOutputStream {
+
+    public ReusableByteArrayOutputStream(int size) {
+        super(size);
+    }
+
+    /**
+     * Returns the internal buffer. Only the first {@link #size()} bytes are
+     * valid.
+     *
+     * @return the internal buffer of this stream
+     */
+    public byte[] getBuffer() {
+        return buf;
+    }
+
+    /**
+     * Makes sure that the internal buffer can take the given number of
+     * additional bytes.
+     *
+     * @param additionalBytes
+     *            the number of bytes that will be written
+     */
+    public void ensureCapacity(int additionalBytes) {
+        int minCapacity = count + additionalBytes;
+        if (minCapacity > buf.length) {
+            byte[] newBuf = new byte[Math.max(buf.length << 1, minCapacity)];
+            System.arraycopy(buf, 0, newBuf, 0, count);
+            buf = newBuf;
+        }
+    }
+
+    /**
+     * Sets the number of valid bytes after the internal buffer has been written
+     * directly.
+     *
+     * @param size
+     *            the new number of valid bytes
+     */
+    public void setSize(int size) {
+        count = size;
+    }
+
+    /**
+     * Copies the valid bytes into the given buffer.
+     *
+     * @param buffer
+     *            the buffer the bytes are written to
+     * @return the number of written bytes
+     * @throws java.nio.BufferOverflowException
+     *             if the remaining space of the buffer is too small
+     */
+    public int writeTo(ByteBuffer buffer) {
+        buffer.put(buf, 0, count);
+        return count;
+    }
+
+    /**
+     * Resets the stream and replaces the internal buffer if it is larger than
+     * the given size. This avoids that a single large message keeps a large
+     * buffer alive.
+     *
+     * @param maxRetainedSize
+     *            the maximum size of the internal buffer that is kept
+     * @param initialSize
+     *            the size of the new buffer if the old one is dropped
+     */
+    public void reset(int maxRetainedSize, int initialSize) {
+        reset();
+        if (buf.length > maxRetainedSize) {
+            buf = new byte[initialSize];
+        }
+    }
+}
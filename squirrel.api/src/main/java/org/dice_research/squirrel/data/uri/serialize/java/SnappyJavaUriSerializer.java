@@ -6,20 +6,92 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Base64;
 
 import org.dice_research.squirrel.data.uri.serialize.Serializer;
 import org.xerial.snappy.Snappy;
 
+/**
+ * A serializer that uses Java serialization, encodes the result with Base64 and
+ * compresses it with Snappy.
+ *
+ * <p>
+ * By default, every thread reuses its buffers instead of allocating new arrays
+ * and strings for every message. The format is the same in both modes.
+ * </p>
+ */
 public class SnappyJavaUriSerializer implements Serializer {
 
+    protected static final int INITIAL_BUFFER_SIZE = 4096;
+    /**
+     * Buffers that grew larger than this size are not kept after a message has
+     * been handled.
+     */
+    protected static final int MAX_RETAINED_BUFFER_SIZE = 1 << 20;
+
+    private static final byte[] BASE64_ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/"
+            .getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * The buffers of the current thread.
+     */
+    private static final ThreadLocal<SnappyState> STATE = ThreadLocal.withInitial(SnappyState::new);
+
+    /**
+     * Flag indicating whether the buffers of the current thread are reused.
+     */
+    private final boolean reuseStreams;
+
+    /**
+     * Constructor. Creates a serializer that reuses its buffers.
+     */
+    public SnappyJavaUriSerializer() {
+        this(true);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param reuseStreams
+     *            flag indicating whether every thread should reuse its buffers
+     *            instead of allocating new ones for every message
+     */
+    public SnappyJavaUriSerializer(boolean reuseStreams) {
+        this.reuseStreams = reuseStreams;
+    }
+
     @Override
     public <T> byte[] serialize(T object) throws IOException {
-        if (object instanceof Serializable) {
-            return toString((Serializable) object);
+        Serializable serializable = checkSerializable(object);
+        if (reuseStreams) {
+            SnappyState state = STATE.get();
+            try {
+                compress(serializable, state);
+                return Arrays.copyOf(state.compressed.getBuffer(), state.compressed.size());
+            } finally {
+                state.release();
+            }
         } else {
-            throw new IllegalArgumentException("The given instance of " + object.getClass().getCanonicalName()
-                    + " does not implement the java.io.Serializable interface. This serializer does not support that.");
+            return toString(serializable);
+        }
+    }
+
+    @Override
+    public <T> int serialize(T object, ByteBuffer buffer) throws IOException {
+        Serializable serializable = checkSerializable(object);
+        if (reuseStreams) {
+            SnappyState state = STATE.get();
+            try {
+                compress(serializable, state);
+                return state.compressed.writeTo(buffer);
+            } finally {
+                state.release();
+            }
+        } else {
+            return Serializer.super.serialize(object, buffer);
         }
     }
 
@@ -27,12 +99,93 @@ public class SnappyJavaUriSerializer implements Serializer {
     @Override
     public <T> T deserialize(byte[] data) throws IOException {
         try {
-            return (T) fromString(data);
+            if (reuseStreams) {
+                SnappyState state = STATE.get();
+                try {
+                    return (T) decompress(data, state);
+                } finally {
+                    state.release();
+                }
+            } else {
+                return (T) fromString(data);
+            }
         } catch (ClassNotFoundException e) {
             throw new IOException(e);
         }
     }
 
+    private static Serializable checkSerializable(Object object) {
+        if (object instanceof Serializable) {
+            return (Serializable) object;
+        } else {
+            throw new IllegalArgumentException("The given instance of " + object.getClass().getCanonicalName()
+                    + " does not implement the java.io.Serializable interface. This serializer does not support that.");
+        }
+    }
+
+    /**
+     * Serializes the given object, encodes it and writes it compressed into the
+     * {@link SnappyState#compressed} stream of the given state.
+     */
+    private static void compress(Serializable obj, SnappyState state) throws IOException {
+        try (ObjectOutputStream oos = new ObjectOutputStream(state.raw)) {
+            oos.writeObject(obj);
+        }
+        encodeBase64(state.raw, state.encoded);
+        int encodedSize = state.encoded.size();
+        ReusableByteArrayOutputStream compressed = state.compressed;
+        compressed.ensureCapacity(Snappy.maxCompressedLength(encodedSize));
+        compressed.setSize(Snappy.compress(state.encoded.getBuffer(), 0, encodedSize, compressed.getBuffer(), 0));
+    }
+
+    /**
+     * Decompresses the given data into the {@link SnappyState#encoded} stream of
+     * the given state, decodes it and deserializes the object.
+     */
+    private static Object decompress(byte[] data, SnappyState state) throws IOException, ClassNotFoundException {
+        ReusableByteArrayOutputStream encoded = state.encoded;
+        int length = Snappy.uncompressedLength(data, 0, data.length);
+        encoded.ensureCapacity(length);
+        encoded.setSize(Snappy.uncompress(data, 0, data.length, encoded.getBuffer(), 0));
+        try (ObjectInputStream ois = new ObjectInputStream(Base64.getDecoder()
+                .wrap(new ByteArrayInputStream(encoded.getBuffer(), 0, encoded.size())))) {
+            return ois.readObject();
+        }
+    }
+
+    /**
+     * Writes the Base64 encoding of the given bytes into the given stream. In
+     * contrast to {@link Base64.Encoder#wrap(java.io.OutputStream)}, this does
+     * not need an additional buffer.
+     */
+    private static void encodeBase64(ReusableByteArrayOutputStream source, ReusableByteArrayOutputStream target) {
+        byte[] src = source.getBuffer();
+        int length = source.size();
+        target.ensureCapacity(4 * ((length + 2) / 3));
+        byte[] dst = target.getBuffer();
+        int pos = target.size();
+        int bits;
+        int i = 0;
+        for (; (i + 2) < length; i += 3) {
+            bits = ((src[i] & 0xFF) << 16) | ((src[i + 1] & 0xFF) << 8) | (src[i + 2] & 0xFF);
+            dst[pos++] = BASE64_ALPHABET[(bits >>> 18) & 0x3F];
+            dst[pos++] = BASE64_ALPHABET[(bits >>> 12) & 0x3F];
+            dst[pos++] = BASE64_ALPHABET[(bits >>> 6) & 0x3F];
+            dst[pos++] = BASE64_ALPHABET[bits & 0x3F];
+        }
+        if (i < length) {
+            bits = (src[i] & 0xFF) << 16;
+            if ((i + 1) < length) {
+                bits |= (src[i + 1] & 0xFF) << 8;
+            }
+            dst[pos++] = BASE64_ALPHABET[(bits >>> 18) & 0x3F];
+            dst[pos++] = BASE64_ALPHABET[(bits >>> 12) & 0x3F];
+            dst[pos++] = ((i + 1) < length) ? BASE64_ALPHABET[(bits >>> 6) & 0x3F] : (byte) '=';
+            dst[pos++] = '=';
+        }
+        target.setSize(pos);
+    }
+
     private static byte[] toString(Serializable obj) throws IOException {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         ObjectOutputStream oos = new ObjectOutputStream(baos);
@@ -53,4 +206,22 @@ public class SnappyJavaUriSerializer implements Serializer {
         return o;
     }
 
+    /**
+     * The buffers that are reused by a single thread.
+     */
+    protected static class SnappyState {
+        private final ReusableByteArrayOutputStream raw = new ReusableByteArrayOutputStream(INITIAL_BUFFER_SIZE);
+        private final ReusableByteArrayOutputStream encoded = new ReusableByteArrayOutputStream(INITIAL_BUFFER_SIZE);
+        private final ReusableByteArrayOutputStream compressed = new ReusableByteArrayOutputStream(
+                INITIAL_BUFFER_SIZE);
+
+        /**
+         * Prepares the state for the next message.
+         */
+        public void release() {
+            raw.reset(MAX_RETAINED_BUFFER_SIZE, INITIAL_BUFFER_SIZE);
+            encoded.reset(MAX_RETAINED_BUFFER_SIZE, INITIAL_BUFFER_SIZE);
+            compressed.reset(MAX_RETAINED_BUFFER_SIZE, INITIAL_BUFFER_SIZE);
+        }
+    }
 }
@@ -0,0 +1,160 @@
+package org.dice_research.squirrel.deduplication.hashing.impl;
+
+import java.util.Arrays;
+
+import org.dice_research.squirrel.deduplication.hashing.HashValue;
+
+/**
+ * A MinHash signature stored as primitive array of integers. In contrast to
+ * the {@link ArrayHashValue}, the signature does not contain {@code null}
+ * values and does not box its values.
+ */
+public class MinHashValue implements HashValue {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The delimiter between the single values of the encoded signature.
+     */
+    private static final char DELIMITER = ',';
+
+    /**
+     * The signature.
+     */
+    private int[] signature;
+
+    /**
+     * Constructor.
+     */
+    public MinHashValue() {
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param signature the MinHash signature
+     */
+    public MinHashValue(int[] signature) {
+        this.signature = signature;
+    }
+
+    /**
+     * @return the MinHash signature
+     */
+    public int[] getSignature() {
+        return signature;
+    }
+
+    /**
+     * Estimates the Jaccard similarity of the sets represented by this and the
+     * given signature, i.e., the ratio of positions at which both signatures
+     * have the same value.
+     *
+     * @param other the signature this signature should be compared with
+     * @return the estimated Jaccard similarity
+     * @throws IllegalArgumentException if the signatures have different lengths
+     */
+    public double estimateJaccard(MinHashValue other) {
+        return estimateJaccard(signature, other.signature);
+    }
+
+    /**
+     * Estimates the Jaccard similarity of the sets represented by the two given
+     * signatures, i.e., the ratio of positions at which both signatures have
+     * the same value.
+     *
+     * @param signature1 the first signature
+     * @param signature2 the second signature
+     * @return the estimated Jaccard similarity
+     * @throws IllegalArgumentException if the signatures have different lengths
+     */
+    public static double estimateJaccard(int[] signature1, int[] signature2) {
+        return estimateJaccard(signature1, 0, signature2, 0, signature1.length);
+    }
+
+    /**
+     * Estimates the Jaccard similarity of the two signatures that are stored at
+     * the given positions of the given arrays.
+     *
+     * @param array1  the array containing the first signature
+     * @param offset1 the position of the first signature
+     * @param array2  the array containing the second signature
+     * @param offset2 the position of the second signature
+     * @param length  the length of the signatures
+     * @return the estimated Jaccard similarity
+     * @throws IllegalArgumentException if one of the arrays is too short
+     */
+    public static double estimateJaccard(int[] array1, int offset1, int[] array2, int offset2, int length) {
+        if (((offset1 + length) > array1.length) || ((offset2 + length) > array2.length)) {
+            throw new IllegalArgumentException("The given signatures do not have the expected length " + length + ".");
+        }
+        if (length == 0) {
+            return 0;
+        }
+        int matches = 0;
+        for (int i = 0; i < length; ++i) {
+            if (array1[offset1 + i] == array2[offset2 + i]) {
+                ++matches;
+            }
+        }
+        return matches / (double) length;
+    }
+
+    @Override
+    public String encodeToString() {
+        StringBuilder builder = new StringBuilder(signature.length * 11);
+        for (int i = 0; i < signature.length; ++i) {
+            if (i > 0) {
+                builder.append(DELIMITER);
+            }
+            builder.append(signature[i]);
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public HashValue decodeFromString(String s) {
+        if (s.isEmpty()) {
+            return new MinHashValue(new int[0]);
+        }
+        int count = 1;
+        for (int i = 0; i < s.length(); ++i) {
+            if (s.charAt(i) == DELIMITER) {
+                ++count;
+            }
+        }
+        int[] values = new int[count];
+        int start = 0;
+        int end;
+        for (int i = 0; i < count; ++i) {
+            end = s.indexOf(DELIMITER, start);
+            if (end < 0) {
+                end = s.length();
+            }
+            values[i] = Integer.parseInt(s.substring(start, end));
+            start = end + 1;
+        }
+        return new MinHashValue(values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(signature);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof MinHashValue)) {
+            return false;
+        }
+        return Arrays.equals(signature, ((MinHashValue) obj).signature);
+    }
+
+    @Override
+    public String toString() {
+        return "MinHashValue " + Arrays.toString(signature);
+    }
+}
@@ -0,0 +1,68 @@
+package org.dice_research.squirrel.iterators;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Iterates over the elements of several iterators (in the given order) and
+ * skips elements that have already been returned. This is used to merge the
+ * serialized URIs returned by several analyzers, which often share the same
+ * collector and, hence, return the same URIs. {@code null} iterators are
+ * ignored.
+ */
+public class DistinctMergingIterator implements Iterator<byte[]> {
+
+    /**
+     * The iterators that have not been consumed yet.
+     */
+    protected List<Iterator<byte[]>> iterators;
+    /**
+     * The elements that have already been returned.
+     */
+    protected Set<ByteBuffer> seen = new HashSet<>();
+    /**
+     * The next element or {@code null} if it has not been retrieved yet.
+     */
+    protected byte[] next = null;
+
+    public DistinctMergingIterator(Collection<Iterator<byte[]>> iterators) {
+        this.iterators = new ArrayList<>(iterators.size());
+        for (Iterator<byte[]> iterator : iterators) {
+            if (iterator != null) {
+                this.iterators.add(iterator);
+            }
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while ((next == null) && !iterators.isEmpty()) {
+            Iterator<byte[]> current = iterators.get(0);
+            if (current.hasNext()) {
+                byte[] candidate = current.next();
+                if ((candidate != null) && seen.add(ByteBuffer.wrap(candidate))) {
+                    next = candidate;
+                }
+            } else {
+                iterators.remove(0);
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public byte[] next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        byte[] result = next;
+        next = null;
+        return result;
+    }
+}
@@ -2,26 +2,59 @@ package org.dice_research.squirrel.queue;
 
 import java.util.AbstractMap;
 import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import org.dice_research.squirrel.data.uri.CrawleableUri;
 import org.dice_research.squirrel.data.uri.group.UriGroupByOperator;
 
 /**
- * This abstract class manages two important aspects of a queue. It uses a mutex
- * to access the queue and it manages a set containing Domains that are
- * currently blocked by one of the workers.
+ * This abstract class manages two important aspects of a queue. It guards the
+ * access to the single URI groups and it manages a set containing keys that
+ * are currently blocked by one of the workers.
+ * 
+ * <p>
+ * Instead of a single monitor for the complete queue, the access to a group is
+ * guarded by one of {@link #DEFAULT_NUMBER_OF_STRIPES} lock stripes that is
+ * chosen based on the hash of the group key. Hence, URIs of different groups
+ * can be added, handed out and removed in parallel. Blocking a group is done
+ * with an atomic insertion into a concurrent set. As a consequence,
+ * implementations have to make sure that their storage can be accessed
+ * concurrently for <b>different</b> groups, i.e., {@link #getGroupIterator()}
+ * has to be weakly consistent and the methods {@link #addUri(CrawleableUri, Object)},
+ * {@link #getUris(Object)} and {@link #deleteUris(Object, List)} have to be
+ * safe as long as they are not called for the same group at the same time.
+ * </p>
+ * 
+ * <p>
+ * The queue keeps track of the groups that are ready to be handed out, i.e.,
+ * groups that contain URIs and are not blocked, in a FIFO ring of
+ * {@link #readyGroups}. Hence, choosing the next group takes constant time
+ * independent of the number of blocked groups and the storage of the
+ * implementation has to be scanned only once (with {@link #getGroupIterator()})
+ * to take over groups that already exist when the queue is used for the first
+ * time, e.g., because they have been persisted.
+ * </p>
  *
  * @author Geraldo de Souza Junior (gsjunior@mail.uni-paderborn.de)
  */
 
 public abstract class AbstractGroupingQueue<T> implements BlockingQueue<T> {
 
+    /**
+     * Default number of lock stripes. Has to be a power of two.
+     */
+    public static final int DEFAULT_NUMBER_OF_STRIPES = 64;
+
     /**
      * Operator used to group URIs.
      */
@@ -29,7 +62,25 @@ public abstract class AbstractGroupingQueue<T> implements BlockingQueue<T> {
     /**
      * Set of blocked key values.
      */
-    private Set<T> blockedKeys = new HashSet<T>();
+    private Set<T> blockedKeys = ConcurrentHashMap.newKeySet();
+    /**
+     * Ring of groups that can be handed out. It may contain keys of groups that
+     * have been removed or blocked in the meantime. Those are skipped.
+     */
+    private Queue<T> readyGroups = new ConcurrentLinkedQueue<T>();
+    /**
+     * Set of key values that are currently part of the {@link #readyGroups}.
+     */
+    private Set<T> readyKeys = ConcurrentHashMap.newKeySet();
+    /**
+     * Flag indicating whether the groups that existed before the first request
+     * have been added to the {@link #readyGroups}.
+     */
+    private volatile boolean readyGroupsInitialized = false;
+    /**
+     * Locks guarding the access to the single groups.
+     */
+    private final Object[] stripes;
 
     /**
      * Constructor.
@@ -38,13 +89,74 @@ public abstract class AbstractGroupingQueue<T> implements BlockingQueue<T> {
      *            Operator used to group URIs
      */
     public AbstractGroupingQueue(UriGroupByOperator<T> groupByOperator) {
+        this(groupByOperator, DEFAULT_NUMBER_OF_STRIPES);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param groupByOperator
+     *            Operator used to group URIs
+     * @param numberOfStripes
+     *            the number of locks used to guard the groups (will be rounded
+     *            up to the next power of two)
+     */
+    public AbstractGroupingQueue(UriGroupByOperator<T> groupByOperator, int numberOfStripes) {
         this.groupByOperator = groupByOperator;
+        int size = 1;
+        while (size < numberOfStripes) {
+            size <<= 1;
+        }
+        stripes = new Object[size];
+        for (int i = 0; i < stripes.length; ++i) {
+            stripes[i] = new Object();
+        }
     }
 
     @Override
     public void addUri(CrawleableUri uri) {
-        synchronized (this) {
-            addUri(uri, groupByOperator.retrieveKey(uri));
+        T key = groupByOperator.retrieveKey(uri);
+        synchronized (getLock(key)) {
+            addUri(uri, key);
+            if ((key != null) && !blockedKeys.contains(key)) {
+                markGroupAsReady(key);
+            }
+        }
+    }
+
+    @Override
+    public void addUris(List<CrawleableUri> uris) {
+        // group the URIs (the group by operator can not handle null keys)
+        Map<T, List<CrawleableUri>> groups = new LinkedHashMap<>();
+        for (CrawleableUri uri : uris) {
+            groups.computeIfAbsent(groupByOperator.retrieveKey(uri), k -> new ArrayList<>()).add(uri);
+        }
+        T key;
+        for (Entry<T, List<CrawleableUri>> group : groups.entrySet()) {
+            key = group.getKey();
+            synchronized (getLock(key)) {
+                addUris(key, group.getValue());
+                if ((key != null) && !blockedKeys.contains(key)) {
+                    markGroupAsReady(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the given URIs that share the given group key to the queue. The
+     * default implementation calls {@link #addUri(CrawleableUri, Object)} for
+     * every single URI. Implementations may override it to add all URIs at once.
+     * 
+     * @param groupKey
+     *            the group key which should be used to identify the group the URIs
+     *            belong to
+     * @param uris
+     *            the URIs that should be added to the queue
+     */
+    protected void addUris(T groupKey, List<CrawleableUri> uris) {
+        for (CrawleableUri uri : uris) {
+            addUri(uri, groupKey);
         }
     }
 
@@ -61,17 +173,64 @@ public abstract class AbstractGroupingQueue<T> implements BlockingQueue<T> {
 
     @Override
     public List<CrawleableUri> getNextUris() {
-        synchronized (this) {
-            T key;
-            Iterator<T> iterator = getGroupIterator();
-            do {
-                if (!iterator.hasNext()) {
-                    return null;
+        if (!readyGroupsInitialized) {
+            initReadyGroups();
+        }
+        T key;
+        List<CrawleableUri> uris;
+        while ((key = readyGroups.poll()) != null) {
+            synchronized (getLock(key)) {
+                readyKeys.remove(key);
+                // if the group has been blocked in the meantime, it will be added to the
+                // ring again when it is released
+                if (!blockedKeys.contains(key)) {
+                    uris = getUris(key);
+                    // if the group has been removed in the meantime, skip it
+                    if ((uris != null) && !uris.isEmpty()) {
+                        blockedKeys.add(key);
+                        return uris;
+                    }
                 }
-                key = iterator.next();
-            } while (blockedKeys.contains(key));
-            blockedKeys.add(key);
-            return getUris(key);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds all groups that are currently stored in the queue to the
+     * {@link #readyGroups}. This is done only once before the first group is
+     * handed out.
+     */
+    protected void initReadyGroups() {
+        synchronized (readyGroups) {
+            if (!readyGroupsInitialized) {
+                Iterator<T> iterator = getGroupIterator();
+                T key;
+                while (iterator.hasNext()) {
+                    key = iterator.next();
+                    if (key != null) {
+                        synchronized (getLock(key)) {
+                            if (!blockedKeys.contains(key)) {
+                                markGroupAsReady(key);
+                            }
+                        }
+                    }
+                }
+                readyGroupsInitialized = true;
+            }
+        }
+    }
+
+    /**
+     * Appends the given group to the {@link #readyGroups} if it is not already
+     * part of it. The caller has to hold the lock of the group.
+     * 
+     * @param groupKey
+     *            key of the URI group
+     */
+    private void markGroupAsReady(T groupKey) {
+        if (readyKeys.add(groupKey)) {
+            readyGroups.offer(groupKey);
         }
     }
 
@@ -82,10 +241,15 @@ public abstract class AbstractGroupingQueue<T> implements BlockingQueue<T> {
 
     @Override
     public void markUrisAsAccessible(Collection<CrawleableUri> uris) {
-        synchronized (this) {
-            for (Entry<T, List<CrawleableUri>> uriGroup : groupByOperator.groupByKey(uris).entrySet()) {
+        for (Entry<T, List<CrawleableUri>> uriGroup : groupByOperator.groupByKey(uris).entrySet()) {
+            synchronized (getLock(uriGroup.getKey())) {
+                // the key is released after the URIs are removed to make sure that they
+                // can not be handed out a second time
+                if (deleteUris(uriGroup.getKey(), uriGroup.getValue())) {
+                    // URIs have been added while the group was blocked
+                    markGroupAsReady(uriGroup.getKey());
+                }
                 blockedKeys.remove(uriGroup.getKey());
-                deleteUris(uriGroup.getKey(), uriGroup.getValue());
             }
         }
     }
@@ -104,13 +268,31 @@ public abstract class AbstractGroupingQueue<T> implements BlockingQueue<T> {
             @Override
             public SimpleEntry<T, List<CrawleableUri>> next() {
                 T key = cursor.next();
-                return new AbstractMap.SimpleEntry<>(key, getUris(key));
+                synchronized (getLock(key)) {
+                    return new AbstractMap.SimpleEntry<>(key, getUris(key));
+                }
             }
         };
     }
 
+    /**
+     * Returns the lock guarding the group with the given key.
+     * 
+     * @param groupKey
+     *            key of the URI group
+     * @return the lock of the stripe the given group belongs to
+     */
+    protected Object getLock(T groupKey) {
+        int h = (groupKey == null) ? 0 : groupKey.hashCode();
+        // spread the higher bits since the stripes are selected using a bit mask
+        h ^= (h >>> 16);
+        return stripes[h & (stripes.length - 1)];
+    }
+
     /**
      * Returns an iterator over all group keys that are currently in the queue.
+     * Note that the iterator has to be weakly consistent, i.e., it must not
+     * fail if the queue is changed by other threads while iterating.
      * 
      * @return all group keys currently in the queue
      */
@@ -132,7 +314,9 @@ public abstract class AbstractGroupingQueue<T> implements BlockingQueue<T> {
      *            key of the given URI group
      * @param uris
      *            set of URIs which should be removed
+     * @return {@code true} if the group still contains URIs after the removal,
+     *         else {@code false}
      */
-    protected abstract void deleteUris(T groupKey, List<CrawleableUri> uris);
+    protected abstract boolean deleteUris(T groupKey, List<CrawleableUri> uris);
 
 }
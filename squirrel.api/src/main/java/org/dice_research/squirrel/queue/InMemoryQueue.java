@@ -6,12 +6,13 @@ import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.SortedMap;
-import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 import org.dice_research.squirrel.data.uri.CrawleableUri;
 
 /**
- * An IP-based queue which holds its data in memory.
+ * An IP-based queue which holds its data in memory. The groups are stored in a
+ * concurrent map, i.e., URIs of different IPs can be handled in parallel.
  * 
  * @author Michael R&ouml;der (michael.roeder@uni-paderborn.de)
  *
@@ -21,18 +22,17 @@ public class InMemoryQueue extends AbstractIpAddressBasedQueue implements Compar
     protected SortedMap<InetAddress, List<CrawleableUri>> queue;
 
     public InMemoryQueue() {
-        queue = new TreeMap<InetAddress, List<CrawleableUri>>(this);
+        queue = new ConcurrentSkipListMap<InetAddress, List<CrawleableUri>>(this);
     }
 
     @Override
     protected void addUri(CrawleableUri uri, InetAddress address) {
-        if (queue.containsKey(address)) {
-            queue.get(address).add(uri);
-        } else {
-            List<CrawleableUri> uris = new ArrayList<CrawleableUri>();
-            uris.add(uri);
+        List<CrawleableUri> uris = queue.get(address);
+        if (uris == null) {
+            uris = new ArrayList<CrawleableUri>();
             queue.put(address, uris);
         }
+        uris.add(uri);
     }
 
     @Override
@@ -42,12 +42,12 @@ public class InMemoryQueue extends AbstractIpAddressBasedQueue implements Compar
 
     @Override
     protected List<CrawleableUri> getUris(InetAddress address) {
-        List<CrawleableUri> uris = null;
-        if (queue.containsKey(address)) {
+        List<CrawleableUri> uris = queue.get(address);
+        if (uris != null) {
             // Create a new list to make sure that the internal list can not be changed from
             // outside and that internal changes do not take effect in the list that is
             // retrieved by this method.
-            uris = new ArrayList<>(queue.get(address));
+            uris = new ArrayList<>(uris);
         }
         return uris;
     }
@@ -68,14 +68,17 @@ public class InMemoryQueue extends AbstractIpAddressBasedQueue implements Compar
     }
 
     @Override
-    protected void deleteUris(InetAddress address, List<CrawleableUri> uris) {
-        if (queue.containsKey(address)) {
-            List<CrawleableUri> queuedUris = queue.get(address);
+    protected boolean deleteUris(InetAddress address, List<CrawleableUri> uris) {
+        List<CrawleableUri> queuedUris = queue.get(address);
+        if (queuedUris != null) {
             queuedUris.removeAll(uris);
             if (queuedUris.isEmpty()) {
                 queue.remove(address);
+            } else {
+                return true;
             }
         }
+        return false;
     }
 
     @Override
@@ -0,0 +1,254 @@
+package org.dice_research.squirrel.queue;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.dice_research.squirrel.Constants;
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+
+/**
+ * A decorator of a {@link BlockingQueue} that makes sure that the frontier
+ * respects the politeness of the crawled servers. Instead of releasing a
+ * group as soon as a worker reports that it has been crawled, the release is
+ * postponed until the earliest point in time at which the next request to the
+ * group is allowed. Until then, the group stays blocked in the decorated queue
+ * and can not be handed out to another worker.
+ *
+ * <p>
+ * The delay of a group is the maximum of the {@link #defaultDelay} and the
+ * crawl delays that the worker stored with the key
+ * {@link Constants#URI_CRAWL_DELAY_KEY} in the crawled URIs. The pending
+ * releases are kept in a heap ordered by their release time which is checked
+ * every time a worker requests new URIs. Hence, no thread has to sleep while
+ * waiting for the delay to pass.
+ * </p>
+ *
+ * <p>
+ * Optionally, the number of URIs that are handed out for a single group can
+ * be limited. The remaining URIs of the group stay in the queue and are handed
+ * out after the next delay. If this limit is set to {@code 1}, a worker never
+ * has to wait between two requests to the same server.
+ * </p>
+ *
+ * @param <T>
+ *            the type of the key that is used to group the URIs
+ */
+public class PolitenessAwareQueue<T> implements BlockingQueue<T> {
+
+    /**
+     * Default delay (in ms) between two requests to the same URI group.
+     */
+    public static final long DEFAULT_DELAY = 0;
+    /**
+     * Value of {@link #maxUrisPerGroup} that represents no limit.
+     */
+    public static final int NO_LIMIT = 0;
+
+    /**
+     * The decorated queue.
+     */
+    protected BlockingQueue<T> decorated;
+    /**
+     * The minimum delay (in ms) between two requests to the same URI group.
+     */
+    protected long defaultDelay;
+    /**
+     * The maximum number of URIs that are handed out for a single group or
+     * {@link #NO_LIMIT}.
+     */
+    protected int maxUrisPerGroup;
+    /**
+     * The source of the current time (in ms) that is used to compute the
+     * release times of the groups.
+     */
+    protected LongSupplier clock;
+    /**
+     * Heap of URIs that have been crawled and whose groups will be released
+     * as soon as their delay is over.
+     */
+    private DelayQueue<PendingRelease> pendingReleases = new DelayQueue<>();
+
+    /**
+     * Constructor.
+     *
+     * @param decorated
+     *            the decorated queue
+     */
+    public PolitenessAwareQueue(BlockingQueue<T> decorated) {
+        this(decorated, DEFAULT_DELAY, NO_LIMIT);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param decorated
+     *            the decorated queue
+     * @param defaultDelay
+     *            the minimum delay (in ms) between two requests to the same URI
+     *            group
+     * @param maxUrisPerGroup
+     *            the maximum number of URIs that are handed out for a single
+     *            group or {@link #NO_LIMIT}
+     */
+    public PolitenessAwareQueue(BlockingQueue<T> decorated, long defaultDelay, int maxUrisPerGroup) {
+        this(decorated, defaultDelay, maxUrisPerGroup, System::currentTimeMillis);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param decorated
+     *            the decorated queue
+     * @param defaultDelay
+     *            the minimum delay (in ms) between two requests to the same URI
+     *            group
+     * @param maxUrisPerGroup
+     *            the maximum number of URIs that are handed out for a single
+     *            group or {@link #NO_LIMIT}
+     * @param clock
+     *            the source of the current time (in ms)
+     */
+    public PolitenessAwareQueue(BlockingQueue<T> decorated, long defaultDelay, int maxUrisPerGroup,
+            LongSupplier clock) {
+        this.decorated = decorated;
+        this.defaultDelay = defaultDelay;
+        this.maxUrisPerGroup = maxUrisPerGroup;
+        this.clock = clock;
+    }
+
+    @Override
+    public void addUri(CrawleableUri uri) {
+        decorated.addUri(uri);
+    }
+
+    @Override
+    public void addUris(List<CrawleableUri> uris) {
+        decorated.addUris(uris);
+    }
+
+    @Override
+    public List<CrawleableUri> getNextUris() {
+        releaseGroups();
+        List<CrawleableUri> uris = decorated.getNextUris();
+        if ((uris != null) && (maxUrisPerGroup > NO_LIMIT) && (uris.size() > maxUrisPerGroup)) {
+            uris = new ArrayList<>(uris.subList(0, maxUrisPerGroup));
+        }
+        return uris;
+    }
+
+    @Override
+    public void markUrisAsAccessible(Collection<CrawleableUri> uris) {
+        long delay = defaultDelay;
+        Object crawlDelay;
+        for (CrawleableUri uri : uris) {
+            crawlDelay = uri.getData(Constants.URI_CRAWL_DELAY_KEY);
+            if (crawlDelay instanceof Number) {
+                delay = Math.max(delay, ((Number) crawlDelay).longValue());
+            }
+        }
+        if (delay > 0) {
+            pendingReleases.offer(new PendingRelease(clock.getAsLong() + delay, uris, clock));
+        } else {
+            decorated.markUrisAsAccessible(uris);
+        }
+    }
+
+    /**
+     * Releases all groups whose delay is over.
+     */
+    protected void releaseGroups() {
+        PendingRelease release;
+        while ((release = pendingReleases.poll()) != null) {
+            decorated.markUrisAsAccessible(release.uris);
+        }
+    }
+
+    /**
+     * Returns the number of groups that are waiting for their delay to pass.
+     *
+     * @return the number of groups that are waiting for their delay to pass
+     */
+    public int getNumberOfDelayedGroups() {
+        return pendingReleases.size();
+    }
+
+    @Override
+    public int getNumberOfBlockedKeys() {
+        return decorated.getNumberOfBlockedKeys();
+    }
+
+    @Override
+    public Iterator<SimpleEntry<T, List<CrawleableUri>>> getIterator() {
+        return decorated.getIterator();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return decorated.isEmpty();
+    }
+
+    @Override
+    public void open() {
+        decorated.open();
+    }
+
+    @Override
+    public void close() {
+        decorated.close();
+    }
+
+    /**
+     * Returns the decorated queue.
+     *
+     * @return the decorated queue
+     */
+    public BlockingQueue<T> getDecorated() {
+        return decorated;
+    }
+
+    /**
+     * URIs whose group has to stay blocked until the given release time.
+     */
+    protected static class PendingRelease implements Delayed {
+
+        /**
+         * The time stamp (in ms) at which the group can be released.
+         */
+        protected final long releaseTime;
+        /**
+         * The crawled URIs that have to be marked as accessible.
+         */
+        protected final Collection<CrawleableUri> uris;
+        /**
+         * The source of the current time (in ms).
+         */
+        protected final LongSupplier clock;
+
+        public PendingRelease(long releaseTime, Collection<CrawleableUri> uris, LongSupplier clock) {
+            this.releaseTime = releaseTime;
+            this.uris = uris;
+            this.clock = clock;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(releaseTime - clock.getAsLong(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            if (other instanceof PendingRelease) {
+                return Long.compare(releaseTime, ((PendingRelease) other).releaseTime);
+            } else {
+                return Long.compare(getDelay(TimeUnit.MILLISECONDS), other.getDelay(TimeUnit.MILLISECONDS));
+            }
+        }
+    }
+}
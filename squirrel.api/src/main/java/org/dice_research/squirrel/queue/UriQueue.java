@@ -20,6 +20,22 @@ public interface UriQueue {
      *            queue.
      */
     public void addUri(CrawleableUri uri);
+
+    /**
+     * Adds the given {@link CrawleableUri} instances to the queue. Works like
+     * calling {@link #addUri(CrawleableUri)} for every single URI but
+     * implementations may add the URIs in a more efficient way, e.g., with a
+     * single request.
+     * 
+     * @param uris
+     *            the {@link CrawleableUri} instances that should be added to the
+     *            queue.
+     */
+    public default void addUris(List<CrawleableUri> uris) {
+        for (CrawleableUri uri : uris) {
+            addUri(uri);
+        }
+    }
     
     /**
      * Returns the next chunk of URIs that should be crawled or null. Note that
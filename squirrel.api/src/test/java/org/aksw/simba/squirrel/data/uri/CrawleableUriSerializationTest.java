@@ -19,6 +19,7 @@ import org.dice_research.squirrel.Constants;
 import org.dice_research.squirrel.data.uri.CrawleableUri;
 import org.dice_research.squirrel.data.uri.UriType;
 import org.dice_research.squirrel.data.uri.serialize.Serializer;
+import org.dice_research.squirrel.data.uri.serialize.binary.BinaryUriSerializer;
 import org.dice_research.squirrel.data.uri.serialize.gson.GsonUriSerializer;
 import org.dice_research.squirrel.data.uri.serialize.java.GzipJavaUriSerializer;
 import org.dice_research.squirrel.data.uri.serialize.java.SnappyJavaUriSerializer;
@@ -73,6 +74,11 @@ public class CrawleableUriSerializationTest {
         executeTest(new SnappyJavaUriSerializer(), "Snappy");
     }
 
+    @Test
+    public void testBinary() throws URISyntaxException, ClassNotFoundException, IOException {
+        executeTest(new BinaryUriSerializer(), "Binary");
+    }
+
     @Test
     public void testJavaWithGzip() throws URISyntaxException, ClassNotFoundException, IOException {
         executeTest(new GzipJavaUriSerializer(), "Gzip");
@@ -0,0 +1,175 @@
+package org.dice_research.squirrel.data.uri.serialize.binary;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.dice_research.squirrel.Constants;
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.data.uri.serialize.java.GzipJavaUriSerializer;
+import org.dice_research.squirrel.data.uri.serialize.java.SnappyJavaUriSerializer;
+import org.dice_research.squirrel.deduplication.hashing.impl.MinHashValue;
+import org.dice_research.squirrel.rabbit.msgs.CrawlingResult;
+import org.dice_research.squirrel.rabbit.msgs.UriSet;
+import org.dice_research.squirrel.rabbit.msgs.UriSetRequest;
+import org.dice_research.squirrel.worker.AliveMessage;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the serialization of the messages with the {@link BinaryUriSerializer}.
+ */
+public class BinaryUriSerializerTest {
+
+    @Test
+    public void testMessages() throws Exception {
+        BinaryUriSerializer serializer = new BinaryUriSerializer();
+        Assert.assertNull(serializer.deserialize(serializer.serialize(null)));
+
+        List<CrawleableUri> uris = createUris(100);
+        UriSet uriSet = serializer.deserialize(serializer.serialize(new UriSet(uris)));
+        assertUrisEqual(uris, uriSet.uris);
+        uriSet = serializer.deserialize(serializer.serialize(new UriSet()));
+        Assert.assertTrue(uriSet.uris.isEmpty());
+
+        CrawlingResult result = serializer.deserialize(serializer.serialize(new CrawlingResult(uris, "worker-1")));
+        Assert.assertEquals("worker-1", result.idOfWorker);
+        assertUrisEqual(uris, result.uris);
+        result = serializer.deserialize(serializer.serialize(new CrawlingResult(null)));
+        Assert.assertNull(result.idOfWorker);
+        Assert.assertNull(result.uris);
+
+        UriSetRequest request = serializer.deserialize(serializer.serialize(new UriSetRequest("worker-2", true)));
+        Assert.assertEquals("worker-2", request.getWorkerId());
+        Assert.assertTrue(request.workerSendsAliveMessages());
+
+        AliveMessage message = serializer.deserialize(serializer.serialize(new AliveMessage("worker-3")));
+        Assert.assertEquals("worker-3", message.getWorkerId());
+
+        // MinHash signatures
+        uris.get(0).addData(Constants.URI_HASH_KEY,
+                new MinHashValue(new int[] { 1, -1, Integer.MIN_VALUE, Integer.MAX_VALUE }));
+        uris.get(1).addData(Constants.URI_HASH_KEY, new MinHashValue(new int[0]));
+        result = serializer.deserialize(serializer.serialize(new CrawlingResult(uris, "worker-1")));
+        assertUrisEqual(uris, result.uris);
+
+        // other objects are serialized with Java serialization
+        ArrayList<String> list = new ArrayList<>(Arrays.asList("a", "b"));
+        Assert.assertEquals(list, serializer.deserialize(serializer.serialize(list)));
+    }
+
+    @Test
+    public void testCompression() throws Exception {
+        List<CrawleableUri> uris = createUris(100);
+        byte[] compressed = new BinaryUriSerializer().serialize(new UriSet(uris));
+        byte[] uncompressed = new BinaryUriSerializer(BinaryUriSerializer.NO_COMPRESSION).serialize(new UriSet(uris));
+        byte[] gzipped = new GzipJavaUriSerializer().serialize(new UriSet(uris));
+        Assert.assertEquals(BinaryUriSerializer.FLAG_SNAPPY, compressed[1]);
+        Assert.assertEquals(0, uncompressed[1]);
+        Assert.assertTrue(compressed.length < uncompressed.length);
+        Assert.assertTrue(compressed.length < gzipped.length);
+        // both versions can be read by every instance
+        UriSet uriSet = new BinaryUriSerializer(BinaryUriSerializer.NO_COMPRESSION).deserialize(compressed);
+        assertUrisEqual(uris, uriSet.uris);
+        uriSet = new BinaryUriSerializer().deserialize(uncompressed);
+        assertUrisEqual(uris, uriSet.uris);
+    }
+
+    @Test
+    public void testFallback() throws Exception {
+        List<CrawleableUri> uris = createUris(10);
+        byte[] data = new GzipJavaUriSerializer().serialize(new UriSet(uris));
+        UriSet uriSet = new BinaryUriSerializer().deserialize(data);
+        assertUrisEqual(uris, uriSet.uris);
+        data = new SnappyJavaUriSerializer().serialize(new UriSet(uris));
+        uriSet = new BinaryUriSerializer().deserialize(data);
+        assertUrisEqual(uris, uriSet.uris);
+    }
+
+    @Test
+    public void testMalformedIds() throws Exception {
+        BinaryUriSerializer serializer = new BinaryUriSerializer(-1);
+        // string IDs that are negative or point behind the dictionary and the
+        // interned strings
+        long[] stringIds = { 0xFFFFFFFFL, 0x80000000L, 0x7FFFFFFFL, BinaryUriSerializer.DICTIONARY.length + 1,
+                Long.MAX_VALUE };
+        for (long stringId : stringIds) {
+            BinaryUriSerializer.BinaryOutput out = createUriHeader(0);
+            // one data entry with the given key
+            out.writeVarInt(2);
+            out.writeVarLong(stringId);
+            out.writeVarInt(BinaryUriSerializer.VALUE_NULL);
+            out.finish();
+            assertMalformed(serializer, out.toByteArray());
+        }
+        // an unknown URI type
+        for (long typeId : new long[] { 0xFFFFFFFFL, 0x80000000L, 100 }) {
+            BinaryUriSerializer.BinaryOutput out = createUriHeader(typeId);
+            out.writeVarInt(0);
+            out.finish();
+            assertMalformed(serializer, out.toByteArray());
+        }
+    }
+
+    private static BinaryUriSerializer.BinaryOutput createUriHeader(long typeId) {
+        BinaryUriSerializer.BinaryOutput out = new BinaryUriSerializer.BinaryOutput();
+        out.writeByte(BinaryUriSerializer.MAGIC);
+        out.writeByte(0);
+        out.writeVarInt(BinaryUriSerializer.TAG_URI);
+        out.writeString("http://example.org/resource");
+        out.writeVarLong(typeId);
+        // no IP address
+        out.writeVarInt(0);
+        // timestamp of the next crawl
+        out.writeVarLong(0);
+        return out;
+    }
+
+    private static void assertMalformed(BinaryUriSerializer serializer, byte[] data) {
+        try {
+            serializer.deserialize(data);
+            Assert.fail("Expected an IOException for the malformed message " + Arrays.toString(data));
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    private static List<CrawleableUri> createUris(int count) throws Exception {
+        List<CrawleableUri> uris = new ArrayList<>(count);
+        CrawleableUri uri;
+        for (int i = 0; i < count; ++i) {
+            uri = new CrawleableUri(new URI("http://example.org/resource/" + i),
+                    InetAddress.getByAddress("example.org", new byte[] { 10, 0, 0, (byte) i }));
+            uri.addData(Constants.URI_TYPE_KEY, Constants.URI_TYPE_VALUE_DEREF);
+            uri.addData(Constants.URI_HTTP_STATUS_CODE, 200);
+            uri.addData(Constants.URI_HTTP_MIME_TYPE_KEY, "text/turtle");
+            uri.addData(Constants.URI_PREFERRED_RECRAWL_ON, System.currentTimeMillis() + i);
+            uri.addData("http-response-Date", "Sun, 18 Oct 2026 10:00:00 GMT");
+            uri.addData("http-response-X-Custom", "custom value");
+            uri.addData("verified", (i % 2) == 0);
+            uri.addData("score", i * 0.5);
+            uri.addData("list", new ArrayList<>(Arrays.asList("a", 1L, null)));
+            uri.addData("uri", new URI("http://example.org/other/" + i));
+            uri.setTimestampNextCrawl(-i);
+            uris.add(uri);
+        }
+        uris.add(new CrawleableUri(new URI("http://example.org/withoutIp")));
+        return uris;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static void assertUrisEqual(List<CrawleableUri> expected, List<CrawleableUri> actual) {
+        Assert.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); ++i) {
+            Assert.assertEquals(expected.get(i).getUri(), actual.get(i).getUri());
+            Assert.assertEquals(String.valueOf(expected.get(i).getIpAddress()),
+                    String.valueOf(actual.get(i).getIpAddress()));
+            Assert.assertEquals(expected.get(i).getType(), actual.get(i).getType());
+            Assert.assertEquals(expected.get(i).getTimestampNextCrawl(), actual.get(i).getTimestampNextCrawl());
+            Assert.assertEquals(expected.get(i).getData(), actual.get(i).getData());
+        }
+    }
+}
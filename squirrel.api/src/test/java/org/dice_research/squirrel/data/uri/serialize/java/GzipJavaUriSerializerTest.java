@@ -0,0 +1,110 @@
+package org.dice_research.squirrel.data.uri.serialize.java;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.rabbit.msgs.UriSet;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks that the {@link GzipJavaUriSerializer} reads data written by the
+ * JDK's {@link GZIPOutputStream}, including data with several GZIP members.
+ */
+public class GzipJavaUriSerializerTest {
+
+    @Test
+    public void testMultipleMembers() throws Exception {
+        UriSet uriSet = createUriSet(1000);
+        byte[] raw = serializeWithJava(uriSet);
+        // compress the serialized object as three concatenated members
+        int split1 = raw.length / 3;
+        int split2 = 2 * split1;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(gzip(Arrays.copyOfRange(raw, 0, split1)));
+        out.write(gzip(Arrays.copyOfRange(raw, split1, split2)));
+        out.write(gzip(Arrays.copyOfRange(raw, split2, raw.length)));
+        byte[] data = out.toByteArray();
+
+        GzipJavaUriSerializer serializer = new GzipJavaUriSerializer();
+        Assert.assertEquals(uriSet, serializer.deserialize(data));
+        Assert.assertEquals(uriSet, new GzipJavaUriSerializer(false).deserialize(data));
+        // the reused inflater must not be affected by the previous message
+        Assert.assertEquals(uriSet, serializer.deserialize(serializer.serialize(uriSet)));
+        serializer.close();
+    }
+
+    @Test
+    public void testTrailingBytes() throws Exception {
+        UriSet uriSet = createUriSet(3);
+        byte[] data = gzip(serializeWithJava(uriSet));
+        // like the GZIPInputStream, bytes that are not a GZIP member are ignored
+        data = Arrays.copyOf(data, data.length + 3);
+        Assert.assertEquals(uriSet, new GzipJavaUriSerializer().deserialize(data));
+    }
+
+    @Test
+    public void testCorruptData() throws Exception {
+        GzipJavaUriSerializer serializer = new GzipJavaUriSerializer();
+        byte[] data = serializer.serialize(createUriSet(3));
+        byte[] truncated = Arrays.copyOf(data, data.length - 10);
+        try {
+            serializer.deserialize(truncated);
+            Assert.fail("Expected an IOException.");
+        } catch (IOException e) {
+            // expected
+        }
+        byte[] wrongCrc = Arrays.copyOf(data, data.length);
+        wrongCrc[wrongCrc.length - 8] ^= 1;
+        try {
+            serializer.deserialize(wrongCrc);
+            Assert.fail("Expected an IOException.");
+        } catch (IOException e) {
+            // expected
+        }
+        // the serializer can still be used afterwards
+        UriSet uriSet = createUriSet(5);
+        Assert.assertEquals(uriSet, serializer.deserialize(serializer.serialize(uriSet)));
+    }
+
+    @Test
+    public void testClosedSerializer() throws Exception {
+        GzipJavaUriSerializer serializer = new GzipJavaUriSerializer();
+        UriSet uriSet = createUriSet(3);
+        byte[] data = serializer.serialize(uriSet);
+        serializer.close();
+        Assert.assertEquals(uriSet, serializer.deserialize(data));
+        Assert.assertArrayEquals(data, serializer.serialize(uriSet));
+    }
+
+    private static byte[] serializeWithJava(Object object) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ObjectOutputStream os = new ObjectOutputStream(out)) {
+            os.writeObject(object);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    private static UriSet createUriSet(int size) throws Exception {
+        List<CrawleableUri> uris = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            uris.add(new CrawleableUri(new URI("http://example.org/resource/" + size + "/" + i)));
+        }
+        return new UriSet(uris);
+    }
+}
@@ -0,0 +1,73 @@
+package org.dice_research.squirrel.data.uri.serialize.java;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.data.uri.serialize.Serializer;
+import org.dice_research.squirrel.rabbit.msgs.UriSet;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Checks that the Java based serializers produce the same format with and
+ * without reusing their streams and that the reused streams do not mix up
+ * consecutive messages.
+ */
+@RunWith(Parameterized.class)
+public class ReusingJavaUriSerializerTest {
+
+    @Parameters
+    public static Collection<Object[]> data() {
+        return Arrays.asList(new Object[][] { { new GzipJavaUriSerializer(true), new GzipJavaUriSerializer(false) },
+                { new SnappyJavaUriSerializer(true), new SnappyJavaUriSerializer(false) } });
+    }
+
+    private Serializer reusing;
+    private Serializer allocating;
+
+    public ReusingJavaUriSerializerTest(Serializer reusing, Serializer allocating) {
+        this.reusing = reusing;
+        this.allocating = allocating;
+    }
+
+    @Test
+    public void testCompatibility() throws Exception {
+        // the second message is large enough to let the buffers grow
+        for (int size : new int[] { 1, 50000, 2 }) {
+            UriSet uriSet = createUriSet(size);
+            Assert.assertEquals(uriSet, allocating.deserialize(reusing.serialize(uriSet)));
+            Assert.assertEquals(uriSet, reusing.deserialize(allocating.serialize(uriSet)));
+            Assert.assertEquals(uriSet, reusing.deserialize(reusing.serialize(uriSet)));
+        }
+    }
+
+    @Test
+    public void testByteBuffer() throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        UriSet uriSet1 = createUriSet(3);
+        UriSet uriSet2 = createUriSet(5);
+        int length1 = reusing.serialize(uriSet1, buffer);
+        int length2 = reusing.serialize(uriSet2, buffer);
+        Assert.assertEquals(length1 + length2, buffer.position());
+        byte[] data = Arrays.copyOfRange(buffer.array(), 0, length1);
+        Assert.assertEquals(uriSet1, reusing.deserialize(data));
+        data = Arrays.copyOfRange(buffer.array(), length1, length1 + length2);
+        Assert.assertEquals(uriSet2, reusing.deserialize(data));
+    }
+
+    private static UriSet createUriSet(int size) throws Exception {
+        List<CrawleableUri> uris = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            uris.add(new CrawleableUri(new URI("http://example.org/resource/" + size + "/" + i)));
+        }
+        return new UriSet(uris);
+    }
+}
@@ -0,0 +1,86 @@
+package org.dice_research.squirrel.queue;
+
+import java.net.InetAddress;
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.dice_research.squirrel.Constants;
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests whether the {@link PolitenessAwareQueue} keeps a group blocked until
+ * the crawl delay of its server has passed. The time is controlled by the
+ * test instead of waiting for the delay.
+ */
+public class PolitenessAwareQueueTest {
+
+    private static final long CRAWL_DELAY = 500;
+
+    @Test
+    public void testDelayedRelease() throws Exception {
+        AtomicLong clock = new AtomicLong(1000);
+        PolitenessAwareQueue<InetAddress> queue = new PolitenessAwareQueue<>(new InMemoryQueue(),
+                PolitenessAwareQueue.DEFAULT_DELAY, PolitenessAwareQueue.NO_LIMIT, clock::get);
+        queue.open();
+        InetAddress address1 = InetAddress.getByName("192.168.100.1");
+        InetAddress address2 = InetAddress.getByName("192.168.100.2");
+        queue.addUri(new CrawleableUri(new URI("http://example.org/1"), address1));
+        queue.addUri(new CrawleableUri(new URI("http://example.org/2"), address1));
+        queue.addUri(new CrawleableUri(new URI("http://example.com/1"), address2));
+
+        List<CrawleableUri> uris = queue.getNextUris();
+        Assert.assertEquals(2, uris.size());
+        // the worker crawled only the first URI
+        uris = uris.subList(0, 1);
+        uris.get(0).addData(Constants.URI_CRAWL_DELAY_KEY, CRAWL_DELAY);
+        queue.markUrisAsAccessible(uris);
+        Assert.assertEquals(1, queue.getNumberOfDelayedGroups());
+
+        // the other group is not affected
+        List<CrawleableUri> otherUris = queue.getNextUris();
+        Assert.assertEquals(1, otherUris.size());
+        Assert.assertEquals(address2, otherUris.get(0).getIpAddress());
+        queue.markUrisAsAccessible(otherUris);
+
+        // the remaining URI of the first group is not handed out before the delay
+        // has passed
+        Assert.assertNull(queue.getNextUris());
+        clock.addAndGet(CRAWL_DELAY - 1);
+        Assert.assertNull(queue.getNextUris());
+        Assert.assertEquals(1, queue.getNumberOfDelayedGroups());
+        clock.incrementAndGet();
+        uris = queue.getNextUris();
+        Assert.assertNotNull(uris);
+        Assert.assertEquals(1, uris.size());
+        Assert.assertEquals(new URI("http://example.org/2"), uris.get(0).getUri());
+        Assert.assertEquals(0, queue.getNumberOfDelayedGroups());
+        queue.markUrisAsAccessible(uris);
+        Assert.assertTrue(queue.isEmpty());
+        queue.close();
+    }
+
+    @Test
+    public void testMaxUrisPerGroup() throws Exception {
+        PolitenessAwareQueue<InetAddress> queue = new PolitenessAwareQueue<>(new InMemoryQueue(),
+                PolitenessAwareQueue.DEFAULT_DELAY, 1);
+        queue.open();
+        InetAddress address = InetAddress.getByName("192.168.100.1");
+        for (int i = 0; i < 3; ++i) {
+            queue.addUri(new CrawleableUri(new URI("http://example.org/" + i), address));
+        }
+        List<CrawleableUri> uris;
+        for (int i = 0; i < 3; ++i) {
+            uris = queue.getNextUris();
+            Assert.assertNotNull(uris);
+            Assert.assertEquals(1, uris.size());
+            Assert.assertNull(queue.getNextUris());
+            // without a crawl delay, the group is released directly
+            queue.markUrisAsAccessible(uris);
+        }
+        Assert.assertTrue(queue.isEmpty());
+        queue.close();
+    }
+}
@@ -0,0 +1,77 @@
+package org.dice_research.squirrel.benchmarks.dedup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.dice_research.squirrel.deduplication.hashing.impl.OnePermutationMinHashFunction;
+import org.dice_research.squirrel.deduplication.hashing.impl.SimpleTripleHashFunction;
+import org.dice_research.squirrel.deduplication.lsh.BandedLshIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the time needed to retrieve the similar graphs of a graph from a
+ * {@link BandedLshIndex} containing millions of graphs. Every tenth graph of
+ * the index is a near duplicate of another graph. The queried signatures are
+ * signatures of graphs of the index, i.e., every lookup finds at least one
+ * graph.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g" })
+public class LshIndexBenchmark {
+
+    private static final int TRIPLES_PER_GRAPH = 50;
+    private static final int NUMBER_OF_QUERIES = 1024;
+
+    @Param({ "100000", "1000000" })
+    public int numberOfGraphs;
+
+    protected BandedLshIndex index;
+    protected int[][] queries;
+    protected int nextQuery = 0;
+
+    @Setup
+    public void setup() {
+        OnePermutationMinHashFunction function = new OnePermutationMinHashFunction(new SimpleTripleHashFunction());
+        index = new BandedLshIndex();
+        queries = new int[NUMBER_OF_QUERIES][];
+        Random random = new Random(42);
+        int[] tripleHashes = new int[TRIPLES_PER_GRAPH];
+        int[] signature;
+        for (int i = 0; i < numberOfGraphs; ++i) {
+            if ((i % 10) == 9) {
+                // near duplicate of the previous graph
+                tripleHashes[random.nextInt(TRIPLES_PER_GRAPH)] = random.nextInt();
+            } else {
+                for (int j = 0; j < TRIPLES_PER_GRAPH; ++j) {
+                    tripleHashes[j] = random.nextInt();
+                }
+            }
+            signature = function.hash(tripleHashes, TRIPLES_PER_GRAPH);
+            index.add(i, signature);
+            if (i < NUMBER_OF_QUERIES) {
+                queries[i] = signature;
+            }
+        }
+    }
+
+    @Benchmark
+    public long[] getSimilar() {
+        int[] query = queries[nextQuery];
+        nextQuery = (nextQuery + 1) & (NUMBER_OF_QUERIES - 1);
+        return index.getSimilar(query, 0.8);
+    }
+}
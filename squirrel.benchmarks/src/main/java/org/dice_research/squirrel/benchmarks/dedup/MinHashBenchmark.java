@@ -0,0 +1,78 @@
+package org.dice_research.squirrel.benchmarks.dedup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.dice_research.squirrel.deduplication.hashing.HashValue;
+import org.dice_research.squirrel.deduplication.hashing.TripleSetHashFunction;
+import org.dice_research.squirrel.deduplication.hashing.impl.IntervalBasedMinHashFunction;
+import org.dice_research.squirrel.deduplication.hashing.impl.MinHashFunction;
+import org.dice_research.squirrel.deduplication.hashing.impl.OnePermutationMinHashFunction;
+import org.dice_research.squirrel.deduplication.hashing.impl.SimpleTripleHashFunction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the time needed to create the hash value of a graph. The
+ * {@link IntervalBasedMinHashFunction} with 2^2 intervals (the configuration
+ * used by the deduplicator before) is compared with the {@link MinHashFunction}
+ * and the {@link OnePermutationMinHashFunction} creating signatures with 128
+ * values. Run with {@code -prof gc} to see the allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MinHashBenchmark {
+
+    @Param({ "interval", "minHash", "onePermutation" })
+    public String functionName;
+
+    @Param({ "100", "10000" })
+    public int numberOfTriples;
+
+    protected TripleSetHashFunction function;
+    protected List<Triple> triples;
+
+    @Setup
+    public void setup() {
+        switch (functionName) {
+        case "interval":
+            function = new IntervalBasedMinHashFunction(2, new SimpleTripleHashFunction());
+            break;
+        case "minHash":
+            function = new MinHashFunction(new SimpleTripleHashFunction());
+            break;
+        case "onePermutation":
+            function = new OnePermutationMinHashFunction(new SimpleTripleHashFunction());
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown function " + functionName);
+        }
+        triples = new ArrayList<>(numberOfTriples);
+        for (int i = 0; i < numberOfTriples; ++i) {
+            triples.add(Triple.create(NodeFactory.createURI("http://dbpedia.org/resource/Entity_" + (i / 10)),
+                    NodeFactory.createURI("http://dbpedia.org/ontology/property" + (i % 10)),
+                    NodeFactory.createLiteral("value " + i)));
+        }
+    }
+
+    @Benchmark
+    public HashValue hash() {
+        return function.hash(triples);
+    }
+}
@@ -0,0 +1,97 @@
+package org.dice_research.squirrel.benchmarks.norm;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.data.uri.norm.NormalizerImpl;
+import org.dice_research.squirrel.data.uri.norm.SinglePassUriNormalizer;
+import org.dice_research.squirrel.data.uri.norm.UriNormalizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the time needed to normalize a discovered URI with the
+ * {@link NormalizerImpl} and the {@link SinglePassUriNormalizer}. The URIs
+ * either are already normalized ("normal") or have to be changed since they
+ * contain a fragment, a default port, upper case letters, dot segments,
+ * percent-encoded characters, unsorted query parameters or session ids
+ * ("mixed"). Run with {@code -prof gc} to see the allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UriNormalizerBenchmark {
+
+    private static final int NUMBER_OF_URIS = 1024;
+    private static final List<String> SESSION_IDS = Arrays.asList("sessionid", "jsessionids", "phpsessid", "sid");
+
+    private static final String[] NORMAL_URIS = { "http://dbpedia.org/resource/Entity_%d",
+            "https://www.wikidata.org/wiki/Q%d", "http://example.org/data/dump-%d.nt.gz",
+            "http://example.org/sparql?default-graph-uri=http%%3A%%2F%%2Fexample.org&query=select%d",
+            "http://example.org/page.php?id=%d&lang=en" };
+    private static final String[] CHANGED_URIS = { "http://dbpedia.org/resource/Entity_%d#this",
+            "HTTPS://WWW.Wikidata.org:443/wiki/./Q%d", "http://example.org/data/../files//dump-%d.nt.gz",
+            "http://example.org/%%7Euser/page-%d", "http://example.org/page.php?lang=en&id=%d&PHPSESSID=a3f9c2",
+            "http://example.org/search?q=%d&page=2&sort=asc&sid=17#results" };
+
+    @Param({ "NormalizerImpl", "SinglePass" })
+    public String normalizerName;
+
+    @Param({ "normal", "mixed" })
+    public String uriSet;
+
+    protected UriNormalizer normalizer;
+    protected CrawleableUri[] uris;
+    protected int nextUri = 0;
+
+    @Setup
+    public void setup() throws URISyntaxException {
+        Map<String, Integer> defaultPortMap = new HashMap<>();
+        defaultPortMap.put("http", 80);
+        defaultPortMap.put("https", 443);
+        defaultPortMap.put("ftp", 21);
+        switch (normalizerName) {
+        case "NormalizerImpl":
+            normalizer = new NormalizerImpl(SESSION_IDS, defaultPortMap);
+            break;
+        case "SinglePass":
+            normalizer = new SinglePassUriNormalizer(SESSION_IDS, defaultPortMap);
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown normalizer " + normalizerName);
+        }
+        Random random = new Random(42);
+        uris = new CrawleableUri[NUMBER_OF_URIS];
+        for (int i = 0; i < NUMBER_OF_URIS; ++i) {
+            String[] templates = ("normal".equals(uriSet) || random.nextBoolean()) ? NORMAL_URIS : CHANGED_URIS;
+            uris[i] = new CrawleableUri(
+                    new URI(String.format(templates[random.nextInt(templates.length)], random.nextInt(1000000))));
+        }
+    }
+
+    @Benchmark
+    public CrawleableUri normalize() {
+        CrawleableUri uri = uris[nextUri];
+        nextUri = (nextUri + 1) & (NUMBER_OF_URIS - 1);
+        return normalizer.normalize(uri);
+    }
+}
@@ -0,0 +1,164 @@
+package org.dice_research.squirrel.benchmarks.queue;
+
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.queue.BlockingQueue;
+import org.dice_research.squirrel.queue.InMemoryQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the throughput of a grouping queue that is used by several threads
+ * in parallel. Each operation simulates the life cycle of a URI group inside
+ * the frontier: a worker requests a group, marks it as accessible when it is
+ * done and the URIs it found are added to the queue again.
+ *
+ * <p>
+ * The striped {@link InMemoryQueue} is compared with the same queue guarded by
+ * a single global monitor, i.e., the way the queue has been synchronized
+ * before. Use {@link #main(String[])} to run the benchmark with a growing
+ * number of threads.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GroupingQueueBenchmark {
+
+    /**
+     * Thread counts used by {@link #main(String[])}.
+     */
+    public static final int[] THREAD_COUNTS = new int[] { 1, 2, 4, 8, 16 };
+
+    @Param({ "striped", "globalLock" })
+    public String queueType;
+
+    @Param({ "1000" })
+    public int numberOfGroups;
+
+    @Param({ "10" })
+    public int urisPerGroup;
+
+    protected BlockingQueue<InetAddress> queue;
+
+    @Setup(Level.Iteration)
+    public void setup() throws Exception {
+        InMemoryQueue memQueue = new InMemoryQueue();
+        if ("globalLock".equals(queueType)) {
+            queue = new GlobalLockQueue(memQueue);
+        } else {
+            queue = memQueue;
+        }
+        queue.open();
+        for (int g = 0; g < numberOfGroups; ++g) {
+            InetAddress address = createAddress(g);
+            for (int u = 0; u < urisPerGroup; ++u) {
+                queue.addUri(new CrawleableUri(new URI("http://" + address.getHostAddress() + "/resource" + u),
+                        address));
+            }
+        }
+    }
+
+    @Benchmark
+    public void handOutAndReturnGroup(Blackhole blackhole) {
+        List<CrawleableUri> uris = queue.getNextUris();
+        if (uris != null) {
+            queue.markUrisAsAccessible(uris);
+            // the worker found the same URIs again which are added to the queue
+            for (CrawleableUri uri : uris) {
+                queue.addUri(uri);
+            }
+            blackhole.consume(uris);
+        }
+    }
+
+    protected static InetAddress createAddress(int id) throws UnknownHostException {
+        return InetAddress.getByAddress(new byte[] { 10, (byte) (id >> 16), (byte) (id >> 8), (byte) id });
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : THREAD_COUNTS) {
+            Options options = new OptionsBuilder().include(GroupingQueueBenchmark.class.getSimpleName())
+                    .threads(threads).build();
+            new Runner(options).run();
+        }
+    }
+
+    /**
+     * A decorator that guards all calls with a single monitor.
+     */
+    public static class GlobalLockQueue implements BlockingQueue<InetAddress> {
+
+        protected BlockingQueue<InetAddress> decorated;
+
+        public GlobalLockQueue(BlockingQueue<InetAddress> decorated) {
+            this.decorated = decorated;
+        }
+
+        @Override
+        public synchronized void addUri(CrawleableUri uri) {
+            decorated.addUri(uri);
+        }
+
+        @Override
+        public synchronized List<CrawleableUri> getNextUris() {
+            return decorated.getNextUris();
+        }
+
+        @Override
+        public synchronized boolean isEmpty() {
+            return decorated.isEmpty();
+        }
+
+        @Override
+        public synchronized void close() {
+            decorated.close();
+        }
+
+        @Override
+        public synchronized void open() {
+            decorated.open();
+        }
+
+        @Override
+        public synchronized void markUrisAsAccessible(Collection<CrawleableUri> uris) {
+            decorated.markUrisAsAccessible(uris);
+        }
+
+        @Override
+        public synchronized int getNumberOfBlockedKeys() {
+            return decorated.getNumberOfBlockedKeys();
+        }
+
+        @Override
+        public synchronized Iterator<SimpleEntry<InetAddress, List<CrawleableUri>>> getIterator() {
+            return decorated.getIterator();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package org.dice_research.squirrel.benchmarks.queue;
+
+import java.net.InetAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.queue.UriQueue;
+import org.dice_research.squirrel.queue.domainbased.MongoDBDomainBasedQueue;
+import org.dice_research.squirrel.queue.ipbased.MongoDBIpBasedQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how fast {@link #NUMBER_OF_URIS} URIs can be added to the MongoDB
+ * based queues. The URIs are added either one by one (as the frontier did
+ * before) or in batches that are written with a single bulk write per group.
+ *
+ * <p>
+ * The benchmark needs a running MongoDB instance that can be used exclusively.
+ * Its host and port are read from the {@code MDB_HOST_NAME} and
+ * {@code MDB_PORT} environment variables (default: {@code localhost:27017}).
+ * A local instance can be started with
+ * {@code docker run -d -p 27017:27017 mongo:4.0}.
+ * </p>
+ *
+ * <p>
+ * The score is the average time needed to add a single URI. The number of
+ * inserts per second is {@code 1 / score}.
+ * </p>
+ *
+ * <p>
+ * The benchmark can be run with
+ * {@code java -jar squirrel.benchmarks/target/squirrel.benchmarks.jar MongoDBQueueBenchmark}
+ * after packaging the module. No results have been recorded yet, i.e., the
+ * number of inserts per second the bulk writes reach for 1M URIs has not been
+ * verified.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class MongoDBQueueBenchmark {
+
+    public static final int NUMBER_OF_URIS = 1000000;
+
+    @Param({ "ip", "domain" })
+    public String queueType;
+
+    @Param({ "perUri", "bulk" })
+    public String insertMode;
+
+    @Param({ "1000" })
+    public int numberOfGroups;
+
+    @Param({ "100" })
+    public int batchSize;
+
+    protected UriQueue queue;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        String host = System.getenv("MDB_HOST_NAME");
+        if (host == null) {
+            host = "localhost";
+        }
+        String port = System.getenv("MDB_PORT");
+        if ("domain".equals(queueType)) {
+            queue = new MongoDBDomainBasedQueue(host, (port == null) ? 27017 : Integer.parseInt(port));
+        } else {
+            queue = new MongoDBIpBasedQueue(host, (port == null) ? 27017 : Integer.parseInt(port));
+        }
+        // start with an empty queue
+        queue.open();
+        purge();
+        queue.open();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        purge();
+        queue.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUMBER_OF_URIS)
+    public void addUris() throws Exception {
+        int urisPerGroup = NUMBER_OF_URIS / numberOfGroups;
+        List<CrawleableUri> batch = new ArrayList<>(batchSize);
+        InetAddress address = null;
+        int group;
+        for (int i = 0; i < NUMBER_OF_URIS; ++i) {
+            group = i / urisPerGroup;
+            if ((i % urisPerGroup) == 0) {
+                address = InetAddress
+                        .getByAddress(new byte[] { 10, (byte) (group >> 16), (byte) (group >> 8), (byte) group });
+            }
+            batch.add(new CrawleableUri(new URI("http://host" + group + ".example.org/resource/" + i), address));
+            if (batch.size() >= batchSize) {
+                add(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            add(batch);
+        }
+    }
+
+    protected void add(List<CrawleableUri> batch) {
+        if ("bulk".equals(insertMode)) {
+            queue.addUris(batch);
+        } else {
+            for (CrawleableUri uri : batch) {
+                queue.addUri(uri);
+            }
+        }
+    }
+
+    protected void purge() {
+        if (queue instanceof MongoDBDomainBasedQueue) {
+            ((MongoDBDomainBasedQueue) queue).purge();
+        } else if (queue instanceof MongoDBIpBasedQueue) {
+            ((MongoDBIpBasedQueue) queue).purge();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package org.dice_research.squirrel.benchmarks.serialize;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.dice_research.squirrel.Constants;
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.data.uri.serialize.Serializer;
+import org.dice_research.squirrel.data.uri.serialize.binary.BinaryUriSerializer;
+import org.dice_research.squirrel.data.uri.serialize.gson.GsonUriSerializer;
+import org.dice_research.squirrel.data.uri.serialize.java.GzipJavaUriSerializer;
+import org.dice_research.squirrel.data.uri.serialize.java.SnappyJavaUriSerializer;
+import org.dice_research.squirrel.rabbit.msgs.CrawlingResult;
+import org.dice_research.squirrel.rabbit.msgs.UriSet;
+import org.dice_research.squirrel.rabbit.msgs.UriSetRequest;
+import org.dice_research.squirrel.worker.AliveMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * Compares the serializers with respect to the time needed to serialize and
+ * deserialize the messages exchanged between worker and frontier. The size of
+ * every serialized message is logged during the setup since it is not part of
+ * the JMH results. The Java based serializers are measured with and without
+ * reusing their streams (the latter are marked as "Allocating"). Run with
+ * {@code -prof gc} to see the allocation rates.
+ *
+ * <p>
+ * The URIs of the messages carry the data a worker attaches to them, i.e., the
+ * HTTP response headers, the status code, the MIME type and the ID of the
+ * crawling activity.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializerBenchmark {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SerializerBenchmark.class);
+
+    @Param({ "binary", "binaryUncompressed", "gzip", "gzipAllocating", "snappy", "snappyAllocating", "gson" })
+    public String serializerName;
+
+    @Param({ "uriSet", "crawlingResult", "uriSetRequest", "aliveMessage" })
+    public String messageType;
+
+    @Param({ "100" })
+    public int numberOfUris;
+
+    protected Serializer serializer;
+    /**
+     * The {@link GsonUriSerializer} can only deserialize single URIs. Hence, the
+     * messages are deserialized using a {@link Gson} instance with the same
+     * configuration.
+     */
+    protected Gson gson;
+    protected Object message;
+    protected byte[] serializedMessage;
+
+    @Setup
+    public void setup() throws Exception {
+        switch (serializerName) {
+        case "binary":
+            serializer = new BinaryUriSerializer();
+            break;
+        case "binaryUncompressed":
+            serializer = new BinaryUriSerializer(BinaryUriSerializer.NO_COMPRESSION);
+            break;
+        case "gzip":
+            serializer = new GzipJavaUriSerializer();
+            break;
+        case "gzipAllocating":
+            serializer = new GzipJavaUriSerializer(false);
+            break;
+        case "snappy":
+            serializer = new SnappyJavaUriSerializer();
+            break;
+        case "snappyAllocating":
+            serializer = new SnappyJavaUriSerializer(false);
+            break;
+        case "gson": {
+            GsonBuilder builder = new GsonBuilder();
+            serializer = new GsonUriSerializer(builder);
+            gson = builder.create();
+            break;
+        }
+        default:
+            throw new IllegalArgumentException("Unknown serializer " + serializerName);
+        }
+        switch (messageType) {
+        case "uriSet":
+            message = new UriSet(createUris());
+            break;
+        case "crawlingResult":
+            message = new CrawlingResult(createUris(), "worker-" + UUID.randomUUID().toString());
+            break;
+        case "uriSetRequest":
+            message = new UriSetRequest("worker-" + UUID.randomUUID().toString(), true);
+            break;
+        case "aliveMessage":
+            message = new AliveMessage("worker-" + UUID.randomUUID().toString());
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown message type " + messageType);
+        }
+        serializedMessage = serializer.serialize(message);
+        LOGGER.info("{} serializes a {} message with {} bytes.", serializerName, messageType,
+                serializedMessage.length);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return serializer.serialize(message);
+    }
+
+    @Benchmark
+    public Object deserialize() throws IOException {
+        if (gson != null) {
+            return gson.fromJson(new String(serializedMessage, Constants.DEFAULT_CHARSET), message.getClass());
+        } else {
+            return serializer.deserialize(serializedMessage);
+        }
+    }
+
+    protected List<CrawleableUri> createUris() throws Exception {
+        List<CrawleableUri> uris = new ArrayList<>(numberOfUris);
+        InetAddress address = InetAddress.getByAddress("dbpedia.org", new byte[] { (byte) 194, 109, (byte) 129, 58 });
+        CrawleableUri uri;
+        for (int i = 0; i < numberOfUris; ++i) {
+            uri = new CrawleableUri(new URI("http://dbpedia.org/resource/Entity_" + i), address);
+            uri.addData(Constants.URI_TYPE_KEY, Constants.URI_TYPE_VALUE_DEREF);
+            uri.addData(Constants.UUID_KEY, UUID.randomUUID().toString());
+            uri.addData(Constants.URI_CRAWLING_ACTIVITY_URI,
+                    Constants.SQUIRREL_URI_PREFIX + "/activity/" + UUID.randomUUID().toString());
+            uri.addData(Constants.URI_HTTP_STATUS_CODE, 200);
+            uri.addData(Constants.URI_HTTP_MIME_TYPE_KEY, "text/turtle");
+            uri.addData(Constants.URI_HTTP_CHARSET_KEY, "UTF-8");
+            uri.addData(Constants.URI_CRAWL_DELAY_KEY, 1000L);
+            uri.addData("http-response-Date", "Sun, 18 Oct 2026 10:00:0" + (i % 10) + " GMT");
+            uri.addData("http-response-Content-Type", "text/turtle; charset=UTF-8");
+            uri.addData("http-response-Content-Length", Integer.toString(10000 + (i * 37)));
+            uri.addData("http-response-Connection", "keep-alive");
+            uri.addData("http-response-Server", "Virtuoso/07.20.3229 (Linux) x86_64-generic-linux-glibc25  VDB");
+            uri.addData("http-response-Accept-Ranges", "bytes");
+            uri.addData("http-response-Expires", "Sun, 25 Oct 2026 10:00:00 GMT");
+            uri.addData("http-response-Cache-Control", "max-age=604800");
+            uri.addData("http-response-Link", "<http://dbpedia.org/data/Entity_" + i
+                    + ".rdf>; rel=\"alternate\"; type=\"application/rdf+xml\"; title=\"Structured Descriptor Document\"");
+            uris.add(uri);
+        }
+        return uris;
+    }
+}
@@ -3,25 +3,24 @@ package org.dice_research.squirrel.components;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.jena.graph.Triple;
 import org.dice_research.squirrel.Constants;
 import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.data.uri.UriFingerprint;
 import org.dice_research.squirrel.data.uri.filter.KnownUriFilter;
 import org.dice_research.squirrel.data.uri.serialize.Serializer;
-import org.dice_research.squirrel.data.uri.serialize.java.GzipJavaUriSerializer;
-import org.dice_research.squirrel.deduplication.hashing.HashValue;
+import org.dice_research.squirrel.data.uri.serialize.binary.BinaryUriSerializer;
 import org.dice_research.squirrel.deduplication.hashing.TripleComparator;
-import org.dice_research.squirrel.deduplication.hashing.TripleHashFunction;
 import org.dice_research.squirrel.deduplication.hashing.UriHashCustodian;
-import org.dice_research.squirrel.deduplication.hashing.impl.IntervalBasedMinHashFunction;
+import org.dice_research.squirrel.deduplication.hashing.impl.MinHashValue;
 import org.dice_research.squirrel.deduplication.hashing.impl.SimpleTripleComparator;
-import org.dice_research.squirrel.deduplication.hashing.impl.SimpleTripleHashFunction;
+import org.dice_research.squirrel.deduplication.lsh.BandedLshIndex;
 import org.dice_research.squirrel.rabbit.RespondingDataHandler;
 import org.dice_research.squirrel.rabbit.ResponseHandler;
 import org.dice_research.squirrel.rabbit.msgs.UriSet;
@@ -41,6 +40,12 @@ import org.slf4j.LoggerFactory;
  * Note: The hash value behind a uri represents the triples behind the uris, it does not represent the uri itself.
  * If The hash values of two uris are equal, the deduplicator looks behind the triples of those two uris and compares them. If the
  * lists of triples are equal, one of the two lists of triples will be deleted as it is a duplicate.
+ * The hash values are MinHash signatures that are computed by the workers while they store the crawled triples (see
+ * the MinHashSinkDecorator of the worker). Uris without signature are ignored and counted. The
+ * uris with similar signatures are retrieved from a {@link BandedLshIndex}, i.e., only the triples of those candidates
+ * are compared.
+ * Note that equal signatures do not prove that two lists of triples are equal. Hence, no uri is treated as duplicate if
+ * there is no sink to compare the triples.
  */
 public class DeduplicatorComponent extends AbstractComponent implements RespondingDataHandler {
 
@@ -58,10 +63,15 @@ public class DeduplicatorComponent extends AbstractComponent implements Respondi
     private final List<CrawleableUri> uriQueue = new ArrayList<>();
 
     /**
-     * Needed to access the {@link Triple}s.
+     * Needed to access the {@link Triple}s of similar uris. If it is not available, no uri is treated as duplicate.
      */
     private AdvancedTripleBasedSink sink;
 
+    /**
+     * The number of uris that have been ignored since they have been sent without signature.
+     */
+    private final AtomicLong urisWithoutSignature = new AtomicLong();
+
     private Serializer serializer;
 
     private DataReceiverImpl receiver;
@@ -70,7 +80,21 @@ public class DeduplicatorComponent extends AbstractComponent implements Respondi
 
     private UriHashCustodian uriHashCustodian;
 
-    private TripleHashFunction tripleHashFunction = new SimpleTripleHashFunction();
+    /**
+     * The minimal Jaccard similarity estimated from the signatures of two uris that is needed to compare their triples.
+     * Since only equal lists of triples are treated as duplicates, the signatures have to be equal.
+     */
+    private double similarityThreshold = 1.0;
+
+    /**
+     * Index of the signatures of all known uris. The uris are identified by their {@link UriFingerprint}.
+     */
+    private BandedLshIndex lshIndex = new BandedLshIndex();
+
+    /**
+     * The uris of the {@link #lshIndex} mapped by their {@link UriFingerprint}.
+     */
+    private final Map<Long, CrawleableUri> indexedUris = new HashMap<>();
 
     private final Semaphore terminationMutex = new Semaphore(0);
 
@@ -121,7 +145,7 @@ public class DeduplicatorComponent extends AbstractComponent implements Respondi
 
             // at the moment, RDBKnownUriFilter is the only implementation of UriHashCustodian, that might change in the future
 
-            serializer = new GzipJavaUriSerializer();
+            serializer = new BinaryUriSerializer();
 
             try {
                 RabbitQueue rabbitQueue = this.incomingDataQueueFactory.createDefaultRabbitQueue(Constants.DEDUPLICATOR_QUEUE_NAME);
@@ -135,15 +159,34 @@ public class DeduplicatorComponent extends AbstractComponent implements Respondi
     }
 
     private void handleNewUris(List<CrawleableUri> uris) {
+        List<CrawleableUri> urisWithSignature = new ArrayList<>(uris.size());
         for (CrawleableUri nextUri : uris) {
-            List<Triple> triples = sink.getTriplesForGraph(nextUri);
-            HashValue value = (new IntervalBasedMinHashFunction(2, tripleHashFunction).hash(triples));
-            nextUri.addData(Constants.URI_HASH_KEY, value);
+            // the signature should have been computed by the worker while the triples have been written to its sink
+            if (!(nextUri.getData(Constants.URI_HASH_KEY) instanceof MinHashValue)) {
+                // reading the triples back from the sink would be too expensive
+                if (urisWithoutSignature.incrementAndGet() == 1) {
+                    LOGGER.warn("Got {} without a MinHash signature. Uris without signature will be ignored. Make sure that the workers use the MinHashSinkDecorator (DEDUPLICATION_ACTIVE=true).",
+                        nextUri.getUri());
+                } else {
+                    LOGGER.debug("Got {} without a MinHash signature. It will be ignored ({} uris without signature so far).",
+                        nextUri.getUri(), urisWithoutSignature.get());
+                }
+                continue;
+            }
+            urisWithSignature.add(nextUri);
         }
 
-        compareNewUrisWithOldUris(uris);
-        uriHashCustodian.addHashValuesForUris(uris);
+        compareNewUrisWithOldUris(urisWithSignature);
+        if (uriHashCustodian != null) {
+            uriHashCustodian.addHashValuesForUris(urisWithSignature);
+        }
+    }
 
+    /**
+     * @return the number of uris that have been ignored since they have been sent without signature
+     */
+    public long getNumberOfUrisWithoutSignature() {
+        return urisWithoutSignature.get();
     }
 
     @Override
@@ -152,37 +195,36 @@ public class DeduplicatorComponent extends AbstractComponent implements Respondi
     }
 
     /**
-     * Compare the hash values of the uris in  with the hash values of all uris contained
-     * in {@link #uriHashCustodian}.
+     * Compare the hash values of the uris with the hash values of all uris contained in the {@link #lshIndex}. If a
+     * sink is available, the triples are compared for uris with similar signatures. Otherwise, no uri is treated as
+     * duplicate since equal signatures can be created by different triples. Afterwards, the uris are added to the
+     * index.
      * @param uris
      */
     private void compareNewUrisWithOldUris(List<CrawleableUri> uris) {
-//  FIXME fix this part!
-//        if (uriHashCustodian instanceof RDBKnownUriFilter) {
-//            ((RDBKnownUriFilter) uriHashCustodian).openConnector();
-//        }
-
-        Set<HashValue> hashValuesOfNewUris = new HashSet<>();
-        for (CrawleableUri uri : uris) {
-            hashValuesOfNewUris.add((HashValue) uri.getData(Constants.URI_HASH_KEY));
-        }
-        Set<CrawleableUri> oldUrisForComparison = uriHashCustodian.getUrisWithSameHashValues(hashValuesOfNewUris);
-        outer:
         for (CrawleableUri uriNew : uris) {
-            for (CrawleableUri uriOld : oldUrisForComparison) {
-                if (!uriOld.equals(uriNew)) {
+            int[] signature = ((MinHashValue) uriNew.getData(Constants.URI_HASH_KEY)).getSignature();
+            long id = UriFingerprint.fingerprint(uriNew);
+            // without a sink, the triples of the candidates can not be compared
+            long[] candidates = (sink != null) ? lshIndex.getSimilar(signature, similarityThreshold) : new long[0];
+            List<Triple> listNew = null;
+            for (long candidate : candidates) {
+                CrawleableUri uriOld = indexedUris.get(candidate);
+                if ((candidate != id) && (uriOld != null)) {
                     // get triples from pair1 and pair2 and compare them
+                    if (listNew == null) {
+                        listNew = sink.getTriplesForGraph(uriNew);
+                    }
                     List<Triple> listOld = sink.getTriplesForGraph(uriOld);
-                    List<Triple> listNew = sink.getTriplesForGraph(uriNew);
-
                     if (tripleComparator.triplesAreEqual(listOld, listNew)) {
                         // TODO: delete duplicate, this means Delete the triples from the new uris and
                         // replace them by a link to the old uris which has the same content
-                        continue outer;
+                        break;
                     }
-
                 }
             }
+            lshIndex.add(id, signature);
+            indexedUris.put(id, uriNew);
         }
     }
 
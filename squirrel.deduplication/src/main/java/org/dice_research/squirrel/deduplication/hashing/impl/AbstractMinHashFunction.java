@@ -0,0 +1,131 @@
+package org.dice_research.squirrel.deduplication.hashing.impl;
+
+import java.util.List;
+
+import org.apache.jena.graph.Triple;
+import org.dice_research.squirrel.deduplication.hashing.TripleHashFunction;
+import org.dice_research.squirrel.deduplication.hashing.TripleSetHashFunction;
+
+/**
+ * Abstract MinHash function that creates signatures of a fixed length as
+ * primitive {@code int} arrays. A signature can be created at once for a list
+ * of triples or incrementally by creating an empty signature with
+ * {@link #createSignature()}, adding the hashes of single triples with
+ * {@link #update(int[], int)} and finishing it with {@link #finish(int[])}.
+ * The latter allows the creation of signatures while the triples are streamed
+ * without keeping them in memory. Triples with blank nodes are ignored since
+ * the labels of blank nodes are not stable.
+ */
+public abstract class AbstractMinHashFunction implements TripleSetHashFunction {
+
+    /**
+     * The golden ratio used to derive the seeds of the single hash functions.
+     */
+    protected static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    /**
+     * The number of values of a signature.
+     */
+    protected final int signatureLength;
+    /**
+     * The function used to hash single triples.
+     */
+    protected final TripleHashFunction tripleHashFunction;
+
+    /**
+     * Constructor.
+     *
+     * @param signatureLength    the number of values of a signature
+     * @param tripleHashFunction the function used to hash single triples
+     */
+    public AbstractMinHashFunction(int signatureLength, TripleHashFunction tripleHashFunction) {
+        if (signatureLength <= 0) {
+            throw new IllegalArgumentException("The signature length has to be positive.");
+        }
+        this.signatureLength = signatureLength;
+        this.tripleHashFunction = tripleHashFunction;
+    }
+
+    @Override
+    public MinHashValue hash(List<Triple> triples) {
+        int[] signature = createSignature();
+        for (Triple triple : triples) {
+            update(signature, triple);
+        }
+        return new MinHashValue(finish(signature));
+    }
+
+    /**
+     * Creates the signature of the given triple hashes.
+     *
+     * @param tripleHashes the hashes of the triples
+     * @param length       the number of hashes that should be used (starting
+     *                     at position 0)
+     * @return the signature
+     */
+    public int[] hash(int[] tripleHashes, int length) {
+        int[] signature = createSignature();
+        for (int i = 0; i < length; ++i) {
+            update(signature, tripleHashes[i]);
+        }
+        return finish(signature);
+    }
+
+    /**
+     * @return a new signature that does not contain any triple
+     */
+    public abstract int[] createSignature();
+
+    /**
+     * Adds the given triple to the given signature. Triples with blank nodes
+     * are ignored.
+     *
+     * @param signature the signature that should be updated
+     * @param triple    the triple that should be added
+     */
+    public void update(int[] signature, Triple triple) {
+        if (triple.getObject().isBlank() || triple.getSubject().isBlank()) {
+            return;
+        }
+        update(signature, tripleHashFunction.hash(triple));
+    }
+
+    /**
+     * Adds the triple with the given hash to the given signature.
+     *
+     * @param signature  the signature that should be updated
+     * @param tripleHash the hash of the triple that should be added
+     */
+    public abstract void update(int[] signature, int tripleHash);
+
+    /**
+     * Finishes the given signature after all triples have been added.
+     *
+     * @param signature the signature that should be finished
+     * @return the finished signature (might be the given array)
+     */
+    public abstract int[] finish(int[] signature);
+
+    /**
+     * @return the number of values of a signature
+     */
+    public int getSignatureLength() {
+        return signatureLength;
+    }
+
+    /**
+     * The finalization step of the 64-bit MurmurHash3 which is used to mix the
+     * bits of the given value.
+     *
+     * @param k the value that should be mixed
+     * @return the mixed value
+     */
+    protected static long mix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -0,0 +1,81 @@
+package org.dice_research.squirrel.deduplication.hashing.impl;
+
+import java.util.Arrays;
+
+import org.dice_research.squirrel.deduplication.hashing.TripleHashFunction;
+
+/**
+ * Classic MinHash function with k independent permutations. The i-th value of
+ * a signature is the minimum of the i-th hash function over all triples. The
+ * hash functions are multiply-shift functions {@code (a_i * x + b_i) >>> 32}
+ * with random odd 64-bit factors that are derived from the given seed. Hence,
+ * adding a triple costs k multiplications without any allocation.
+ */
+public class MinHashFunction extends AbstractMinHashFunction {
+
+    /**
+     * The default number of hash functions.
+     */
+    public static final int DEFAULT_SIGNATURE_LENGTH = 128;
+    /**
+     * The default seed used to derive the hash functions.
+     */
+    public static final long DEFAULT_SEED = 0x5eed5eedL;
+
+    protected final long[] factors;
+    protected final long[] summands;
+
+    /**
+     * Constructor.
+     *
+     * @param tripleHashFunction the function used to hash single triples
+     */
+    public MinHashFunction(TripleHashFunction tripleHashFunction) {
+        this(DEFAULT_SIGNATURE_LENGTH, tripleHashFunction, DEFAULT_SEED);
+    }
+
+    /**
+     * Constructor. Signatures are only comparable if they have been created with
+     * the same number of hash functions and the same seed.
+     *
+     * @param signatureLength    the number of hash functions
+     * @param tripleHashFunction the function used to hash single triples
+     * @param seed               the seed used to derive the hash functions
+     */
+    public MinHashFunction(int signatureLength, TripleHashFunction tripleHashFunction, long seed) {
+        super(signatureLength, tripleHashFunction);
+        factors = new long[signatureLength];
+        summands = new long[signatureLength];
+        long state = seed;
+        for (int i = 0; i < signatureLength; ++i) {
+            state += GOLDEN_GAMMA;
+            factors[i] = mix64(state) | 1L;
+            state += GOLDEN_GAMMA;
+            summands[i] = mix64(state);
+        }
+    }
+
+    @Override
+    public int[] createSignature() {
+        int[] signature = new int[signatureLength];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        return signature;
+    }
+
+    @Override
+    public void update(int[] signature, int tripleHash) {
+        long x = tripleHash;
+        int value;
+        for (int i = 0; i < signature.length; ++i) {
+            value = (int) ((factors[i] * x + summands[i]) >>> 32);
+            if (value < signature[i]) {
+                signature[i] = value;
+            }
+        }
+    }
+
+    @Override
+    public int[] finish(int[] signature) {
+        return signature;
+    }
+}
@@ -0,0 +1,104 @@
+package org.dice_research.squirrel.deduplication.hashing.impl;
+
+import java.util.Arrays;
+
+import org.dice_research.squirrel.deduplication.hashing.TripleHashFunction;
+
+/**
+ * One permutation MinHash function. Every triple is hashed only once. The
+ * upper 32 bits of the hash select one of the k bins of the signature while
+ * the lower 32 bits are the value that is compared with the current minimum of
+ * this bin. Hence, adding a triple has constant costs independent of the
+ * signature length. Bins that did not receive any triple are filled by
+ * densification, i.e., an empty bin copies the value of a non-empty bin that
+ * is chosen by a deterministic sequence of probes that only depends on the
+ * position of the empty bin. Thus, similar sets fill their empty bins in the
+ * same way and the signatures can still be used to estimate the Jaccard
+ * similarity.
+ *
+ * <p>
+ * This function should be preferred over the {@link MinHashFunction} for large
+ * graphs. For graphs with less triples than bins, the estimation is less
+ * accurate.
+ * </p>
+ */
+public class OnePermutationMinHashFunction extends AbstractMinHashFunction {
+
+    /**
+     * The value of an empty bin. Note that values are compared as unsigned
+     * integers.
+     */
+    protected static final int EMPTY = -1;
+
+    protected final long seed;
+
+    /**
+     * Constructor.
+     *
+     * @param tripleHashFunction the function used to hash single triples
+     */
+    public OnePermutationMinHashFunction(TripleHashFunction tripleHashFunction) {
+        this(MinHashFunction.DEFAULT_SIGNATURE_LENGTH, tripleHashFunction, MinHashFunction.DEFAULT_SEED);
+    }
+
+    /**
+     * Constructor. Signatures are only comparable if they have been created with
+     * the same number of bins and the same seed.
+     *
+     * @param signatureLength    the number of bins
+     * @param tripleHashFunction the function used to hash single triples
+     * @param seed               the seed of the hash function
+     */
+    public OnePermutationMinHashFunction(int signatureLength, TripleHashFunction tripleHashFunction, long seed) {
+        super(signatureLength, tripleHashFunction);
+        this.seed = mix64(seed + GOLDEN_GAMMA);
+    }
+
+    @Override
+    public int[] createSignature() {
+        int[] signature = new int[signatureLength];
+        Arrays.fill(signature, EMPTY);
+        return signature;
+    }
+
+    @Override
+    public void update(int[] signature, int tripleHash) {
+        long hash = mix64(tripleHash ^ seed);
+        int bin = (int) (((hash >>> 32) * signature.length) >>> 32);
+        int value = (int) hash;
+        // EMPTY is the largest unsigned value, i.e., every value replaces it
+        // (a value equal to EMPTY does not change anything anyway)
+        if (Integer.compareUnsigned(value, signature[bin]) < 0) {
+            signature[bin] = value;
+        }
+    }
+
+    @Override
+    public int[] finish(int[] signature) {
+        int emptyBins = 0;
+        for (int i = 0; i < signature.length; ++i) {
+            if (signature[i] == EMPTY) {
+                ++emptyBins;
+            }
+        }
+        if ((emptyBins == 0) || (emptyBins == signature.length)) {
+            return signature;
+        }
+        // the values are copied from the original signature, not from bins
+        // that have been filled during the densification
+        int[] original = Arrays.copyOf(signature, signature.length);
+        long probe;
+        int source;
+        for (int i = 0; i < signature.length; ++i) {
+            if (original[i] == EMPTY) {
+                probe = seed ^ i;
+                do {
+                    probe = mix64(probe + GOLDEN_GAMMA);
+                    source = (int) (((probe >>> 32) * signature.length) >>> 32);
+                } while (original[source] == EMPTY);
+                signature[i] = original[source];
+            }
+        }
+        return signature;
+    }
+}
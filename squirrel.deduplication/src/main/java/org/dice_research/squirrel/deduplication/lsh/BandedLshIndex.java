@@ -0,0 +1,569 @@
+package org.dice_research.squirrel.deduplication.lsh;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.dice_research.squirrel.deduplication.hashing.impl.MinHashValue;
+
+/**
+ * Locality sensitive hashing index for MinHash signatures. A signature with
+ * {@code bands * rows} values is split into bands of {@code rows} values. Two
+ * graphs become candidates of each other if all values of at least one band
+ * are equal. For two graphs with a Jaccard similarity s, the probability of
+ * becoming candidates is {@code 1 - (1 - s^rows)^bands}, i.e., the threshold
+ * at which graphs are found with a probability of roughly 50% is about
+ * {@code (1 / bands)^(1 / rows)}. The candidates can be filtered with the
+ * Jaccard similarity estimated from the signatures (see
+ * {@link #getSimilar(int[], double)}) before the triples of the remaining
+ * candidates are compared.
+ *
+ * <p>
+ * The index only uses primitive arrays. Every graph is identified by a
+ * {@code long} ID (e.g., the
+ * {@link org.dice_research.squirrel.data.uri.UriFingerprint} of its URI) and
+ * gets an internal position at which its ID and signature are stored. Every
+ * band has an open addressing hash table mapping the hash of the band's values
+ * to the position of the last graph added to this bucket. The graphs of a
+ * bucket are chained via an array containing the previous graph of the same
+ * bucket for every pair of graph and band. Hence, a lookup needs one hash
+ * table access per band and iterates only over the graphs of the matching
+ * buckets. An index with 16 bands and 1 million graphs with signatures of 128
+ * values needs roughly 1 GB.
+ * </p>
+ *
+ * <p>
+ * Adding a graph with an ID that is already known replaces the old signature.
+ * Removed or replaced graphs are only marked as removed. Their entries are
+ * dropped when the index is written to a stream and read again. The index is
+ * thread-safe.
+ * </p>
+ */
+public class BandedLshIndex {
+
+    /**
+     * The default number of bands.
+     */
+    public static final int DEFAULT_BANDS = 16;
+    /**
+     * The default number of rows per band.
+     */
+    public static final int DEFAULT_ROWS = 8;
+
+    /**
+     * Identifies a stream containing an index.
+     */
+    protected static final int MAGIC_NUMBER = 0x4c534831;
+    /**
+     * The version of the stream format.
+     */
+    protected static final int FORMAT_VERSION = 1;
+
+    protected static final int NO_ENTRY = -1;
+    protected static final int INITIAL_CAPACITY = 1024;
+
+    protected final int bands;
+    protected final int rows;
+    protected final int signatureLength;
+
+    /**
+     * The number of positions that have been used.
+     */
+    protected int size = 0;
+    /**
+     * The number of graphs that have not been removed.
+     */
+    protected int liveGraphs = 0;
+    /**
+     * The IDs of the graphs (indexed by position).
+     */
+    protected long[] ids;
+    /**
+     * The signatures of the graphs. The signature of the graph at position p
+     * starts at {@code p * signatureLength}.
+     */
+    protected int[] signatures;
+    /**
+     * Flags marking removed graphs (indexed by position).
+     */
+    protected boolean[] removed;
+    /**
+     * The position of the previous graph of the same bucket (indexed by
+     * {@code position * bands + band}).
+     */
+    protected int[] chains;
+    /**
+     * The hash tables of the bands mapping band hashes to the position of the
+     * last graph that has been added to the bucket.
+     */
+    protected LongIntTable[] buckets;
+    /**
+     * Maps the IDs of the graphs to their positions.
+     */
+    protected IdTable positions;
+
+    protected final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Constructor using {@link #DEFAULT_BANDS} bands with {@link #DEFAULT_ROWS}
+     * rows, i.e., it expects signatures with 128 values.
+     */
+    public BandedLshIndex() {
+        this(DEFAULT_BANDS, DEFAULT_ROWS);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param bands the number of bands
+     * @param rows  the number of rows per band. The length of the signatures is
+     *              expected to be {@code bands * rows}.
+     */
+    public BandedLshIndex(int bands, int rows) {
+        if ((bands <= 0) || (rows <= 0)) {
+            throw new IllegalArgumentException("The number of bands and rows has to be positive.");
+        }
+        this.bands = bands;
+        this.rows = rows;
+        this.signatureLength = bands * rows;
+        ids = new long[INITIAL_CAPACITY];
+        signatures = new int[INITIAL_CAPACITY * signatureLength];
+        removed = new boolean[INITIAL_CAPACITY];
+        chains = new int[INITIAL_CAPACITY * bands];
+        buckets = new LongIntTable[bands];
+        for (int i = 0; i < bands; ++i) {
+            buckets[i] = new LongIntTable();
+        }
+        positions = new IdTable();
+    }
+
+    /**
+     * Adds the given graph to the index. If the index already contains a graph
+     * with the given ID, its signature is replaced.
+     *
+     * @param id        the ID of the graph
+     * @param signature the MinHash signature of the graph
+     * @throws IllegalArgumentException if the signature does not have the
+     *                                  expected length
+     */
+    public void add(long id, int[] signature) {
+        checkSignature(signature);
+        lock.writeLock().lock();
+        try {
+            int oldPosition = positions.get(id);
+            if (oldPosition != NO_ENTRY) {
+                removed[oldPosition] = true;
+                --liveGraphs;
+            }
+            int position = size;
+            ensureCapacity(position + 1);
+            ++size;
+            ++liveGraphs;
+            ids[position] = id;
+            System.arraycopy(signature, 0, signatures, position * signatureLength, signatureLength);
+            for (int b = 0; b < bands; ++b) {
+                chains[(position * bands) + b] = buckets[b].put(bandHash(signature, b), position);
+            }
+            positions.put(id, position);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the graph with the given ID from the index.
+     *
+     * @param id the ID of the graph
+     * @return {@code true} if the index contained the graph
+     */
+    public boolean remove(long id) {
+        lock.writeLock().lock();
+        try {
+            int position = positions.remove(id);
+            if (position == NO_ENTRY) {
+                return false;
+            }
+            removed[position] = true;
+            --liveGraphs;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the IDs of all graphs that share at least one band with the given
+     * signature.
+     *
+     * @param signature the MinHash signature of the graph for which candidates
+     *                  should be retrieved
+     * @return the IDs of the candidates (sorted by the time they have been
+     *         added)
+     */
+    public long[] getCandidates(int[] signature) {
+        return getSimilar(signature, 0);
+    }
+
+    /**
+     * Returns the IDs of all graphs that share at least one band with the given
+     * signature and for which the Jaccard similarity estimated from the
+     * signatures is at least the given threshold.
+     *
+     * @param signature the MinHash signature of the graph for which similar
+     *                  graphs should be retrieved
+     * @param threshold the minimal estimated Jaccard similarity
+     * @return the IDs of the similar graphs (sorted by the time they have been
+     *         added)
+     */
+    public long[] getSimilar(int[] signature, double threshold) {
+        checkSignature(signature);
+        lock.readLock().lock();
+        try {
+            int[] found = new int[16];
+            int count = 0;
+            int position;
+            for (int b = 0; b < bands; ++b) {
+                position = buckets[b].get(bandHash(signature, b));
+                while (position != NO_ENTRY) {
+                    // make sure that the band is equal and not only its hash
+                    if (!removed[position] && bandEquals(signature, position, b)) {
+                        if (count == found.length) {
+                            found = Arrays.copyOf(found, count * 2);
+                        }
+                        found[count] = position;
+                        ++count;
+                    }
+                    position = chains[(position * bands) + b];
+                }
+            }
+            if (count == 0) {
+                return new long[0];
+            }
+            Arrays.sort(found, 0, count);
+            long[] result = new long[count];
+            int resultSize = 0;
+            int last = NO_ENTRY;
+            for (int i = 0; i < count; ++i) {
+                position = found[i];
+                if ((position != last) && ((threshold <= 0) || (MinHashValue.estimateJaccard(signature, 0,
+                        signatures, position * signatureLength, signatureLength) >= threshold))) {
+                    result[resultSize] = ids[position];
+                    ++resultSize;
+                }
+                last = position;
+            }
+            return (resultSize == result.length) ? result : Arrays.copyOf(result, resultSize);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the signature of the graph with the given ID.
+     *
+     * @param id the ID of the graph
+     * @return the signature or {@code null} if the index does not contain the
+     *         graph
+     */
+    public int[] getSignature(long id) {
+        lock.readLock().lock();
+        try {
+            int position = positions.get(id);
+            if (position == NO_ENTRY) {
+                return null;
+            }
+            int start = position * signatureLength;
+            return Arrays.copyOfRange(signatures, start, start + signatureLength);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param id the ID of a graph
+     * @return {@code true} if the index contains the graph
+     */
+    public boolean contains(long id) {
+        lock.readLock().lock();
+        try {
+            return positions.get(id) != NO_ENTRY;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of graphs in the index
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveGraphs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of bands
+     */
+    public int getBands() {
+        return bands;
+    }
+
+    /**
+     * @return the number of rows per band
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * @return the expected length of the signatures
+     */
+    public int getSignatureLength() {
+        return signatureLength;
+    }
+
+    /**
+     * Writes the IDs and signatures of all graphs of the index to the given
+     * stream. The stream is not closed.
+     *
+     * @param out the stream to which the index should be written
+     * @throws IOException if an error occurs while writing
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream dout = new DataOutputStream(out);
+        lock.readLock().lock();
+        try {
+            dout.writeInt(MAGIC_NUMBER);
+            dout.writeInt(FORMAT_VERSION);
+            dout.writeInt(bands);
+            dout.writeInt(rows);
+            dout.writeInt(liveGraphs);
+            int start;
+            for (int p = 0; p < size; ++p) {
+                if (!removed[p]) {
+                    dout.writeLong(ids[p]);
+                    start = p * signatureLength;
+                    for (int i = 0; i < signatureLength; ++i) {
+                        dout.writeInt(signatures[start + i]);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        dout.flush();
+    }
+
+    /**
+     * Reads an index from the given stream. The stream is not closed.
+     *
+     * @param in the stream from which the index should be read
+     * @return the read index
+     * @throws IOException if an error occurs while reading or the stream does
+     *                     not contain an index
+     */
+    public static BandedLshIndex readFrom(InputStream in) throws IOException {
+        DataInputStream din = new DataInputStream(in);
+        if (din.readInt() != MAGIC_NUMBER) {
+            throw new IOException("The stream does not contain an LSH index.");
+        }
+        int version = din.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported version " + version + " of the LSH index format.");
+        }
+        BandedLshIndex index = new BandedLshIndex(din.readInt(), din.readInt());
+        int count = din.readInt();
+        int[] signature = new int[index.signatureLength];
+        long id;
+        for (int p = 0; p < count; ++p) {
+            id = din.readLong();
+            for (int i = 0; i < signature.length; ++i) {
+                signature[i] = din.readInt();
+            }
+            index.add(id, signature);
+        }
+        return index;
+    }
+
+    /**
+     * Writes the index to the given file.
+     *
+     * @param file the file to which the index should be written
+     * @throws IOException if an error occurs while writing
+     */
+    public void save(File file) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+            writeTo(out);
+        }
+    }
+
+    /**
+     * Reads an index from the given file.
+     *
+     * @param file the file from which the index should be read
+     * @return the read index
+     * @throws IOException if an error occurs while reading
+     */
+    public static BandedLshIndex load(File file) throws IOException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            return readFrom(in);
+        }
+    }
+
+    protected void checkSignature(int[] signature) {
+        if (signature.length != signatureLength) {
+            throw new IllegalArgumentException("Got a signature with " + signature.length + " values while "
+                    + signatureLength + " values were expected.");
+        }
+    }
+
+    protected void ensureCapacity(int capacity) {
+        if (capacity > ids.length) {
+            int newCapacity = Math.max(capacity, ids.length * 2);
+            ids = Arrays.copyOf(ids, newCapacity);
+            signatures = Arrays.copyOf(signatures, newCapacity * signatureLength);
+            removed = Arrays.copyOf(removed, newCapacity);
+            chains = Arrays.copyOf(chains, newCapacity * bands);
+        }
+    }
+
+    protected long bandHash(int[] signature, int band) {
+        int start = band * rows;
+        long hash = band;
+        for (int i = 0; i < rows; ++i) {
+            hash = mix64(hash ^ (signature[start + i] & 0xffffffffL)) + i;
+        }
+        return hash;
+    }
+
+    protected boolean bandEquals(int[] signature, int position, int band) {
+        int start = band * rows;
+        int storedStart = (position * signatureLength) + start;
+        for (int i = 0; i < rows; ++i) {
+            if (signature[start + i] != signatures[storedStart + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The finalization step of the 64-bit MurmurHash3.
+     */
+    protected static long mix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    /**
+     * Open addressing hash table with linear probing mapping {@code long} keys
+     * to {@code int} values. Empty slots are marked with {@link #NO_ENTRY} as
+     * value.
+     */
+    protected static class LongIntTable {
+
+        protected long[] keys = new long[INITIAL_CAPACITY];
+        protected int[] values = new int[INITIAL_CAPACITY];
+        protected int size = 0;
+
+        public LongIntTable() {
+            Arrays.fill(values, NO_ENTRY);
+        }
+
+        protected int slot(long key) {
+            int mask = keys.length - 1;
+            int slot = (int) mix64(key) & mask;
+            while ((values[slot] != NO_ENTRY) && (keys[slot] != key)) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        public int get(long key) {
+            return values[slot(key)];
+        }
+
+        /**
+         * Sets the value of the given key and returns the old value.
+         */
+        public int put(long key, int value) {
+            int slot = slot(key);
+            int old = values[slot];
+            keys[slot] = key;
+            values[slot] = value;
+            if (old == NO_ENTRY) {
+                ++size;
+                if ((size * 4) > (keys.length * 3)) {
+                    grow();
+                }
+            }
+            return old;
+        }
+
+        protected void grow() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldValues.length * 2];
+            Arrays.fill(values, NO_ENTRY);
+            for (int i = 0; i < oldKeys.length; ++i) {
+                if (oldValues[i] != NO_ENTRY) {
+                    int slot = slot(oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * Maps graph IDs to their positions. Removing an entry uses backward shift
+     * deletion to keep the probe sequences intact.
+     */
+    protected static class IdTable extends LongIntTable {
+
+        public int remove(long key) {
+            int mask = keys.length - 1;
+            int slot = slot(key);
+            int old = values[slot];
+            if (old == NO_ENTRY) {
+                return NO_ENTRY;
+            }
+            --size;
+            int next = slot;
+            int ideal;
+            while (true) {
+                values[slot] = NO_ENTRY;
+                do {
+                    next = (next + 1) & mask;
+                    if (values[next] == NO_ENTRY) {
+                        return old;
+                    }
+                    ideal = (int) mix64(keys[next]) & mask;
+                    // move the entry if its ideal slot is not between the
+                    // free slot and its current slot (cyclic)
+                } while ((slot <= next) ? ((slot < ideal) && (ideal <= next)) : ((slot < ideal) || (ideal <= next)));
+                keys[slot] = keys[next];
+                values[slot] = values[next];
+                slot = next;
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package org.dice_research.squirrel.hashing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.dice_research.squirrel.deduplication.hashing.impl.AbstractMinHashFunction;
+import org.dice_research.squirrel.deduplication.hashing.impl.MinHashFunction;
+import org.dice_research.squirrel.deduplication.hashing.impl.MinHashValue;
+import org.dice_research.squirrel.deduplication.hashing.impl.OnePermutationMinHashFunction;
+import org.dice_research.squirrel.deduplication.hashing.impl.SimpleTripleHashFunction;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Tests for the {@link MinHashFunction} and the
+ * {@link OnePermutationMinHashFunction}.
+ */
+@RunWith(Parameterized.class)
+public class MinHashFunctionTest {
+
+    @Parameters
+    public static Collection<Object[]> data() {
+        return Arrays.asList(new Object[][] { { new MinHashFunction(new SimpleTripleHashFunction()) },
+                { new OnePermutationMinHashFunction(new SimpleTripleHashFunction()) } });
+    }
+
+    private AbstractMinHashFunction hashFunction;
+
+    public MinHashFunctionTest(AbstractMinHashFunction hashFunction) {
+        this.hashFunction = hashFunction;
+    }
+
+    @Test
+    public void testListOrder() {
+        List<Triple> tripleList1 = generateNonBlankTriples(0, 100);
+        List<Triple> tripleList2 = new ArrayList<>(tripleList1);
+        Collections.reverse(tripleList2);
+        Assert.assertEquals(hashFunction.hash(tripleList1), hashFunction.hash(tripleList2));
+    }
+
+    @Test
+    public void testBlankNode() {
+        List<Triple> tripleList1 = generateNonBlankTriples(0, 10);
+        List<Triple> tripleList2 = new ArrayList<>(tripleList1);
+        tripleList2.add(Triple.create(NodeFactory.createBlankNode("subject blank"), NodeFactory.createURI("predicate"),
+                NodeFactory.createURI("object")));
+        Assert.assertEquals(hashFunction.hash(tripleList1), hashFunction.hash(tripleList2));
+    }
+
+    @Test
+    public void testTripleHashes() {
+        List<Triple> triples = generateNonBlankTriples(0, 50);
+        int[] tripleHashes = new int[triples.size() + 10];
+        for (int i = 0; i < triples.size(); ++i) {
+            tripleHashes[i] = triples.get(i).hashCode();
+        }
+        Assert.assertArrayEquals(hashFunction.hash(triples).getSignature(),
+                hashFunction.hash(tripleHashes, triples.size()));
+    }
+
+    @Test
+    public void testJaccardEstimation() {
+        // two sets with 1000 triples sharing 600 triples => Jaccard = 600/1400
+        MinHashValue value1 = hashFunction.hash(generateNonBlankTriples(0, 1000));
+        MinHashValue value2 = hashFunction.hash(generateNonBlankTriples(400, 1400));
+        double expected = 600 / 1400.0;
+        double estimated = value1.estimateJaccard(value2);
+        // the standard deviation of the estimation with 128 values is ~0.044
+        Assert.assertEquals(expected, estimated, 0.15);
+
+        MinHashValue value3 = hashFunction.hash(generateNonBlankTriples(2000, 3000));
+        Assert.assertEquals(0, value1.estimateJaccard(value3), 0.05);
+        Assert.assertEquals(1.0, value1.estimateJaccard(hashFunction.hash(generateNonBlankTriples(0, 1000))), 0);
+    }
+
+    @Test
+    public void testEncoding() {
+        MinHashValue value = hashFunction.hash(generateNonBlankTriples(0, 20));
+        Assert.assertEquals(value, value.decodeFromString(value.encodeToString()));
+    }
+
+    /**
+     * Generate triples (without blank nodes) with the ids from start
+     * (inclusive) to end (exclusive).
+     */
+    private List<Triple> generateNonBlankTriples(int start, int end) {
+        List<Triple> triples = new ArrayList<>();
+        for (int i = start; i < end; i++) {
+            triples.add(Triple.create(NodeFactory.createURI("subject " + i), NodeFactory.createURI("predicate " + i),
+                    NodeFactory.createURI("object " + i)));
+        }
+        return triples;
+    }
+}
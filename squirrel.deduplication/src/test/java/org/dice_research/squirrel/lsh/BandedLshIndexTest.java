@@ -0,0 +1,115 @@
+package org.dice_research.squirrel.lsh;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+import org.dice_research.squirrel.deduplication.hashing.impl.MinHashFunction;
+import org.dice_research.squirrel.deduplication.hashing.impl.SimpleTripleHashFunction;
+import org.dice_research.squirrel.deduplication.lsh.BandedLshIndex;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link BandedLshIndex}.
+ */
+public class BandedLshIndexTest {
+
+    private static final int NUMBER_OF_GRAPHS = 2000;
+    private static final int TRIPLES_PER_GRAPH = 100;
+
+    private MinHashFunction hashFunction = new MinHashFunction(new SimpleTripleHashFunction());
+    private int[][] signatures;
+    private BandedLshIndex index;
+
+    @Before
+    public void setUp() {
+        // every graph has its own triples, i.e., there are no similar graphs
+        Random random = new Random(42);
+        int[] tripleHashes = new int[TRIPLES_PER_GRAPH];
+        signatures = new int[NUMBER_OF_GRAPHS][];
+        index = new BandedLshIndex();
+        for (int i = 0; i < NUMBER_OF_GRAPHS; ++i) {
+            for (int j = 0; j < tripleHashes.length; ++j) {
+                tripleHashes[j] = random.nextInt();
+            }
+            signatures[i] = hashFunction.hash(tripleHashes, tripleHashes.length);
+            index.add(i, signatures[i]);
+        }
+    }
+
+    @Test
+    public void testCandidates() {
+        Assert.assertEquals(NUMBER_OF_GRAPHS, index.size());
+        for (int i = 0; i < NUMBER_OF_GRAPHS; ++i) {
+            Assert.assertArrayEquals(new long[] { i }, index.getCandidates(signatures[i]));
+            Assert.assertArrayEquals(new long[] { i }, index.getSimilar(signatures[i], 1.0));
+        }
+    }
+
+    @Test
+    public void testSimilarGraphs() {
+        // a graph that shares 95 triples of graph 0 has a Jaccard similarity
+        // of 95/105 and is found with a probability > 99.9%
+        Random random = new Random(42);
+        int[] tripleHashes = new int[TRIPLES_PER_GRAPH];
+        for (int j = 0; j < tripleHashes.length; ++j) {
+            tripleHashes[j] = random.nextInt();
+        }
+        for (int j = 0; j < 5; ++j) {
+            tripleHashes[j] = random.nextInt();
+        }
+        int[] signature = hashFunction.hash(tripleHashes, tripleHashes.length);
+        Assert.assertArrayEquals(new long[] { 0 }, index.getCandidates(signature));
+        Assert.assertArrayEquals(new long[] { 0 }, index.getSimilar(signature, 0.75));
+        Assert.assertEquals(0, index.getSimilar(signature, 1.0).length);
+
+        // add the graph and make sure that both are found
+        index.add(NUMBER_OF_GRAPHS, signature);
+        Assert.assertArrayEquals(new long[] { 0, NUMBER_OF_GRAPHS }, index.getSimilar(signatures[0], 0.75));
+    }
+
+    @Test
+    public void testRemoveAndReplace() {
+        Assert.assertTrue(index.remove(5));
+        Assert.assertFalse(index.remove(5));
+        Assert.assertFalse(index.contains(5));
+        Assert.assertEquals(0, index.getCandidates(signatures[5]).length);
+        Assert.assertEquals(NUMBER_OF_GRAPHS - 1, index.size());
+
+        // replace the signature of graph 6 with the signature of graph 7
+        index.add(6, signatures[7]);
+        Assert.assertEquals(0, index.getCandidates(signatures[6]).length);
+        Assert.assertArrayEquals(new long[] { 7, 6 }, index.getCandidates(signatures[7]));
+        Assert.assertArrayEquals(signatures[7], index.getSignature(6));
+        Assert.assertEquals(NUMBER_OF_GRAPHS - 1, index.size());
+
+        // remove every second graph
+        for (int i = 8; i < NUMBER_OF_GRAPHS; i += 2) {
+            Assert.assertTrue(index.remove(i));
+        }
+        for (int i = 8; i < NUMBER_OF_GRAPHS; ++i) {
+            Assert.assertEquals((i % 2) == 1, index.contains(i));
+            Assert.assertEquals((i % 2) == 1 ? 1 : 0, index.getCandidates(signatures[i]).length);
+        }
+    }
+
+    @Test
+    public void testPersistence() throws Exception {
+        index.remove(5);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        index.writeTo(out);
+        BandedLshIndex readIndex = BandedLshIndex.readFrom(new ByteArrayInputStream(out.toByteArray()));
+        Assert.assertEquals(index.size(), readIndex.size());
+        Assert.assertEquals(index.getBands(), readIndex.getBands());
+        Assert.assertEquals(index.getRows(), readIndex.getRows());
+        Assert.assertFalse(readIndex.contains(5));
+        for (int i = 0; i < NUMBER_OF_GRAPHS; ++i) {
+            if (i != 5) {
+                Assert.assertArrayEquals(signatures[i], readIndex.getSignature(i));
+                Assert.assertArrayEquals(new long[] { i }, readIndex.getCandidates(signatures[i]));
+            }
+        }
+    }
+}
@@ -13,6 +13,7 @@ import java.util.concurrent.Semaphore;
 
 import org.apache.commons.io.FileUtils;
 import org.dice_research.squirrel.Constants;
+import org.dice_research.squirrel.configurator.FrontierConfiguration;
 import org.dice_research.squirrel.configurator.MongoConfiguration;
 import org.dice_research.squirrel.configurator.SeedConfiguration;
 import org.dice_research.squirrel.configurator.WebConfiguration;
@@ -22,22 +23,26 @@ import org.dice_research.squirrel.data.uri.UriSeedReader;
 import org.dice_research.squirrel.data.uri.UriUtils;
 import org.dice_research.squirrel.data.uri.filter.InMemoryKnownUriFilter;
 import org.dice_research.squirrel.data.uri.filter.KnownUriFilter;
+import org.dice_research.squirrel.data.uri.filter.OffHeapKnownUriFilter;
 import org.dice_research.squirrel.data.uri.filter.RegexBasedWhiteListFilter;
 import org.dice_research.squirrel.data.uri.info.URIReferences;
 import org.dice_research.squirrel.data.uri.norm.NormalizerImpl;
 import org.dice_research.squirrel.data.uri.norm.UriGenerator;
 import org.dice_research.squirrel.data.uri.norm.UriNormalizer;
 import org.dice_research.squirrel.data.uri.serialize.Serializer;
-import org.dice_research.squirrel.data.uri.serialize.java.GzipJavaUriSerializer;
+import org.dice_research.squirrel.data.uri.serialize.binary.BinaryUriSerializer;
 import org.dice_research.squirrel.frontier.ExtendedFrontier;
 import org.dice_research.squirrel.frontier.Frontier;
+import org.dice_research.squirrel.frontier.dns.CachingDnsResolver;
 import org.dice_research.squirrel.frontier.impl.ExtendedFrontierImpl;
 import org.dice_research.squirrel.frontier.impl.FrontierImpl;
 import org.dice_research.squirrel.frontier.impl.FrontierSenderToWebservice;
 import org.dice_research.squirrel.frontier.impl.QueueBasedTerminationCheck;
 import org.dice_research.squirrel.frontier.impl.TerminationCheck;
 import org.dice_research.squirrel.frontier.impl.WorkerGuard;
+import org.dice_research.squirrel.queue.BlockingQueue;
 import org.dice_research.squirrel.queue.InMemoryQueue;
+import org.dice_research.squirrel.queue.PolitenessAwareQueue;
 import org.dice_research.squirrel.queue.UriQueue;
 import org.dice_research.squirrel.rabbit.RPCServer;
 import org.dice_research.squirrel.rabbit.RespondingDataHandler;
@@ -50,6 +55,7 @@ import org.dice_research.squirrel.worker.WorkerInfo;
 import org.hobbit.core.components.AbstractComponent;
 import org.hobbit.core.data.RabbitQueue;
 import org.hobbit.core.rabbit.DataReceiver;
+import org.hobbit.utils.EnvVariables;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -84,8 +90,8 @@ public class FrontierComponent extends AbstractComponent implements RespondingDa
     private List<UriGenerator> uriGenerator;
     private final Semaphore terminationMutex = new Semaphore(0);
     private final WorkerGuard workerGuard = new WorkerGuard(this);
-    private final boolean doRecrawling = true;
-    private long recrawlingTime = 1000L * 60L * 60L * 24L * 30;
+    private boolean doRecrawling = FrontierConfiguration.DEFAULT_RECRAWLING;
+    private long recrawlingTime = FrontierConfiguration.DEFAULT_RECRAWLING_TIME;
     private Timer timerTerminator;
 
     public static final boolean RECRAWLING_ACTIVE = true;
@@ -93,7 +99,10 @@ public class FrontierComponent extends AbstractComponent implements RespondingDa
     @Override
     public void init() throws Exception {
         super.init();
-        serializer = new GzipJavaUriSerializer();
+        serializer = new BinaryUriSerializer();
+        FrontierConfiguration frontierConfiguration = FrontierConfiguration.getFrontierConfiguration();
+        doRecrawling = frontierConfiguration.isRecrawling();
+        recrawlingTime = frontierConfiguration.getRecrawlingTime();
         MongoConfiguration mongoConfiguration = MongoConfiguration.getMDBConfiguration();
         WebConfiguration webConfiguration = WebConfiguration.getWebConfiguration();
         if (mongoConfiguration != null) {
@@ -115,11 +124,39 @@ public class FrontierComponent extends AbstractComponent implements RespondingDa
         } else {
             LOGGER.warn("Couldn't get MDBConfiguration. An in-memory queue will be used.");
             queue = new InMemoryQueue();
-            knownUriFilter = new InMemoryKnownUriFilter(doRecrawling, recrawlingTime);
+            if (doRecrawling && (frontierConfiguration.getKnownUriFilterFile() == null)) {
+                // the off-heap filter can not list the URIs that should be recrawled
+                knownUriFilter = new InMemoryKnownUriFilter(doRecrawling, recrawlingTime);
+            } else {
+                if (doRecrawling) {
+                    LOGGER.warn(
+                            "The off-heap known URI filter can not list the URIs that should be recrawled. They will only be recrawled if they are found again.");
+                }
+                knownUriFilter = new OffHeapKnownUriFilter(frontierConfiguration.getKnownUriFilterFile(),
+                        frontierConfiguration.getExpectedNumberOfUris(), doRecrawling);
+            }
+            knownUriFilter.open();
+        }
+
+        // Make sure that groups are not handed out before the crawl delay of their
+        // server has passed
+        if (queue instanceof BlockingQueue) {
+            queue = new PolitenessAwareQueue<>((BlockingQueue<?>) queue,
+                    EnvVariables.getLong(Constants.FRONTIER_MIN_DELAY_KEY, PolitenessAwareQueue.DEFAULT_DELAY, LOGGER),
+                    EnvVariables.getInt(Constants.FRONTIER_MAX_URIS_PER_GROUP_KEY, PolitenessAwareQueue.NO_LIMIT,
+                            LOGGER));
         }
 
         // Build frontier
-        frontier = new ExtendedFrontierImpl(normalizer, knownUriFilter, uriReferences, queue,uriGenerator, doRecrawling);
+        ExtendedFrontierImpl extendedFrontier = new ExtendedFrontierImpl(normalizer, knownUriFilter, uriReferences,
+                queue, uriGenerator, doRecrawling);
+        // Resolve the hosts of new URIs asynchronously
+        extendedFrontier.setDnsResolver(new CachingDnsResolver(
+                EnvVariables.getInt(Constants.FRONTIER_DNS_LOOKUP_THREADS_KEY,
+                        CachingDnsResolver.DEFAULT_LOOKUP_THREADS, LOGGER),
+                EnvVariables.getLong(Constants.FRONTIER_DNS_TTL_KEY, CachingDnsResolver.DEFAULT_TTL, LOGGER),
+                CachingDnsResolver.DEFAULT_NEGATIVE_TTL, CachingDnsResolver.DEFAULT_MAX_SIZE));
+        frontier = extendedFrontier;
 
         rabbitQueue = this.incomingDataQueueFactory.createDefaultRabbitQueue(Constants.FRONTIER_QUEUE_NAME);
         
@@ -213,7 +250,7 @@ public class FrontierComponent extends AbstractComponent implements RespondingDa
             	
             	if(timerTerminator == null) {
             		LOGGER.info("Initializing Terminator task...");
-                	TimerTask terminatorTask = new TerminatorTask(queue, terminationMutex, this.workerGuard);
+                	TimerTask terminatorTask = new TerminatorTask(queue, frontier, terminationMutex, this.workerGuard);
                     timerTerminator = new Timer();
                     timerTerminator.schedule(terminatorTask, 5000, 5000);
             	}
@@ -291,12 +328,15 @@ public class FrontierComponent extends AbstractComponent implements RespondingDa
     private static class TerminatorTask extends TimerTask {
 
         private UriQueue queue;
+        private Frontier frontier;
         private TerminationCheck terminationCheck = new QueueBasedTerminationCheck();
         private Semaphore terminationMutex;
         private WorkerGuard workerGuard;
 
-        public TerminatorTask(UriQueue queue, Semaphore terminationMutex, WorkerGuard workerGuard) {
+        public TerminatorTask(UriQueue queue, Frontier frontier, Semaphore terminationMutex,
+                WorkerGuard workerGuard) {
             this.queue = queue;
+            this.frontier = frontier;
             this.terminationMutex = terminationMutex;
             this.workerGuard = workerGuard;
         }
@@ -313,6 +353,10 @@ public class FrontierComponent extends AbstractComponent implements RespondingDa
                     break;
                 }
             }
+            // URIs waiting for the lookup of their host will be added to the queue
+            if ((frontier instanceof FrontierImpl) && (((FrontierImpl) frontier).getNumberOfParkedUris() > 0)) {
+                stillHasUris = true;
+            }
             
 			if(!stillHasUris && terminationCheck.shouldFrontierTerminate(queue)) {
 	        	terminationMutex.release();
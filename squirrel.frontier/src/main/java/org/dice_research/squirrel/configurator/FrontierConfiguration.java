@@ -0,0 +1,104 @@
+package org.dice_research.squirrel.configurator;
+
+import java.io.File;
+
+import org.dice_research.squirrel.data.uri.filter.OffHeapKnownUriFilter;
+import org.hobbit.utils.EnvVariables;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The configuration of the recrawling and the known URI filter of the
+ * frontier. All values can be set using environment variables.
+ */
+public class FrontierConfiguration extends Configuration {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FrontierConfiguration.class);
+
+    /**
+     * Key of the environment variable defining whether the frontier recrawls
+     * URIs.
+     */
+    public static final String RECRAWLING_KEY = "FRONTIER_RECRAWLING";
+    /**
+     * Key of the environment variable defining the time (in ms) after which a
+     * crawled URI should be crawled again.
+     */
+    public static final String RECRAWLING_TIME_KEY = "FRONTIER_RECRAWLING_TIME";
+    /**
+     * Key of the environment variable defining the file of the off-heap known
+     * URI filter. If it is not set, the filter is not persisted.
+     */
+    public static final String KNOWN_URI_FILTER_FILE_KEY = "FRONTIER_KNOWN_URI_FILTER_FILE";
+    /**
+     * Key of the environment variable defining the number of URIs the off-heap
+     * known URI filter is created for.
+     */
+    public static final String EXPECTED_NUMBER_OF_URIS_KEY = "FRONTIER_EXPECTED_NUMBER_OF_URIS";
+
+    public static final boolean DEFAULT_RECRAWLING = true;
+    public static final long DEFAULT_RECRAWLING_TIME = 1000L * 60L * 60L * 24L * 30;
+
+    private boolean recrawling;
+    private long recrawlingTime;
+    private File knownUriFilterFile;
+    private int expectedNumberOfUris;
+
+    /**
+     * Constructor.
+     *
+     * @param recrawling           flag indicating whether the frontier recrawls
+     *                             URIs
+     * @param recrawlingTime       the time (in ms) after which a crawled URI
+     *                             should be crawled again
+     * @param knownUriFilterFile   the file of the off-heap known URI filter or
+     *                             {@code null} if it should not be persisted
+     * @param expectedNumberOfUris the number of URIs the off-heap known URI
+     *                             filter is created for
+     */
+    public FrontierConfiguration(boolean recrawling, long recrawlingTime, File knownUriFilterFile,
+            int expectedNumberOfUris) {
+        if (recrawlingTime < 0) {
+            throw new IllegalArgumentException("The recrawling time must not be negative.");
+        }
+        if (expectedNumberOfUris < 1) {
+            throw new IllegalArgumentException("The expected number of URIs has to be positive.");
+        }
+        this.recrawling = recrawling;
+        this.recrawlingTime = recrawlingTime;
+        this.knownUriFilterFile = knownUriFilterFile;
+        this.expectedNumberOfUris = expectedNumberOfUris;
+    }
+
+    /**
+     * Creates the configuration based on the environment variables. Variables
+     * that are not defined are replaced by their default values.
+     *
+     * @return the configuration of the frontier
+     */
+    public static FrontierConfiguration getFrontierConfiguration() {
+        boolean recrawling = EnvVariables.getBoolean(RECRAWLING_KEY, DEFAULT_RECRAWLING, LOGGER);
+        long recrawlingTime = EnvVariables.getLong(RECRAWLING_TIME_KEY, DEFAULT_RECRAWLING_TIME, LOGGER);
+        String knownUriFilterFile = EnvVariables.getString(KNOWN_URI_FILTER_FILE_KEY, (String) null, LOGGER);
+        int expectedNumberOfUris = EnvVariables.getInt(EXPECTED_NUMBER_OF_URIS_KEY,
+                OffHeapKnownUriFilter.DEFAULT_EXPECTED_NUMBER_OF_URIS, LOGGER);
+        return new FrontierConfiguration(recrawling, recrawlingTime,
+                knownUriFilterFile != null ? new File(knownUriFilterFile) : null, expectedNumberOfUris);
+    }
+
+    public boolean isRecrawling() {
+        return recrawling;
+    }
+
+    public long getRecrawlingTime() {
+        return recrawlingTime;
+    }
+
+    public File getKnownUriFilterFile() {
+        return knownUriFilterFile;
+    }
+
+    public int getExpectedNumberOfUris() {
+        return expectedNumberOfUris;
+    }
+}
@@ -7,18 +7,23 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.bson.Document;
 import org.bson.conversions.Bson;
 import org.dice_research.squirrel.configurator.MongoConfiguration;
 import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.data.uri.UriFingerprint;
 import org.dice_research.squirrel.data.uri.UriType;
 import org.dice_research.squirrel.deduplication.hashing.HashValue;
 import org.dice_research.squirrel.deduplication.hashing.UriHashCustodian;
 import org.dice_research.squirrel.frontier.impl.FrontierImpl;
+import org.dice_research.squirrel.frontier.utils.MongoDBUriIdMigration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -29,8 +34,13 @@ import com.mongodb.ServerAddress;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.BulkWriteOptions;
 import com.mongodb.client.model.Filters;
-import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
 
 /**
  * 
@@ -51,6 +61,11 @@ public class MongoDBKnowUriFilter implements KnownUriFilter, Cloneable, Closeabl
     private Integer recrawlEveryWeek = 60 * 60 * 24 * 7 * 1000; // in miiliseconds
     public static final String COLLECTION_NAME = "knownurifilter";
     
+    /**
+     * The primary key of the documents, i.e., the {@link UriFingerprint} of the
+     * URI.
+     */
+    public static final String COLUMN_ID = "_id";
     public static final String COLUMN_TIMESTAMP_LAST_CRAWL = "timestampLastCrawl";
     public static final String COLUMN_URI = "uri";
     public static final String COLUMN_CRAWLING_IN_PROCESS = "crawlingInProcess";
@@ -63,6 +78,12 @@ public class MongoDBKnowUriFilter implements KnownUriFilter, Cloneable, Closeabl
      * Used as a default hash value for URIS, will be replaced by real hash value as soon as it has been computed.
      */
     private static final String DUMMY_HASH_VALUE = "dummyValue";
+    private static final UpdateOptions UPSERT = new UpdateOptions().upsert(true);
+    /**
+     * Name of the index on the URI string that has been used before the
+     * documents were identified by the fingerprint of their URI.
+     */
+    private static final String OLD_URI_INDEX_NAME = "uri_1";
 
     public MongoDBKnowUriFilter(String hostName, Integer port) {
  
@@ -89,7 +110,8 @@ public class MongoDBKnowUriFilter implements KnownUriFilter, Cloneable, Closeabl
     @Override
     public boolean isUriGood(CrawleableUri uri) {
         MongoCursor<Document> cursor = mongoDB.getCollection(COLLECTION_NAME)
-                .find(new Document("uri", uri.getUri().toString())).iterator();
+                .find(Filters.eq(COLUMN_ID, UriFingerprint.fingerprint(uri)))
+                .projection(Projections.include(COLUMN_TIMESTAMP_LAST_CRAWL)).iterator();
 
         if (cursor.hasNext()) {
             LOGGER.debug("URI {} is not good", uri.toString());
@@ -109,16 +131,87 @@ public class MongoDBKnowUriFilter implements KnownUriFilter, Cloneable, Closeabl
 
     }
 
+    @Override
+    public List<CrawleableUri> getGoodUris(List<CrawleableUri> uris) {
+        if (uris.isEmpty()) {
+            return new ArrayList<>(0);
+        }
+        long[] fingerprints = new long[uris.size()];
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < fingerprints.length; ++i) {
+            fingerprints[i] = UriFingerprint.fingerprint(uris.get(i));
+            ids.add(fingerprints[i]);
+        }
+        // retrieve the last crawl of all known URIs with a single query
+        Map<Long, Long> lastCrawls = new HashMap<>();
+        MongoCursor<Document> cursor = mongoDB.getCollection(COLLECTION_NAME).find(Filters.in(COLUMN_ID, ids))
+                .projection(Projections.include(COLUMN_TIMESTAMP_LAST_CRAWL)).iterator();
+        try {
+            while (cursor.hasNext()) {
+                Document doc = cursor.next();
+                Long timestampRetrieved = Long.parseLong(doc.get(COLUMN_TIMESTAMP_LAST_CRAWL).toString());
+                lastCrawls.put(doc.getLong(COLUMN_ID), timestampRetrieved);
+            }
+        } finally {
+            cursor.close();
+        }
+        List<CrawleableUri> goodUris = new ArrayList<>(uris.size());
+        long now = System.currentTimeMillis();
+        Long lastCrawl;
+        for (int i = 0; i < fingerprints.length; ++i) {
+            // make sure that every URI is returned only once
+            if (ids.remove(fingerprints[i])) {
+                lastCrawl = lastCrawls.get(fingerprints[i]);
+                if ((lastCrawl == null) || ((now - lastCrawl) >= recrawlEveryWeek)) {
+                    goodUris.add(uris.get(i));
+                }
+            }
+        }
+        LOGGER.debug("{} of {} URIs are good", goodUris.size(), uris.size());
+        return goodUris;
+    }
+
     @Override
     public void add(CrawleableUri uri, long nextCrawlTimestamp) {
     	add(uri, System.currentTimeMillis(), nextCrawlTimestamp);
     }
 
+    @Override
+    public void add(List<CrawleableUri> uris, long nextCrawlTimestamp) {
+        if (uris.isEmpty()) {
+            return;
+        }
+        long lastCrawlTimestamp = System.currentTimeMillis();
+        List<WriteModel<Document>> writes = new ArrayList<>(uris.size());
+        for (CrawleableUri uri : uris) {
+            writes.add(createUpsert(uri, lastCrawlTimestamp, nextCrawlTimestamp));
+        }
+        mongoDB.getCollection(COLLECTION_NAME).bulkWrite(writes, new BulkWriteOptions().ordered(false));
+        LOGGER.debug("Added {} URIs to the known uri filter list", uris.size());
+    }
+
+    /**
+     * Creates an update of the document of the given URI that is identified by
+     * its fingerprint. The document is inserted if it does not exist.
+     */
+    protected UpdateOneModel<Document> createUpsert(CrawleableUri uri, long lastCrawlTimestamp,
+            long nextCrawlTimestamp) {
+        return new UpdateOneModel<Document>(Filters.eq(COLUMN_ID, UriFingerprint.fingerprint(uri)),
+                Updates.combine(Updates.set(COLUMN_URI, uri.getUri().toString()),
+                        Updates.set(COLUMN_TYPE, uri.getType().toString()),
+                        Updates.set(COLUMN_TIMESTAMP_LAST_CRAWL, lastCrawlTimestamp),
+                        Updates.set(COLUMN_TIMESTAMP_NEXT_CRAWL, nextCrawlTimestamp),
+                        Updates.set(COLUMN_CRAWLING_IN_PROCESS, false),
+                        Updates.setOnInsert(COLUMN_HASH_VALUE, DUMMY_HASH_VALUE)),
+                UPSERT);
+    }
+
     public Document crawleableUriToMongoDocument(CrawleableUri uri) {
 
         UriType uriType = uri.getType();
 
-        return new Document("uri", uri.getUri().toString()).append("type", uriType.toString());
+        return new Document(COLUMN_ID, UriFingerprint.fingerprint(uri)).append("uri", uri.getUri().toString())
+                .append("type", uriType.toString());
 
     }
 
@@ -134,9 +227,18 @@ public class MongoDBKnowUriFilter implements KnownUriFilter, Cloneable, Closeabl
     public void open() {
         mongoDB = client.getDatabase(DB_NAME);
         if (!knowUriTableExists()) {
+            // the documents are looked up via their _id (i.e., the fingerprint of the
+            // URI) which is indexed by default
             mongoDB.createCollection(COLLECTION_NAME);
-            MongoCollection<Document> mongoCollection = mongoDB.getCollection(COLLECTION_NAME);
-            mongoCollection.createIndex(Indexes.compoundIndex(Indexes.ascending("uri")));
+        }
+        // make sure that a persisted filter does not use the old schema
+        MongoCollection<Document> collection = mongoDB.getCollection(COLLECTION_NAME);
+        MongoDBUriIdMigration.ensureFingerprintIds(collection, doc -> doc.getString(COLUMN_URI));
+        for (Document index : collection.listIndexes()) {
+            if (OLD_URI_INDEX_NAME.equals(index.getString("name"))) {
+                collection.dropIndex(OLD_URI_INDEX_NAME);
+                break;
+            }
         }
     }
 
@@ -153,13 +255,8 @@ public class MongoDBKnowUriFilter implements KnownUriFilter, Cloneable, Closeabl
 
     @Override
     public void add(CrawleableUri uri, long lastCrawlTimestamp, long nextCrawlTimestamp) {
-    	 mongoDB.getCollection(COLLECTION_NAME)
-         .insertOne(crawleableUriToMongoDocument(uri)
-        		 .append(COLUMN_TIMESTAMP_LAST_CRAWL, lastCrawlTimestamp)
-        		 .append(COLUMN_TIMESTAMP_NEXT_CRAWL, nextCrawlTimestamp)
-        		 .append(COLUMN_CRAWLING_IN_PROCESS, false)
-        		 .append(COLUMN_HASH_VALUE, DUMMY_HASH_VALUE)
-        		 );
+        UpdateOneModel<Document> upsert = createUpsert(uri, lastCrawlTimestamp, nextCrawlTimestamp);
+        mongoDB.getCollection(COLLECTION_NAME).updateOne(upsert.getFilter(), upsert.getUpdate(), UPSERT);
     	 LOGGER.debug("Adding URI {} to the known uri filter list", uri.toString());
     }
     
@@ -208,7 +305,7 @@ public class MongoDBKnowUriFilter implements KnownUriFilter, Cloneable, Closeabl
         	BasicDBObject newDocument = new BasicDBObject();
         	newDocument.append("$set", new BasicDBObject().append(COLUMN_CRAWLING_IN_PROCESS, true));
         	
-        	BasicDBObject searchQuery = new BasicDBObject().append(COLUMN_URI,  uri.getUri().toString());
+        	BasicDBObject searchQuery = new BasicDBObject().append(COLUMN_ID, UriFingerprint.fingerprint(uri));
         	
         	 mongoDB.getCollection(COLLECTION_NAME).updateMany(searchQuery, newDocument);
         	
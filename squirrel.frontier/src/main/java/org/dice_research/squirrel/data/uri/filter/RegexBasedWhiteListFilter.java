@@ -3,6 +3,7 @@ package org.dice_research.squirrel.data.uri.filter;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -53,6 +54,21 @@ public class RegexBasedWhiteListFilter extends AbstractKnownUriFilterDecorator {
         if (!super.isUriGood(uri)) {
             return false;
         }
+        return isWhiteListed(uri);
+    }
+
+    @Override
+    public List<CrawleableUri> getGoodUris(List<CrawleableUri> uris) {
+        List<CrawleableUri> whiteListedUris = new ArrayList<>(uris.size());
+        for (CrawleableUri uri : uris) {
+            if (isWhiteListed(uri)) {
+                whiteListedUris.add(uri);
+            }
+        }
+        return super.getGoodUris(whiteListedUris);
+    }
+
+    protected boolean isWhiteListed(CrawleableUri uri) {
         if (whiteList == null || whiteList.isEmpty()) {
             return true;
         } else {
@@ -0,0 +1,444 @@
+package org.dice_research.squirrel.data.uri.norm;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link UriNormalizer} applying the same normalization as the
+ * {@link NormalizerImpl} in a single pass over the raw parts of the URI. The
+ * normalized URI is written into a char buffer that is reused by the thread
+ * and the only objects created for a changed URI are its String, the
+ * {@link URI} and the {@link CrawleableUri}. An unchanged URI is returned
+ * without creating any object.
+ *
+ * <ul>
+ * <li>scheme and host are converted to lower case</li>
+ * <li>default ports are removed</li>
+ * <li>percent-encoded characters are decoded if the {@link NormalizerImpl}
+ * decodes them, dot segments and empty segments are removed from the path and
+ * "/" is added for empty paths</li>
+ * <li>empty queries are removed, query parameters are sorted and session ids
+ * are removed (the names of the parameters are compared case-insensitive with
+ * the session ids)</li>
+ * <li>fragments are removed if the URI has been changed</li>
+ * </ul>
+ *
+ * <p>
+ * The result is equal to the result of the {@link NormalizerImpl} with the
+ * following exceptions, in which the {@link NormalizerImpl} damages the URI.
+ * The path and the query keep their percent-encoding, i.e., escaped characters
+ * are not encoded a second time and escaped "&amp;" or "=" characters do not
+ * split query parameters. The default port is removed independent of the case
+ * of the scheme. The authority of a URI without a server-based host is kept.
+ * Opaque and relative URIs are returned as they are.
+ * </p>
+ *
+ * <p>
+ * Because of these exceptions, this class is not a drop-in replacement for the
+ * {@link NormalizerImpl} in a frontier that already knows URIs. A URI that is
+ * normalized differently gets a different fingerprint and would be crawled
+ * again.
+ * </p>
+ */
+public class SinglePassUriNormalizer implements UriNormalizer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SinglePassUriNormalizer.class);
+
+    /**
+     * Characters that are decoded if they are percent-encoded in the path. The
+     * table is a copy of the table of the {@link NormalizerImpl} including its
+     * exclusive upper bounds, i.e., ".", "9", "Z" and "z" stay encoded.
+     */
+    private static final boolean[] UNESCAPED_CHARS = new boolean[256];
+    /**
+     * Buffers of the single threads. They are dropped if they grew beyond this
+     * number of chars.
+     */
+    private static final int MAX_BUFFER_SIZE = 1 << 16;
+    private static final ThreadLocal<NormalizationState> STATE = ThreadLocal.withInitial(NormalizationState::new);
+
+    static {
+        Arrays.fill(UNESCAPED_CHARS, 0x2D, 0x2E, true);
+        Arrays.fill(UNESCAPED_CHARS, 0x30, 0x39, true);
+        Arrays.fill(UNESCAPED_CHARS, 0x41, 0x5A, true);
+        Arrays.fill(UNESCAPED_CHARS, 0x61, 0x7A, true);
+        UNESCAPED_CHARS[0x5F] = true;
+        UNESCAPED_CHARS[0x7E] = true;
+    }
+
+    /**
+     * The lower case session ids.
+     */
+    private final String[] sessionIds;
+    private final Map<String, Integer> defaultPortMap;
+
+    public SinglePassUriNormalizer(List<String> sessionIDs, Map<String, Integer> defaultPortMap) {
+        Set<String> ids = new LinkedHashSet<>();
+        for (String id : sessionIDs) {
+            ids.add(id.toLowerCase(Locale.ROOT));
+        }
+        this.sessionIds = ids.toArray(new String[ids.size()]);
+        this.defaultPortMap = defaultPortMap;
+    }
+
+    @Override
+    public CrawleableUri normalize(CrawleableUri uri) {
+        URI uriObject = uri.getUri();
+        String scheme = uriObject.getScheme();
+        if ((scheme == null) || uriObject.isOpaque()) {
+            return uri;
+        }
+        NormalizationState state = STATE.get();
+        char[] buffer = state.buffer(uriObject.toString().length() + 8);
+        boolean changed = false;
+        int pos = 0;
+
+        // scheme
+        for (int i = 0; i < scheme.length(); ++i) {
+            char c = scheme.charAt(i);
+            char lc = Character.toLowerCase(c);
+            changed |= (c != lc);
+            buffer[pos++] = lc;
+        }
+        if (changed) {
+            scheme = new String(buffer, 0, pos);
+        }
+        buffer[pos++] = ':';
+        buffer[pos++] = '/';
+        buffer[pos++] = '/';
+
+        // authority
+        String host = uriObject.getHost();
+        if (host != null) {
+            String userInfo = uriObject.getRawUserInfo();
+            if (userInfo != null) {
+                pos = append(userInfo, buffer, pos);
+                buffer[pos++] = '@';
+            }
+            for (int i = 0; i < host.length(); ++i) {
+                char c = host.charAt(i);
+                char lc = Character.toLowerCase(c);
+                changed |= (c != lc);
+                buffer[pos++] = lc;
+            }
+            int port = uriObject.getPort();
+            if (port != -1) {
+                Integer defaultPort = defaultPortMap.get(scheme);
+                if ((defaultPort != null) && (port == defaultPort)) {
+                    changed = true;
+                } else {
+                    buffer[pos++] = ':';
+                    pos = appendPort(port, buffer, pos);
+                }
+            }
+        } else {
+            String authority = uriObject.getRawAuthority();
+            if (authority != null) {
+                pos = append(authority, buffer, pos);
+            }
+        }
+
+        // path
+        String path = uriObject.getRawPath();
+        if ((path == null) || path.isEmpty()) {
+            buffer[pos++] = '/';
+            changed = true;
+        } else if (path.charAt(0) == '/') {
+            int start = pos;
+            pos = normalizePath(path, buffer, pos, state);
+            changed |= !regionEquals(buffer, start, pos, path);
+        } else {
+            pos = append(path, buffer, pos);
+        }
+
+        // query
+        String query = uriObject.getRawQuery();
+        if (query != null) {
+            if (query.isEmpty()) {
+                changed = true;
+            } else {
+                buffer[pos++] = '?';
+                int start = pos;
+                pos = normalizeQuery(query, buffer, pos, state);
+                changed |= !regionEquals(buffer, start, pos, query);
+            }
+        }
+
+        // fragment
+        String fragment = uriObject.getRawFragment();
+        if ((fragment != null) && (fragment.length() > 0)) {
+            changed = true;
+        }
+
+        if (!changed) {
+            state.release();
+            return uri;
+        }
+        try {
+            CrawleableUri normalizedUri = new CrawleableUri(new URI(new String(buffer, 0, pos)));
+            normalizedUri.setData(uri.getData());
+            return normalizedUri;
+        } catch (URISyntaxException e) {
+            LOGGER.error("Exception while normalizing URI. Returning original URI.", e);
+            return uri;
+        } finally {
+            state.release();
+        }
+    }
+
+    /**
+     * Writes the normalized form of the given absolute path into the buffer.
+     * Percent-encoded characters are decoded while the path is copied. Every
+     * segment is checked directly after it has been copied. "." and empty
+     * segments are removed and ".." segments remove themselves and the
+     * preceding segment if it is not a ".." segment, too. The positions of the
+     * segments that are kept are stored in a stack. The result is equal to
+     * {@link NormalizerImpl#normalizePath(String)}.
+     *
+     * @param path
+     *            the raw path starting with a "/"
+     * @param buffer
+     *            the buffer the path is written to
+     * @param pos
+     *            the position at which the path is written
+     * @param state
+     *            the state of the current thread
+     * @return the position after the normalized path
+     */
+    protected static int normalizePath(String path, char[] buffer, int pos, NormalizationState state) {
+        int length = path.length();
+        int[] segments = state.segments(length);
+        int depth = 0;
+        int i = 0;
+        buffer[pos++] = '/';
+        while ((i < length) && (path.charAt(i) == '/')) {
+            ++i;
+        }
+        while (i < length) {
+            int segmentStart = pos;
+            char c;
+            while ((i < length) && ((c = path.charAt(i)) != '/')) {
+                if ((c == '%') && (i + 2 < length) && isHexDigit(path.charAt(i + 1))
+                        && isHexDigit(path.charAt(i + 2))) {
+                    int hex = NormalizerImpl.getHexValue(path.charAt(i + 1), path.charAt(i + 2));
+                    if (UNESCAPED_CHARS[hex]) {
+                        buffer[pos++] = (char) hex;
+                        i += 3;
+                        continue;
+                    }
+                }
+                buffer[pos++] = c;
+                ++i;
+            }
+            boolean slash = i < length;
+            while ((i < length) && (path.charAt(i) == '/')) {
+                ++i;
+            }
+            int segmentLength = pos - segmentStart;
+            if ((segmentLength == 1) && (buffer[segmentStart] == '.')) {
+                pos = segmentStart;
+            } else if ((segmentLength == 2) && (buffer[segmentStart] == '.') && (buffer[segmentStart + 1] == '.')
+                    && (depth > 0) && !isDotDot(buffer, segments[depth - 1], segmentStart)) {
+                pos = segments[--depth];
+            } else {
+                if (slash) {
+                    buffer[pos++] = '/';
+                }
+                segments[depth++] = segmentStart;
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * Writes the sorted parameters of the given query without the session ids
+     * into the buffer. Like {@link String#split(String)}, which is used by the
+     * {@link NormalizerImpl}, empty parameters at the end of the query are
+     * removed.
+     *
+     * @param query
+     *            the raw, non-empty query
+     * @param buffer
+     *            the buffer the query is written to
+     * @param pos
+     *            the position at which the query is written
+     * @param state
+     *            the state of the current thread
+     * @return the position after the normalized query
+     */
+    protected int normalizeQuery(String query, char[] buffer, int pos, NormalizationState state) {
+        int length = query.length();
+        // start and end of every parameter
+        int[] params = state.params(length + 1);
+        int count = 0;
+        int start = 0;
+        for (int i = 0; i <= length; ++i) {
+            if ((i == length) || (query.charAt(i) == '&')) {
+                if (!isSessionId(query, start, i)) {
+                    // insertion sort since most queries have only a few parameters
+                    int j = count;
+                    while ((j > 0) && (compare(query, params[2 * (j - 1)], params[2 * (j - 1) + 1], start, i) > 0)) {
+                        params[2 * j] = params[2 * (j - 1)];
+                        params[2 * j + 1] = params[2 * (j - 1) + 1];
+                        --j;
+                    }
+                    params[2 * j] = start;
+                    params[2 * j + 1] = i;
+                    ++count;
+                }
+                start = i + 1;
+            }
+        }
+        // Empty parameters are sorted to the front. The empty parameters at the
+        // end of the query are removed, i.e., one for every trailing "&" or all
+        // if the query contains nothing else.
+        int emptyParams = 0;
+        while ((emptyParams < count) && (params[2 * emptyParams] == params[2 * emptyParams + 1])) {
+            ++emptyParams;
+        }
+        if (emptyParams > 0) {
+            int i = length - 1;
+            while ((i >= 0) && (query.charAt(i) == '&')) {
+                --i;
+            }
+            int trailingEmptyParams = (i < 0) ? (length + 1) : (length - 1 - i);
+            emptyParams = Math.min(emptyParams, trailingEmptyParams);
+            System.arraycopy(params, 2 * emptyParams, params, 0, 2 * (count - emptyParams));
+            count -= emptyParams;
+        }
+        for (int p = 0; p < count; ++p) {
+            if (p > 0) {
+                buffer[pos++] = '&';
+            }
+            for (int i = params[2 * p]; i < params[2 * p + 1]; ++i) {
+                buffer[pos++] = query.charAt(i);
+            }
+        }
+        return pos;
+    }
+
+    protected boolean isSessionId(String query, int start, int end) {
+        int nameEnd = query.indexOf('=', start);
+        if ((nameEnd < 0) || (nameEnd > end)) {
+            nameEnd = end;
+        }
+        int nameLength = nameEnd - start;
+        for (int i = 0; i < sessionIds.length; ++i) {
+            if ((sessionIds[i].length() == nameLength) && query.regionMatches(true, start, sessionIds[i], 0, nameLength)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compares two regions of the given String in the same way as
+     * {@link String#compareTo(String)} compares two Strings.
+     */
+    protected static int compare(String s, int start1, int end1, int start2, int end2) {
+        int length1 = end1 - start1;
+        int length2 = end2 - start2;
+        int min = Math.min(length1, length2);
+        for (int i = 0; i < min; ++i) {
+            char c1 = s.charAt(start1 + i);
+            char c2 = s.charAt(start2 + i);
+            if (c1 != c2) {
+                return c1 - c2;
+            }
+        }
+        return length1 - length2;
+    }
+
+    protected static boolean isDotDot(char[] buffer, int segmentStart, int segmentEnd) {
+        return (buffer[segmentStart] == '.') && (buffer[segmentStart + 1] == '.')
+                && ((segmentStart + 2 == segmentEnd) || (buffer[segmentStart + 2] == '/'));
+    }
+
+    protected static boolean isHexDigit(char c) {
+        return ((c >= '0') && (c <= '9')) || ((c >= 'A') && (c <= 'F')) || ((c >= 'a') && (c <= 'f'));
+    }
+
+    protected static boolean regionEquals(char[] buffer, int start, int end, String s) {
+        if ((end - start) != s.length()) {
+            return false;
+        }
+        for (int i = start; i < end; ++i) {
+            if (buffer[i] != s.charAt(i - start)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    protected static int append(String s, char[] buffer, int pos) {
+        s.getChars(0, s.length(), buffer, pos);
+        return pos + s.length();
+    }
+
+    protected static int appendPort(int port, char[] buffer, int pos) {
+        int digits = 1;
+        for (int p = port / 10; p > 0; p /= 10) {
+            ++digits;
+        }
+        for (int i = pos + digits - 1; i >= pos; --i) {
+            buffer[i] = (char) ('0' + (port % 10));
+            port /= 10;
+        }
+        return pos + digits;
+    }
+
+    /**
+     * The buffers of a single thread.
+     */
+    protected static class NormalizationState {
+        private char[] buffer = new char[256];
+        private int[] segments = new int[64];
+        private int[] params = new int[64];
+
+        public char[] buffer(int size) {
+            if (buffer.length < size) {
+                buffer = new char[Math.max(size, 2 * buffer.length)];
+            }
+            return buffer;
+        }
+
+        public int[] segments(int size) {
+            if (segments.length < size) {
+                segments = new int[Math.max(size, 2 * segments.length)];
+            }
+            return segments;
+        }
+
+        public int[] params(int size) {
+            if (params.length < 2 * size) {
+                params = new int[Math.max(2 * size, 2 * params.length)];
+            }
+            return params;
+        }
+
+        /**
+         * Drops buffers that grew beyond {@link #MAX_BUFFER_SIZE}.
+         */
+        public void release() {
+            if (buffer.length > MAX_BUFFER_SIZE) {
+                buffer = new char[256];
+            }
+            if (segments.length > MAX_BUFFER_SIZE) {
+                segments = new int[64];
+            }
+            if (params.length > MAX_BUFFER_SIZE) {
+                params = new int[64];
+            }
+        }
+    }
+}
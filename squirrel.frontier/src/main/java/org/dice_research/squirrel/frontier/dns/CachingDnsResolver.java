@@ -0,0 +1,319 @@
+package org.dice_research.squirrel.frontier.dns;
+
+import java.io.Closeable;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A DNS resolver that caches the addresses of host names and looks up unknown
+ * host names asynchronously in a fixed number of threads. A thread that asks
+ * for the address of a host never blocks. Instead, it gets a future that is
+ * already completed if the address is cached and that is completed by one of
+ * the lookup threads, otherwise.
+ *
+ * <ul>
+ * <li>Resolved addresses are cached for a time to live. Host names that
+ * couldn't be resolved are cached with a shorter time to live. The futures of
+ * these host names are completed with {@code null}.</li>
+ * <li>A host name is looked up only once at a time. Concurrent requests for the
+ * same host name get the same future.</li>
+ * <li>If the cache exceeds its maximum size, expired entries are removed
+ * first. If this is not sufficient, arbitrary entries are removed until the
+ * cache contains 90% of its maximum size.</li>
+ * </ul>
+ */
+public class CachingDnsResolver implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CachingDnsResolver.class);
+
+    /**
+     * The default number of lookups that are executed in parallel.
+     */
+    public static final int DEFAULT_LOOKUP_THREADS = 8;
+    /**
+     * The default time to live of resolved addresses (10 minutes).
+     */
+    public static final long DEFAULT_TTL = TimeUnit.MINUTES.toMillis(10);
+    /**
+     * The default time to live of host names that couldn't be resolved (1
+     * minute).
+     */
+    public static final long DEFAULT_NEGATIVE_TTL = TimeUnit.MINUTES.toMillis(1);
+    /**
+     * The default maximum number of cached host names.
+     */
+    public static final int DEFAULT_MAX_SIZE = 100000;
+
+    private long ttl;
+    private long negativeTtl;
+    private int maxSize;
+
+    protected Map<String, CacheEntry> cache = new ConcurrentHashMap<>();
+    protected Map<String, CompletableFuture<InetAddress>> pendingLookups = new ConcurrentHashMap<>();
+    protected ExecutorService lookupExecutor;
+    protected ReentrantLock evictionLock = new ReentrantLock();
+
+    private AtomicLong hits = new AtomicLong();
+    private AtomicLong misses = new AtomicLong();
+    private AtomicLong lookups = new AtomicLong();
+    private AtomicLong failedLookups = new AtomicLong();
+    private AtomicLong lookupTime = new AtomicLong();
+    private AtomicLong maxLookupTime = new AtomicLong();
+
+    public CachingDnsResolver() {
+        this(DEFAULT_LOOKUP_THREADS, DEFAULT_TTL, DEFAULT_NEGATIVE_TTL, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param lookupThreads the maximum number of lookups that are executed in
+     *                      parallel
+     * @param ttl           the time to live of resolved addresses in
+     *                      milliseconds
+     * @param negativeTtl   the time to live of host names that couldn't be
+     *                      resolved in milliseconds
+     * @param maxSize       the maximum number of cached host names
+     */
+    public CachingDnsResolver(int lookupThreads, long ttl, long negativeTtl, int maxSize) {
+        this.ttl = ttl;
+        this.negativeTtl = negativeTtl;
+        this.maxSize = maxSize;
+        AtomicInteger threadId = new AtomicInteger();
+        lookupExecutor = Executors.newFixedThreadPool(lookupThreads, r -> {
+            Thread thread = new Thread(r, "dns-lookup-" + threadId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns the address of the given host. If the address is not cached, the
+     * host is looked up asynchronously.
+     *
+     * @param host the host name that should be resolved
+     * @return a future of the address that is completed with {@code null} if
+     *         the host couldn't be resolved
+     */
+    public CompletableFuture<InetAddress> resolve(String host) {
+        if (host == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        host = host.toLowerCase(Locale.ROOT);
+        CacheEntry entry = cache.get(host);
+        if ((entry != null) && (entry.expiresAt > currentTime())) {
+            hits.incrementAndGet();
+            return CompletableFuture.completedFuture(entry.address);
+        }
+        misses.incrementAndGet();
+        CompletableFuture<InetAddress> future = new CompletableFuture<>();
+        CompletableFuture<InetAddress> pending = pendingLookups.putIfAbsent(host, future);
+        if (pending != null) {
+            return pending;
+        }
+        final String lookupHost = host;
+        try {
+            lookupExecutor.execute(() -> lookup(lookupHost, future));
+        } catch (RejectedExecutionException e) {
+            LOGGER.warn("The resolver has been closed. {} won't be resolved.", host);
+            pendingLookups.remove(host, future);
+            future.complete(null);
+        }
+        return future;
+    }
+
+    /**
+     * Returns the cached address of the given host without looking it up.
+     *
+     * @param host the host name
+     * @return the cached address or {@code null} if the host is not cached or
+     *         couldn't be resolved
+     */
+    public InetAddress getCachedAddress(String host) {
+        if (host == null) {
+            return null;
+        }
+        CacheEntry entry = cache.get(host.toLowerCase(Locale.ROOT));
+        return ((entry != null) && (entry.expiresAt > currentTime())) ? entry.address : null;
+    }
+
+    protected void lookup(String host, CompletableFuture<InetAddress> future) {
+        InetAddress address = null;
+        long start = System.nanoTime();
+        try {
+            address = lookup(host);
+        } catch (UnknownHostException e) {
+            LOGGER.info("Couldn't resolve {}.", host);
+        } catch (Throwable e) {
+            LOGGER.warn("Exception while resolving " + host + ".", e);
+        } finally {
+            long time = System.nanoTime() - start;
+            lookups.incrementAndGet();
+            lookupTime.addAndGet(time);
+            maxLookupTime.accumulateAndGet(time, Math::max);
+            if (address == null) {
+                failedLookups.incrementAndGet();
+            }
+            cache.put(host, new CacheEntry(address, currentTime() + ((address != null) ? ttl : negativeTtl)));
+            pendingLookups.remove(host, future);
+            if (cache.size() > maxSize) {
+                evict();
+            }
+            future.complete(address);
+        }
+    }
+
+    /**
+     * Looks up the address of the given host. This method blocks until the
+     * address is available.
+     *
+     * @param host the host name
+     * @return the address of the host
+     * @throws UnknownHostException if the host couldn't be resolved
+     */
+    protected InetAddress lookup(String host) throws UnknownHostException {
+        return InetAddress.getByName(host);
+    }
+
+    /**
+     * Removes expired entries and, if this is not sufficient, arbitrary entries
+     * until the cache contains 90% of its maximum size. If another thread is
+     * already removing entries, this method returns immediately.
+     */
+    protected void evict() {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            long now = currentTime();
+            int target = (int) (maxSize * 0.9);
+            cache.values().removeIf(e -> e.expiresAt <= now);
+            Iterator<CacheEntry> iterator = cache.values().iterator();
+            while ((cache.size() > target) && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    protected long currentTime() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * @return the number of host names that are currently looked up or waiting
+     *         for a lookup thread
+     */
+    public int getNumberOfPendingLookups() {
+        return pendingLookups.size();
+    }
+
+    /**
+     * @return the number of host names in the cache
+     */
+    public int getCacheSize() {
+        return cache.size();
+    }
+
+    /**
+     * @return the number of requests that have been answered from the cache
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of requests that couldn't be answered from the cache
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return the ratio of requests that have been answered from the cache
+     */
+    public double getHitRate() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return (total > 0) ? ((double) h / (double) total) : 0;
+    }
+
+    /**
+     * @return the number of lookups that have been executed
+     */
+    public long getLookups() {
+        return lookups.get();
+    }
+
+    /**
+     * @return the number of lookups that didn't return an address
+     */
+    public long getFailedLookups() {
+        return failedLookups.get();
+    }
+
+    /**
+     * @return the average duration of a lookup in milliseconds
+     */
+    public double getAverageLookupTime() {
+        long l = lookups.get();
+        return (l > 0) ? (lookupTime.get() / (l * 1000000.0)) : 0;
+    }
+
+    /**
+     * @return the maximum duration of a lookup in milliseconds
+     */
+    public double getMaxLookupTime() {
+        return maxLookupTime.get() / 1000000.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                "CachingDnsResolver[cached=%d, pending=%d, hitRate=%.3f, lookups=%d, failed=%d, avgLookup=%.1fms, maxLookup=%.1fms]",
+                getCacheSize(), getNumberOfPendingLookups(), getHitRate(), getLookups(), getFailedLookups(),
+                getAverageLookupTime(), getMaxLookupTime());
+    }
+
+    @Override
+    public void close() {
+        lookupExecutor.shutdownNow();
+        // make sure that nobody waits for a lookup that won't happen
+        for (CompletableFuture<InetAddress> future : pendingLookups.values()) {
+            future.complete(null);
+        }
+        pendingLookups.clear();
+        LOGGER.info("Closed {}", this);
+    }
+
+    /**
+     * A cached address. If the host couldn't be resolved, the address is
+     * {@code null}.
+     */
+    protected static class CacheEntry {
+        protected final InetAddress address;
+        protected final long expiresAt;
+
+        public CacheEntry(InetAddress address, long expiresAt) {
+            this.address = address;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
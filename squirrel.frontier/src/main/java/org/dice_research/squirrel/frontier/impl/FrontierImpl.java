@@ -1,9 +1,16 @@
 package org.dice_research.squirrel.frontier.impl;
 
-import java.net.UnknownHostException;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.dice_research.squirrel.Constants;
 import org.dice_research.squirrel.data.uri.CrawleableUri;
@@ -15,6 +22,7 @@ import org.dice_research.squirrel.data.uri.norm.UriGenerator;
 import org.dice_research.squirrel.data.uri.norm.UriNormalizer;
 import org.dice_research.squirrel.deduplication.hashing.UriHashCustodian;
 import org.dice_research.squirrel.frontier.Frontier;
+import org.dice_research.squirrel.frontier.dns.CachingDnsResolver;
 import org.dice_research.squirrel.graph.GraphLogger;
 import org.dice_research.squirrel.queue.BlockingQueue;
 import org.dice_research.squirrel.queue.UriQueue;
@@ -70,6 +78,16 @@ public class FrontierImpl implements Frontier {
      * {@link GraphLogger} that can be added to log the crawled graph.
      */
     protected GraphLogger graphLogger;
+    /**
+     * {@link CachingDnsResolver} used to resolve the hosts of new URIs without
+     * blocking the thread that adds them. It is created when it is needed for
+     * the first time if it hasn't been set before.
+     */
+    protected volatile CachingDnsResolver dnsResolver;
+    /**
+     * The number of URIs that wait for the lookup of their host.
+     */
+    protected AtomicInteger parkedUris = new AtomicInteger();
 
     /**
      * Indicates whether recrawling is active.
@@ -276,17 +294,19 @@ public class FrontierImpl implements Frontier {
 
     @Override
     public void addNewUris(List<CrawleableUri> uris) {
+        List<CrawleableUri> normalizedUris = new ArrayList<>(uris.size());
         for (CrawleableUri uri : uris) {
-            addNewUri(uri);
+            normalizedUris.add(normalizer.normalize(uri));
             try {
                 for (UriGenerator u : uriGenerator) {
                     if (u.getUriVariant(uri) != null)
-                        addNewUri(u.getUriVariant(uri));
+                        normalizedUris.add(normalizer.normalize(u.getUriVariant(uri)));
                 }
             }catch (Exception e){
                 LOGGER.info("Exception happened while generating additional URI variant for URI: " + uri.getUri().toString());
             }
         }
+        addNormalizedUris(normalizedUris);
     }
 
     @Override
@@ -298,23 +318,34 @@ public class FrontierImpl implements Frontier {
 
     }
 
+    /**
+     * Adds the given normalized URIs to the queue if they are not known, yet.
+     * The known URI filter and the queue are queried and updated only once for
+     * all URIs.
+     *
+     * @param uris
+     *            the normalized URIs that should be added
+     */
+    protected void addNormalizedUris(List<CrawleableUri> uris) {
+        List<CrawleableUri> addedUris = new ArrayList<>(uris.size());
+        for (CrawleableUri uri : knownUriFilter.getGoodUris(uris)) {
+            if (schemeUriFilter.isUriGood(uri)) {
+                addedUris.add(uri);
+            } else {
+                LOGGER.warn("addNewUris(" + uri + "): " + uri.getUri().getScheme() + " is not supported, only "
+                        + schemeUriFilter.getSchemes() + ". Will not added!");
+            }
+        }
+        resolveAndQueue(addedUris);
+        knownUriFilter.add(addedUris, System.currentTimeMillis());
+    }
+
     protected void addNormalizedUri(CrawleableUri uri){
         if (knownUriFilter.isUriGood(uri)) {
             LOGGER.debug("addNewUri(" + uri + "): URI is good [" + knownUriFilter + "]");
             if (schemeUriFilter.isUriGood(uri)) {
                 LOGGER.trace("addNewUri(" + uri.getUri() + "): URI schemes is OK [" + schemeUriFilter + "]");
-                // Make sure that the IP is known
-                try {
-                    uri = this.uriProcessor.recognizeInetAddress(uri);
-
-                } catch (UnknownHostException e) {
-                    LOGGER.error("Could not recognize IP for {}, unknown host", uri.getUri());
-                }
-                if (uri.getIpAddress() != null) {
-                    queue.addUri(this.uriProcessor.recognizeUriType(uri));
-                } else {
-                    LOGGER.error("Couldn't determine the Inet address of \"{}\". It will be ignored.", uri.getUri());
-                }
+                resolveAndQueue(Collections.singletonList(uri));
                 knownUriFilter.add(uri, System.currentTimeMillis());
             } else {
                 LOGGER.warn("addNewUri(" + uri + "): " + uri.getUri().getScheme() + " is not supported, only "
@@ -326,6 +357,71 @@ public class FrontierImpl implements Frontier {
         }
     }
 
+    /**
+     * Sets the IP addresses of the given URIs and adds them to the queue. Every
+     * host is resolved only once. URIs of hosts with a cached address are added
+     * directly. All other URIs are parked until the {@link #dnsResolver} has
+     * looked up their host and are added to the queue by the lookup thread.
+     * Hence, a slow name server does not block the calling thread.
+     *
+     * @param uris
+     *            the URIs that should be added to the queue
+     */
+    protected void resolveAndQueue(List<CrawleableUri> uris) {
+        Map<String, List<CrawleableUri>> urisByHost = new HashMap<>();
+        for (CrawleableUri uri : uris) {
+            urisByHost.computeIfAbsent(uri.getUri().getHost(), h -> new ArrayList<>()).add(uri);
+        }
+        List<CrawleableUri> queuedUris = new ArrayList<>(uris.size());
+        for (Entry<String, List<CrawleableUri>> entry : urisByHost.entrySet()) {
+            CompletableFuture<InetAddress> address = getDnsResolver().resolve(entry.getKey());
+            if (address.isDone()) {
+                setIpAddress(entry.getValue(), address.join(), queuedUris);
+            } else {
+                List<CrawleableUri> parked = entry.getValue();
+                parkedUris.addAndGet(parked.size());
+                address.thenAccept(a -> addResolvedUris(parked, a));
+            }
+        }
+        if (!queuedUris.isEmpty()) {
+            queue.addUris(queuedUris);
+        }
+    }
+
+    /**
+     * Adds parked URIs to the queue after their host has been looked up.
+     *
+     * @param uris
+     *            the URIs of the host
+     * @param address
+     *            the address of the host or {@code null} if it couldn't be
+     *            resolved
+     */
+    protected void addResolvedUris(List<CrawleableUri> uris, InetAddress address) {
+        try {
+            List<CrawleableUri> queuedUris = new ArrayList<>(uris.size());
+            setIpAddress(uris, address, queuedUris);
+            if (!queuedUris.isEmpty()) {
+                queue.addUris(queuedUris);
+            }
+        } catch (Exception e) {
+            LOGGER.error("Exception while adding resolved URIs to the queue. They will be ignored.", e);
+        } finally {
+            parkedUris.addAndGet(-uris.size());
+        }
+    }
+
+    protected void setIpAddress(List<CrawleableUri> uris, InetAddress address, List<CrawleableUri> queuedUris) {
+        for (CrawleableUri uri : uris) {
+            if (address != null) {
+                uri.setIpAddress(address);
+                queuedUris.add(this.uriProcessor.recognizeUriType(uri));
+            } else {
+                LOGGER.error("Couldn't determine the Inet address of \"{}\". It will be ignored.", uri.getUri());
+            }
+        }
+    }
+
 
     @Override
     public void crawlingDone(List<CrawleableUri> uris) {
@@ -383,7 +479,12 @@ public class FrontierImpl implements Frontier {
 
     @Override
     public void close() {
-        timerRecrawling.cancel();
+        if (timerRecrawling != null) {
+            timerRecrawling.cancel();
+        }
+        if (dnsResolver != null) {
+            dnsResolver.close();
+        }
     }
 
     public static long getGeneralRecrawlTime() {
@@ -399,4 +500,48 @@ public class FrontierImpl implements Frontier {
         return queue;
     }
 
+    /**
+     * Replaces the {@link #dnsResolver} and closes the previous one.
+     *
+     * @param dnsResolver
+     *            the resolver used to look up the hosts of new URIs
+     */
+    public synchronized void setDnsResolver(CachingDnsResolver dnsResolver) {
+        CachingDnsResolver previous = this.dnsResolver;
+        this.dnsResolver = dnsResolver;
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    /**
+     * Returns the {@link #dnsResolver}. If it hasn't been set, a resolver with
+     * the default configuration is created.
+     *
+     * @return the resolver used to look up the hosts of new URIs
+     */
+    public CachingDnsResolver getDnsResolver() {
+        CachingDnsResolver resolver = dnsResolver;
+        if (resolver == null) {
+            synchronized (this) {
+                resolver = dnsResolver;
+                if (resolver == null) {
+                    resolver = new CachingDnsResolver();
+                    dnsResolver = resolver;
+                }
+            }
+        }
+        return resolver;
+    }
+
+    /**
+     * Returns the number of URIs that have been accepted but are not in the
+     * queue, yet, since the lookup of their host is still running.
+     *
+     * @return the number of parked URIs
+     */
+    public int getNumberOfParkedUris() {
+        return parkedUris.get();
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,139 @@
+package org.dice_research.squirrel.frontier.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import org.bson.BsonType;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.dice_research.squirrel.data.uri.UriFingerprint;
+import org.hobbit.utils.EnvVariables;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.DeleteOneModel;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
+
+/**
+ * Migrates the URI documents of the MongoDB queues and the MongoDB known URI
+ * filter to the current schema in which the {@code _id} of a document is the
+ * {@link UriFingerprint} of its URI. Before, the queues used the URI string
+ * and the known URI filter used a generated {@code ObjectId} together with an
+ * index on the URI string.
+ *
+ * <p>
+ * The old schema is detected when a persisted collection is opened. Since the
+ * migration rewrites every document, it is only done if the environment
+ * variable {@link #MIGRATE_URI_IDS_KEY} is set to {@code true}. Otherwise, the
+ * collection can not be used and an {@link IllegalStateException} is thrown.
+ * </p>
+ */
+public class MongoDBUriIdMigration {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MongoDBUriIdMigration.class);
+
+    /**
+     * Key of the environment variable that enables the migration of documents
+     * with an old {@code _id}.
+     */
+    public static final String MIGRATE_URI_IDS_KEY = "MONGO_MIGRATE_URI_IDS";
+    /**
+     * Number of documents that are migrated with a single bulk write.
+     */
+    public static final int BATCH_SIZE = 1000;
+
+    private static final String COLUMN_ID = "_id";
+    /**
+     * Matches all documents whose {@code _id} is not a fingerprint.
+     */
+    private static final Bson OLD_ID_FILTER = Filters.not(Filters.type(COLUMN_ID, BsonType.INT64));
+    private static final UpdateOptions UPSERT = new UpdateOptions().upsert(true);
+
+    private MongoDBUriIdMigration() {
+    }
+
+    /**
+     * Makes sure that the given collection does not contain documents with an
+     * old {@code _id}. They are migrated if {@link #MIGRATE_URI_IDS_KEY} is set
+     * to {@code true}.
+     *
+     * @param collection
+     *            the collection that should be checked
+     * @param getUri
+     *            returns the URI string of a document with an old {@code _id}
+     * @throws IllegalStateException
+     *             if the collection contains documents with an old {@code _id}
+     *             and the migration is not enabled
+     */
+    public static void ensureFingerprintIds(MongoCollection<Document> collection, Function<Document, String> getUri) {
+        if (!hasOldIds(collection)) {
+            return;
+        }
+        if (!EnvVariables.getBoolean(MIGRATE_URI_IDS_KEY, false, LOGGER)) {
+            throw new IllegalStateException("The collection " + collection.getNamespace()
+                    + " contains URI documents that are not identified by their fingerprint. Set "
+                    + MIGRATE_URI_IDS_KEY + "=true to migrate them once or drop the collection.");
+        }
+        long count = migrate(collection, getUri);
+        LOGGER.info("Migrated {} documents of {}.", count, collection.getNamespace());
+    }
+
+    /**
+     * Checks whether the given collection contains documents with an old
+     * {@code _id}.
+     *
+     * @param collection
+     *            the collection that should be checked
+     * @return {@code true} if the collection contains at least one document with
+     *         an old {@code _id}
+     */
+    public static boolean hasOldIds(MongoCollection<Document> collection) {
+        return collection.find(OLD_ID_FILTER).first() != null;
+    }
+
+    /**
+     * Replaces every document with an old {@code _id} by a copy identified by
+     * the fingerprint of its URI. If several documents have the same URI, only
+     * one of them is kept. Documents without a URI are removed.
+     *
+     * @param collection
+     *            the collection that should be migrated
+     * @param getUri
+     *            returns the URI string of a document with an old {@code _id}
+     * @return the number of migrated documents
+     */
+    public static long migrate(MongoCollection<Document> collection, Function<Document, String> getUri) {
+        long count = 0;
+        List<WriteModel<Document>> writes = new ArrayList<>(2 * BATCH_SIZE);
+        List<Document> oldDocs = new ArrayList<>(BATCH_SIZE);
+        String uri;
+        Object oldId;
+        do {
+            oldDocs.clear();
+            collection.find(OLD_ID_FILTER).limit(BATCH_SIZE).into(oldDocs);
+            writes.clear();
+            for (Document doc : oldDocs) {
+                oldId = doc.get(COLUMN_ID);
+                uri = getUri.apply(doc);
+                if (uri != null) {
+                    doc.put(COLUMN_ID, UriFingerprint.fingerprint(uri));
+                    writes.add(new ReplaceOneModel<Document>(Filters.eq(COLUMN_ID, doc.get(COLUMN_ID)), doc, UPSERT));
+                } else {
+                    LOGGER.warn("Removing document {} of {} since it has no URI.", oldId, collection.getNamespace());
+                }
+                writes.add(new DeleteOneModel<Document>(Filters.eq(COLUMN_ID, oldId)));
+            }
+            if (!writes.isEmpty()) {
+                collection.bulkWrite(writes, new BulkWriteOptions().ordered(false));
+                count += oldDocs.size();
+            }
+        } while (oldDocs.size() == BATCH_SIZE);
+        return count;
+    }
+}
@@ -2,6 +2,7 @@ package org.dice_research.squirrel.queue.domainbased;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -9,8 +10,10 @@ import org.bson.Document;
 import org.bson.types.Binary;
 import org.dice_research.squirrel.configurator.MongoConfiguration;
 import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.data.uri.UriFingerprint;
 import org.dice_research.squirrel.data.uri.serialize.Serializer;
 import org.dice_research.squirrel.data.uri.serialize.java.SnappyJavaUriSerializer;
+import org.dice_research.squirrel.frontier.utils.MongoDBUriIdMigration;
 import org.dice_research.squirrel.queue.AbstractDomainBasedQueue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,7 +25,12 @@ import com.mongodb.ServerAddress;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
 import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
 
 /**
  * 
@@ -41,6 +49,8 @@ public class MongoDBDomainBasedQueue extends AbstractDomainBasedQueue {
     private final String COLLECTION_URIS = "uris";
     @Deprecated
     private final String DEFAULT_TYPE = "default";
+    private static final UpdateOptions UPSERT = new UpdateOptions().upsert(true);
+    private static final BulkWriteOptions UNORDERED = new BulkWriteOptions().ordered(false);
     private static final boolean PERSIST = System.getenv("QUEUE_FILTER_PERSIST") == null ? false
             : Boolean.parseBoolean(System.getenv("QUEUE_FILTER_PERSIST"));
 
@@ -95,31 +105,54 @@ public class MongoDBDomainBasedQueue extends AbstractDomainBasedQueue {
 
     @Override
     protected void addUri(CrawleableUri uri, String domain) {
+        addUris(domain, Collections.singletonList(uri));
+    }
+
+    @Override
+    protected void addUris(String domain, List<CrawleableUri> uris) {
         addDomain(domain);
-        addCrawleableUri(uri, domain);
+        addCrawleableUris(uris, domain);
     }
 
     protected void addCrawleableUri(CrawleableUri uri, String domain) {
+        addCrawleableUris(Collections.singletonList(uri), domain);
+    }
+
+    /**
+     * Adds the given URIs of the given domain with a single unordered bulk
+     * write. Every URI is upserted based on its ID, i.e., URIs that are already
+     * in the queue are not changed.
+     * 
+     * @param uris
+     *            the URIs that should be added
+     * @param domain
+     *            the domain of the URIs
+     */
+    protected void addCrawleableUris(List<CrawleableUri> uris, String domain) {
         try {
-            Document uriDoc = getUriDocument(uri, domain);
-            // If the document does not already exist, add it
-            if (mongoDB.getCollection(COLLECTION_URIS).find(uriDoc).first() == null) {
-                mongoDB.getCollection(COLLECTION_URIS).insertOne(uriDoc);
+            List<WriteModel<Document>> writes = new ArrayList<>(uris.size());
+            Document uriDoc;
+            for (CrawleableUri uri : uris) {
+                uriDoc = getUriDocument(uri, domain);
+                if (uriDoc != null) {
+                    writes.add(new UpdateOneModel<Document>(Filters.eq("_id", uriDoc.remove("_id")),
+                            new Document("$setOnInsert", uriDoc), UPSERT));
+                }
+            }
+            if (!writes.isEmpty()) {
+                mongoDB.getCollection(COLLECTION_URIS).bulkWrite(writes, UNORDERED);
             }
         } catch (Exception e) {
-            LOGGER.error("Error while adding uri to MongoDBQueue", e);
+            LOGGER.error("Error while adding uris to MongoDBQueue", e);
         }
     }
 
     protected void addDomain(String domain) {
         try {
             Document domainDoc = getDomainDocument(domain);
-            if (!containsDomain(domainDoc)) {
-                LOGGER.debug("Domain is not in the queue, creating a new one for {}", domain);
-                mongoDB.getCollection(COLLECTION_QUEUE).insertOne(domainDoc);
-            } else {
-                LOGGER.debug("Domain is already in the queue: {}", domain);
-            }
+            // If the document does not already exist, add it
+            mongoDB.getCollection(COLLECTION_QUEUE).updateOne(domainDoc, new Document("$setOnInsert", domainDoc),
+                    UPSERT);
         } catch (MongoWriteException e) {
             LOGGER.error("Domain: " + domain + " couldn't be added to the queue. Ignoring...");
         }
@@ -136,13 +169,25 @@ public class MongoDBDomainBasedQueue extends AbstractDomainBasedQueue {
         }
 
         Document docUri = new Document();
-        docUri.put("_id", uri.getUri().hashCode());
+        docUri.put("_id", getUriId(uri));
         docUri.put("domain", domain);
         docUri.put("type", DEFAULT_TYPE);
         docUri.put("uri", new Binary(suri));
         return docUri;
     }
 
+    /**
+     * Returns the ID of the given URI that is used as primary key of its
+     * document, i.e., its {@link UriFingerprint}.
+     * 
+     * @param uri
+     *            the URI for which the ID should be created
+     * @return the ID of the given URI
+     */
+    public static long getUriId(CrawleableUri uri) {
+        return UriFingerprint.fingerprint(uri);
+    }
+
     public Document getDomainDocument(String domain) {
         Document docIp = new Document();
         docIp.put("domain", domain);
@@ -167,6 +212,9 @@ public class MongoDBDomainBasedQueue extends AbstractDomainBasedQueue {
             mongoCollectionUris.createIndex(Indexes.compoundIndex(Indexes.ascending("uri"), Indexes.ascending("domain"),
                     Indexes.ascending("type")));
         }
+        // URI documents of a persisted queue might still be identified by the URI string
+        MongoDBUriIdMigration.ensureFingerprintIds(mongoDB.getCollection(COLLECTION_URIS),
+                doc -> (doc.get("_id") instanceof String) ? doc.getString("_id") : null);
     }
 
     public boolean queueTableExists() {
@@ -223,23 +271,23 @@ public class MongoDBDomainBasedQueue extends AbstractDomainBasedQueue {
     }
 
     @Override
-    protected void deleteUris(String domain, List<CrawleableUri> uris) {
+    protected boolean deleteUris(String domain, List<CrawleableUri> uris) {
         // remove all URIs from the list
         Document query = new Document();
         query.put("domain", domain);
         query.put("type", DEFAULT_TYPE);
+        List<Long> ids = new ArrayList<>(uris.size());
         for (CrawleableUri uri : uris) {
-            // replace the old ID with the current ID
-            query.put("_id", uri.getUri().hashCode());
-            mongoDB.getCollection(COLLECTION_URIS).deleteMany(query);
+            ids.add(getUriId(uri));
         }
-        // remove the ID field
-        query.remove("_id");
+        mongoDB.getCollection(COLLECTION_URIS).deleteMany(Filters.and(query, Filters.in("_id", ids)));
         // if there are no more URIs left of the given domain
         if (mongoDB.getCollection(COLLECTION_URIS).find(query).first() == null) {
             // remove the domain from the queue
             mongoDB.getCollection(COLLECTION_QUEUE).deleteMany(query);
+            return false;
         }
+        return true;
     }
 
     protected boolean containsDomain(String domain) {
@@ -12,8 +12,10 @@ import org.bson.Document;
 import org.bson.types.Binary;
 import org.dice_research.squirrel.configurator.MongoConfiguration;
 import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.data.uri.UriFingerprint;
 import org.dice_research.squirrel.data.uri.serialize.Serializer;
 import org.dice_research.squirrel.data.uri.serialize.java.SnappyJavaUriSerializer;
+import org.dice_research.squirrel.frontier.utils.MongoDBUriIdMigration;
 import org.dice_research.squirrel.queue.AbstractIpAddressBasedQueue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,7 +27,12 @@ import com.mongodb.ServerAddress;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
 import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
 
 /**
  * 
@@ -44,6 +51,8 @@ public class MongoDBIpBasedQueue extends AbstractIpAddressBasedQueue {
     private final String COLLECTION_URIS = "uris";
     @Deprecated
     private final String DEFAULT_TYPE = "default";
+    private static final UpdateOptions UPSERT = new UpdateOptions().upsert(true);
+    private static final BulkWriteOptions UNORDERED = new BulkWriteOptions().ordered(false);
     private static final boolean PERSIST = System.getenv("QUEUE_FILTER_PERSIST") == null ? false
             : Boolean.parseBoolean(System.getenv("QUEUE_FILTER_PERSIST"));
 
@@ -111,6 +120,9 @@ public class MongoDBIpBasedQueue extends AbstractIpAddressBasedQueue {
             mongoCollectionUris.createIndex(Indexes.compoundIndex(Indexes.ascending("uri"),
                     Indexes.ascending("ipAddress"), Indexes.ascending("type")));
         }
+        // URI documents of a persisted queue might still be identified by the URI string
+        MongoDBUriIdMigration.ensureFingerprintIds(mongoDB.getCollection(COLLECTION_URIS),
+                doc -> (doc.get("_id") instanceof String) ? doc.getString("_id") : null);
 
     }
 
@@ -125,8 +137,13 @@ public class MongoDBIpBasedQueue extends AbstractIpAddressBasedQueue {
 
     @Override
     protected void addUri(CrawleableUri uri, InetAddress address) {
+        addUris(address, Collections.singletonList(uri));
+    }
+
+    @Override
+    protected void addUris(InetAddress address, List<CrawleableUri> uris) {
         addIp(address);
-        addCrawleableUri(uri);
+        addCrawleableUris(uris);
     }
 
     @Override
@@ -181,14 +198,33 @@ public class MongoDBIpBasedQueue extends AbstractIpAddressBasedQueue {
     }
 
     protected void addCrawleableUri(CrawleableUri uri) {
+        addCrawleableUris(Collections.singletonList(uri));
+    }
+
+    /**
+     * Adds the given URIs with a single unordered bulk write. Every URI is
+     * upserted based on its ID, i.e., URIs that are already in the queue are not
+     * changed.
+     * 
+     * @param uris
+     *            the URIs that should be added
+     */
+    protected void addCrawleableUris(List<CrawleableUri> uris) {
         try {
-            Document uriDoc = getUriDocument(uri);
-            // If the document does not already exist, add it
-            if (mongoDB.getCollection(COLLECTION_URIS).find(uriDoc).first() == null) {
-                mongoDB.getCollection(COLLECTION_URIS).insertOne(uriDoc);
+            List<WriteModel<Document>> writes = new ArrayList<>(uris.size());
+            Document uriDoc;
+            for (CrawleableUri uri : uris) {
+                uriDoc = getUriDocument(uri);
+                if (uriDoc != null) {
+                    writes.add(new UpdateOneModel<Document>(Filters.eq("_id", uriDoc.remove("_id")),
+                            new Document("$setOnInsert", uriDoc), UPSERT));
+                }
+            }
+            if (!writes.isEmpty()) {
+                mongoDB.getCollection(COLLECTION_URIS).bulkWrite(writes, UNORDERED);
             }
         } catch (Exception e) {
-            LOGGER.error("Error while adding uri to MongoDBQueue", e);
+            LOGGER.error("Error while adding uris to MongoDBQueue", e);
         }
     }
 
@@ -196,12 +232,7 @@ public class MongoDBIpBasedQueue extends AbstractIpAddressBasedQueue {
         try {
             Document ipDoc = getIpDocument(address);
             // If the document does not already exist, add it
-            if (!containsIpAddress(ipDoc)) {
-                LOGGER.debug("Address is not in the queue, creating a new one");
-                mongoDB.getCollection(COLLECTION_QUEUE).insertOne(ipDoc);
-            } else {
-                LOGGER.debug("Address is in the queue already");
-            }
+            mongoDB.getCollection(COLLECTION_QUEUE).updateOne(ipDoc, new Document("$setOnInsert", ipDoc), UPSERT);
         } catch (MongoWriteException e) {
             LOGGER.info("Uri: " + address.toString() + " already in queue. Ignoring...");
         }
@@ -222,13 +253,25 @@ public class MongoDBIpBasedQueue extends AbstractIpAddressBasedQueue {
         InetAddress ipAddress = uri.getIpAddress();
 
         Document docUri = new Document();
-        docUri.put("_id", uri.getUri().hashCode());
+        docUri.put("_id", getUriId(uri));
         docUri.put("ipAddress", ipAddress.getHostAddress());
         docUri.put("type", DEFAULT_TYPE);
         docUri.put("uri", new Binary(suri));
         return docUri;
     }
 
+    /**
+     * Returns the ID of the given URI that is used as primary key of its
+     * document, i.e., its {@link UriFingerprint}.
+     * 
+     * @param uri
+     *            the URI for which the ID should be created
+     * @return the ID of the given URI
+     */
+    public static long getUriId(CrawleableUri uri) {
+        return UriFingerprint.fingerprint(uri);
+    }
+
     public Document getIpDocument(InetAddress address) {
         Document docIp = new Document();
         docIp.put("ipAddress", address.getHostAddress());
@@ -270,24 +313,24 @@ public class MongoDBIpBasedQueue extends AbstractIpAddressBasedQueue {
     }
 
     @Override
-    protected void deleteUris(InetAddress ipAddress, List<CrawleableUri> uris) {
+    protected boolean deleteUris(InetAddress ipAddress, List<CrawleableUri> uris) {
         // remove all URIs from the list
         Document query = new Document();
         query.put("ipAddress", ipAddress.getHostAddress());
         query.put("type", DEFAULT_TYPE);
+        List<Long> ids = new ArrayList<>(uris.size());
         for (CrawleableUri uri : uris) {
-            // replace the old ID with the current ID
-            query.put("_id", uri.getUri().hashCode());
-            mongoDB.getCollection(COLLECTION_URIS).deleteMany(query);
+            ids.add(getUriId(uri));
         }
-        // remove the ID field
-        query.remove("_id");
+        mongoDB.getCollection(COLLECTION_URIS).deleteMany(Filters.and(query, Filters.in("_id", ids)));
         // if there are no more URIs left of the given domain
         if (mongoDB.getCollection(COLLECTION_URIS).find(query).first() == null) {
             // remove the domain from the queue
             mongoDB.getCollection(COLLECTION_QUEUE)
                     .deleteMany(query);
+            return false;
         }
+        return true;
     }
 
     protected boolean containsIpAddress(InetAddress address) {
@@ -0,0 +1,56 @@
+package org.dice_research.squirrel.data.uri;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the {@link UriFingerprint} against known MurmurHash3 values and checks
+ * that it does not produce collisions for a large number of similar URIs.
+ */
+public class UriFingerprintTest {
+
+    private static final int NUMBER_OF_URIS = 1000000;
+
+    /**
+     * Published reference values of the 128-bit MurmurHash3 (x64 variant, seed
+     * 0). The expected values are the first 64 bits of the hash, i.e., the
+     * first 8 bytes of the digest read in little-endian order (e.g., the digest
+     * 6c1b07bc7bbc4be347939ac4a93c437a of the "lazy dog" sentence). The inputs
+     * cover a tail without full blocks and tails following two full blocks.
+     */
+    @Test
+    public void testKnownValues() {
+        assertMurmur3(0L, "");
+        assertMurmur3(0x629942693e10f867L, "hell");
+        assertMurmur3(0xe34bbc7bbc071b6cL, "The quick brown fox jumps over the lazy dog");
+        assertMurmur3(0x658ca970ff85269aL, "The quick brown fox jumps over the lazy cog");
+    }
+
+    @Test
+    public void testConsistency() throws Exception {
+        String uri = "http://example.org/resource/1";
+        long fingerprint = UriFingerprint.fingerprint(uri);
+        Assert.assertEquals(fingerprint, UriFingerprint.fingerprint(new URI(uri)));
+        Assert.assertEquals(fingerprint, UriFingerprint.fingerprint(new CrawleableUri(new URI(uri))));
+        Assert.assertEquals(16, UriFingerprint.fingerprintAsHex(uri).length());
+        Assert.assertEquals(fingerprint, Long.parseUnsignedLong(UriFingerprint.fingerprintAsHex(uri), 16));
+    }
+
+    @Test
+    public void testNoCollisions() {
+        Set<Long> fingerprints = new HashSet<>(2 * NUMBER_OF_URIS);
+        for (int i = 0; i < NUMBER_OF_URIS; ++i) {
+            Assert.assertTrue("Collision for URI #" + i,
+                    fingerprints.add(UriFingerprint.fingerprint("http://example.org/resource/" + i)));
+        }
+    }
+
+    private static void assertMurmur3(long expected, String data) {
+        Assert.assertEquals(data, expected, UriFingerprint.murmur3(data.getBytes(StandardCharsets.UTF_8)));
+    }
+}
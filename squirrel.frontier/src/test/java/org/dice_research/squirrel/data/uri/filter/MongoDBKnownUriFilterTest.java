@@ -1,11 +1,13 @@
 package org.dice_research.squirrel.data.uri.filter;
 
 import com.mongodb.MongoClient;
+import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
 import com.mongodb.client.model.Indexes;
 import com.rethinkdb.RethinkDB;
 import com.rethinkdb.net.Cursor;
 
+import org.bson.Document;
 import org.dice_research.squirrel.MongoDBBasedTest;
 import org.dice_research.squirrel.MongoDBMockTest;
 import org.dice_research.squirrel.RethinkDBBasedTest;
@@ -13,6 +15,7 @@ import org.dice_research.squirrel.RethinkDBMockTest;
 import org.dice_research.squirrel.data.uri.CrawleableUri;
 import org.dice_research.squirrel.data.uri.filter.RDBKnownUriFilter;
 import org.dice_research.squirrel.frontier.impl.FrontierImpl;
+import org.dice_research.squirrel.frontier.utils.MongoDBUriIdMigration;
 import org.dice_research.squirrel.model.RDBConnector;
 import org.junit.After;
 import org.junit.Assert;
@@ -25,6 +28,7 @@ import java.net.InetAddress;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.UnknownHostException;
+import java.util.Arrays;
 import java.util.List;
 
 
@@ -116,6 +120,43 @@ public class MongoDBKnownUriFilterTest {
 
 //        cursor.close();
     }
+
+    @Test
+    public void testBatchOperations() throws URISyntaxException, UnknownHostException {
+        CrawleableUri uri1 = new CrawleableUri(new URI("http://www.google.de"), InetAddress.getByName("192.168.100.1"));
+        CrawleableUri uri2 = new CrawleableUri(new URI("http://www.upb.de"), InetAddress.getByName("192.168.100.1"));
+        CrawleableUri uri3 = new CrawleableUri(new URI("http://www.uni-paderborn.de"), InetAddress.getByName("192.168.100.2"));
+
+        filter.add(Arrays.asList(uri1, uri2), System.currentTimeMillis() + 50000);
+        // adding a URI a second time must not create a second document
+        filter.add(Arrays.asList(uri2), System.currentTimeMillis() + 50000);
+
+        // known URIs are filtered and duplicates are removed
+        List<CrawleableUri> goodUris = filter.getGoodUris(Arrays.asList(uri1, uri3, uri2, uri3));
+        Assert.assertEquals(1, goodUris.size());
+        Assert.assertEquals(uri3, goodUris.get(0));
+        Assert.assertFalse(filter.isUriGood(uri2));
+        Assert.assertTrue(filter.isUriGood(uri3));
+    }
+
+    @Test
+    public void testMigrationOfOldIds() throws URISyntaxException {
+        client = new MongoClient(MongoDBBasedTest.DB_HOST_NAME, MongoDBBasedTest.DB_PORT);
+        MongoCollection<Document> collection = client.getDatabase(MongoDBKnowUriFilter.DB_NAME)
+                .getCollection(MongoDBKnowUriFilter.COLLECTION_NAME);
+        // documents of the old schema are identified by an ObjectId
+        collection.insertOne(new Document(MongoDBKnowUriFilter.COLUMN_URI, "http://www.upb.de")
+                .append(MongoDBKnowUriFilter.COLUMN_TIMESTAMP_LAST_CRAWL, System.currentTimeMillis()));
+        collection.insertOne(new Document(MongoDBKnowUriFilter.COLUMN_URI, "http://www.upb.de")
+                .append(MongoDBKnowUriFilter.COLUMN_TIMESTAMP_LAST_CRAWL, System.currentTimeMillis()));
+        Assert.assertTrue(MongoDBUriIdMigration.hasOldIds(collection));
+
+        Assert.assertEquals(2, MongoDBUriIdMigration.migrate(collection,
+                doc -> doc.getString(MongoDBKnowUriFilter.COLUMN_URI)));
+        Assert.assertFalse(MongoDBUriIdMigration.hasOldIds(collection));
+        Assert.assertEquals(1, collection.count());
+        Assert.assertFalse(filter.isUriGood(new CrawleableUri(new URI("http://www.upb.de"))));
+    }
 //
 //    @After
 //    public void tearDown() throws Exception {
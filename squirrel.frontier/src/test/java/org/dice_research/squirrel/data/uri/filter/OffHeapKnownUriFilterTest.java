@@ -0,0 +1,130 @@
+package org.dice_research.squirrel.data.uri.filter;
+
+import java.io.File;
+import java.net.URI;
+
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests the {@link OffHeapKnownUriFilter} including the growing of its table
+ * and its persistence.
+ */
+public class OffHeapKnownUriFilterTest {
+
+    private static final int NUMBER_OF_URIS = 10000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testAddAndGrow() throws Exception {
+        // start with a small table to make sure that it has to grow several times
+        OffHeapKnownUriFilter filter = new OffHeapKnownUriFilter(null, 16, false);
+        filter.open();
+        for (int i = 0; i < NUMBER_OF_URIS; ++i) {
+            Assert.assertTrue(filter.isUriGood(createUri(i)));
+            filter.add(createUri(i), System.currentTimeMillis());
+            Assert.assertFalse(filter.isUriGood(createUri(i)));
+        }
+        Assert.assertEquals(NUMBER_OF_URIS, filter.count());
+        for (int i = 0; i < NUMBER_OF_URIS; ++i) {
+            Assert.assertFalse(filter.isUriGood(createUri(i)));
+            Assert.assertTrue(filter.isUriGood(createUri(NUMBER_OF_URIS + i)));
+        }
+        // adding a known URI does not change the count
+        filter.add(createUri(0), System.currentTimeMillis());
+        Assert.assertEquals(NUMBER_OF_URIS, filter.count());
+        filter.close();
+    }
+
+    @Test
+    public void testRecrawling() throws Exception {
+        OffHeapKnownUriFilter filter = new OffHeapKnownUriFilter(true);
+        filter.open();
+        CrawleableUri uri1 = createUri(1);
+        CrawleableUri uri2 = createUri(2);
+        filter.add(uri1, System.currentTimeMillis() - 10000);
+        filter.add(uri2, System.currentTimeMillis() + 10000);
+        Assert.assertTrue(filter.isUriGood(uri1));
+        Assert.assertFalse(filter.isUriGood(uri2));
+        filter.close();
+    }
+
+    @Test
+    public void testPersistence() throws Exception {
+        File file = new File(folder.getRoot(), "knownUris.bin");
+        OffHeapKnownUriFilter filter = new OffHeapKnownUriFilter(file, 16, false);
+        filter.open();
+        for (int i = 0; i < NUMBER_OF_URIS; ++i) {
+            filter.add(createUri(i), System.currentTimeMillis());
+            // the table never needs more than 27 bytes per URI
+            if (i > 1000) {
+                Assert.assertTrue(file.length() < (27.0 * (i + 1)));
+            }
+        }
+        filter.close();
+
+        filter = new OffHeapKnownUriFilter(file, 16, false);
+        filter.open();
+        Assert.assertEquals(NUMBER_OF_URIS, filter.count());
+        for (int i = 0; i < NUMBER_OF_URIS; ++i) {
+            Assert.assertFalse(filter.isUriGood(createUri(i)));
+        }
+        Assert.assertTrue(filter.isUriGood(createUri(NUMBER_OF_URIS)));
+        filter.close();
+    }
+
+    @Test
+    public void testPresizing() throws Exception {
+        File file = new File(folder.getRoot(), "knownUris.bin");
+        OffHeapKnownUriFilter filter = new OffHeapKnownUriFilter(file, 16, false);
+        filter.open();
+        for (int i = 0; i < 10; ++i) {
+            filter.add(createUri(i), System.currentTimeMillis());
+        }
+        filter.close();
+        long smallSize = file.length();
+
+        // a persisted table that is too small is grown when it is opened
+        filter = new OffHeapKnownUriFilter(file, NUMBER_OF_URIS, false);
+        filter.open();
+        long presizedSize = file.length();
+        Assert.assertTrue(presizedSize > smallSize);
+        Assert.assertEquals(10, filter.count());
+        for (int i = 0; i < NUMBER_OF_URIS; ++i) {
+            filter.add(createUri(i), System.currentTimeMillis());
+        }
+        // the table did not have to grow while the URIs have been added
+        Assert.assertEquals(presizedSize, file.length());
+        Assert.assertEquals(NUMBER_OF_URIS, filter.count());
+        filter.close();
+    }
+
+    @Test
+    public void testClosedFilter() throws Exception {
+        OffHeapKnownUriFilter filter = new OffHeapKnownUriFilter(null, 16, false);
+        filter.open();
+        filter.add(createUri(1), System.currentTimeMillis());
+        filter.close();
+        try {
+            filter.isUriGood(createUri(1));
+            Assert.fail("Expected an IllegalStateException.");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        try {
+            filter.add(createUri(2), System.currentTimeMillis());
+            Assert.fail("Expected an IllegalStateException.");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    private static CrawleableUri createUri(int id) throws Exception {
+        return new CrawleableUri(new URI("http://example.org/resource/" + id));
+    }
+}
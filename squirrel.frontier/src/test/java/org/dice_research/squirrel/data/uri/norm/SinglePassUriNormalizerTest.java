@@ -0,0 +1,170 @@
+package org.dice_research.squirrel.data.uri.norm;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.dice_research.squirrel.Constants;
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Compares the results of the {@link SinglePassUriNormalizer} with the results
+ * of the {@link NormalizerImpl}. The random URIs of the differential test do not
+ * contain the cases in which the two normalizers are known to differ. These
+ * cases are checked by {@link #testKnownDifferences()}.
+ */
+public class SinglePassUriNormalizerTest {
+
+    private static final List<String> SESSION_IDS = Arrays.asList("sessionid", "jsessionids", "phpsessid", "sid");
+
+    private static final String[] SCHEMES = { "http", "https", "HTTP", "Https", "ftp" };
+    private static final String[] HOSTS = { "example.org", "WWW.Example.COM", "dbpedia.org", "127.0.0.1", "[::1]",
+            "a-b.example.org" };
+    private static final String[] PORTS = { "", "", "", ":80", ":443", ":21", ":8080", ":8890" };
+    private static final String[] SEGMENTS = { "a", "b", "resource", "New_York", ".", "..", "", "%7euser", "%41BC",
+            "%7E", "%2e", "%39", "x%2Dy", "data.nt.gz", "sparql", "%5F", "~tilde", "..a", "a.." };
+    private static final String[] PARAMS = { "a=1", "b=2", "a=2", "B=1", "sid=42", "SID=1", "PHPSESSID=abc",
+            "jsessionids=", "sessionid2=1", "", "x", "query=select", "page=2", "c=a=b", "=x", "lang=en" };
+    private static final String[] FRAGMENTS = { null, null, null, "", "top", "Resource1" };
+
+    private static Map<String, Integer> createDefaultPortMap() {
+        Map<String, Integer> defaultPortMap = new HashMap<>();
+        defaultPortMap.put("http", 80);
+        defaultPortMap.put("https", 443);
+        defaultPortMap.put("ftp", 21);
+        defaultPortMap.put("ftps", 90);
+        defaultPortMap.put("sftp", 22);
+        return defaultPortMap;
+    }
+
+    @Test
+    public void testAgainstNormalizerImpl() throws Exception {
+        NormalizerImpl expectedNormalizer = new NormalizerImpl(SESSION_IDS, createDefaultPortMap());
+        SinglePassUriNormalizer normalizer = new SinglePassUriNormalizer(SESSION_IDS, createDefaultPortMap());
+        Random random = new Random(42);
+        for (int n = 0; n < 100000; ++n) {
+            String uriString = createUri(random);
+            CrawleableUri uri = new CrawleableUri(new URI(uriString));
+            uri.addData(Constants.URI_TYPE_KEY, "some type");
+            CrawleableUri expected = expectedNormalizer.normalize(uri);
+            CrawleableUri result = normalizer.normalize(uri);
+            Assert.assertEquals("Different result for " + uriString, expected.getUri().toString(),
+                    result.getUri().toString());
+            Assert.assertEquals(expected, result);
+            Assert.assertEquals(expected.getData(), result.getData());
+            // the same object is returned if the URI is already normalized
+            Assert.assertEquals("Unexpected object for " + uriString, expected == uri, result == uri);
+        }
+    }
+
+    private static String createUri(Random random) {
+        String scheme = SCHEMES[random.nextInt(SCHEMES.length)];
+        StringBuilder builder = new StringBuilder();
+        builder.append(scheme).append("://");
+        if (random.nextInt(10) == 0) {
+            builder.append("user@");
+        }
+        builder.append(HOSTS[random.nextInt(HOSTS.length)]);
+        // known difference: the NormalizerImpl does not remove the default port
+        // of an upper case scheme
+        if (scheme.equals(scheme.toLowerCase())) {
+            builder.append(PORTS[random.nextInt(PORTS.length)]);
+        }
+        int segments = random.nextInt(6);
+        for (int i = 0; i < segments; ++i) {
+            builder.append('/');
+            if (random.nextInt(10) == 0) {
+                builder.append('/');
+            }
+            builder.append(SEGMENTS[random.nextInt(SEGMENTS.length)]);
+        }
+        if ((segments > 0) && random.nextBoolean()) {
+            builder.append('/');
+        }
+        String path = builder.toString();
+        if (path.contains("%2e") || path.contains("%39")) {
+            // known difference: the NormalizerImpl encodes the "%" of these
+            // escapes a second time if the URI is changed, so the URI must not be
+            // changed
+            builder.setLength(0);
+            builder.append(scheme.toLowerCase()).append("://example.org/").append(random.nextBoolean() ? "%2e" : "%39");
+            return builder.toString();
+        }
+        if (random.nextInt(3) > 0) {
+            builder.append('?');
+            int params = random.nextInt(6);
+            for (int i = 0; i < params; ++i) {
+                if (i > 0) {
+                    builder.append('&');
+                }
+                builder.append(PARAMS[random.nextInt(PARAMS.length)]);
+            }
+            // empty parameters at the end of the query
+            while (random.nextInt(8) == 0) {
+                builder.append('&');
+            }
+        }
+        String fragment = FRAGMENTS[random.nextInt(FRAGMENTS.length)];
+        if (fragment != null) {
+            builder.append('#').append(fragment);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * The inputs for which the two normalizers return different URIs. As long
+     * as this list is not empty, the frontier has to keep the
+     * {@link NormalizerImpl} since a differently normalized URI gets a
+     * different fingerprint.
+     */
+    @Test
+    public void testKnownDifferences() throws Exception {
+        NormalizerImpl expectedNormalizer = new NormalizerImpl(SESSION_IDS, createDefaultPortMap());
+        SinglePassUriNormalizer normalizer = new SinglePassUriNormalizer(SESSION_IDS, createDefaultPortMap());
+        String[] uris = new String[] { "HTTP://example.org:80/x", "http://example.org/a/%2e/b#f",
+                "http://example.org/%39/b/../c", "http://example.org/x%20y#f", "http://example.org/x?b=%26&a=1#f",
+                "http://a_b.example.org/x#f" };
+        for (String uri : uris) {
+            Assert.assertNotEquals("Expected a difference for " + uri,
+                    expectedNormalizer.normalize(new CrawleableUri(new URI(uri))).getUri().toString(),
+                    normalizer.normalize(new CrawleableUri(new URI(uri))).getUri().toString());
+        }
+    }
+
+    @Test
+    public void testExamples() throws Exception {
+        SinglePassUriNormalizer normalizer = new SinglePassUriNormalizer(SESSION_IDS, createDefaultPortMap());
+        String[][] examples = new String[][] { { "http://example.org/test1", "http://example.org/test1" },
+                { "http://example.org/dump.gz#Resource1", "http://example.org/dump.gz" },
+                { "http://www.example.com/?b=1&a=2&a=1", "http://www.example.com/?a=1&a=2&b=1" },
+                { "http://www.example.com:80/", "http://www.example.com/" },
+                { "http://www.example.com", "http://www.example.com/" },
+                { "http://www.example.com/a/./b/../c", "http://www.example.com/a/c" },
+                { "http://www.example.com/some//path", "http://www.example.com/some/path" },
+                { "http://www.example.com/%7euser", "http://www.example.com/~user" },
+                { "http://www.example.com/?", "http://www.example.com/" },
+                { "http://www.example.com/?b=1&a=2&SESSIONID=12345678896", "http://www.example.com/?a=2&b=1" },
+                { "http://WWW.EXAMPLE.com/", "http://www.example.com/" },
+                { "http://example.org/x?sid=1&sid=2", "http://example.org/x?" },
+                { "http://example.org/x?a=1&&b=2&&", "http://example.org/x?&a=1&b=2" },
+                { "http://example.org/a/../../b", "http://example.org/../b" },
+                { "http://example.org/a/b/..", "http://example.org/a/" },
+                { "file:///a/./b", "file:///a/b" },
+                // The following URIs are damaged by the NormalizerImpl
+                { "http://example.org/x%20y#f", "http://example.org/x%20y" },
+                { "http://example.org/x?b=%26&a=1#f", "http://example.org/x?a=1&b=%26" },
+                { "HTTP://example.org:80/x", "http://example.org/x" },
+                { "http://a_b.example.org/x#f", "http://a_b.example.org/x" },
+                { "http://example.org/x?=", "http://example.org/x?=" },
+                { "mailto:someone@example.org", "mailto:someone@example.org" } };
+        for (String[] example : examples) {
+            Assert.assertEquals(example[1], normalizer.normalize(new CrawleableUri(new URI(example[0]))).getUri()
+                    .toString());
+        }
+    }
+}
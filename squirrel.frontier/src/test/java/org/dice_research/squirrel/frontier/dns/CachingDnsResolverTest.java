@@ -0,0 +1,192 @@
+package org.dice_research.squirrel.frontier.dns;
+
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.data.uri.filter.OffHeapKnownUriFilter;
+import org.dice_research.squirrel.data.uri.norm.NormalizerImpl;
+import org.dice_research.squirrel.frontier.impl.FrontierImpl;
+import org.dice_research.squirrel.queue.InMemoryQueue;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CachingDnsResolverTest {
+
+    @Test
+    public void testCaching() throws Exception {
+        DummyResolver resolver = new DummyResolver();
+        try {
+            InetAddress address = resolver.resolve("example.org").get(1, TimeUnit.SECONDS);
+            Assert.assertEquals(InetAddress.getByAddress("example.org", new byte[] { 10, 0, 0, 1 }), address);
+            // the second request is answered from the cache
+            CompletableFuture<InetAddress> future = resolver.resolve("Example.ORG");
+            Assert.assertTrue(future.isDone());
+            Assert.assertEquals(address, future.get());
+            Assert.assertEquals(address, resolver.getCachedAddress("example.org"));
+            Assert.assertEquals(1, resolver.lookups.get());
+            Assert.assertEquals(0.5, resolver.getHitRate(), 0.0001);
+
+            // the address expires
+            resolver.time += 1000;
+            Assert.assertNull(resolver.getCachedAddress("example.org"));
+            Assert.assertEquals(address, resolver.resolve("example.org").get(1, TimeUnit.SECONDS));
+            Assert.assertEquals(2, resolver.lookups.get());
+            Assert.assertEquals(2, resolver.getLookups());
+        } finally {
+            resolver.close();
+        }
+    }
+
+    @Test
+    public void testFailedLookups() throws Exception {
+        DummyResolver resolver = new DummyResolver();
+        try {
+            Assert.assertNull(resolver.resolve("unknown.example.org").get(1, TimeUnit.SECONDS));
+            Assert.assertEquals(1, resolver.getFailedLookups());
+            // the failure is cached
+            CompletableFuture<InetAddress> future = resolver.resolve("unknown.example.org");
+            Assert.assertTrue(future.isDone());
+            Assert.assertNull(future.get());
+            Assert.assertEquals(1, resolver.lookups.get());
+            // but for a shorter time
+            resolver.time += 100;
+            Assert.assertNull(resolver.resolve("unknown.example.org").get(1, TimeUnit.SECONDS));
+            Assert.assertEquals(2, resolver.lookups.get());
+            // a URI without host is not looked up
+            Assert.assertNull(resolver.resolve(null).get());
+            Assert.assertEquals(2, resolver.lookups.get());
+        } finally {
+            resolver.close();
+        }
+    }
+
+    @Test
+    public void testSingleLookupPerHost() throws Exception {
+        DummyResolver resolver = new DummyResolver();
+        resolver.blocker = new CountDownLatch(1);
+        try {
+            List<CompletableFuture<InetAddress>> futures = new ArrayList<>();
+            for (int i = 0; i < 10; ++i) {
+                futures.add(resolver.resolve("example.org"));
+            }
+            Assert.assertFalse(futures.get(0).isDone());
+            Assert.assertEquals(1, resolver.getNumberOfPendingLookups());
+            resolver.blocker.countDown();
+            for (CompletableFuture<InetAddress> future : futures) {
+                Assert.assertNotNull(future.get(1, TimeUnit.SECONDS));
+            }
+            Assert.assertEquals(1, resolver.lookups.get());
+            Assert.assertEquals(0, resolver.getNumberOfPendingLookups());
+        } finally {
+            resolver.close();
+        }
+    }
+
+    @Test
+    public void testCloseCompletesPendingLookups() throws Exception {
+        DummyResolver resolver = new DummyResolver();
+        resolver.blocker = new CountDownLatch(1);
+        CompletableFuture<InetAddress> future = resolver.resolve("example.org");
+        resolver.close();
+        Assert.assertTrue(future.isDone());
+        Assert.assertNull(future.get());
+        resolver.blocker.countDown();
+    }
+
+    @Test
+    public void testFrontierParksUris() throws Exception {
+        DummyResolver resolver = new DummyResolver();
+        resolver.blocker = new CountDownLatch(1);
+        InMemoryQueue queue = new InMemoryQueue();
+        OffHeapKnownUriFilter filter = new OffHeapKnownUriFilter();
+        filter.open();
+        FrontierImpl frontier = new FrontierImpl(new NormalizerImpl(new ArrayList<>(), new HashMap<>()), filter,
+                queue, new ArrayList<>());
+        frontier.setDnsResolver(resolver);
+        try {
+            List<CrawleableUri> uris = new ArrayList<>();
+            uris.add(new CrawleableUri(new URI("http://example.org/a")));
+            uris.add(new CrawleableUri(new URI("http://example.org/b")));
+            uris.add(new CrawleableUri(new URI("http://unknown.example.org/a")));
+            // the call does not block although the lookups are blocked
+            frontier.addNewUris(uris);
+            Assert.assertEquals(3, frontier.getNumberOfParkedUris());
+            Assert.assertTrue(queue.isEmpty());
+            // the URIs are known although they are parked
+            Assert.assertFalse(filter.isUriGood(new CrawleableUri(new URI("http://example.org/a"))));
+
+            resolver.blocker.countDown();
+            long end = System.currentTimeMillis() + 5000;
+            while ((frontier.getNumberOfParkedUris() > 0) && (System.currentTimeMillis() < end)) {
+                Thread.sleep(10);
+            }
+            Assert.assertEquals(0, frontier.getNumberOfParkedUris());
+            // two lookups for three URIs
+            Assert.assertEquals(2, resolver.lookups.get());
+            List<CrawleableUri> nextUris = frontier.getNextUris();
+            Assert.assertEquals(2, nextUris.size());
+            Assert.assertEquals(resolver.getCachedAddress("example.org"), nextUris.get(0).getIpAddress());
+            frontier.crawlingDone(nextUris);
+            Assert.assertTrue(queue.isEmpty());
+
+            // URIs of a cached host are added directly
+            frontier.addNewUri(new CrawleableUri(new URI("http://example.org/c")));
+            Assert.assertEquals(0, frontier.getNumberOfParkedUris());
+            Assert.assertFalse(queue.isEmpty());
+            Assert.assertEquals(2, resolver.lookups.get());
+        } finally {
+            frontier.close();
+            filter.close();
+        }
+    }
+
+    /**
+     * A resolver that knows the addresses of a fixed set of host names, counts
+     * its lookups and uses a clock that is controlled by the test.
+     */
+    public static class DummyResolver extends CachingDnsResolver {
+
+        protected Map<String, InetAddress> addresses = new HashMap<>();
+        protected AtomicInteger lookups = new AtomicInteger();
+        protected CountDownLatch blocker = null;
+        protected volatile long time = 1000000;
+
+        public DummyResolver() throws UnknownHostException {
+            super(2, 1000, 100, 100);
+            addresses.put("example.org", InetAddress.getByAddress("example.org", new byte[] { 10, 0, 0, 1 }));
+            addresses.put("example.com", InetAddress.getByAddress("example.com", new byte[] { 10, 0, 0, 2 }));
+        }
+
+        @Override
+        protected InetAddress lookup(String host) throws UnknownHostException {
+            lookups.incrementAndGet();
+            if (blocker != null) {
+                try {
+                    blocker.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            InetAddress address = addresses.get(host);
+            if (address == null) {
+                throw new UnknownHostException(host);
+            }
+            return address;
+        }
+
+        @Override
+        protected long currentTime() {
+            return time;
+        }
+    }
+}
@@ -6,9 +6,11 @@ import static org.junit.Assert.assertTrue;
 
 import java.net.InetAddress;
 import java.net.URI;
+import java.net.UnknownHostException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 
 import org.apache.commons.collections15.map.HashedMap;
 import org.dice_research.squirrel.Constants;
@@ -21,6 +23,7 @@ import org.dice_research.squirrel.data.uri.norm.DomainBasedUriGenerator;
 import org.dice_research.squirrel.data.uri.norm.NormalizerImpl;
 import org.dice_research.squirrel.data.uri.norm.UriGenerator;
 import org.dice_research.squirrel.data.uri.norm.WellKnownPathUriGenerator;
+import org.dice_research.squirrel.frontier.dns.CachingDnsResolver;
 import org.dice_research.squirrel.queue.ipbased.MongoDBIpBasedQueue;
 import org.junit.After;
 import org.junit.Assert;
@@ -78,6 +81,7 @@ public class FrontierImplTest {
         queue.purge();
         filter.purge();
         frontier.addNewUris(uris);
+        waitForParkedUris();
         List<CrawleableUri> nextUris = frontier.getNextUris();
 
         List<CrawleableUri> assertion = new ArrayList<CrawleableUri>();
@@ -93,6 +97,7 @@ public class FrontierImplTest {
     public void addNewUri() throws Exception {
         CrawleableUri uri_1 = cuf.create(new URI("http://dbpedia.org/resource/Tom_Lazarus"), null, UriType.UNKNOWN);
         frontier.addNewUri(uri_1);
+        waitForParkedUris();
         List<CrawleableUri> nextUris = frontier.getNextUris();
         List<CrawleableUri> assertion = new ArrayList<>();
         assertion.add(cuf.create(new URI("http://dbpedia.org/resource/Tom_Lazarus"),
@@ -100,6 +105,42 @@ public class FrontierImplTest {
         assertEquals(assertion, nextUris);
     }
 
+    @Test
+    public void addNewUriWithParkedLookup() throws Exception {
+        queue.purge();
+        filter.purge();
+        BlockingResolver resolver = new BlockingResolver();
+        frontier.setDnsResolver(resolver);
+        CrawleableUri uri_1 = cuf.create(new URI("http://example.org/resource/A"), null, UriType.UNKNOWN);
+        frontier.addNewUri(uri_1);
+        // the URI is parked until its host has been resolved
+        assertEquals(1, frontier.getNumberOfParkedUris());
+        assertTrue(frontier.getNextUris().isEmpty());
+
+        resolver.blocker.countDown();
+        waitForParkedUris();
+        List<CrawleableUri> nextUris = frontier.getNextUris();
+        List<CrawleableUri> assertion = new ArrayList<>();
+        assertion.add(cuf.create(new URI("http://example.org/resource/A"), BlockingResolver.ADDRESS,
+                UriType.DEREFERENCEABLE));
+        assertEquals(assertion, nextUris);
+    }
+
+    @Test
+    public void addNewUriWithFailedLookup() throws Exception {
+        queue.purge();
+        filter.purge();
+        BlockingResolver resolver = new BlockingResolver();
+        frontier.setDnsResolver(resolver);
+        CrawleableUri uri_1 = cuf.create(new URI("http://unknown.example.org/resource/A"), null, UriType.UNKNOWN);
+        frontier.addNewUri(uri_1);
+        resolver.blocker.countDown();
+        waitForParkedUris();
+        // the URI is dropped since its host couldn't be resolved
+        assertTrue(frontier.getNextUris().isEmpty());
+        assertEquals(0, frontier.getNumberOfPendingUris());
+    }
+
     @Test
     public void crawlingDone() throws Exception {
         List<CrawleableUri> crawledUris = new ArrayList<>();
@@ -172,8 +213,57 @@ public class FrontierImplTest {
         assertFalse("uri_2 has been found but was not expected", nextUris.contains(uri_2));
     }
 
+    /**
+     * Waits until the hosts of all URIs that have been added to the frontier
+     * have been resolved.
+     */
+    private static void waitForParkedUris() throws InterruptedException {
+        long end = System.currentTimeMillis() + 10000;
+        while ((frontier.getNumberOfParkedUris() > 0) && (System.currentTimeMillis() < end)) {
+            Thread.sleep(10);
+        }
+        assertEquals("There are still URIs waiting for their hosts", 0, frontier.getNumberOfParkedUris());
+    }
+
+    /**
+     * A resolver that blocks all lookups until its {@link #blocker} is counted
+     * down. Only example.org can be resolved.
+     */
+    private static class BlockingResolver extends CachingDnsResolver {
+
+        private static final InetAddress ADDRESS;
+
+        static {
+            try {
+                ADDRESS = InetAddress.getByAddress("example.org", new byte[] { 10, 0, 0, 1 });
+            } catch (UnknownHostException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private final CountDownLatch blocker = new CountDownLatch(1);
+
+        public BlockingResolver() {
+            super(1, 60000, 60000, 100);
+        }
+
+        @Override
+        protected InetAddress lookup(String host) throws UnknownHostException {
+            try {
+                blocker.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if ("example.org".equals(host)) {
+                return ADDRESS;
+            }
+            throw new UnknownHostException(host);
+        }
+    }
+
     @After
     public void tearDown() throws Exception {
+        frontier.close();
     	filter.purge();
     	queue.purge();
         String rethinkDockerStopCommand = "docker stop squirrel-test-frontierimpl";
@@ -0,0 +1,91 @@
+package org.dice_research.squirrel.queue;
+
+import java.net.InetAddress;
+import java.net.URI;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Several adding and consuming threads share a single {@link InMemoryQueue}.
+ * The test makes sure that a group is never handed out to two consumers at the
+ * same time and that every added URI is handed out exactly once.
+ */
+public class InMemoryQueueConcurrencyTest {
+
+    private static final int NUMBER_OF_ADDERS = 4;
+    private static final int NUMBER_OF_CONSUMERS = 4;
+    private static final int NUMBER_OF_GROUPS = 20;
+    private static final int URIS_PER_ADDER = 500;
+
+    @Test
+    public void test() throws Exception {
+        InMemoryQueue queue = new InMemoryQueue();
+        queue.open();
+
+        Set<InetAddress> currentlyBlocked = ConcurrentHashMap.newKeySet();
+        Set<URI> handedOutUris = ConcurrentHashMap.newKeySet();
+        AtomicInteger duplicates = new AtomicInteger();
+        AtomicInteger blockingViolations = new AtomicInteger();
+        CountDownLatch addersFinished = new CountDownLatch(NUMBER_OF_ADDERS);
+
+        ExecutorService executor = Executors.newFixedThreadPool(NUMBER_OF_ADDERS + NUMBER_OF_CONSUMERS);
+        for (int a = 0; a < NUMBER_OF_ADDERS; ++a) {
+            final int adderId = a;
+            executor.execute(() -> {
+                try {
+                    for (int i = 0; i < URIS_PER_ADDER; ++i) {
+                        int group = i % NUMBER_OF_GROUPS;
+                        InetAddress address = InetAddress.getByAddress(new byte[] { 10, 0, 0, (byte) group });
+                        queue.addUri(new CrawleableUri(new URI("http://example.org/" + adderId + "/" + i), address));
+                    }
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                } finally {
+                    addersFinished.countDown();
+                }
+            });
+        }
+        for (int c = 0; c < NUMBER_OF_CONSUMERS; ++c) {
+            executor.execute(() -> {
+                List<CrawleableUri> uris;
+                while ((addersFinished.getCount() > 0) || !queue.isEmpty()) {
+                    uris = queue.getNextUris();
+                    if (uris == null) {
+                        Thread.yield();
+                        continue;
+                    }
+                    InetAddress address = uris.get(0).getIpAddress();
+                    if (!currentlyBlocked.add(address)) {
+                        blockingViolations.incrementAndGet();
+                    }
+                    for (CrawleableUri uri : uris) {
+                        if (!handedOutUris.add(uri.getUri())) {
+                            duplicates.incrementAndGet();
+                        }
+                    }
+                    currentlyBlocked.remove(address);
+                    queue.markUrisAsAccessible(uris);
+                }
+            });
+        }
+        executor.shutdown();
+        Assert.assertTrue("The threads did not terminate in time.", executor.awaitTermination(1, TimeUnit.MINUTES));
+
+        Assert.assertEquals("A group has been handed out to two consumers at the same time.", 0,
+                blockingViolations.get());
+        Assert.assertEquals("URIs have been handed out more than once.", 0, duplicates.get());
+        Assert.assertEquals(NUMBER_OF_ADDERS * URIS_PER_ADDER, handedOutUris.size());
+        Assert.assertTrue(queue.isEmpty());
+        Assert.assertEquals(0, queue.getNumberOfBlockedKeys());
+    }
+}
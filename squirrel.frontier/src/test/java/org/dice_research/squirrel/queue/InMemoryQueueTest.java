@@ -0,0 +1,106 @@
+package org.dice_research.squirrel.queue;
+
+import java.net.InetAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the handling of ready and blocked groups of the {@link InMemoryQueue}.
+ */
+public class InMemoryQueueTest {
+
+    @Test
+    public void testUrisAddedToBlockedGroup() throws Exception {
+        InMemoryQueue queue = new InMemoryQueue();
+        queue.open();
+        InetAddress address = InetAddress.getByName("192.168.100.1");
+        CrawleableUri uri1 = new CrawleableUri(new URI("http://example.org/1"), address);
+        CrawleableUri uri2 = new CrawleableUri(new URI("http://example.org/2"), address);
+
+        queue.addUri(uri1);
+        List<CrawleableUri> uris = queue.getNextUris();
+        Assert.assertEquals(1, uris.size());
+        Assert.assertEquals(uri1, uris.get(0));
+
+        // the group is blocked, i.e., the new URI can not be handed out
+        queue.addUri(uri2);
+        Assert.assertNull(queue.getNextUris());
+
+        // after the group has been released, the new URI should be available
+        queue.markUrisAsAccessible(uris);
+        Assert.assertFalse(queue.isEmpty());
+        uris = queue.getNextUris();
+        Assert.assertEquals(1, uris.size());
+        Assert.assertEquals(uri2, uris.get(0));
+        queue.markUrisAsAccessible(uris);
+
+        Assert.assertTrue(queue.isEmpty());
+        Assert.assertNull(queue.getNextUris());
+        Assert.assertEquals(0, queue.getNumberOfBlockedKeys());
+        queue.close();
+    }
+
+    @Test
+    public void testAddUris() throws Exception {
+        InMemoryQueue queue = new InMemoryQueue();
+        queue.open();
+        InetAddress address1 = InetAddress.getByName("192.168.100.1");
+        InetAddress address2 = InetAddress.getByName("192.168.100.2");
+        List<CrawleableUri> uris = new ArrayList<>();
+        uris.add(new CrawleableUri(new URI("http://example.org/1"), address1));
+        uris.add(new CrawleableUri(new URI("http://example.com/1"), address2));
+        uris.add(new CrawleableUri(new URI("http://example.org/2"), address1));
+        queue.addUris(uris);
+
+        List<CrawleableUri> group1 = queue.getNextUris();
+        List<CrawleableUri> group2 = queue.getNextUris();
+        Assert.assertNull(queue.getNextUris());
+        Assert.assertEquals(2, group1.size());
+        Assert.assertEquals(address1, group1.get(0).getIpAddress());
+        Assert.assertEquals(1, group2.size());
+        Assert.assertEquals(address2, group2.get(0).getIpAddress());
+        queue.markUrisAsAccessible(group1);
+        queue.markUrisAsAccessible(group2);
+        Assert.assertTrue(queue.isEmpty());
+        queue.close();
+    }
+
+    @Test
+    public void testRoundRobin() throws Exception {
+        InMemoryQueue queue = new InMemoryQueue();
+        queue.open();
+        int numberOfGroups = 100;
+        for (int i = 0; i < numberOfGroups; ++i) {
+            InetAddress address = InetAddress.getByAddress(new byte[] { 10, 0, 0, (byte) i });
+            queue.addUri(new CrawleableUri(new URI("http://example.org/" + i + "/a"), address));
+            queue.addUri(new CrawleableUri(new URI("http://example.org/" + i + "/b"), address));
+        }
+        // block all groups but one
+        List<List<CrawleableUri>> blocked = new ArrayList<>();
+        for (int i = 0; i < (numberOfGroups - 1); ++i) {
+            List<CrawleableUri> uris = queue.getNextUris();
+            Assert.assertNotNull(uris);
+            Assert.assertEquals(2, uris.size());
+            blocked.add(uris);
+        }
+        Assert.assertEquals(numberOfGroups - 1, queue.getNumberOfBlockedKeys());
+        // the last group should be handed out although all the others are blocked
+        List<CrawleableUri> last = queue.getNextUris();
+        Assert.assertNotNull(last);
+        Assert.assertNull(queue.getNextUris());
+        // release only a part of the last group and a complete other group. Only the
+        // remaining URI of the last group should be handed out again
+        queue.markUrisAsAccessible(last.subList(0, 1));
+        queue.markUrisAsAccessible(blocked.get(0));
+        List<CrawleableUri> uris = queue.getNextUris();
+        Assert.assertEquals(1, uris.size());
+        Assert.assertEquals(last.get(1), uris.get(0));
+        Assert.assertNull(queue.getNextUris());
+        queue.close();
+    }
+}
@@ -99,6 +99,18 @@ public class MongoDBIpBasedQueueTest  extends MongoDBBasedTest{
         mongodbQueue.close();
     }
 
+    @Test
+    public void addUrisToQueue() throws Exception {
+        mongodbQueue.open();
+        mongodbQueue.purge();
+        mongodbQueue.addUris(uris);
+        // adding the same URIs a second time must not create duplicates
+        mongodbQueue.addUris(uris);
+        assertEquals(3, mongodbQueue.length());
+        assertEquals(2, mongodbQueue.getUris(InetAddress.getByName("dbpedia.org")).size());
+        mongodbQueue.close();
+    }
+
     @Test
     public void addToQueue() throws Exception {
         mongodbQueue.open();
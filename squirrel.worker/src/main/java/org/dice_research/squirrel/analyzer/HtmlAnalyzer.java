@@ -0,0 +1,28 @@
+package org.dice_research.squirrel.analyzer;
+
+import java.util.Iterator;
+
+import org.dice_research.squirrel.analyzer.commons.HtmlDocument;
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.sink.Sink;
+
+/**
+ * An {@link Analyzer} for HTML pages that can work on an {@link HtmlDocument}
+ * shared with other analyzers. This avoids parsing the same page several
+ * times. Implementations have to be thread-safe since the analyzers eligible
+ * for a page may be executed in parallel.
+ */
+public interface HtmlAnalyzer extends Analyzer {
+
+    /**
+     * Analyzes the given HTML page.
+     *
+     * @param curi     the URI the page has been fetched from
+     * @param document the shared page
+     * @param sink     the sink to which the extracted data is sent
+     * @return an iterator over the newly found URIs or {@code null} if an error
+     *         occurred
+     */
+    public Iterator<byte[]> analyze(CrawleableUri curi, HtmlDocument document, Sink sink);
+
+}
@@ -0,0 +1,33 @@
+package org.dice_research.squirrel.analyzer;
+
+import java.util.Iterator;
+
+import org.dice_research.squirrel.analyzer.compress.DecompressedContent;
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.sink.Sink;
+
+/**
+ * An {@link Analyzer} that is able to analyze content that has not been written
+ * to disk, e.g., an entry of a compressed archive that is decompressed while
+ * it is read. The eligibility of such an analyzer is still checked with
+ * {@link #isElegible(CrawleableUri, java.io.File)} using
+ * {@link DecompressedContent#getFile()}. Note that this file might not exist.
+ * The check should therefore rely on the classification recorded on the URI
+ * (see {@link org.dice_research.squirrel.analyzer.mime.ContentClassifier}).
+ */
+public interface StreamAnalyzer extends Analyzer {
+
+    /**
+     * Analyzes the given content. The stream of the content should be read only
+     * once. If the analyzer needs random access to the data, it can write the
+     * content to disk using {@link DecompressedContent#spill()}.
+     *
+     * @param curi    the URI the content belongs to
+     * @param content the content that should be analyzed
+     * @param sink    the sink to which the extracted data is sent
+     * @return an iterator over the newly found URIs or {@code null} if an error
+     *         occurred
+     */
+    public Iterator<byte[]> analyze(CrawleableUri curi, DecompressedContent content, Sink sink);
+
+}
@@ -0,0 +1,112 @@
+package org.dice_research.squirrel.analyzer.commons;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.dice_research.squirrel.Constants;
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.htmlcleaner.CleanerProperties;
+import org.htmlcleaner.HtmlCleaner;
+import org.htmlcleaner.PrettyXmlSerializer;
+import org.htmlcleaner.TagNode;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+/**
+ * An HTML page that is shared by several analyzers. The file is read only once
+ * and the different representations the analyzers need (the Jsoup DOM and the
+ * cleaned XHTML serialization) are created lazily and only once, regardless of
+ * the number of analyzers using them.
+ *
+ * <p>
+ * This class is thread-safe. Analyzers must not modify the returned objects.
+ * </p>
+ */
+public class HtmlDocument {
+
+    private final CrawleableUri curi;
+    private final File file;
+    private byte[] content;
+    private Document jsoupDocument;
+    private byte[] cleanedXhtml;
+
+    /**
+     * Constructor.
+     *
+     * @param curi the URI the page has been fetched from
+     * @param file the file containing the page
+     */
+    public HtmlDocument(CrawleableUri curi, File file) {
+        this.curi = curi;
+        this.file = file;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public String getBaseUri() {
+        return curi.getUri().toString();
+    }
+
+    /**
+     * @return the charset of the page as detected by the
+     *         {@link org.dice_research.squirrel.analyzer.mime.ContentClassifier}
+     *         or {@code null} if it is not known
+     */
+    public String getCharset() {
+        Object charset = curi.getData(Constants.URI_CONTENT_CHARSET_KEY);
+        return (charset != null) ? charset.toString() : null;
+    }
+
+    /**
+     * @return the raw bytes of the page
+     * @throws IOException if the file can not be read
+     */
+    public synchronized byte[] getContent() throws IOException {
+        if (content == null) {
+            content = Files.readAllBytes(file.toPath());
+        }
+        return content;
+    }
+
+    /**
+     * @return the page parsed by Jsoup
+     * @throws IOException if the file can not be read
+     */
+    public synchronized Document getJsoupDocument() throws IOException {
+        if (jsoupDocument == null) {
+            // If the charset is not known, Jsoup looks for a meta element
+            jsoupDocument = Jsoup.parse(new ByteArrayInputStream(getContent()), getCharset(), getBaseUri());
+        }
+        return jsoupDocument;
+    }
+
+    /**
+     * @return the page cleaned by the {@link HtmlCleaner} and serialized as
+     *         UTF-8 encoded XHTML
+     * @throws IOException if the file can not be read
+     */
+    public synchronized byte[] getCleanedXhtml() throws IOException {
+        if (cleanedXhtml == null) {
+            String charset = getCharset();
+            TagNode tagNode = new HtmlCleaner().clean(new ByteArrayInputStream(getContent()),
+                    (charset != null) ? charset : StandardCharsets.UTF_8.name());
+
+            CleanerProperties props = new CleanerProperties();
+            // set some properties to non-default values
+            props.setTranslateSpecialEntities(true);
+            props.setTransResCharsToNCR(true);
+            props.setOmitComments(true);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(getContent().length);
+            new PrettyXmlSerializer(props).writeToStream(tagNode, out, StandardCharsets.UTF_8.name());
+            cleanedXhtml = out.toByteArray();
+        }
+        return cleanedXhtml;
+    }
+}
@@ -0,0 +1,137 @@
+package org.dice_research.squirrel.analyzer.compress;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A single piece of content that has been fetched or extracted from a
+ * (compressed) archive. The content is either available as file on disk or as
+ * stream that can be read exactly once. An analyzer that needs random access
+ * to the data (or a second pass over it) can write the stream to disk using
+ * {@link #spill()}.
+ *
+ * <p>
+ * {@link #getFile()} always returns the file the content is classified for,
+ * i.e., the {@link org.dice_research.squirrel.analyzer.mime.ContentClassifier}
+ * result of the URI is valid for this file even if it has not been written to
+ * disk, yet.
+ * </p>
+ */
+public class DecompressedContent implements Closeable {
+
+    /**
+     * Size of the buffer used to write a stream to disk.
+     */
+    public static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final File file;
+    private InputStream stream;
+    private boolean onDisk;
+    private boolean spilled = false;
+    private boolean consumed = false;
+
+    /**
+     * Creates content that is already available as file.
+     *
+     * @param file the file containing the data
+     */
+    public DecompressedContent(File file) {
+        this.file = file;
+        this.stream = null;
+        this.onDisk = true;
+    }
+
+    /**
+     * Creates content that is only available as stream.
+     *
+     * @param file   the file to which the stream will be written if
+     *               {@link #spill()} is called. It must not exist.
+     * @param stream the stream containing the data
+     */
+    public DecompressedContent(File file, InputStream stream) {
+        this.file = file;
+        this.stream = stream;
+        this.onDisk = false;
+    }
+
+    /**
+     * @return the file the content is classified for. It only exists if
+     *         {@link #isOnDisk()} returns {@code true}.
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return {@code true} if the content is available as file on disk
+     */
+    public boolean isOnDisk() {
+        return onDisk;
+    }
+
+    /**
+     * Returns a stream of the content. If the content is not on disk, the stream
+     * can only be retrieved once.
+     *
+     * @return a stream of the content
+     * @throws IOException           if the file can not be opened
+     * @throws IllegalStateException if the stream has already been consumed
+     */
+    public InputStream getStream() throws IOException {
+        if (onDisk) {
+            return new FileInputStream(file);
+        }
+        if (consumed) {
+            throw new IllegalStateException("The stream of " + file.getName() + " has already been consumed.");
+        }
+        consumed = true;
+        return stream;
+    }
+
+    /**
+     * Makes sure that the content is available as file on disk. If it is only
+     * available as stream, the stream is written to {@link #getFile()}.
+     *
+     * @return the file containing the content
+     * @throws IOException           if the stream couldn't be written to disk
+     * @throws IllegalStateException if the stream has already been consumed
+     */
+    public File spill() throws IOException {
+        if (!onDisk) {
+            InputStream in = getStream();
+            File parent = file.getParentFile();
+            if ((parent != null) && !parent.exists()) {
+                parent.mkdirs();
+            }
+            try (OutputStream out = new FileOutputStream(file)) {
+                byte[] buffer = new byte[COPY_BUFFER_SIZE];
+                int length;
+                while ((length = in.read(buffer)) >= 0) {
+                    out.write(buffer, 0, length);
+                }
+            }
+            onDisk = true;
+            spilled = true;
+            stream = null;
+        }
+        return file;
+    }
+
+    /**
+     * Deletes the file if it has been written by {@link #spill()}. Files that
+     * have been handed to the constructor are not touched.
+     */
+    @Override
+    public void close() {
+        if (spilled) {
+            file.delete();
+            spilled = false;
+            onDisk = false;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package org.dice_research.squirrel.analyzer.compress;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 import org.dice_research.squirrel.data.uri.CrawleableUri;
@@ -17,4 +18,33 @@ public interface Decompressor {
 
     public List<File> decompress(CrawleableUri curi, File inputFile) throws IOException;
 
+    /**
+     * Decompresses the given stream without writing the decompressed data to
+     * disk. Every entry is handed to the given consumer as stream that is only
+     * valid during the call of the consumer. Closing this stream does not close
+     * the given stream.
+     *
+     * @param curi     the URI the data belongs to
+     * @param name     the name of the compressed data (e.g., its file name)
+     * @param in       the compressed data
+     * @param consumer the consumer of the decompressed entries
+     * @throws IOException if the data can not be read or decompressed
+     */
+    public void decompress(CrawleableUri curi, String name, InputStream in, EntryConsumer consumer)
+            throws IOException;
+
+    /**
+     * A consumer of the entries of a compressed stream.
+     */
+    public static interface EntryConsumer {
+
+        /**
+         * Handles a single decompressed entry.
+         *
+         * @param name   the name of the entry
+         * @param stream the content of the entry
+         * @throws IOException if the entry can not be read
+         */
+        public void accept(String name, InputStream stream) throws IOException;
+    }
 }
@@ -4,10 +4,13 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.apache.commons.compress.compressors.bzip2.BZip2Utils;
+import org.apache.commons.compress.utils.CloseShieldFilterInputStream;
 import org.apache.tika.Tika;
 import org.dice_research.squirrel.Constants;
 import org.dice_research.squirrel.analyzer.compress.Decompressor;
@@ -57,5 +60,16 @@ public class BzipDecompressor extends TarDecompressor implements Decompressor {
 
     }
 
-
+    /**
+     * Decompresses the given stream. Concatenated BZip2 streams are
+     * decompressed as well. A tar archive within the decompressed data is not
+     * handled by this method.
+     */
+    @Override
+    public void decompress(CrawleableUri curi, String name, InputStream in, EntryConsumer consumer)
+            throws IOException {
+        try (InputStream bzIn = new BZip2CompressorInputStream(new CloseShieldFilterInputStream(in), true)) {
+            consumer.accept(BZip2Utils.getUncompressedFilename(name), bzIn);
+        }
+    }
 }
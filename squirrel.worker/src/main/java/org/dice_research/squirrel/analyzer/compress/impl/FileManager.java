@@ -1,12 +1,20 @@
 package org.dice_research.squirrel.analyzer.compress.impl;
 
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
 
-import org.apache.tika.Tika;
+import org.apache.commons.io.FileUtils;
+import org.dice_research.squirrel.Constants;
+import org.dice_research.squirrel.analyzer.compress.DecompressedContent;
+import org.dice_research.squirrel.analyzer.compress.Decompressor;
 import org.dice_research.squirrel.analyzer.compress.enums.MimeTypeEnum;
+import org.dice_research.squirrel.analyzer.mime.ContentClassifier;
 import org.dice_research.squirrel.data.uri.CrawleableUri;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,6 +24,14 @@ import org.slf4j.LoggerFactory;
  * Class responsible for detecting the fetched file mimetype
  * and decompress the file if necessary 
  * 
+ * <p>
+ * {@link #streamFile(CrawleableUri, File, ContentConsumer)} decompresses the
+ * file without writing the decompressed data to disk. Nested formats (e.g.,
+ * a tar archive compressed with GZip) are handled by stacking the
+ * decompressing streams. The content is only written to disk if an analyzer
+ * needs a file (see {@link DecompressedContent#spill()}).
+ * </p>
+ * 
  * @author gsjunior gsjunior@mail.uni-paderborn.de
  *
  */
@@ -24,10 +40,17 @@ public class FileManager {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(FileManager.class);
 
+    /**
+     * The maximum number of nested compressions and archives that are
+     * decompressed. Deeper nested data is skipped to protect the worker
+     * against decompression bombs.
+     */
+    public static final int MAX_NESTING_DEPTH = 5;
+
     public List<File> decompressFile(CrawleableUri curi, File inputFile) {
         List<File> file = new ArrayList<File>();
         try {
-            String mime_type = detectMimeType(inputFile);
+            String mime_type = detectMimeType(curi, inputFile);
             if (MimeTypeEnum.TAR.mime_type().equals(mime_type)) {
                 return new TarDecompressor().decompress(curi,inputFile);
             } else if (MimeTypeEnum.GZ.mime_type().equals(mime_type)) {
@@ -52,12 +75,136 @@ public class FileManager {
     }
 
 
-    private String detectMimeType(File file) throws IOException {
-        Tika tika = new Tika();
+    /**
+     * Hands the content of the given file to the given consumer. If the file is
+     * compressed, it is decompressed as stream and every contained entry is
+     * handed to the consumer without writing it to disk. The classification of
+     * the entry is recorded on the given URI before the consumer is called.
+     * Entries that are written to disk by the consumer are deleted afterwards.
+     *
+     * @param curi      the URI the file has been fetched from
+     * @param inputFile the fetched file
+     * @param consumer  the consumer of the (decompressed) content
+     * @throws IOException if the file can not be read or decompressed
+     */
+    public void streamFile(CrawleableUri curi, File inputFile, ContentConsumer consumer) throws IOException {
+        detectMimeType(curi, inputFile);
+        String compression = (String) curi.getData(Constants.URI_CONTENT_COMPRESSION_KEY);
+        if (compression == null) {
+            consumer.accept(new DecompressedContent(inputFile));
+            return;
+        }
+        File spillDirectory = Files.createTempDirectory("file_").toFile();
+        try {
+            EntryHandler handler = new EntryHandler(curi, spillDirectory, consumer);
+            // the data is not compressed anymore, so the content type of the response
+            // can not be used anymore
+            curi.addData(Constants.URI_HTTP_MIME_TYPE_KEY, "text/plain");
+            Decompressor decompressor = createDecompressor(compression);
+            if (decompressor instanceof SevenZipDecompressor) {
+                // 7z needs random access and the file is already on disk
+                ((SevenZipDecompressor) decompressor).decompress(curi, inputFile, handler.nextLevel(1));
+            } else {
+                try (InputStream in = new FileInputStream(inputFile)) {
+                    decompressor.decompress(curi, inputFile.getName(), in, handler.nextLevel(1));
+                }
+            }
+        } finally {
+            FileUtils.deleteQuietly(spillDirectory);
+        }
+    }
 
-        String mediaType = tika.detect(file);
-        return mediaType;
+    /**
+     * Creates the decompressor for the given media type.
+     */
+    protected Decompressor createDecompressor(String compression) throws IOException {
+        if (MimeTypeEnum.TAR.mime_type().equals(compression)) {
+            return new TarDecompressor();
+        } else if (MimeTypeEnum.GZ.mime_type().equals(compression)) {
+            return new GzDecompressor();
+        } else if (MimeTypeEnum.ZIP.mime_type().equals(compression)) {
+            return new ZipDecompressor();
+        } else if (MimeTypeEnum.F7Z.mime_type().equals(compression)) {
+            return new SevenZipDecompressor();
+        } else if (MimeTypeEnum.BZ2.mime_type().equals(compression)) {
+            return new BzipDecompressor();
+        } else {
+            throw new IOException("Unsupported compression " + compression);
+        }
+    }
+
+    /**
+     * Classifies decompressed entries and either decompresses them further or
+     * hands them to the consumer.
+     */
+    protected class EntryHandler {
+        private final CrawleableUri curi;
+        private final File spillDirectory;
+        private final ContentConsumer consumer;
+        private int entryCount = 0;
+
+        public EntryHandler(CrawleableUri curi, File spillDirectory, ContentConsumer consumer) {
+            this.curi = curi;
+            this.spillDirectory = spillDirectory;
+            this.consumer = consumer;
+        }
+
+        public Decompressor.EntryConsumer nextLevel(int depth) {
+            return (name, stream) -> handle(name, stream, depth);
+        }
 
+        public void handle(String name, InputStream stream, int depth) throws IOException {
+            // The entry gets a unique file name (keeping the original name as hint for
+            // the classification) which is only used if the entry has to be written to
+            // disk
+            File file = new File(spillDirectory, Integer.toString(entryCount++) + "_" + new File(name).getName());
+            BufferedInputStream in = new BufferedInputStream(stream, DecompressedContent.COPY_BUFFER_SIZE);
+            // entries might have different types, so the analyzers should rely on the
+            // classification of the single entry
+            curi.addData(Constants.URI_HTTP_MIME_TYPE_KEY, "text/plain");
+            ContentClassifier.getInstance().classify(curi, file, in);
+            String compression = (String) curi.getData(Constants.URI_CONTENT_COMPRESSION_KEY);
+            if (compression != null) {
+                if (depth >= MAX_NESTING_DEPTH) {
+                    LOGGER.warn("Skipping {} of {} since it exceeds the maximum number of nested compressions.", name,
+                            curi.getUri());
+                    return;
+                }
+                createDecompressor(compression).decompress(curi, name, in, nextLevel(depth + 1));
+            } else {
+                try (DecompressedContent content = new DecompressedContent(file, in)) {
+                    consumer.accept(content);
+                }
+            }
+        }
+    }
+
+    /**
+     * A consumer of the content handed over by
+     * {@link FileManager#streamFile(CrawleableUri, File, ContentConsumer)}.
+     */
+    public static interface ContentConsumer {
+
+        /**
+         * Handles the given content. The content is only valid during this call.
+         *
+         * @param content the (decompressed) content
+         * @throws IOException if the content can not be read
+         */
+        public void accept(DecompressedContent content) throws IOException;
+    }
+
+    /**
+     * Classifies the given file using the shared {@link ContentClassifier}. The
+     * result is recorded on the given URI and reused by the analyzers if the
+     * file is not decompressed.
+     */
+    private String detectMimeType(CrawleableUri curi, File file) throws IOException {
+        String mediaType = ContentClassifier.getInstance().getMimeType(curi, file);
+        if (mediaType == null) {
+            throw new IOException("Couldn't detect the media type of " + file);
+        }
+        return mediaType;
     }
 
 
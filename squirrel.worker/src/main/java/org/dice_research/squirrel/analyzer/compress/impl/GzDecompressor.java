@@ -4,10 +4,14 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.zip.GZIPInputStream;
 
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipUtils;
+import org.apache.commons.compress.utils.CloseShieldFilterInputStream;
 import org.apache.tika.Tika;
 import org.dice_research.squirrel.Constants;
 import org.dice_research.squirrel.analyzer.compress.Decompressor;
@@ -66,4 +70,16 @@ public class GzDecompressor extends TarDecompressor implements Decompressor {
 
     }
 
+    /**
+     * Decompresses the given stream. Concatenated GZip members are
+     * decompressed as well. A tar archive within the decompressed data is
+     * not handled by this method.
+     */
+    @Override
+    public void decompress(CrawleableUri curi, String name, InputStream in, EntryConsumer consumer)
+            throws IOException {
+        try (InputStream gzIn = new GzipCompressorInputStream(new CloseShieldFilterInputStream(in), true)) {
+            consumer.accept(GzipUtils.getUncompressedFilename(name), gzIn);
+        }
+    }
 }
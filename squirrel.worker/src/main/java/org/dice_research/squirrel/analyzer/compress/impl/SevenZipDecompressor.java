@@ -8,6 +8,9 @@ import org.dice_research.squirrel.utils.TempPathUtils;
 
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.io.IOException;
 import java.util.List;
 
@@ -44,4 +47,51 @@ public class SevenZipDecompressor extends AbstractDecompressor implements Decomp
         return TempPathUtils.searchPath4Files(outputFile);
     }
 
+    /**
+     * Decompresses the given stream. Since the 7z format needs random access,
+     * the stream is written to a temporary file first.
+     */
+    @Override
+    public void decompress(CrawleableUri curi, String name, InputStream in, EntryConsumer consumer)
+            throws IOException {
+        File tempFile = File.createTempFile("file_", ".7z");
+        try {
+            Files.copy(in, tempFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            decompress(curi, tempFile, consumer);
+        } finally {
+            tempFile.delete();
+        }
+    }
+
+    /**
+     * Decompresses the given file and hands the entries as streams to the given
+     * consumer without writing them to disk.
+     *
+     * @param curi      the URI the data belongs to
+     * @param inputFile the 7z archive
+     * @param consumer  the consumer of the decompressed entries
+     * @throws IOException if the file can not be read or decompressed
+     */
+    public void decompress(CrawleableUri curi, File inputFile, EntryConsumer consumer) throws IOException {
+        try (SevenZFile sevenZFile = new SevenZFile(inputFile)) {
+            InputStream entryStream = new InputStream() {
+                @Override
+                public int read() throws IOException {
+                    return sevenZFile.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    return sevenZFile.read(b, off, len);
+                }
+            };
+            SevenZArchiveEntry entry;
+            while ((entry = sevenZFile.getNextEntry()) != null) {
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                consumer.accept(entry.getName(), entryStream);
+            }
+        }
+    }
 }
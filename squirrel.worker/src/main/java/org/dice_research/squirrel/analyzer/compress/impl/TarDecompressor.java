@@ -3,6 +3,7 @@ package org.dice_research.squirrel.analyzer.compress.impl;
 import org.apache.commons.compress.archivers.ArchiveInputStream;
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.utils.CloseShieldFilterInputStream;
 import org.apache.commons.compress.utils.IOUtils;
 import org.dice_research.squirrel.Constants;
 import org.dice_research.squirrel.analyzer.compress.Decompressor;
@@ -13,6 +14,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 
@@ -59,5 +61,17 @@ public class TarDecompressor extends AbstractDecompressor implements Decompresso
 
     }
 
-
+    @Override
+    public void decompress(CrawleableUri curi, String name, InputStream in, EntryConsumer consumer)
+            throws IOException {
+        try (TarArchiveInputStream tarIn = new TarArchiveInputStream(new CloseShieldFilterInputStream(in))) {
+            TarArchiveEntry entry;
+            while ((entry = tarIn.getNextTarEntry()) != null) {
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                consumer.accept(entry.getName(), new CloseShieldFilterInputStream(tarIn));
+            }
+        }
+    }
 }
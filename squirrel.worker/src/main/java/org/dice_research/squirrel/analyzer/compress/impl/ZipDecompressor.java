@@ -2,6 +2,7 @@ package org.dice_research.squirrel.analyzer.compress.impl;
 
 import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.apache.commons.compress.utils.CloseShieldFilterInputStream;
 import org.apache.commons.compress.utils.IOUtils;
 import org.dice_research.squirrel.Constants;
 import org.dice_research.squirrel.analyzer.compress.Decompressor;
@@ -12,6 +13,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 /**
@@ -52,4 +54,17 @@ public class ZipDecompressor extends AbstractDecompressor implements Decompresso
         return TempPathUtils.searchPath4Files(outputFile);
     }
 
+    @Override
+    public void decompress(CrawleableUri curi, String name, InputStream in, EntryConsumer consumer)
+            throws IOException {
+        try (ZipArchiveInputStream zipIn = new ZipArchiveInputStream(new CloseShieldFilterInputStream(in))) {
+            ZipArchiveEntry entry;
+            while ((entry = zipIn.getNextZipEntry()) != null) {
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                consumer.accept(entry.getName(), new CloseShieldFilterInputStream(zipIn));
+            }
+        }
+    }
 }
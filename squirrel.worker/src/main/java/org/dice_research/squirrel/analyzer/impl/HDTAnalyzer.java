@@ -1,9 +1,7 @@
 package org.dice_research.squirrel.analyzer.impl;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Iterator;
@@ -11,9 +9,9 @@ import java.util.Iterator;
 import org.apache.jena.graph.Node;
 import org.apache.jena.graph.NodeFactory;
 import org.apache.jena.graph.Triple;
-import org.apache.tika.Tika;
 import org.dice_research.squirrel.Constants;
 import org.dice_research.squirrel.analyzer.AbstractAnalyzer;
+import org.dice_research.squirrel.analyzer.mime.ContentClassifier;
 import org.dice_research.squirrel.collect.UriCollector;
 import org.dice_research.squirrel.data.uri.CrawleableUri;
 import org.dice_research.squirrel.metadata.ActivityUtil;
@@ -83,13 +81,6 @@ public class HDTAnalyzer extends AbstractAnalyzer {
         if ((contentType != null) && contentType.equals("application/octet-stream")) {
             return true;
         }
-        try (InputStream is = new FileInputStream(data)) {
-            Tika tika = new Tika();
-            String mimeType = tika.detect(is);
-            return mimeType.equals("application/octet-stream");
-        } catch (Exception e) {
-            LOGGER.error("An error was found when trying to analyze ", e);
-        }
-        return false;
+        return "application/octet-stream".equals(ContentClassifier.getInstance().getMimeType(curi, data));
     }
 }
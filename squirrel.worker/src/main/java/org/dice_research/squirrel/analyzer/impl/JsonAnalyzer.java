@@ -1,20 +1,23 @@
 package org.dice_research.squirrel.analyzer.impl;
 
 import java.io.File;
+import java.io.InputStream;
 import java.util.Iterator;
 
 import org.apache.jena.riot.Lang;
 import org.apache.jena.riot.RDFDataMgr;
 import org.apache.jena.riot.system.StreamRDF;
 import org.dice_research.squirrel.analyzer.AbstractAnalyzer;
+import org.dice_research.squirrel.analyzer.StreamAnalyzer;
 import org.dice_research.squirrel.analyzer.commons.FilterSinkRDF;
+import org.dice_research.squirrel.analyzer.compress.DecompressedContent;
 import org.dice_research.squirrel.collect.UriCollector;
 import org.dice_research.squirrel.data.uri.CrawleableUri;
 import org.dice_research.squirrel.sink.Sink;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class JsonAnalyzer extends AbstractAnalyzer {
+public class JsonAnalyzer extends AbstractAnalyzer implements StreamAnalyzer {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(JsonAnalyzer.class);
 
@@ -34,6 +37,18 @@ public class JsonAnalyzer extends AbstractAnalyzer {
 		}
 	}
 
+	@Override
+	public Iterator<byte[]> analyze(CrawleableUri curi, DecompressedContent content, Sink sink) {
+		try (InputStream in = content.getStream()) {
+			StreamRDF filtered = new FilterSinkRDF(curi, sink, collector);
+			RDFDataMgr.parse(filtered, in, curi.getUri().toString(), Lang.JSONLD);
+			return collector.getUris(curi);
+		} catch (Exception e) {
+			LOGGER.error("Exception while analyzing. Aborting. ", e);
+			return null;
+		}
+	}
+
 	@Override
 	public boolean isElegible(CrawleableUri curi, File data) {
 		if (curi.getData("type").equals("json")) {
@@ -1,28 +1,23 @@
 package org.dice_research.squirrel.analyzer.impl;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileWriter;
-import java.io.InputStream;
 import java.util.Iterator;
 
 import org.apache.any23.Any23;
 import org.apache.any23.configuration.DefaultConfiguration;
 import org.apache.any23.configuration.ModifiableConfiguration;
+import org.apache.any23.source.ByteArrayDocumentSource;
 import org.apache.any23.source.DocumentSource;
-import org.apache.any23.source.FileDocumentSource;
 import org.apache.any23.writer.TripleHandler;
-import org.apache.tika.Tika;
 import org.dice_research.squirrel.Constants;
 import org.dice_research.squirrel.analyzer.AbstractAnalyzer;
+import org.dice_research.squirrel.analyzer.HtmlAnalyzer;
+import org.dice_research.squirrel.analyzer.commons.HtmlDocument;
 import org.dice_research.squirrel.analyzer.commons.SquirrelTripleHandler;
+import org.dice_research.squirrel.analyzer.mime.ContentClassifier;
 import org.dice_research.squirrel.collect.UriCollector;
 import org.dice_research.squirrel.data.uri.CrawleableUri;
 import org.dice_research.squirrel.sink.Sink;
-import org.htmlcleaner.CleanerProperties;
-import org.htmlcleaner.HtmlCleaner;
-import org.htmlcleaner.PrettyXmlSerializer;
-import org.htmlcleaner.TagNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,7 +29,7 @@ import org.slf4j.LoggerFactory;
  *
  */
 
-public class MicrodataAnalyzer extends AbstractAnalyzer {
+public class MicrodataAnalyzer extends AbstractAnalyzer implements HtmlAnalyzer {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(MicrodataAnalyzer.class);
 
@@ -44,32 +39,20 @@ public class MicrodataAnalyzer extends AbstractAnalyzer {
 
 	@Override
 	public Iterator<byte[]> analyze(CrawleableUri curi, File data, Sink sink) {
+		return analyze(curi, new HtmlDocument(curi, data), sink);
+	}
 
-		HtmlCleaner cleaner = new HtmlCleaner();
-
-		CleanerProperties props = new CleanerProperties();
-
-		// set some properties to non-default values
-		props.setTranslateSpecialEntities(true);
-		props.setTransResCharsToNCR(true);
-		props.setOmitComments(true);
-		File tempFile = null;
-
+	@Override
+	public Iterator<byte[]> analyze(CrawleableUri curi, HtmlDocument document, Sink sink) {
 		try {
-			TagNode tagNode = cleaner.clean(data);
-
-			tempFile = File.createTempFile("file_", ".html");
-			FileWriter writer = new FileWriter(tempFile);
-
-			new PrettyXmlSerializer(props).write(tagNode, writer, "utf-8");
-
 			ModifiableConfiguration modifiableConf = DefaultConfiguration.copy();
 			modifiableConf.setProperty("any23.microdata.ns.default", "http://schema.org/");
 //			Any23 runner = new Any23(modifiableConf, "html-rdfa11");
 			Any23 runner = new Any23("html-microdata");
 
 			runner.setHTTPUserAgent(Any23.DEFAULT_HTTP_CLIENT_USER_AGENT);
-			DocumentSource source = new FileDocumentSource(tempFile, curi.getUri().toString());
+			DocumentSource source = new ByteArrayDocumentSource(document.getCleanedXhtml(), document.getBaseUri(),
+					"text/html");
 			TripleHandler handler = new SquirrelTripleHandler(curi, collector, sink);
 			runner.extract(source, handler);
 			handler.close();
@@ -78,7 +61,6 @@ public class MicrodataAnalyzer extends AbstractAnalyzer {
 			LOGGER.warn("Could not analyze file for URI: " + curi.getUri().toString() + " :: Analyzer: "
 					+ this.getClass().getName());
 		}
-		tempFile.delete();
 		return collector.getUris(curi);
 	}
 
@@ -88,16 +70,7 @@ public class MicrodataAnalyzer extends AbstractAnalyzer {
 		if ((contentType != null && contentType.equals("text/html"))) {
 			return true;
 		}
-		Tika tika = new Tika();
-		try (InputStream is = new FileInputStream(data)) {
-			String mimeType = tika.detect(is);
-			if ("text/html".equals(mimeType)) {
-				return true;
-			}
-		} catch (Exception e) {
-			LOGGER.error("An error was found when verify eligibility", e);
-		}
-		return false;
+		return "text/html".equals(ContentClassifier.getInstance().getMimeType(curi, data));
 	}
 
 }
@@ -1,12 +1,8 @@
 package org.dice_research.squirrel.analyzer.impl;
 
-import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileReader;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.StringWriter;
 import java.net.URI;
 import java.util.Iterator;
@@ -18,10 +14,11 @@ import org.apache.jena.rdf.model.ModelFactory;
 import org.apache.jena.riot.Lang;
 import org.apache.jena.riot.RDFDataMgr;
 import org.apache.jena.riot.system.StreamRDF;
-import org.apache.tika.Tika;
 import org.dice_research.squirrel.Constants;
 import org.dice_research.squirrel.analyzer.AbstractAnalyzer;
+import org.dice_research.squirrel.analyzer.HtmlAnalyzer;
 import org.dice_research.squirrel.analyzer.commons.FilterSinkRDF;
+import org.dice_research.squirrel.analyzer.commons.HtmlDocument;
 import org.dice_research.squirrel.collect.UriCollector;
 import org.dice_research.squirrel.data.uri.CrawleableUri;
 import org.dice_research.squirrel.sink.Sink;
@@ -38,7 +35,7 @@ import com.kylewm.mf2j.Mf2Parser;
  *
  */
 
-public class MicroformatMF2JAnalyzer extends AbstractAnalyzer {
+public class MicroformatMF2JAnalyzer extends AbstractAnalyzer implements HtmlAnalyzer {
 	
 	
 	private static final Logger LOGGER = LoggerFactory.getLogger(MicroformatMF2JAnalyzer.class);
@@ -49,21 +46,18 @@ public class MicroformatMF2JAnalyzer extends AbstractAnalyzer {
 
 	@Override
 	public Iterator<byte[]> analyze(CrawleableUri curi, File data, Sink sink) {
-		String file = "";
-		BufferedReader br;
-		String line;
+		return analyze(curi, new HtmlDocument(curi, data), sink);
+	}
+
+	@Override
+	public Iterator<byte[]> analyze(CrawleableUri curi, HtmlDocument document, Sink sink) {
 		String result = "";
 		try {
-			br = new BufferedReader(new FileReader(data));
-			while ((line = br.readLine()) != null) {
-			     file+= line+"\n";
-			}
-			
 			Mf2Parser parser = new Mf2Parser()
 				    .setIncludeAlternates(true)
 				    .setIncludeRelUrls(true);
 				//Map<String,Object> parsed = parser.parse(microdata5, new URI("https://kylewm.com"));
-				Map<String,Object> parsed = parser.parse(file,URI.create(curi.getUri().toString()));
+				Map<String,Object> parsed = parser.parse(document.getJsoupDocument(),URI.create(curi.getUri().toString()));
 
 				
 				String json = addContextToJSON(parsed.toString());
@@ -117,15 +111,8 @@ public class MicroformatMF2JAnalyzer extends AbstractAnalyzer {
         if ((contentType != null && contentType.equals("text/html"))) {
             return true;
         }
-        Tika tika = new Tika();
-        try (InputStream is = new FileInputStream(data)) {
-            String mimeType = tika.detect(is);
-            if (mimeType.equals("text/html")) {
-                return false;
-            }
-        } catch (Exception e) {
-            LOGGER.error("An error was found when verify eligibility", e);
-        }
+        // Only data that has been declared as HTML by the server is analyzed. Hence,
+        // there is no need to sniff the content.
         return false;
 	}
 	
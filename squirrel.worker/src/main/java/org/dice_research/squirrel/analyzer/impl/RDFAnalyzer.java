@@ -3,6 +3,7 @@ package org.dice_research.squirrel.analyzer.impl;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -13,11 +14,13 @@ import org.apache.jena.riot.Lang;
 import org.apache.jena.riot.RDFDataMgr;
 import org.apache.jena.riot.RDFLanguages;
 import org.apache.jena.riot.system.StreamRDF;
-import org.apache.tika.Tika;
 import org.apache.tika.io.IOUtils;
 import org.dice_research.squirrel.Constants;
 import org.dice_research.squirrel.analyzer.AbstractAnalyzer;
+import org.dice_research.squirrel.analyzer.StreamAnalyzer;
 import org.dice_research.squirrel.analyzer.commons.FilterSinkRDF;
+import org.dice_research.squirrel.analyzer.compress.DecompressedContent;
+import org.dice_research.squirrel.analyzer.mime.ContentClassifier;
 import org.dice_research.squirrel.collect.UriCollector;
 import org.dice_research.squirrel.data.uri.CrawleableUri;
 import org.dice_research.squirrel.metadata.ActivityUtil;
@@ -29,12 +32,16 @@ import org.slf4j.LoggerFactory;
  * 
  * Analyzer to parse RDF lang types
  * 
- * 
+ * <p>
+ * Content that is only available as stream is parsed directly if its
+ * serialization is known. Otherwise, it is written to disk since several
+ * serializations have to be tried.
+ * </p>
  * 
  * @author gsjunior gsjunior@mail.uni-paderborn.de
  */
 
-public class RDFAnalyzer extends AbstractAnalyzer {
+public class RDFAnalyzer extends AbstractAnalyzer implements StreamAnalyzer {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(RDFAnalyzer.class);
 
@@ -88,7 +95,20 @@ public class RDFAnalyzer extends AbstractAnalyzer {
                 }
             } else {
                 LOGGER.info("Content Type is null");
-                for (Lang l : listLangs) {
+                // Start with the serialization that has been detected while classifying the
+                // content (if there is one)
+                List<Lang> langs = listLangs;
+                Lang detectedLang = ContentClassifier.getInstance().getRdfLang(curi, data);
+                if (detectedLang != null) {
+                    langs = new ArrayList<Lang>(listLangs.size() + 1);
+                    langs.add(detectedLang);
+                    for (Lang l : listLangs) {
+                        if (!detectedLang.equals(l)) {
+                            langs.add(l);
+                        }
+                    }
+                }
+                for (Lang l : langs) {
                     try {
                         RDFDataMgr.parse(filtered, data.getAbsolutePath(), l);
                         break;
@@ -108,18 +128,47 @@ public class RDFAnalyzer extends AbstractAnalyzer {
         }
     }
 
+    @Override
+    public Iterator<byte[]> analyze(CrawleableUri curi, DecompressedContent content, Sink sink) {
+        Lang lang = null;
+        Object httpMimeTypeObject = curi.getData(Constants.URI_HTTP_MIME_TYPE_KEY);
+        if ((httpMimeTypeObject != null) && (!"text/plain".equals(httpMimeTypeObject.toString()))) {
+            lang = RDFLanguages.contentTypeToLang(httpMimeTypeObject.toString());
+        } else {
+            lang = ContentClassifier.getInstance().getRdfLang(curi, content.getFile());
+        }
+        try {
+            if (content.isOnDisk() || (lang == null)) {
+                // We may have to try several serializations
+                return analyze(curi, content.spill(), sink);
+            }
+        } catch (IOException e) {
+            LOGGER.error("Couldn't write content to disk. Aborting. ", e);
+            ActivityUtil.addStep(curi, getClass(), e.getMessage());
+            return null;
+        }
+        LOGGER.info("Starting the RDF Analyzer for URI: " + curi.getUri().toString());
+        StreamRDF filtered = new FilterSinkRDF(curi, sink, collector);
+        try (InputStream in = content.getStream()) {
+            RDFDataMgr.parse(filtered, in, curi.getUri().toString(), lang);
+        } catch (Exception e) {
+            LOGGER.warn("Could not parse stream as " + lang.getName());
+        }
+        ActivityUtil.addStep(curi, getClass());
+        return collector.getUris(curi);
+    }
+
     // @Override
     public boolean isElegible(CrawleableUri curi, File data) {
         // Check the content type first
         String contentType = (String) curi.getData(Constants.URI_HTTP_MIME_TYPE_KEY);
-        Tika tika = new Tika();
 
         if ("*/*".equals(contentType) || "text/plain".equals(contentType)) {
-            try {
-                contentType = tika.detect(data);
+            String detectedType = ContentClassifier.getInstance().getMimeType(curi, data);
+            if (detectedType != null) {
+                contentType = detectedType;
                 curi.addData(Constants.URI_HTTP_MIME_TYPE_KEY, contentType);
-
-            } catch (IOException e) {
+            } else {
                 LOGGER.info("Could not Detect Mimetype using Tika, using from Fetcher");
             }
         }
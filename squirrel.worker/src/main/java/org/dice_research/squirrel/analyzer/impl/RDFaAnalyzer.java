@@ -1,27 +1,23 @@
 package org.dice_research.squirrel.analyzer.impl;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileWriter;
-import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Iterator;
 
-import org.apache.tika.Tika;
 import org.dice_research.squirrel.Constants;
 import org.dice_research.squirrel.analyzer.AbstractAnalyzer;
+import org.dice_research.squirrel.analyzer.HtmlAnalyzer;
+import org.dice_research.squirrel.analyzer.commons.HtmlDocument;
 import org.dice_research.squirrel.analyzer.commons.SquirrelClerezzaSink;
+import org.dice_research.squirrel.analyzer.mime.ContentClassifier;
 import org.dice_research.squirrel.collect.SimpleUriCollector;
 import org.dice_research.squirrel.collect.UriCollector;
 import org.dice_research.squirrel.data.uri.CrawleableUri;
 import org.dice_research.squirrel.data.uri.serialize.java.GzipJavaUriSerializer;
 import org.dice_research.squirrel.sink.Sink;
 import org.dice_research.squirrel.sink.impl.mem.InMemorySink;
-import org.htmlcleaner.CleanerProperties;
-import org.htmlcleaner.HtmlCleaner;
-import org.htmlcleaner.PrettyXmlSerializer;
-import org.htmlcleaner.TagNode;
 import org.semarglproject.rdf.rdfa.RdfaParser;
 import org.semarglproject.source.StreamProcessor;
 import org.slf4j.Logger;
@@ -35,7 +31,7 @@ import org.slf4j.LoggerFactory;
  *
  */
 
-public class RDFaAnalyzer extends AbstractAnalyzer {
+public class RDFaAnalyzer extends AbstractAnalyzer implements HtmlAnalyzer {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(RDFaAnalyzer.class);
 
@@ -45,29 +41,14 @@ public class RDFaAnalyzer extends AbstractAnalyzer {
 
 	@Override
 	public Iterator<byte[]> analyze(CrawleableUri curi, File data, Sink sink) {
+		return analyze(curi, new HtmlDocument(curi, data), sink);
+	}
 
-		HtmlCleaner cleaner = new HtmlCleaner();
-
-		CleanerProperties props = new CleanerProperties();
-
-		// set some properties to non-default values
-		props.setTranslateSpecialEntities(true);
-		props.setTransResCharsToNCR(true);
-		props.setOmitComments(true);
-		File tempFile = null;
+	@Override
+	public Iterator<byte[]> analyze(CrawleableUri curi, HtmlDocument document, Sink sink) {
 		try {
-			TagNode tagNode = cleaner.clean(data);
-
-			tempFile = File.createTempFile("file_", ".html");
-			FileWriter writer = new FileWriter(tempFile);
-
-			new PrettyXmlSerializer(props).write(tagNode, writer, "utf-8");
-
 			StreamProcessor streamProcessor = new StreamProcessor(RdfaParser.connect(SquirrelClerezzaSink.connect(curi,collector,sink)));
-			streamProcessor.process(tempFile, curi.getUri().toString());
-
-			tempFile.delete();
-
+			streamProcessor.process(new ByteArrayInputStream(document.getCleanedXhtml()), document.getBaseUri());
 		} catch (Exception e) {
 			LOGGER.error("Could not analyze file for URI: " + curi.getUri().toString() + " :: Analyzer: "
 					+ this.getClass().getName(),e);
@@ -84,16 +65,7 @@ public class RDFaAnalyzer extends AbstractAnalyzer {
 		if ((contentType != null && contentType.equals("text/html"))) {
 			return true;
 		}
-		Tika tika = new Tika();
-		try (InputStream is = new FileInputStream(data)) {
-			String mimeType = tika.detect(is);
-			if ("text/html".equals(mimeType)) {
-				return true;
-			}
-		} catch (Exception e) {
-			LOGGER.error("An error was found when verify eligibility", e);
-		}
-		return false;
+		return "text/html".equals(ContentClassifier.getInstance().getMimeType(curi, data));
 	}
 	
 	public static void main(String[] args) throws Exception {
@@ -1,18 +1,36 @@
 package org.dice_research.squirrel.analyzer.manager;
 
+import java.io.Closeable;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.jena.graph.Triple;
+import org.apache.jena.sparql.core.Quad;
 
 import org.dice_research.squirrel.analyzer.AbstractAnalyzer;
 import org.dice_research.squirrel.analyzer.Analyzer;
+import org.dice_research.squirrel.analyzer.HtmlAnalyzer;
+import org.dice_research.squirrel.analyzer.StreamAnalyzer;
+import org.dice_research.squirrel.analyzer.commons.HtmlDocument;
+import org.dice_research.squirrel.analyzer.compress.DecompressedContent;
+import org.dice_research.squirrel.analyzer.mime.ContentClassifier;
 import org.dice_research.squirrel.collect.UriCollector;
 import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.iterators.DistinctMergingIterator;
 import org.dice_research.squirrel.metadata.ActivityUtil;
+import org.dice_research.squirrel.sink.AbstractSinkDecorator;
 import org.dice_research.squirrel.sink.Sink;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,15 +39,28 @@ import org.slf4j.LoggerFactory;
  * 
  * Class responsible for managing analyzers injected by the Spring Context
  * 
+ * <p>
+ * If several analyzers are eligible for a file, they share a single
+ * {@link HtmlDocument}, i.e., an HTML page is parsed only once for all
+ * {@link HtmlAnalyzer}s. If the manager has been created with more than one
+ * analyzer thread, the eligible analyzers are executed in parallel. The URIs
+ * found by the single analyzers are merged.
+ * </p>
+ * 
  * @author gsjunior gsjunior@mail.uni-paderborn.de
  *
  */
-public class SimpleAnalyzerManager implements Analyzer{
+public class SimpleAnalyzerManager implements StreamAnalyzer, Closeable {
 	
 	private static final Logger LOGGER = LoggerFactory.getLogger(SimpleAnalyzerManager.class);
 	public static final String LIST_ANALYZERS = "LIST_ANALYZERS";
 	
 	private Map<String, Analyzer> analyzers;
+	/**
+	 * The executor used to run eligible analyzers in parallel or {@code null}
+	 * if they are executed one after the other.
+	 */
+	private ExecutorService executor = null;
 	
 	
 	
@@ -83,12 +114,36 @@ public class SimpleAnalyzerManager implements Analyzer{
 	        analyzers.put(analyzer.getClass().getName(), analyzer);
 	    }
     }
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param listAnalyzers the analyzers that should be used
+	 * @param analyzerThreads the number of threads used to run the analyzers
+	 *        eligible for a single file in parallel. The thread calling
+	 *        {@link #analyze(CrawleableUri, File, Sink)} runs one of the
+	 *        analyzers itself. A value lower than 2 leads to a sequential
+	 *        execution.
+	 */
+	public SimpleAnalyzerManager(List<AbstractAnalyzer> listAnalyzers, int analyzerThreads) {
+	    this(listAnalyzers);
+	    if (analyzerThreads > 1) {
+	        AtomicInteger threadCount = new AtomicInteger();
+	        executor = Executors.newFixedThreadPool(analyzerThreads - 1, r -> {
+	            Thread thread = new Thread(r, "analyzer-" + threadCount.incrementAndGet());
+	            thread.setDaemon(true);
+	            return thread;
+	        });
+	    }
+	}
 	
 	/**
 	 * 
 	 * It iterates over all the Analyzers created and added to the
 	 * analyzers map and check if they are eligible to be executed by
-	 * invoking isEligible().
+	 * invoking isEligible(). The content of the file is classified
+	 * only once before and the analyzers rely on the result that is
+	 * recorded on the URI instead of reading the file again.
 	 * 
 	 * @curi the Crawleable uri that will be analyzed
 	 * @data the File that will be analyzed
@@ -97,9 +152,104 @@ public class SimpleAnalyzerManager implements Analyzer{
 	@Override
 	public Iterator<byte[]> analyze(CrawleableUri curi, File data, Sink sink) {
 	    LOGGER.info(">> Analyzing");
+	    ContentClassifier.getInstance().getMimeType(curi, data);
 	
-		Iterator<byte[]> iterator = null;
-		
+		return analyze(getElegibleAnalyzers(curi, data), curi, data, sink);
+	}
+
+	/**
+	 * Analyzes the given content. If it is only available as stream and only a
+	 * single analyzer is eligible that can handle streams, the stream is
+	 * handed to this analyzer. Otherwise, the content is written to disk
+	 * since every eligible analyzer has to read it.
+	 * 
+	 * @curi the Crawleable uri that will be analyzed
+	 * @content the content that will be analyzed
+	 * @sink the Sink where the found data will be stored
+	 */
+	@Override
+	public Iterator<byte[]> analyze(CrawleableUri curi, DecompressedContent content, Sink sink) {
+		LOGGER.info(">> Analyzing");
+		if (content.isOnDisk()) {
+			return analyze(curi, content.getFile(), sink);
+		}
+		List<Analyzer> elegibleAnalyzers = getElegibleAnalyzers(curi, content.getFile());
+		if((elegibleAnalyzers.size() == 1) && (elegibleAnalyzers.get(0) instanceof StreamAnalyzer)) {
+			Analyzer analyzer = elegibleAnalyzers.get(0);
+			ActivityUtil.addStep(curi, analyzer.getClass());
+			LOGGER.info(">> Using analyzer " + analyzer.getClass().getName() + " on stream.");
+			return ((StreamAnalyzer) analyzer).analyze(curi, content, sink);
+		}
+		if(elegibleAnalyzers.isEmpty()) {
+			return null;
+		}
+		File data;
+		try {
+			data = content.spill();
+		} catch (IOException e) {
+			LOGGER.error("Couldn't write content of " + curi.getUri() + " to disk. Skipping it.", e);
+			return null;
+		}
+		return analyze(elegibleAnalyzers, curi, data, sink);
+	}
+
+	/**
+	 * Runs the given analyzers on the given file and merges the found URIs.
+	 * {@link HtmlAnalyzer}s share a single {@link HtmlDocument}. If an
+	 * executor is available, the analyzers are executed in parallel.
+	 */
+	protected Iterator<byte[]> analyze(List<Analyzer> elegibleAnalyzers, CrawleableUri curi, File data, Sink sink) {
+		if(elegibleAnalyzers.isEmpty()) {
+			return null;
+		}
+		if(elegibleAnalyzers.size() == 1) {
+			return analyze(elegibleAnalyzers.get(0), curi, data, sink);
+		}
+		HtmlDocument document = new HtmlDocument(curi, data);
+		List<Iterator<byte[]>> iterators = new ArrayList<Iterator<byte[]>>(elegibleAnalyzers.size());
+		if(executor == null) {
+			for(Analyzer analyzer : elegibleAnalyzers) {
+				iterators.add(analyze(analyzer, curi, data, document, sink));
+			}
+		} else {
+			Sink synchronizedSink = new SynchronizedSink(sink);
+			List<Future<Iterator<byte[]>>> futures = new ArrayList<Future<Iterator<byte[]>>>();
+			for(Analyzer analyzer : elegibleAnalyzers.subList(1, elegibleAnalyzers.size())) {
+				futures.add(executor.submit(() -> analyze(analyzer, curi, data, document, synchronizedSink)));
+			}
+			// the current thread executes the first analyzer itself
+			iterators.add(analyze(elegibleAnalyzers.get(0), curi, data, document, synchronizedSink));
+			for(Future<Iterator<byte[]>> future : futures) {
+				try {
+					iterators.add(future.get());
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					LOGGER.warn("Interrupted while waiting for analyzers of " + curi.getUri() + ".");
+				} catch (ExecutionException e) {
+					LOGGER.error("An analyzer failed for " + curi.getUri() + ".", e.getCause());
+				}
+			}
+		}
+		return new DistinctMergingIterator(iterators);
+	}
+
+	protected Iterator<byte[]> analyze(Analyzer analyzer, CrawleableUri curi, File data, HtmlDocument document,
+			Sink sink) {
+		if(analyzer instanceof HtmlAnalyzer) {
+			ActivityUtil.addStep(curi, analyzer.getClass());
+			LOGGER.info(">> Using analyzer " + analyzer.getClass().getName() + " on the shared HTML document.");
+			return ((HtmlAnalyzer) analyzer).analyze(curi, document, sink);
+		} else {
+			return analyze(analyzer, curi, data, sink);
+		}
+	}
+
+	/**
+	 * Determines the analyzers that are eligible for the given file and adds
+	 * them to the list of analyzers of the given URI.
+	 */
+	protected List<Analyzer> getElegibleAnalyzers(CrawleableUri curi, File data) {
+		List<Analyzer> elegibleAnalyzers = new ArrayList<Analyzer>();
 		for(Entry<String, Analyzer> analyzerEntry : analyzers.entrySet()) {
 			if(analyzerEntry.getValue().isElegible(curi, data)) {
 		         LOGGER.info(">> Analyzer " + analyzerEntry.getValue().getClass().getName() + " is elegible for the uri: " + curi.getUri().toString());
@@ -113,16 +263,57 @@ public class SimpleAnalyzerManager implements Analyzer{
 					analyzers.add(analyzerEntry.getValue().getClass().getName());
 					curi.addData(LIST_ANALYZERS, analyzers);
 				}
-				
-				ActivityUtil.addStep(curi, analyzerEntry.getValue().getClass());
-                LOGGER.info(">> Using analyzer " + analyzerEntry.getValue().getClass().getName() + ".");
-				iterator = analyzerEntry.getValue().analyze(curi, data, sink);
+				elegibleAnalyzers.add(analyzerEntry.getValue());
 			}
 		}
-		return iterator;
+		return elegibleAnalyzers;
+	}
+
+	protected Iterator<byte[]> analyze(Analyzer analyzer, CrawleableUri curi, File data, Sink sink) {
+		ActivityUtil.addStep(curi, analyzer.getClass());
+		LOGGER.info(">> Using analyzer " + analyzer.getClass().getName() + ".");
+		return analyzer.analyze(curi, data, sink);
+	}
+
+
+
+	@Override
+	public void close() {
+		if(executor != null) {
+			executor.shutdownNow();
+		}
 	}
 
+	/**
+	 * Sink that makes sure that analyzers running in parallel do not call the
+	 * decorated sink at the same time.
+	 */
+	protected static class SynchronizedSink extends AbstractSinkDecorator {
+
+		public SynchronizedSink(Sink decorated) {
+			super(decorated);
+		}
 
+		@Override
+		public synchronized void addTriple(CrawleableUri uri, Triple triple) {
+			decorated.addTriple(uri, triple);
+		}
+
+		@Override
+		public synchronized void addQuad(CrawleableUri uri, Quad quad) {
+			decorated.addQuad(uri, quad);
+		}
+
+		@Override
+		public synchronized void addData(CrawleableUri uri, InputStream stream) {
+			decorated.addData(uri, stream);
+		}
+
+		@Override
+		public synchronized void flushMetadata() {
+			decorated.flushMetadata();
+		}
+	}
 
 	@Override
 	public boolean isElegible(CrawleableUri curi, File data) {
@@ -0,0 +1,371 @@
+package org.dice_research.squirrel.analyzer.mime;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFLanguages;
+import org.apache.tika.Tika;
+import org.dice_research.squirrel.Constants;
+import org.dice_research.squirrel.analyzer.compress.enums.MimeTypeEnum;
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Classifies the content of a file by reading its first bytes only once. The
+ * result is recorded on the {@link CrawleableUri} using the following keys:
+ * <ul>
+ * <li>{@link Constants#URI_CONTENT_FILE_KEY}: the path of the classified
+ * file</li>
+ * <li>{@link Constants#URI_CONTENT_MIME_TYPE_KEY}: the media type detected by
+ * Tika</li>
+ * <li>{@link Constants#URI_CONTENT_COMPRESSION_KEY}: the media type of the
+ * compression or archive format (only if the file is compressed)</li>
+ * <li>{@link Constants#URI_CONTENT_CHARSET_KEY}: the charset of the content (if
+ * it could be determined)</li>
+ * <li>{@link Constants#URI_CONTENT_RDF_LANG_KEY}: the name of the RDF
+ * serialization (if the content is RDF)</li>
+ * </ul>
+ * The decompression and the analyzers use this result instead of sniffing the
+ * file again. Since a URI might lead to several files (e.g., an archive), the
+ * result is only reused for the file it has been created for. The result only
+ * describes the current fetch of the URI and has to be removed using
+ * {@link #removeClassification(CrawleableUri)} before the URI is sent back to
+ * the frontier.
+ *
+ * <p>
+ * This class is thread-safe. The shared instance returned by
+ * {@link #getInstance()} should be used to avoid loading the Tika
+ * configuration several times.
+ * </p>
+ */
+public class ContentClassifier {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ContentClassifier.class);
+
+    /**
+     * The number of bytes that are read from the beginning of a file. This is
+     * the amount of data Tika looks at for its magic byte detection.
+     */
+    public static final int DEFAULT_HEAD_SIZE = 64 * 1024;
+    /**
+     * The number of bytes in which a charset declaration (e.g., of an HTML meta
+     * element or an XML declaration) is searched.
+     */
+    protected static final int CHARSET_DECLARATION_SEARCH_LENGTH = 1024;
+    protected static final Pattern CHARSET_DECLARATION_PATTERN = Pattern
+            .compile("(?:charset|encoding)\\s*=\\s*[\"']?([A-Za-z0-9_.:\\-]+)", Pattern.CASE_INSENSITIVE);
+    protected static final String[] COMPRESSION_TYPES = Arrays.stream(MimeTypeEnum.values())
+            .map(MimeTypeEnum::mime_type).toArray(String[]::new);
+
+    private static final ContentClassifier INSTANCE = new ContentClassifier();
+
+    /**
+     * The shared Tika instance. Its detection methods are thread-safe.
+     */
+    protected final Tika tika;
+    protected final int headSize;
+    /**
+     * The buffer of the current thread for the head of the classified file.
+     */
+    protected final ThreadLocal<byte[]> headBuffer;
+
+    /**
+     * Returns the shared instance of this class.
+     *
+     * @return the shared instance of this class
+     */
+    public static ContentClassifier getInstance() {
+        return INSTANCE;
+    }
+
+    protected ContentClassifier() {
+        this(new Tika(), DEFAULT_HEAD_SIZE);
+    }
+
+    public ContentClassifier(Tika tika, int headSize) {
+        this.tika = tika;
+        this.headSize = headSize;
+        this.headBuffer = ThreadLocal.withInitial(() -> new byte[headSize]);
+    }
+
+    /**
+     * Returns the media type of the given file. If the file has already been
+     * classified for the given URI, the recorded result is returned without
+     * reading the file again. Otherwise, the file is classified.
+     *
+     * @param curi the URI the file belongs to
+     * @param data the file that should be classified
+     * @return the detected media type or {@code null} if the file couldn't be
+     *         read
+     */
+    public String getMimeType(CrawleableUri curi, File data) {
+        if (!isClassified(curi, data)) {
+            classify(curi, data);
+        }
+        return (String) curi.getData(Constants.URI_CONTENT_MIME_TYPE_KEY);
+    }
+
+    /**
+     * Returns the compression or archive type of the given file or {@code null}
+     * if the file is not compressed. The file is classified if this hasn't been
+     * done before.
+     *
+     * @param curi the URI the file belongs to
+     * @param data the file that should be classified
+     * @return the media type of the compression or {@code null} if the file is
+     *         not compressed
+     */
+    public String getCompression(CrawleableUri curi, File data) {
+        if (!isClassified(curi, data)) {
+            classify(curi, data);
+        }
+        return (String) curi.getData(Constants.URI_CONTENT_COMPRESSION_KEY);
+    }
+
+    /**
+     * Returns the RDF serialization of the given file or {@code null} if it is
+     * not RDF or the serialization is not known. The file is classified if this
+     * hasn't been done before.
+     *
+     * @param curi the URI the file belongs to
+     * @param data the file that should be classified
+     * @return the RDF serialization of the file or {@code null}
+     */
+    public Lang getRdfLang(CrawleableUri curi, File data) {
+        if (!isClassified(curi, data)) {
+            classify(curi, data);
+        }
+        Object langName = curi.getData(Constants.URI_CONTENT_RDF_LANG_KEY);
+        return (langName != null) ? RDFLanguages.nameToLang(langName.toString()) : null;
+    }
+
+    /**
+     * Checks whether the given URI carries the classification of the given
+     * file.
+     *
+     * @param curi the URI the file belongs to
+     * @param data the file
+     * @return {@code true} if the given file has already been classified
+     */
+    public static boolean isClassified(CrawleableUri curi, File data) {
+        return (data != null) && data.getAbsolutePath().equals(curi.getData(Constants.URI_CONTENT_FILE_KEY));
+    }
+
+    /**
+     * Reads the beginning of the given file, classifies its content and
+     * records the result on the given URI. A previous classification is
+     * replaced.
+     *
+     * @param curi the URI the file belongs to
+     * @param data the file that should be classified
+     * @return the detected media type or {@code null} if the file couldn't be
+     *         read
+     */
+    public String classify(CrawleableUri curi, File data) {
+        prepare(curi, data);
+        byte[] head = headBuffer.get();
+        int length;
+        try (InputStream is = new FileInputStream(data)) {
+            length = readFully(is, head);
+        } catch (IOException e) {
+            LOGGER.error("Couldn't read " + data + " to classify its content.", e);
+            return null;
+        }
+        return classify(curi, data, head, length);
+    }
+
+    /**
+     * Classifies the content of the given stream and records the result on the
+     * given URI for the given file. The file does not have to exist, e.g., if
+     * the stream is an entry of an archive that is only written to disk if an
+     * analyzer needs it. The head of the stream is read using
+     * {@link InputStream#mark(int)} and the stream is reset afterwards, i.e.,
+     * it can be consumed as if it hasn't been touched.
+     *
+     * @param curi   the URI the stream belongs to
+     * @param data   the file the classification is recorded for
+     * @param stream the stream that should be classified. It has to support
+     *               {@link InputStream#mark(int)}.
+     * @return the detected media type or {@code null} if the stream couldn't be
+     *         read
+     */
+    public String classify(CrawleableUri curi, File data, InputStream stream) {
+        if (!stream.markSupported()) {
+            throw new IllegalArgumentException("The given stream does not support mark().");
+        }
+        prepare(curi, data);
+        byte[] head = headBuffer.get();
+        int length;
+        try {
+            stream.mark(head.length);
+            length = readFully(stream, head);
+            stream.reset();
+        } catch (IOException e) {
+            LOGGER.error("Couldn't read the stream of " + data + " to classify its content.", e);
+            return null;
+        }
+        return classify(curi, data, head, length);
+    }
+
+    /**
+     * Removes a previous classification from the given URI.
+     */
+    protected void prepare(CrawleableUri curi, File data) {
+        removeClassification(curi);
+        curi.addData(Constants.URI_CONTENT_FILE_KEY, data.getAbsolutePath());
+    }
+
+    /**
+     * Removes the classification of the fetched content from the given URI.
+     * This has to be done when the crawling of the URI is finished since the
+     * classification (e.g., the path of a temporary file) is meaningless for
+     * the frontier.
+     *
+     * @param curi the URI from which the classification should be removed
+     */
+    public static void removeClassification(CrawleableUri curi) {
+        curi.getData().remove(Constants.URI_CONTENT_FILE_KEY);
+        curi.getData().remove(Constants.URI_CONTENT_MIME_TYPE_KEY);
+        curi.getData().remove(Constants.URI_CONTENT_COMPRESSION_KEY);
+        curi.getData().remove(Constants.URI_CONTENT_CHARSET_KEY);
+        curi.getData().remove(Constants.URI_CONTENT_RDF_LANG_KEY);
+    }
+
+    /**
+     * Classifies the given head of the content and records the result on the
+     * given URI.
+     */
+    protected String classify(CrawleableUri curi, File data, byte[] head, int length) {
+        String mimeType;
+        try {
+            mimeType = tika.detect(new ByteArrayInputStream(head, 0, length), data.getName());
+        } catch (Exception e) {
+            LOGGER.error("Couldn't detect the media type of " + data + ".", e);
+            return null;
+        }
+        curi.addData(Constants.URI_CONTENT_MIME_TYPE_KEY, mimeType);
+        for (String compression : COMPRESSION_TYPES) {
+            if (compression.equals(mimeType)) {
+                curi.addData(Constants.URI_CONTENT_COMPRESSION_KEY, mimeType);
+                // there is nothing more to detect in compressed data
+                return mimeType;
+            }
+        }
+        String charset = detectCharset(curi, head, length, mimeType);
+        if (charset != null) {
+            curi.addData(Constants.URI_CONTENT_CHARSET_KEY, charset);
+        }
+        Lang lang = detectRdfLang(curi, data, head, length, mimeType);
+        if (lang != null) {
+            curi.addData(Constants.URI_CONTENT_RDF_LANG_KEY, lang.getName());
+        }
+        return mimeType;
+    }
+
+    /**
+     * Determines the charset of the content based on (in this order) a byte
+     * order mark, the charset sent by the server and a charset declaration
+     * within the content.
+     */
+    protected String detectCharset(CrawleableUri curi, byte[] head, int length, String mimeType) {
+        if ((length >= 3) && ((head[0] & 0xFF) == 0xEF) && ((head[1] & 0xFF) == 0xBB)
+                && ((head[2] & 0xFF) == 0xBF)) {
+            return StandardCharsets.UTF_8.name();
+        }
+        if ((length >= 2) && ((head[0] & 0xFF) == 0xFE) && ((head[1] & 0xFF) == 0xFF)) {
+            return StandardCharsets.UTF_16BE.name();
+        }
+        if ((length >= 2) && ((head[0] & 0xFF) == 0xFF) && ((head[1] & 0xFF) == 0xFE)) {
+            return StandardCharsets.UTF_16LE.name();
+        }
+        String charset = normalizeCharset(curi.getData(Constants.URI_HTTP_CHARSET_KEY));
+        if (charset != null) {
+            return charset;
+        }
+        if (mimeType.contains("html") || mimeType.contains("xml")) {
+            Matcher matcher = CHARSET_DECLARATION_PATTERN.matcher(
+                    new String(head, 0, Math.min(length, CHARSET_DECLARATION_SEARCH_LENGTH), StandardCharsets.ISO_8859_1));
+            if (matcher.find()) {
+                return normalizeCharset(matcher.group(1));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Transforms the given charset value (e.g., {@code " charset=UTF-8"} as it
+     * is stored by the HTTP fetcher) into the name of a supported charset.
+     */
+    protected static String normalizeCharset(Object value) {
+        if (value == null) {
+            return null;
+        }
+        String charset = value.toString().trim();
+        int pos = charset.indexOf('=');
+        if (pos >= 0) {
+            charset = charset.substring(pos + 1).trim();
+        }
+        if (charset.startsWith("\"") || charset.startsWith("'")) {
+            charset = charset.substring(1, charset.length() - 1);
+        }
+        try {
+            return Charset.forName(charset).name();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Determines the RDF serialization of the content. The content type sent
+     * by the server is preferred. {@code text/plain} and {@code *}{@code /*}
+     * are not trusted since servers use them for nearly everything. The file
+     * extension is used as last resort.
+     */
+    protected Lang detectRdfLang(CrawleableUri curi, File data, byte[] head, int length, String mimeType) {
+        Lang lang = null;
+        Object httpMimeType = curi.getData(Constants.URI_HTTP_MIME_TYPE_KEY);
+        if ((httpMimeType != null) && isTrustedContentType(httpMimeType.toString())) {
+            lang = RDFLanguages.contentTypeToLang(httpMimeType.toString());
+        }
+        if ((lang == null) && isTrustedContentType(mimeType)) {
+            lang = RDFLanguages.contentTypeToLang(mimeType);
+        }
+        if ((lang == null) && ("text/plain".equals(mimeType) || "application/xml".equals(mimeType))) {
+            // try to detect the serialization based on the content
+            try {
+                lang = new MimeTypeDetector().detectMimeType(new ByteArrayInputStream(head, 0, length));
+            } catch (IOException e) {
+                // can not happen with a byte array
+            }
+            if (lang == null) {
+                // Tika does not know all serializations (e.g., N-Triples) but the file name
+                // of an extracted archive entry might help
+                lang = RDFLanguages.filenameToLang(data.getName());
+            }
+        }
+        return lang;
+    }
+
+    protected static boolean isTrustedContentType(String contentType) {
+        return !"text/plain".equals(contentType) && !"*/*".equals(contentType);
+    }
+
+    protected static int readFully(InputStream is, byte[] buffer) throws IOException {
+        int length = 0;
+        int read;
+        while ((length < buffer.length) && ((read = is.read(buffer, length, buffer.length - length)) >= 0)) {
+            length += read;
+        }
+        return length;
+    }
+}
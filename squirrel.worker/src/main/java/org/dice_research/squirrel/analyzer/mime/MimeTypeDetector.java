@@ -5,38 +5,51 @@ import org.dice_research.squirrel.analyzer.impl.RDFAnalyzer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 
 public class MimeTypeDetector implements TypeDetector {
     private static final Logger LOGGER = LoggerFactory.getLogger(RDFAnalyzer.class);
 
     public Lang detectMimeType(File data) {
-
-        Lang mimeType = null;
-        try {
-            FileInputStream inputStream = new FileInputStream(data.getAbsolutePath());
-            FiniteStateMachine machine1 = RdfAutomata.buildRDFStateMachine();
-            FiniteStateMachine machine2 = TurtleAutomata.buildTurtleStateMachine();
-            char current;
-            while (inputStream.available() > 0 && (!machine1.canStop() || !machine2.canStop())) {
-                current = (char) inputStream.read();
-                if (!machine1.isError()) //whichever leads to error state is processed anymore.
-                    machine1 = machine1.switchState(String.valueOf(current));
-                if (!machine2.isError())
-                    machine2 = machine2.switchState(String.valueOf(current));
-            }
-
-            if (machine1.canStop() && !machine1.isError())
-                mimeType = machine1.getMimeType();
-            if (machine2.canStop() && !machine2.isError())
-                mimeType = machine2.getMimeType();
-            inputStream.close();
+        try (InputStream inputStream = new BufferedInputStream(new FileInputStream(data.getAbsolutePath()))) {
+            return detectMimeType(inputStream);
         } catch (IOException e) {
             e.printStackTrace();
         }
+        return null;
+    }
+
+    /**
+     * Detects the RDF serialization of the data of the given stream. The stream
+     * is read until the serialization is clear or the stream has no more data.
+     * It is not closed.
+     *
+     * @param inputStream the stream containing the data
+     * @return the detected serialization or {@code null} if it couldn't be
+     *         detected
+     * @throws IOException if the stream can not be read
+     */
+    public Lang detectMimeType(InputStream inputStream) throws IOException {
+        Lang mimeType = null;
+        FiniteStateMachine machine1 = RdfAutomata.buildRDFStateMachine();
+        FiniteStateMachine machine2 = TurtleAutomata.buildTurtleStateMachine();
+        int current;
+        while ((!machine1.canStop() || !machine2.canStop()) && (!machine1.isError() || !machine2.isError())
+                && ((current = inputStream.read()) >= 0)) {
+            if (!machine1.isError()) //whichever leads to error state is processed anymore.
+                machine1 = machine1.switchState(String.valueOf((char) current));
+            if (!machine2.isError())
+                machine2 = machine2.switchState(String.valueOf((char) current));
+        }
 
+        if (machine1.canStop() && !machine1.isError())
+            mimeType = machine1.getMimeType();
+        if (machine2.canStop() && !machine2.isError())
+            mimeType = machine2.getMimeType();
         return mimeType;
     }
 }
@@ -0,0 +1,492 @@
+package org.dice_research.squirrel.collect;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.data.uri.UriFingerprint;
+import org.dice_research.squirrel.data.uri.serialize.Serializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An implementation of the {@link UriCollector} interface that appends the
+ * serialized URIs to memory-mapped segment files. Each URI that is crawled
+ * gets its own segment. Every entry of a segment comprises the length of the
+ * serialized URI (4 bytes) followed by the serialized URI. Duplicates are
+ * detected using the {@link UriFingerprint} of the new URIs which are kept in
+ * memory for every open segment.
+ *
+ * <p>
+ * When the sink for a URI is closed, its segment is cleared and put into a
+ * pool of free segments that are reused for the next URIs. Segments that grew
+ * larger than the initial size are truncated before they are pooled.
+ * </p>
+ *
+ * <p>
+ * The iterators returned by {@link #getUris(CrawleableUri)} and
+ * {@link #getUriBuffers(CrawleableUri)} read directly from the mapped segment
+ * and cover the URIs that have been added before they were created. They must
+ * not be used after {@link #closeSinkForUri(CrawleableUri)} has been called
+ * for the URI.
+ * </p>
+ */
+public class MemoryMappedUriCollector implements UriCollector, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MemoryMappedUriCollector.class);
+
+    /**
+     * The default initial size of a segment in bytes (1 MiB).
+     */
+    public static final int DEFAULT_INITIAL_SEGMENT_SIZE = 1 << 20;
+    /**
+     * The default maximum number of free segments that are kept for reuse.
+     */
+    public static final int DEFAULT_MAX_POOLED_SEGMENTS = 16;
+    /**
+     * Number of bytes used to store the length of an entry.
+     */
+    protected static final int LENGTH_BYTES = 4;
+
+    /**
+     * {@link Serializer} used to serialize the given URIs.
+     */
+    protected Serializer serializer;
+    /**
+     * The directory in which the segment files are created.
+     */
+    protected File directory;
+    /**
+     * The size with which new segments are created.
+     */
+    protected int initialSegmentSize;
+    /**
+     * The maximum number of free segments that are kept for reuse.
+     */
+    protected int maxPooledSegments;
+    /**
+     * Mapping from the URIs that are currently crawled to their segments.
+     */
+    protected Map<String, Segment> openSegments = new ConcurrentHashMap<>();
+    /**
+     * Segments that are not used at the moment.
+     */
+    protected Deque<Segment> freeSegments = new ArrayDeque<>();
+    /**
+     * Number of all URIs collected.
+     */
+    private AtomicLong total_uris = new AtomicLong();
+
+    /**
+     * Constructor.
+     *
+     * @param serializer
+     *            the serializer that is used to serialize the new URIs.
+     * @param directory
+     *            the directory in which the segment files are created
+     */
+    public MemoryMappedUriCollector(Serializer serializer, String directory) {
+        this(serializer, new File(directory), DEFAULT_INITIAL_SEGMENT_SIZE, DEFAULT_MAX_POOLED_SEGMENTS);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param serializer
+     *            the serializer that is used to serialize the new URIs.
+     * @param directory
+     *            the directory in which the segment files are created
+     * @param initialSegmentSize
+     *            the size (in bytes) with which new segments are created
+     * @param maxPooledSegments
+     *            the maximum number of free segments that are kept for reuse
+     */
+    public MemoryMappedUriCollector(Serializer serializer, File directory, int initialSegmentSize,
+            int maxPooledSegments) {
+        this.serializer = serializer;
+        this.directory = directory;
+        this.initialSegmentSize = initialSegmentSize;
+        this.maxPooledSegments = maxPooledSegments;
+        if (!directory.exists() && !directory.mkdirs()) {
+            LOGGER.warn("Couldn't create the directory {} for the URI segments.", directory);
+        }
+    }
+
+    @Override
+    public void openSinkForUri(CrawleableUri uri) {
+        Segment segment;
+        synchronized (freeSegments) {
+            segment = freeSegments.poll();
+        }
+        try {
+            if (segment == null) {
+                segment = new Segment(File.createTempFile("uris", ".seg", directory), initialSegmentSize);
+            }
+            Segment old = openSegments.put(uri.getUri().toString(), segment);
+            if (old != null) {
+                LOGGER.warn("The URI {} has been opened twice. The URIs collected before will be discarded.",
+                        uri.getUri());
+                release(old);
+            }
+        } catch (IOException e) {
+            LOGGER.error("Couldn't create segment for URI \"" + uri.getUri() + "\". Its URIs will be ignored.", e);
+        }
+    }
+
+    @Override
+    public void addNewUri(CrawleableUri uri, CrawleableUri newUri) {
+        Segment segment = openSegments.get(uri.getUri().toString());
+        if (segment == null) {
+            LOGGER.error("Got an unknown URI \"{}\". It will be ignored.", uri.getUri().toString());
+            return;
+        }
+        long fingerprint = UriFingerprint.fingerprint(newUri);
+        synchronized (segment) {
+            // check the fingerprint before paying for the serialization
+            if (segment.contains(fingerprint)) {
+                return;
+            }
+            try {
+                if (segment.append(serializer.serialize(newUri))) {
+                    segment.addFingerprint(fingerprint);
+                    total_uris.incrementAndGet();
+                }
+            } catch (IOException e) {
+                LOGGER.error("Couldn't add URI \"" + newUri.getUri() + "\". It will be ignored.", e);
+            }
+        }
+    }
+
+    @Override
+    public Iterator<byte[]> getUris(CrawleableUri uri) {
+        Iterator<ByteBuffer> buffers = getUriBuffers(uri);
+        return new Iterator<byte[]>() {
+            @Override
+            public boolean hasNext() {
+                return buffers.hasNext();
+            }
+
+            @Override
+            public byte[] next() {
+                ByteBuffer buffer = buffers.next();
+                byte[] serialized = new byte[buffer.remaining()];
+                buffer.get(serialized);
+                return serialized;
+            }
+        };
+    }
+
+    /**
+     * Returns the serialized URIs that have been collected for the given URI as
+     * read-only views of the mapped segment, i.e., without copying them.
+     *
+     * @param uri
+     *            The URI from which the returned serialized URIs have been
+     *            collected.
+     * @return An {@link Iterator} over the serialized URIs
+     */
+    public Iterator<ByteBuffer> getUriBuffers(CrawleableUri uri) {
+        Segment segment = openSegments.get(uri.getUri().toString());
+        if (segment == null) {
+            LOGGER.error("Got an unknown URI \"{}\". Returning empty Iterator.", uri.getUri().toString());
+            return Collections.emptyIterator();
+        }
+        synchronized (segment) {
+            return segment.iterator();
+        }
+    }
+
+    @Override
+    public void closeSinkForUri(CrawleableUri uri) {
+        Segment segment = openSegments.remove(uri.getUri().toString());
+        if (segment != null) {
+            release(segment);
+        } else {
+            LOGGER.info("Should close \"{}\" but it is not known. It will be ignored.", uri.getUri().toString());
+        }
+    }
+
+    /**
+     * Clears the given segment and adds it to the pool of free segments or
+     * deletes it if the pool is full.
+     *
+     * @param segment
+     *            the segment that is not used anymore
+     */
+    protected void release(Segment segment) {
+        boolean pooled = false;
+        synchronized (segment) {
+            try {
+                segment.clear(initialSegmentSize);
+                synchronized (freeSegments) {
+                    if (freeSegments.size() < maxPooledSegments) {
+                        freeSegments.push(segment);
+                        pooled = true;
+                    }
+                }
+            } catch (IOException e) {
+                LOGGER.warn("Couldn't reset segment. It will be deleted.", e);
+            }
+            if (!pooled) {
+                segment.delete();
+            }
+        }
+    }
+
+    @Override
+    public long getSize(CrawleableUri uri) {
+        Segment segment = openSegments.get(uri.getUri().toString());
+        if (segment == null) {
+            return 0;
+        }
+        synchronized (segment) {
+            return segment.getCount();
+        }
+    }
+
+    /**
+     * Returns the total number of new URIs that have been added to this collector.
+     *
+     * @return the total number of new URIs that have been added to this collector.
+     */
+    public long getSize() {
+        return total_uris.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Segment segment : openSegments.values()) {
+            synchronized (segment) {
+                segment.delete();
+            }
+        }
+        openSegments.clear();
+        synchronized (freeSegments) {
+            for (Segment segment : freeSegments) {
+                segment.delete();
+            }
+            freeSegments.clear();
+        }
+    }
+
+    /**
+     * An append-only log of serialized URIs stored in a memory-mapped file
+     * together with the fingerprints of the URIs it contains. This class is not
+     * thread-safe.
+     */
+    protected static class Segment {
+
+        private final File file;
+        private final RandomAccessFile raf;
+        private final FileChannel channel;
+        private MappedByteBuffer buffer;
+        private int count = 0;
+        private LongHashSet fingerprints = new LongHashSet();
+
+        public Segment(File file, int size) throws IOException {
+            this.file = file;
+            raf = new RandomAccessFile(file, "rw");
+            channel = raf.getChannel();
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+
+        public boolean contains(long fingerprint) {
+            return fingerprints.contains(fingerprint);
+        }
+
+        public void addFingerprint(long fingerprint) {
+            fingerprints.add(fingerprint);
+        }
+
+        /**
+         * Appends the given serialized URI.
+         *
+         * @return {@code true} if the URI has been appended, {@code false} if the
+         *         segment reached its maximum size
+         */
+        public boolean append(byte[] serialized) throws IOException {
+            long required = (long) buffer.position() + LENGTH_BYTES + serialized.length;
+            if (required > buffer.capacity()) {
+                if (required > Integer.MAX_VALUE) {
+                    LOGGER.error("Segment {} reached its maximum size. Further URIs will be ignored.", file);
+                    return false;
+                }
+                grow((int) required);
+            }
+            buffer.putInt(serialized.length);
+            buffer.put(serialized);
+            ++count;
+            return true;
+        }
+
+        /**
+         * Maps a larger part of the file. The capacity is at least doubled.
+         */
+        protected void grow(int required) throws IOException {
+            int position = buffer.position();
+            long newSize = Math.max(required, Math.min(2L * buffer.capacity(), Integer.MAX_VALUE));
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, newSize);
+            buffer.position(position);
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        /**
+         * Returns an iterator over the entries that have been appended so far.
+         */
+        public Iterator<ByteBuffer> iterator() {
+            ByteBuffer view = buffer.asReadOnlyBuffer();
+            view.flip();
+            return new SegmentIterator(view);
+        }
+
+        /**
+         * Removes all entries. If the file grew beyond the given size, it is
+         * truncated.
+         */
+        public void clear(int size) throws IOException {
+            if (buffer.capacity() > size) {
+                buffer = null;
+                channel.truncate(size);
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            } else {
+                buffer.clear();
+            }
+            count = 0;
+            fingerprints = new LongHashSet();
+        }
+
+        public void delete() {
+            buffer = null;
+            try {
+                raf.close();
+            } catch (IOException e) {
+                LOGGER.warn("Couldn't close segment file " + file + ".", e);
+            }
+            if (!file.delete()) {
+                LOGGER.warn("Couldn't delete segment file {}.", file);
+            }
+        }
+    }
+
+    /**
+     * Iterates over the entries of a read-only view of a {@link Segment}. Every
+     * returned buffer is a slice of the view.
+     */
+    protected static class SegmentIterator implements Iterator<ByteBuffer> {
+
+        private final ByteBuffer view;
+
+        public SegmentIterator(ByteBuffer view) {
+            this.view = view;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return view.hasRemaining();
+        }
+
+        @Override
+        public ByteBuffer next() {
+            if (!view.hasRemaining()) {
+                throw new NoSuchElementException();
+            }
+            int length = view.getInt();
+            ByteBuffer entry = view.slice();
+            entry.limit(length);
+            view.position(view.position() + length);
+            return entry;
+        }
+    }
+
+    /**
+     * A minimal open addressing hash set of primitive long values that avoids
+     * boxing the fingerprints.
+     */
+    protected static class LongHashSet {
+
+        private static final int INITIAL_CAPACITY = 1024;
+
+        private long[] values = new long[INITIAL_CAPACITY];
+        private int size = 0;
+        /**
+         * 0 marks empty slots, so it has to be handled separately.
+         */
+        private boolean containsZero = false;
+
+        public boolean contains(long value) {
+            if (value == 0) {
+                return containsZero;
+            }
+            int mask = values.length - 1;
+            int pos = mix(value) & mask;
+            while (values[pos] != 0) {
+                if (values[pos] == value) {
+                    return true;
+                }
+                pos = (pos + 1) & mask;
+            }
+            return false;
+        }
+
+        public boolean add(long value) {
+            if (value == 0) {
+                boolean added = !containsZero;
+                containsZero = true;
+                return added;
+            }
+            // keep the load factor below 0.5
+            if (2 * (size + 1) > values.length) {
+                rehash(values.length << 1);
+            }
+            if (insert(values, value)) {
+                ++size;
+                return true;
+            }
+            return false;
+        }
+
+        private void rehash(int capacity) {
+            long[] newValues = new long[capacity];
+            for (int i = 0; i < values.length; ++i) {
+                if (values[i] != 0) {
+                    insert(newValues, values[i]);
+                }
+            }
+            values = newValues;
+        }
+
+        private static boolean insert(long[] values, long value) {
+            int mask = values.length - 1;
+            int pos = mix(value) & mask;
+            while (values[pos] != 0) {
+                if (values[pos] == value) {
+                    return false;
+                }
+                pos = (pos + 1) & mask;
+            }
+            values[pos] = value;
+            return true;
+        }
+
+        private static int mix(long value) {
+            // the fingerprints are already hashes, so folding them is sufficient
+            return (int) (value ^ (value >>> 32));
+        }
+    }
+}
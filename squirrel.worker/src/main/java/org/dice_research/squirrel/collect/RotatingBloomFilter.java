@@ -0,0 +1,132 @@
+package org.dice_research.squirrel.collect;
+
+import java.util.Arrays;
+
+/**
+ * A Bloom filter over 64-bit fingerprints (see
+ * {@link org.dice_research.squirrel.data.uri.UriFingerprint}) with a bounded
+ * memory footprint. The filter comprises two generations. New fingerprints are
+ * added to the current generation. As soon as the current generation contains
+ * the number of fingerprints it has been dimensioned for, the older generation
+ * is cleared and becomes the new current generation. Hence, the filter
+ * remembers at least the last {@code capacity} fingerprints and forgets older
+ * ones instead of becoming saturated.
+ *
+ * <p>
+ * Like every Bloom filter, it may report a fingerprint as known although it
+ * has never been added (with the configured probability) but it never forgets
+ * a fingerprint of the last {@code capacity} insertions. This class is
+ * thread-safe.
+ * </p>
+ */
+public class RotatingBloomFilter {
+
+    private final long numberOfBits;
+    private final int numberOfHashes;
+    private final int capacity;
+    private long[] current;
+    private long[] previous;
+    private int insertions = 0;
+
+    /**
+     * Constructor.
+     *
+     * @param capacity
+     *            the number of fingerprints a single generation can take
+     * @param falsePositiveProbability
+     *            the probability of a false positive for a full generation
+     */
+    public RotatingBloomFilter(int capacity, double falsePositiveProbability) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity has to be positive.");
+        }
+        if ((falsePositiveProbability <= 0) || (falsePositiveProbability >= 1)) {
+            throw new IllegalArgumentException("The false positive probability has to be in (0,1).");
+        }
+        this.capacity = capacity;
+        long bits = (long) Math.ceil(-capacity * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+        // round up to complete longs
+        int words = (int) Math.min(Integer.MAX_VALUE - 8, (bits + 63) >>> 6);
+        numberOfBits = words * 64L;
+        numberOfHashes = Math.max(1, (int) Math.round((double) numberOfBits / capacity * Math.log(2)));
+        current = new long[words];
+        previous = new long[words];
+    }
+
+    /**
+     * Adds the given fingerprint to the filter.
+     *
+     * @param fingerprint
+     *            the fingerprint that should be added
+     * @return {@code true} if the fingerprint was not known before, {@code false}
+     *         if it might have been added before
+     */
+    public synchronized boolean add(long fingerprint) {
+        if (contains(current, fingerprint)) {
+            return false;
+        }
+        boolean known = contains(previous, fingerprint);
+        // (re-)insert into the current generation to keep frequent fingerprints
+        if (insertions >= capacity) {
+            rotate();
+        }
+        set(current, fingerprint);
+        ++insertions;
+        return !known;
+    }
+
+    /**
+     * Checks whether the given fingerprint might have been added before.
+     *
+     * @param fingerprint
+     *            the fingerprint that should be checked
+     * @return {@code false} if the fingerprint is not known, {@code true} if it
+     *         might have been added before
+     */
+    public synchronized boolean mightContain(long fingerprint) {
+        return contains(current, fingerprint) || contains(previous, fingerprint);
+    }
+
+    /**
+     * Forgets the older generation and starts a new one.
+     */
+    protected void rotate() {
+        long[] temp = previous;
+        previous = current;
+        Arrays.fill(temp, 0);
+        current = temp;
+        insertions = 0;
+    }
+
+    private boolean contains(long[] bits, long fingerprint) {
+        // Kirsch and Mitzenmacher: derive all hashes from two 32-bit halves
+        long hash1 = (int) fingerprint;
+        long hash2 = (int) (fingerprint >>> 32);
+        long index;
+        for (int i = 0; i < numberOfHashes; ++i) {
+            index = ((hash1 + (i * hash2)) & Long.MAX_VALUE) % numberOfBits;
+            if ((bits[(int) (index >>> 6)] & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void set(long[] bits, long fingerprint) {
+        long hash1 = (int) fingerprint;
+        long hash2 = (int) (fingerprint >>> 32);
+        long index;
+        for (int i = 0; i < numberOfHashes; ++i) {
+            index = ((hash1 + (i * hash2)) & Long.MAX_VALUE) % numberOfBits;
+            bits[(int) (index >>> 6)] |= (1L << index);
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getNumberOfHashes() {
+        return numberOfHashes;
+    }
+}
@@ -6,6 +6,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -56,7 +57,13 @@ public class SimpleUriCollector implements UriCollector {
         if (urisOfUris.containsKey(uriString)) {
             set = urisOfUris.get(uriString);
         }
-        return set == null ? Collections.emptyIterator() : set.values().iterator();
+        if (set == null) {
+            return Collections.emptyIterator();
+        }
+        // return a copy since other analyzers might still add URIs
+        synchronized (set) {
+            return new ArrayList<byte[]>(set.values()).iterator();
+        }
     }
 
     @Override
@@ -68,8 +75,12 @@ public class SimpleUriCollector implements UriCollector {
         }
         Map<String, byte[]> uris = urisOfUris.get(uriString);
         try {
-            uris.put(newUri.getUri().toString(), serializer.serialize(newUri));
-            total_uris++;
+            byte[] serialized = serializer.serialize(newUri);
+            // several analyzers might add URIs in parallel
+            synchronized (uris) {
+                uris.put(newUri.getUri().toString(), serialized);
+                total_uris++;
+            }
         } catch (IOException e) {
             LOGGER.error("Error while trying to collect URI \"" + newUri + "\". It will be ignored.", e);
         }
@@ -17,12 +17,14 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 import org.apache.http.annotation.NotThreadSafe;
 import org.apache.jena.graph.Node;
 import org.apache.jena.graph.Triple;
 import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.data.uri.UriFingerprint;
 import org.dice_research.squirrel.data.uri.serialize.Serializer;
 import org.dice_research.squirrel.iterators.SqlBasedIterator;
 import org.slf4j.Logger;
@@ -47,7 +49,7 @@ public class SqlBasedUriCollector implements UriCollector, Closeable {
 
 //    protected static final String COUNT_URIS_QUERY = "SELECT COUNT(*) AS TOTAL FROM ? where uri = ?";
 
-    protected static final String CREATE_TABLE_QUERY = "CREATE TABLE ? (uri VARCHAR(1024), serial INT, data BLOB, PRIMARY KEY(uri,serial));";
+    protected static final String CREATE_TABLE_QUERY = "CREATE TABLE ? (uri VARCHAR(1024), serial BIGINT, data BLOB, PRIMARY KEY(uri,serial));";
     protected static final String DROP_TABLE_QUERY = "DROP TABLE ";
     protected static final String INSERT_URI_QUERY_PART_1 = " INSERT INTO ";
     protected static final String INSERT_URI_QUERY_PART_2 = "(uri,serial,data) VALUES(?,?,?)";
@@ -61,7 +63,7 @@ public class SqlBasedUriCollector implements UriCollector, Closeable {
     protected Connection dbConnection;
     protected Serializer serializer;
     protected int bufferSize = DEFAULT_BUFFER_SIZE;
-    protected Map<String, UriTableStatus> knownUris = new HashMap<>();
+    protected Map<String, UriTableStatus> knownUris = new ConcurrentHashMap<>();
     
 
 
@@ -295,9 +297,8 @@ public class SqlBasedUriCollector implements UriCollector, Closeable {
         if (builder.length() > MAX_ALPHANUM_PART_OF_TABLE_NAME) {
             builder.delete(MAX_ALPHANUM_PART_OF_TABLE_NAME, builder.length());
         }
-        // Append the hash code of the original URI
-        int hashCode = uri.hashCode();
-        builder.append(hashCode < 0 ? -hashCode : hashCode);
+        // Append the fingerprint of the original URI
+        builder.append(UriFingerprint.fingerprintAsHex(uri));
         return builder.toString();
     }
 
@@ -346,7 +347,7 @@ public class SqlBasedUriCollector implements UriCollector, Closeable {
             try {
                 for (String uri : buffer.keySet()) {
                     insertStmt.setString(1, uri);
-                    insertStmt.setInt(2, uri.hashCode());
+                    insertStmt.setLong(2, UriFingerprint.fingerprint(uri));
                     insertStmt.setBytes(3, buffer.get(uri));
                     try {
                         insertStmt.execute();
@@ -373,7 +374,7 @@ public class SqlBasedUriCollector implements UriCollector, Closeable {
             try {
                 for (String uri : buffer.keySet()) {
                     insertStmt.setString(1, uri);
-                    insertStmt.setInt(2, uri.hashCode());
+                    insertStmt.setLong(2, UriFingerprint.fingerprint(uri));
                     insertStmt.setBytes(3, buffer.get(uri));
                     insertStmt.addBatch();
                 }
@@ -0,0 +1,97 @@
+package org.dice_research.squirrel.collect;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link UriCollector} that forwards every new URI to a listener while it
+ * is added to the decorated collector. This enables a worker to send new URIs
+ * to the frontier while the analyzers are still running instead of waiting
+ * for the iterator returned by the analyzers.
+ */
+public class StreamingUriCollector implements UriCollector, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StreamingUriCollector.class);
+
+    /**
+     * The decorated collector.
+     */
+    protected UriCollector decorated;
+    /**
+     * The listener receiving the new URIs or {@code null} if there is none.
+     */
+    protected volatile Consumer<CrawleableUri> listener = null;
+
+    /**
+     * Constructor.
+     *
+     * @param decorated
+     *            the collector that stores the URIs
+     */
+    public StreamingUriCollector(UriCollector decorated) {
+        this.decorated = decorated;
+    }
+
+    /**
+     * Sets the listener that receives every new URI.
+     *
+     * @param listener
+     *            the listener or {@code null} to remove the current listener
+     */
+    public void setListener(Consumer<CrawleableUri> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * @return the collector that stores the URIs
+     */
+    public UriCollector getDecorated() {
+        return decorated;
+    }
+
+    @Override
+    public void openSinkForUri(CrawleableUri uri) {
+        decorated.openSinkForUri(uri);
+    }
+
+    @Override
+    public void closeSinkForUri(CrawleableUri uri) {
+        decorated.closeSinkForUri(uri);
+    }
+
+    @Override
+    public void addNewUri(CrawleableUri uri, CrawleableUri newUri) {
+        decorated.addNewUri(uri, newUri);
+        Consumer<CrawleableUri> currentListener = listener;
+        if (currentListener != null) {
+            try {
+                currentListener.accept(newUri);
+            } catch (Exception e) {
+                LOGGER.error("The listener couldn't handle the new URI \"" + newUri.getUri() + "\".", e);
+            }
+        }
+    }
+
+    @Override
+    public Iterator<byte[]> getUris(CrawleableUri uri) {
+        return decorated.getUris(uri);
+    }
+
+    @Override
+    public long getSize(CrawleableUri uri) {
+        return decorated.getSize(uri);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (decorated instanceof Closeable) {
+            ((Closeable) decorated).close();
+        }
+    }
+}
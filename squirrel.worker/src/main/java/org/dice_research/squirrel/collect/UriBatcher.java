@@ -0,0 +1,250 @@
+package org.dice_research.squirrel.collect;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.data.uri.UriFingerprint;
+import org.dice_research.squirrel.frontier.Frontier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Collects the new URIs a worker found and sends them to the frontier in
+ * batches. URIs that have already been sent are filtered using a
+ * {@link RotatingBloomFilter}, i.e., the number of remembered URIs is bounded
+ * and a small fraction of new URIs might be dropped as false positives. A URI
+ * is only added to the filter after its batch has been sent successfully.
+ * Hence, the URIs of a batch that couldn't be sent are accepted again if they
+ * are found again. A batch is sent as soon as it reaches its
+ * maximum size or the first URI of the batch waited longer than the linger
+ * time. {@link #flush()} sends the current batch immediately.
+ *
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ */
+public class UriBatcher implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UriBatcher.class);
+
+    /**
+     * The frontier to which the batches are sent.
+     */
+    protected Frontier frontier;
+    /**
+     * The number of URIs after which a batch is sent.
+     */
+    protected int maxBatchSize;
+    /**
+     * The maximum time (in ms) a URI waits in a batch before the batch is sent.
+     */
+    protected long lingerTime;
+    /**
+     * The fingerprints of the URIs that have been sent.
+     */
+    protected RotatingBloomFilter seenUris;
+    /**
+     * The fingerprints of the URIs of the current batch and the batches that
+     * are currently sent.
+     */
+    protected Set<Long> pendingUris = new HashSet<>();
+    /**
+     * The current batch.
+     */
+    protected List<CrawleableUri> batch;
+    /**
+     * The time stamp at which the first URI has been added to the current
+     * batch.
+     */
+    protected long batchStart;
+    /**
+     * Thread that sends batches that exceeded the linger time or {@code null}
+     * if the batches are only sent based on their size.
+     */
+    protected ScheduledExecutorService lingerTimer = null;
+
+    private AtomicLong addedUris = new AtomicLong();
+    private AtomicLong sentUris = new AtomicLong();
+    private AtomicLong sentBatches = new AtomicLong();
+
+    /**
+     * Constructor.
+     *
+     * @param frontier
+     *            the frontier to which the batches are sent
+     * @param maxBatchSize
+     *            the number of URIs after which a batch is sent
+     * @param lingerTime
+     *            the maximum time (in ms) a URI waits before its batch is sent.
+     *            A value &lt;= 0 disables the sending based on the time.
+     * @param seenUris
+     *            the filter used to remember the URIs that have been seen
+     */
+    public UriBatcher(Frontier frontier, int maxBatchSize, long lingerTime, RotatingBloomFilter seenUris) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("The batch size has to be positive.");
+        }
+        this.frontier = frontier;
+        this.maxBatchSize = maxBatchSize;
+        this.lingerTime = lingerTime;
+        this.seenUris = seenUris;
+        batch = new ArrayList<>(maxBatchSize);
+        if (lingerTime > 0) {
+            lingerTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "uri-batcher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            lingerTimer.scheduleWithFixedDelay(this::sendLingeringBatch, lingerTime, lingerTime,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Adds the given URI to the current batch if it has not been sent before
+     * and is not already pending. The batch is sent if it reached its maximum
+     * size.
+     *
+     * @param uri
+     *            the newly found URI
+     * @return {@code true} if the URI has been added, {@code false} if it has
+     *         been seen before
+     */
+    public boolean add(CrawleableUri uri) {
+        addedUris.incrementAndGet();
+        long fingerprint = UriFingerprint.fingerprint(uri);
+        List<CrawleableUri> fullBatch = null;
+        synchronized (this) {
+            if (seenUris.mightContain(fingerprint) || !pendingUris.add(fingerprint)) {
+                return false;
+            }
+            if (batch.isEmpty()) {
+                batchStart = System.currentTimeMillis();
+            }
+            batch.add(uri);
+            if (batch.size() >= maxBatchSize) {
+                fullBatch = takeBatch();
+            }
+        }
+        // send the batch without blocking other threads
+        if (fullBatch != null) {
+            send(fullBatch);
+        }
+        return true;
+    }
+
+    /**
+     * Sends the current batch (if it is not empty).
+     */
+    public void flush() {
+        List<CrawleableUri> currentBatch;
+        synchronized (this) {
+            currentBatch = takeBatch();
+        }
+        if (currentBatch != null) {
+            send(currentBatch);
+        }
+    }
+
+    /**
+     * Sends the current batch if its first URI waited at least the linger time.
+     */
+    protected void sendLingeringBatch() {
+        List<CrawleableUri> currentBatch = null;
+        synchronized (this) {
+            if (!batch.isEmpty() && ((System.currentTimeMillis() - batchStart) >= lingerTime)) {
+                currentBatch = takeBatch();
+            }
+        }
+        if (currentBatch != null) {
+            send(currentBatch);
+        }
+    }
+
+    /**
+     * Replaces the current batch with a new, empty one. Has to be called while
+     * holding the lock of this object.
+     *
+     * @return the current batch or {@code null} if it is empty
+     */
+    private List<CrawleableUri> takeBatch() {
+        if (batch.isEmpty()) {
+            return null;
+        }
+        List<CrawleableUri> currentBatch = batch;
+        batch = new ArrayList<>(maxBatchSize);
+        return currentBatch;
+    }
+
+    /**
+     * Sends the given batch to the frontier. Its URIs are added to the
+     * {@link #seenUris} only if the batch has been sent successfully.
+     */
+    protected void send(List<CrawleableUri> uris) {
+        boolean successful = false;
+        try {
+            frontier.addNewUris(uris);
+            sentUris.addAndGet(uris.size());
+            sentBatches.incrementAndGet();
+            successful = true;
+        } catch (Exception e) {
+            LOGGER.error("Exception while sending " + uris.size()
+                    + " new URIs to the frontier. They will be sent again if they are found again.", e);
+        } finally {
+            long[] fingerprints = new long[uris.size()];
+            for (int i = 0; i < fingerprints.length; ++i) {
+                fingerprints[i] = UriFingerprint.fingerprint(uris.get(i));
+                if (successful) {
+                    seenUris.add(fingerprints[i]);
+                }
+            }
+            synchronized (this) {
+                for (int i = 0; i < fingerprints.length; ++i) {
+                    pendingUris.remove(fingerprints[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of URIs that have been given to this batcher
+     */
+    public long getAddedUris() {
+        return addedUris.get();
+    }
+
+    /**
+     * @return the number of URIs that have been sent to the frontier
+     */
+    public long getSentUris() {
+        return sentUris.get();
+    }
+
+    /**
+     * @return the number of batches that have been sent to the frontier
+     */
+    public long getSentBatches() {
+        return sentBatches.get();
+    }
+
+    /**
+     * Stops the linger timer and sends the remaining URIs.
+     */
+    @Override
+    public void close() {
+        if (lingerTimer != null) {
+            lingerTimer.shutdownNow();
+        }
+        flush();
+        LOGGER.info("Got {} new URIs and sent {} of them in {} batches to the frontier.", getAddedUris(),
+                getSentUris(), getSentBatches());
+    }
+}
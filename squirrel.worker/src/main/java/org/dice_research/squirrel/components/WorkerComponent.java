@@ -170,8 +170,12 @@ public class WorkerComponent extends AbstractComponent implements Frontier {
         addNewUris(Collections.singletonList(uri));
     }
 
+    /**
+     * Sends the given URIs to the frontier. Note that this method is
+     * synchronized since a worker might send URIs from several threads.
+     */
     @Override
-    public void addNewUris(List<CrawleableUri> uris) {
+    public synchronized void addNewUris(List<CrawleableUri> uris) {
         try {
             senderFrontier.sendData(serializer.serialize(new UriSet(uris)));
         } catch (Exception e) {
@@ -180,7 +184,7 @@ public class WorkerComponent extends AbstractComponent implements Frontier {
     }
 
     @Override
-    public void crawlingDone(List<CrawleableUri> uris) {
+    public synchronized void crawlingDone(List<CrawleableUri> uris) {
         try {
             // Hashtable<CrawleableUri, List<CrawleableUri>> uriMapHashtable;
             // if (uriMap instanceof Hashtable) {
@@ -1,6 +1,7 @@
 package org.dice_research.squirrel.components;
 
 import org.dice_research.squirrel.Constants;
+import org.dice_research.squirrel.configurator.WorkerPipelineConfiguration;
 import org.hobbit.core.components.AbstractComponent;
 import org.hobbit.core.rabbit.DataSender;
 import org.hobbit.core.rabbit.DataSenderImpl;
@@ -33,6 +34,16 @@ public class WorkerComponentConfig extends AbstractComponent {
         return client;
     }
 
+    /**
+     * The configuration of the thread pools and queues of a
+     * {@link org.dice_research.squirrel.worker.impl.PipelinedWorkerImpl}. The
+     * values are read from the environment.
+     */
+    @Bean(name = "workerPipelineConfigBean")
+    public WorkerPipelineConfiguration workerPipelineConfig() {
+        return WorkerPipelineConfiguration.getWorkerPipelineConfiguration();
+    }
+
     @Override
     public void run() throws Exception {
         // TODO Auto-generated method stub
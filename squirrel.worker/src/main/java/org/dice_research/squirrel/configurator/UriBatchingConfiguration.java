@@ -0,0 +1,88 @@
+package org.dice_research.squirrel.configurator;
+
+import org.hobbit.utils.EnvVariables;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The configuration of the batching of new URIs a worker sends to the
+ * frontier (see {@link org.dice_research.squirrel.collect.UriBatcher}). All
+ * values can be set using environment variables.
+ */
+public class UriBatchingConfiguration extends Configuration {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UriBatchingConfiguration.class);
+
+    /**
+     * Key of the environment variable defining the maximum number of new URIs
+     * that are sent to the frontier in a single message.
+     */
+    public static final String BATCH_SIZE_KEY = "WORKER_URI_BATCH_SIZE";
+    /**
+     * Key of the environment variable defining the maximum time (in ms) a new
+     * URI waits before it is sent to the frontier.
+     */
+    public static final String LINGER_TIME_KEY = "WORKER_URI_LINGER_TIME";
+    /**
+     * Key of the environment variable defining the minimum number of URIs the
+     * worker remembers to avoid sending them twice.
+     */
+    public static final String SEEN_URIS_CAPACITY_KEY = "WORKER_SEEN_URIS_CAPACITY";
+
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    public static final long DEFAULT_LINGER_TIME = 1000;
+    public static final int DEFAULT_SEEN_URIS_CAPACITY = 1000000;
+    /**
+     * The probability that a new URI is wrongly regarded as already sent.
+     */
+    public static final double SEEN_URIS_FALSE_POSITIVE_PROBABILITY = 0.001;
+
+    private int batchSize;
+    private long lingerTime;
+    private int seenUrisCapacity;
+
+    /**
+     * Constructor.
+     *
+     * @param batchSize        the maximum number of new URIs per message
+     * @param lingerTime       the maximum time (in ms) a new URI waits before
+     *                         it is sent
+     * @param seenUrisCapacity the minimum number of URIs that are remembered
+     */
+    public UriBatchingConfiguration(int batchSize, long lingerTime, int seenUrisCapacity) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("The batch size has to be positive.");
+        }
+        if (seenUrisCapacity < 1) {
+            throw new IllegalArgumentException("The number of remembered URIs has to be positive.");
+        }
+        this.batchSize = batchSize;
+        this.lingerTime = lingerTime;
+        this.seenUrisCapacity = seenUrisCapacity;
+    }
+
+    /**
+     * Creates the configuration based on the environment variables. Variables
+     * that are not defined are replaced by their default values.
+     *
+     * @return the configuration of the URI batching
+     */
+    public static UriBatchingConfiguration getUriBatchingConfiguration() {
+        int batchSize = EnvVariables.getInt(BATCH_SIZE_KEY, DEFAULT_BATCH_SIZE, LOGGER);
+        long lingerTime = EnvVariables.getLong(LINGER_TIME_KEY, DEFAULT_LINGER_TIME, LOGGER);
+        int seenUrisCapacity = EnvVariables.getInt(SEEN_URIS_CAPACITY_KEY, DEFAULT_SEEN_URIS_CAPACITY, LOGGER);
+        return new UriBatchingConfiguration(batchSize, lingerTime, seenUrisCapacity);
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public long getLingerTime() {
+        return lingerTime;
+    }
+
+    public int getSeenUrisCapacity() {
+        return seenUrisCapacity;
+    }
+}
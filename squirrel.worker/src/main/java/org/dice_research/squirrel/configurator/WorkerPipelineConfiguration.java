@@ -0,0 +1,130 @@
+package org.dice_research.squirrel.configurator;
+
+import org.hobbit.utils.EnvVariables;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The configuration of the pipeline of a
+ * {@link org.dice_research.squirrel.worker.impl.PipelinedWorkerImpl}. All
+ * values can be set using environment variables.
+ */
+public class WorkerPipelineConfiguration extends Configuration {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WorkerPipelineConfiguration.class);
+
+    /**
+     * Key of the environment variable defining the maximum number of fetches
+     * that are executed in parallel. Since the URIs of a single URI set are
+     * fetched one after the other, this is also the maximum number of URI sets
+     * a worker crawls at the same time.
+     */
+    public static final String MAX_IN_FLIGHT_FETCHES_KEY = "WORKER_MAX_IN_FLIGHT_FETCHES";
+    /**
+     * Key of the environment variable defining the number of threads that
+     * decompress and analyze fetched data.
+     */
+    public static final String PROCESSING_THREADS_KEY = "WORKER_PROCESSING_THREADS";
+    /**
+     * Key of the environment variable defining the maximum number of fetched
+     * URIs that wait for being processed. If this queue is full, the fetching
+     * threads are blocked.
+     */
+    public static final String PROCESSING_QUEUE_SIZE_KEY = "WORKER_PROCESSING_QUEUE_SIZE";
+    /**
+     * Key of the environment variable defining the number of threads that are
+     * used to run the analyzers eligible for a single file in parallel. A value
+     * of 1 leads to a sequential execution.
+     */
+    public static final String ANALYZER_THREADS_KEY = "WORKER_ANALYZER_THREADS";
+
+    public static final int DEFAULT_MAX_IN_FLIGHT_FETCHES = 128;
+    public static final int DEFAULT_PROCESSING_THREADS = Runtime.getRuntime().availableProcessors();
+    public static final int DEFAULT_PROCESSING_QUEUE_SIZE = 2 * DEFAULT_PROCESSING_THREADS;
+    public static final int DEFAULT_ANALYZER_THREADS = Math.min(4, DEFAULT_PROCESSING_THREADS);
+
+    private int maxInFlightFetches;
+    private int processingThreads;
+    private int processingQueueSize;
+    private int analyzerThreads;
+
+    /**
+     * Constructor.
+     *
+     * @param maxInFlightFetches  the maximum number of fetches (and URI sets)
+     *                            that are handled in parallel
+     * @param processingThreads   the number of threads used to decompress and
+     *                            analyze fetched data
+     * @param processingQueueSize the maximum number of fetched URIs waiting for
+     *                            being processed
+     */
+    public WorkerPipelineConfiguration(int maxInFlightFetches, int processingThreads, int processingQueueSize) {
+        this(maxInFlightFetches, processingThreads, processingQueueSize, DEFAULT_ANALYZER_THREADS);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param maxInFlightFetches  the maximum number of fetches (and URI sets)
+     *                            that are handled in parallel
+     * @param processingThreads   the number of threads used to decompress and
+     *                            analyze fetched data
+     * @param processingQueueSize the maximum number of fetched URIs waiting for
+     *                            being processed
+     * @param analyzerThreads     the number of threads used to run the
+     *                            analyzers of a single file in parallel
+     */
+    public WorkerPipelineConfiguration(int maxInFlightFetches, int processingThreads, int processingQueueSize,
+            int analyzerThreads) {
+        if (maxInFlightFetches < 1) {
+            throw new IllegalArgumentException("The maximum number of in-flight fetches has to be positive.");
+        }
+        if (processingThreads < 1) {
+            throw new IllegalArgumentException("The number of processing threads has to be positive.");
+        }
+        if (processingQueueSize < 0) {
+            throw new IllegalArgumentException("The size of the processing queue can not be negative.");
+        }
+        if (analyzerThreads < 1) {
+            throw new IllegalArgumentException("The number of analyzer threads has to be positive.");
+        }
+        this.maxInFlightFetches = maxInFlightFetches;
+        this.processingThreads = processingThreads;
+        this.processingQueueSize = processingQueueSize;
+        this.analyzerThreads = analyzerThreads;
+    }
+
+    /**
+     * Creates the configuration based on the environment variables. Variables
+     * that are not defined are replaced by their default values.
+     *
+     * @return the configuration of the worker pipeline
+     */
+    public static WorkerPipelineConfiguration getWorkerPipelineConfiguration() {
+        int maxInFlightFetches = EnvVariables.getInt(MAX_IN_FLIGHT_FETCHES_KEY, DEFAULT_MAX_IN_FLIGHT_FETCHES,
+                LOGGER);
+        int processingThreads = EnvVariables.getInt(PROCESSING_THREADS_KEY, DEFAULT_PROCESSING_THREADS, LOGGER);
+        int processingQueueSize = EnvVariables.getInt(PROCESSING_QUEUE_SIZE_KEY, 2 * processingThreads, LOGGER);
+        int analyzerThreads = EnvVariables.getInt(ANALYZER_THREADS_KEY, DEFAULT_ANALYZER_THREADS, LOGGER);
+        LOGGER.info("The worker will use up to {} parallel fetches, {} processing threads and {} analyzer threads.",
+                maxInFlightFetches, processingThreads, analyzerThreads);
+        return new WorkerPipelineConfiguration(maxInFlightFetches, processingThreads, processingQueueSize,
+                analyzerThreads);
+    }
+
+    public int getMaxInFlightFetches() {
+        return maxInFlightFetches;
+    }
+
+    public int getProcessingThreads() {
+        return processingThreads;
+    }
+
+    public int getProcessingQueueSize() {
+        return processingQueueSize;
+    }
+
+    public int getAnalyzerThreads() {
+        return analyzerThreads;
+    }
+}
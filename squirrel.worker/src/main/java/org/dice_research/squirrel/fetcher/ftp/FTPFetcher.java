@@ -35,7 +35,6 @@ public class FTPFetcher implements Fetcher {
     protected static final Set<String> ACCEPTED_SCHEMES = new HashSet<String>(Arrays.asList("ftp", "ftps"));
 
     protected File dataDirectory = FileUtils.getTempDirectory();
-    private FTPRecursiveFetcher recursiveFetcher;
 
     @Override
     public File fetch(CrawleableUri uri, Delayer delayer) {
@@ -75,7 +74,7 @@ public class FTPFetcher implements Fetcher {
 
             if (client.mlistFile(uri.getUri().getPath()).isDirectory()) {
                 Path path = Files.createTempDirectory("file_");
-                recursiveFetcher = new FTPRecursiveFetcher(path);
+                FTPRecursiveFetcher recursiveFetcher = new FTPRecursiveFetcher(path);
                 recursiveFetcher.listDirectory(client, uri.getUri().getPath(), "", 0);
                 dataFile = path.toFile();
 
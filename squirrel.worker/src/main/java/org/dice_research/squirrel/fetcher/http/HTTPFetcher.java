@@ -61,6 +61,12 @@ public class HTTPFetcher implements Fetcher {
      * {@code "https"}).
      */
     protected static final Set<String> ACCEPTED_SCHEMES = new HashSet<String>(Arrays.asList("http", "https"));
+    /**
+     * The maximum number of connections the default HTTP client keeps open at the
+     * same time. Since a worker might fetch several URIs in parallel, this is
+     * higher than the default of the {@link PoolingHttpClientConnectionManager}.
+     */
+    public static final int DEFAULT_MAX_CONNECTIONS = 256;
 
     /**
      * The value which will be used for the HTTP Accept header if the give
@@ -86,14 +92,20 @@ public class HTTPFetcher implements Fetcher {
     }
 
     public HTTPFetcher(String userAgent) {
-        this(HttpClientBuilder.create().setConnectionManager(new PoolingHttpClientConnectionManager())
-                .setUserAgent(userAgent).build());
+        this(HttpClientBuilder.create().setConnectionManager(createConnectionManager()).setUserAgent(userAgent)
+                .build());
     }
 
     public HTTPFetcher(CloseableHttpClient client) {
         this.client = client;
     }
 
+    protected static PoolingHttpClientConnectionManager createConnectionManager() {
+        PoolingHttpClientConnectionManager manager = new PoolingHttpClientConnectionManager();
+        manager.setMaxTotal(DEFAULT_MAX_CONNECTIONS);
+        return manager;
+    }
+
     @Override
     public File fetch(CrawleableUri uri, Delayer delayer) {
         // Check whether this fetcher can handle the given URI
@@ -152,9 +152,11 @@ public class CrawlingActivity implements Serializable {
     protected String getStepsAsString() {
         StringBuilder builder = new StringBuilder();
         builder.append("Steps of crawling:");
-        for (String step : steps) {
-            builder.append("\n");
-            builder.append(step);
+        synchronized (steps) {
+            for (String step : steps) {
+                builder.append("\n");
+                builder.append(step);
+            }
         }
         return builder.toString();
     }
@@ -194,7 +196,10 @@ public class CrawlingActivity implements Serializable {
             }
             builder.append(']');
         }
-        steps.add(builder.toString());
+        // analyzers of the same URI might run in parallel
+        synchronized (steps) {
+            steps.add(builder.toString());
+        }
     }
 
     public void setNumberOfTriples(long numberOfTriples) {
@@ -0,0 +1,382 @@
+package org.dice_research.squirrel.robots;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import crawlercommons.fetcher.http.BaseHttpFetcher;
+import crawlercommons.robots.BaseRobotRules;
+import crawlercommons.robots.BaseRobotsParser;
+import crawlercommons.robots.RobotUtils;
+import crawlercommons.robots.SimpleRobotRulesParser;
+
+/**
+ * A {@link RobotsManager} that caches the rules of the robots.txt files. In
+ * contrast to the {@link RobotsManagerImpl}, the rules are cached per origin
+ * (scheme, host and port) since a robots.txt file is only valid for its
+ * origin. The cache can be shared by all threads of a worker.
+ *
+ * <ul>
+ * <li>Cached rules expire after a time to live. Rules of robots.txt files that
+ * couldn't be fetched because of a server or network error (i.e., rules that
+ * defer visits) are cached as well but expire after a shorter time.</li>
+ * <li>If several threads need the rules of the same origin at the same time,
+ * only one of them fetches the robots.txt file while the others wait for its
+ * result.</li>
+ * <li>If the cache exceeds its maximum size, the least recently used tenth of
+ * the entries is removed.</li>
+ * <li>If a cache file is given, the cache is loaded from this file and written
+ * to it when the manager is closed. Hence, the rules survive a restart of the
+ * worker. Rules of failed fetches are not written.</li>
+ * </ul>
+ */
+public class CachingRobotsManager implements RobotsManager, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CachingRobotsManager.class);
+
+    private static final String ROBOTS_FILE_NAME = "/robots.txt";
+    private static final long DEFAULT_MIN_WAITING_TIME = 2000;
+
+    /**
+     * The default maximum number of cached origins.
+     */
+    public static final int DEFAULT_MAX_SIZE = 100000;
+    /**
+     * The default time to live of cached rules (24 hours).
+     */
+    public static final long DEFAULT_TTL = TimeUnit.HOURS.toMillis(24);
+    /**
+     * The default time to live of cached rules of failed fetches (15 minutes).
+     */
+    public static final long DEFAULT_FAILURE_TTL = TimeUnit.MINUTES.toMillis(15);
+
+    private long defaultMinWaitingTime = DEFAULT_MIN_WAITING_TIME;
+    private BaseHttpFetcher fetcher;
+    private BaseRobotsParser parser;
+    private int maxSize;
+    private long ttl;
+    private long failureTtl;
+    private File cacheFile;
+
+    protected Map<String, CacheEntry> cache = new ConcurrentHashMap<>();
+    protected ReentrantLock evictionLock = new ReentrantLock();
+
+    private AtomicLong hits = new AtomicLong();
+    private AtomicLong fetches = new AtomicLong();
+    private AtomicLong failedFetches = new AtomicLong();
+    private AtomicLong evictions = new AtomicLong();
+
+    public CachingRobotsManager(BaseHttpFetcher fetcher) {
+        this(fetcher, new SimpleRobotRulesParser(), DEFAULT_MAX_SIZE, DEFAULT_TTL, DEFAULT_FAILURE_TTL, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param fetcher    the fetcher used to retrieve the robots.txt files
+     * @param parser     the parser of the robots.txt files
+     * @param maxSize    the maximum number of cached origins
+     * @param ttl        the time to live of cached rules in milliseconds
+     * @param failureTtl the time to live of rules of robots.txt files that
+     *                   couldn't be fetched in milliseconds
+     * @param cacheFile  the file the cache is loaded from and written to or
+     *                   {@code null} if the cache should only be kept in
+     *                   memory
+     */
+    public CachingRobotsManager(BaseHttpFetcher fetcher, BaseRobotsParser parser, int maxSize, long ttl,
+            long failureTtl, File cacheFile) {
+        this.fetcher = fetcher;
+        this.parser = parser;
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+        this.failureTtl = failureTtl;
+        this.cacheFile = cacheFile;
+        if ((cacheFile != null) && cacheFile.exists()) {
+            load(cacheFile);
+        }
+    }
+
+    protected BaseRobotRules getRules(CrawleableUri curi) {
+        URI uri = curi.getUri();
+        String origin = getOrigin(uri);
+        if (origin == null) {
+            LOGGER.error("Couldn't determine the origin of {}. Returning rules for HTTP 400.", uri);
+            return parser.failedFetch(400);
+        }
+        while (true) {
+            long now = currentTime();
+            CacheEntry entry = cache.get(origin);
+            if ((entry != null) && (entry.expiresAt > now)) {
+                hits.incrementAndGet();
+                entry.lastAccess = now;
+                // waits if another thread is still fetching the rules
+                return entry.rules.join();
+            }
+            CacheEntry newEntry = new CacheEntry(now);
+            boolean isLoader = (entry == null) ? (cache.putIfAbsent(origin, newEntry) == null)
+                    : cache.replace(origin, entry, newEntry);
+            if (isLoader) {
+                BaseRobotRules rules = null;
+                try {
+                    rules = fetchRules(uri);
+                } finally {
+                    if (rules == null) {
+                        // make sure that waiting threads do not wait forever
+                        rules = parser.failedFetch(500);
+                    }
+                    newEntry.expiresAt = currentTime() + (rules.isDeferVisits() ? failureTtl : ttl);
+                    newEntry.rules.complete(rules);
+                }
+                if (cache.size() > maxSize) {
+                    evict();
+                }
+                return rules;
+            }
+            // another thread has replaced the entry in the meantime
+        }
+    }
+
+    protected BaseRobotRules fetchRules(URI uri) {
+        fetches.incrementAndGet();
+        BaseRobotRules rules;
+        try {
+            rules = RobotUtils.getRobotRules(fetcher, parser,
+                    new URL(uri.getScheme(), uri.getHost(), uri.getPort(), ROBOTS_FILE_NAME));
+        } catch (MalformedURLException e) {
+            LOGGER.error("URL of robots.txt file is malformed. Returning rules for HTTP 400.");
+            rules = parser.failedFetch(400);
+        }
+        if (rules.isDeferVisits()) {
+            failedFetches.incrementAndGet();
+        }
+        return rules;
+    }
+
+    /**
+     * Removes the least recently used entries until the cache contains only 90%
+     * of its maximum size. Entries that are still loaded are not removed. If
+     * another thread is already removing entries, this method returns
+     * immediately.
+     */
+    protected void evict() {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            int size = cache.size();
+            int target = (int) (maxSize * 0.9);
+            if (size <= target) {
+                return;
+            }
+            List<Entry<String, CacheEntry>> entries = new ArrayList<>(size);
+            long[] accessTimes = new long[size];
+            int count = 0;
+            for (Entry<String, CacheEntry> e : cache.entrySet()) {
+                if (e.getValue().rules.isDone() && (count < accessTimes.length)) {
+                    entries.add(e);
+                    accessTimes[count] = e.getValue().lastAccess;
+                    ++count;
+                }
+            }
+            int toRemove = Math.min(size - target, count);
+            if (toRemove <= 0) {
+                return;
+            }
+            Arrays.sort(accessTimes, 0, count);
+            long threshold = accessTimes[toRemove - 1];
+            int removed = 0;
+            for (Entry<String, CacheEntry> e : entries) {
+                if ((removed < toRemove) && (e.getValue().lastAccess <= threshold)
+                        && cache.remove(e.getKey(), e.getValue())) {
+                    ++removed;
+                }
+            }
+            evictions.addAndGet(removed);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isUriCrawlable(CrawleableUri curi) {
+        BaseRobotRules rules = getRules(curi);
+        return rules.isAllowed(curi.getUri().toString());
+    }
+
+    @Override
+    public long getMinWaitingTime(CrawleableUri curi) {
+        BaseRobotRules rules = getRules(curi);
+        return Math.max(rules.getCrawlDelay(), defaultMinWaitingTime);
+    }
+
+    /**
+     * Returns the origin of the given URI, i.e., its scheme, host and port. The
+     * default port of HTTP and HTTPS is added if the URI does not contain a
+     * port.
+     *
+     * @param uri the URI for which the origin should be returned
+     * @return the origin or {@code null} if the URI does not have a scheme or
+     *         host
+     */
+    public static String getOrigin(URI uri) {
+        String scheme = uri.getScheme();
+        String host = uri.getHost();
+        if ((scheme == null) || (host == null)) {
+            return null;
+        }
+        scheme = scheme.toLowerCase(Locale.ROOT);
+        int port = uri.getPort();
+        if (port < 0) {
+            if ("http".equals(scheme)) {
+                port = 80;
+            } else if ("https".equals(scheme)) {
+                port = 443;
+            }
+        }
+        StringBuilder builder = new StringBuilder(scheme.length() + host.length() + 9);
+        builder.append(scheme).append("://").append(host.toLowerCase(Locale.ROOT));
+        if (port >= 0) {
+            builder.append(':').append(port);
+        }
+        return builder.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    protected void load(File file) {
+        long now = currentTime();
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            int count = in.readInt();
+            for (int i = 0; i < count; ++i) {
+                String origin = (String) in.readObject();
+                long expiresAt = in.readLong();
+                BaseRobotRules rules = (BaseRobotRules) in.readObject();
+                if (expiresAt > now) {
+                    CacheEntry entry = new CacheEntry(now);
+                    entry.expiresAt = expiresAt;
+                    entry.rules.complete(rules);
+                    cache.put(origin, entry);
+                }
+            }
+            LOGGER.info("Loaded the rules of {} origins from {}.", cache.size(), file);
+        } catch (Exception e) {
+            LOGGER.warn("Couldn't load the cached robots.txt rules from " + file + ". Starting with an empty cache.",
+                    e);
+            cache.clear();
+        }
+    }
+
+    /**
+     * Writes the cached rules to the given file. Rules of failed fetches and
+     * expired rules are not written.
+     *
+     * @param file the file to which the cache should be written
+     * @throws IOException if an error occurs while writing the file
+     */
+    public void save(File file) throws IOException {
+        long now = currentTime();
+        List<Entry<String, CacheEntry>> entries = new ArrayList<>(cache.size());
+        for (Entry<String, CacheEntry> e : cache.entrySet()) {
+            CacheEntry entry = e.getValue();
+            if (entry.rules.isDone() && (entry.expiresAt > now) && !entry.rules.join().isDeferVisits()) {
+                entries.add(e);
+            }
+        }
+        try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(entries.size());
+            for (Entry<String, CacheEntry> e : entries) {
+                out.writeObject(e.getKey());
+                out.writeLong(e.getValue().expiresAt);
+                out.writeObject(e.getValue().rules.join());
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (cacheFile != null) {
+            save(cacheFile);
+        }
+    }
+
+    protected long currentTime() {
+        return System.currentTimeMillis();
+    }
+
+    public void setDefaultMinWaitingTime(long defaultMinWaitingTime) {
+        this.defaultMinWaitingTime = defaultMinWaitingTime;
+    }
+
+    /**
+     * @return the number of origins in the cache
+     */
+    public int getCacheSize() {
+        return cache.size();
+    }
+
+    /**
+     * @return the number of requests that have been answered from the cache
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of robots.txt files that have been fetched
+     */
+    public long getFetches() {
+        return fetches.get();
+    }
+
+    /**
+     * @return the number of robots.txt files that couldn't be fetched
+     */
+    public long getFailedFetches() {
+        return failedFetches.get();
+    }
+
+    /**
+     * @return the number of entries that have been removed from the cache
+     *         because of its size bound
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * The cached rules of an origin. The rules are completed by the thread that
+     * fetches them. Until then, the entry does not expire.
+     */
+    protected static class CacheEntry {
+        protected final CompletableFuture<BaseRobotRules> rules = new CompletableFuture<>();
+        protected volatile long expiresAt = Long.MAX_VALUE;
+        protected volatile long lastAccess;
+
+        public CacheEntry(long now) {
+            this.lastAccess = now;
+        }
+    }
+}
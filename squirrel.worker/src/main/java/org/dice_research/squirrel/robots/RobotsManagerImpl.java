@@ -16,6 +16,11 @@ import crawlercommons.robots.BaseRobotsParser;
 import crawlercommons.robots.RobotUtils;
 import crawlercommons.robots.SimpleRobotRulesParser;
 
+/**
+ * A simple {@link RobotsManager} that keeps only the rules of the last host.
+ * This class is not thread-safe. If several threads share a robots manager,
+ * the {@link CachingRobotsManager} should be used.
+ */
 public class RobotsManagerImpl implements RobotsManager {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(RobotsManagerImpl.class);
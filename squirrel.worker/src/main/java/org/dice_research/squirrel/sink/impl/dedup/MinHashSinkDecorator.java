@@ -0,0 +1,151 @@
+package org.dice_research.squirrel.sink.impl.dedup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.jena.graph.Triple;
+import org.apache.jena.sparql.core.Quad;
+import org.dice_research.squirrel.Constants;
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.deduplication.hashing.impl.AbstractMinHashFunction;
+import org.dice_research.squirrel.deduplication.hashing.impl.MinHashFunction;
+import org.dice_research.squirrel.deduplication.hashing.impl.MinHashValue;
+import org.dice_research.squirrel.deduplication.hashing.impl.SimpleTripleHashFunction;
+import org.dice_research.squirrel.sink.AbstractSinkDecorator;
+import org.dice_research.squirrel.sink.Sink;
+import org.hobbit.utils.EnvVariables;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sink decorator computing the MinHash signature of a crawled graph while its
+ * triples are handed to the decorated sink. When the sink is closed for a URI,
+ * the signature is attached to the URI as {@link MinHashValue} with the key
+ * {@link Constants#URI_HASH_KEY}. Since the same URI object is sent to the
+ * frontier and the deduplicator after the crawling, the deduplicator gets the
+ * signature without reading the graph from the triple store.
+ *
+ * <p>
+ * The triples of quads are added to the signature of their URI independent of
+ * the graph of the quad. Triples with blank nodes are ignored. The data of the
+ * metadata graph does not get a signature.
+ * </p>
+ *
+ * <p>
+ * Computing the signatures is only needed if the deduplication is active.
+ * Hence, a sink should be created using
+ * {@link #decorateIfDeduplicationActive(Sink)}.
+ * </p>
+ */
+public class MinHashSinkDecorator extends AbstractSinkDecorator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MinHashSinkDecorator.class);
+
+    protected AbstractMinHashFunction hashFunction;
+    protected CrawleableUri metadataGraphUri = new CrawleableUri(Constants.DEFAULT_META_DATA_GRAPH_URI);
+    /**
+     * The signatures of the URIs for which the sink is currently open.
+     */
+    protected Map<CrawleableUri, int[]> signatures = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor using a {@link MinHashFunction} with its default
+     * configuration. Its signatures fit to the default configuration of the
+     * LSH index of the deduplicator.
+     *
+     * @param decorated the sink to which all calls are forwarded
+     */
+    public MinHashSinkDecorator(Sink decorated) {
+        this(decorated, new MinHashFunction(new SimpleTripleHashFunction()));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param decorated    the sink to which all calls are forwarded
+     * @param hashFunction the function used to compute the signatures
+     */
+    public MinHashSinkDecorator(Sink decorated, AbstractMinHashFunction hashFunction) {
+        super(decorated);
+        this.hashFunction = hashFunction;
+    }
+
+    /**
+     * Decorates the given sink with a {@link MinHashSinkDecorator} if the
+     * deduplication is active (see {@link Constants#DEDUPLICATION_ACTIVE_KEY}).
+     * Otherwise, the given sink is returned.
+     *
+     * @param sink the sink that should be decorated
+     * @return the decorated sink or the given sink if the deduplication is not
+     *         active
+     */
+    public static Sink decorateIfDeduplicationActive(Sink sink) {
+        if (EnvVariables.getBoolean(Constants.DEDUPLICATION_ACTIVE_KEY, Constants.DEFAULT_DEDUPLICATION_ACTIVE,
+                LOGGER)) {
+            return new MinHashSinkDecorator(sink);
+        } else {
+            return sink;
+        }
+    }
+
+    @Override
+    public void openSinkForUri(CrawleableUri uri) {
+        if (!uri.equals(metadataGraphUri)) {
+            signatures.put(uri, hashFunction.createSignature());
+        }
+        super.openSinkForUri(uri);
+    }
+
+    @Override
+    public void addTriple(CrawleableUri uri, Triple triple) {
+        updateSignature(uri, triple);
+        super.addTriple(uri, triple);
+    }
+
+    @Override
+    public void addQuad(CrawleableUri uri, Quad quad) {
+        updateSignature(uri, quad.asTriple());
+        decorated.addQuad(uri, quad);
+    }
+
+    protected void updateSignature(CrawleableUri uri, Triple triple) {
+        int[] signature = signatures.get(uri);
+        if (signature != null) {
+            // analyzers of the same URI might run in parallel
+            synchronized (signature) {
+                hashFunction.update(signature, triple);
+            }
+        }
+    }
+
+    @Override
+    public void addData(CrawleableUri uri, InputStream stream) {
+        decorated.addData(uri, stream);
+    }
+
+    @Override
+    public void closeSinkForUri(CrawleableUri uri) {
+        try {
+            super.closeSinkForUri(uri);
+        } finally {
+            int[] signature = signatures.remove(uri);
+            if (signature != null) {
+                synchronized (signature) {
+                    uri.addData(Constants.URI_HASH_KEY, new MinHashValue(hashFunction.finish(signature)));
+                }
+            }
+        }
+    }
+
+    @Override
+    public void flushMetadata() {
+        decorated.flushMetadata();
+    }
+
+    @Override
+    public void close() throws IOException {
+        decorated.close();
+    }
+}
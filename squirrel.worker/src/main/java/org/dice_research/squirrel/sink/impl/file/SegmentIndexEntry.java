@@ -0,0 +1,88 @@
+package org.dice_research.squirrel.sink.impl.file;
+
+/**
+ * An entry of the index of a segment written by the
+ * {@link SegmentedFileBasedSink}. It points to a chunk of data of a crawled
+ * URI. The chunk is part of a compressed block of the segment. An entry is
+ * stored as a single tab separated line.
+ */
+public class SegmentIndexEntry {
+
+    /**
+     * Marks a chunk containing N-Quads.
+     */
+    public static final char QUADS = 'Q';
+    /**
+     * Marks a chunk containing unstructured data.
+     */
+    public static final char DATA = 'D';
+
+    /**
+     * The crawled URI the data belongs to.
+     */
+    public final String uri;
+    /**
+     * The type of the data ({@link #QUADS} or {@link #DATA}).
+     */
+    public final char type;
+    /**
+     * The position of the compressed block in the segment file.
+     */
+    public final long blockOffset;
+    /**
+     * The length of the compressed block.
+     */
+    public final int blockLength;
+    /**
+     * The position of the chunk in the uncompressed block.
+     */
+    public final int offset;
+    /**
+     * The length of the chunk in the uncompressed block.
+     */
+    public final int length;
+
+    public SegmentIndexEntry(String uri, char type, long blockOffset, int blockLength, int offset, int length) {
+        this.uri = uri;
+        this.type = type;
+        this.blockOffset = blockOffset;
+        this.blockLength = blockLength;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * @return the line representing this entry in the index file (without line
+     *         break)
+     */
+    public String toLine() {
+        StringBuilder builder = new StringBuilder(uri.length() + 48);
+        builder.append(uri).append('\t');
+        builder.append(type).append('\t');
+        builder.append(blockOffset).append('\t');
+        builder.append(blockLength).append('\t');
+        builder.append(offset).append('\t');
+        builder.append(length);
+        return builder.toString();
+    }
+
+    /**
+     * Parses the given line of an index file.
+     *
+     * @param line the line that should be parsed
+     * @return the entry represented by the line
+     * @throws IllegalArgumentException if the line can not be parsed
+     */
+    public static SegmentIndexEntry parse(String line) {
+        String[] parts = line.split("\t");
+        if ((parts.length != 6) || (parts[1].length() != 1)) {
+            throw new IllegalArgumentException("Couldn't parse the index entry \"" + line + "\".");
+        }
+        try {
+            return new SegmentIndexEntry(parts[0], parts[1].charAt(0), Long.parseLong(parts[2]),
+                    Integer.parseInt(parts[3]), Integer.parseInt(parts[4]), Integer.parseInt(parts[5]));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Couldn't parse the index entry \"" + line + "\".", e);
+        }
+    }
+}
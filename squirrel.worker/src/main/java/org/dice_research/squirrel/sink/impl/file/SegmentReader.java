@@ -0,0 +1,174 @@
+package org.dice_research.squirrel.sink.impl.file;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Reads the data of single crawled URIs from a segment written by the
+ * {@link SegmentedFileBasedSink}. A segment consists of a segment file
+ * containing the N-Quads and, optionally, a data segment file containing the
+ * unstructured data. The indexes of both files are loaded into memory. Reading
+ * the data of a URI only decompresses the blocks containing its data.
+ */
+public class SegmentReader implements Closeable {
+
+    protected RandomAccessFile segment;
+    protected RandomAccessFile dataSegment;
+    protected Map<String, List<SegmentIndexEntry>> index = new LinkedHashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param segmentFile the segment file containing the N-Quads. Its index and
+     *                    the data segment file (see
+     *                    {@link SegmentedFileBasedSink#getDataSegmentFile(File)})
+     *                    with its index are expected next to it (see
+     *                    {@link SegmentedFileBasedSink#getIndexFile(File)}).
+     *                    Each of the two files may be missing if the segment
+     *                    does not contain data of its type.
+     * @throws IOException if the segment or its indexes can not be read
+     */
+    public SegmentReader(File segmentFile) throws IOException {
+        File dataSegmentFile = SegmentedFileBasedSink.getDataSegmentFile(segmentFile);
+        if (!segmentFile.exists() && !dataSegmentFile.exists()) {
+            throw new FileNotFoundException("Neither " + segmentFile + " nor " + dataSegmentFile + " exists.");
+        }
+        try {
+            if (segmentFile.exists()) {
+                readIndex(segmentFile, SegmentIndexEntry.QUADS);
+                segment = new RandomAccessFile(segmentFile, "r");
+            }
+            if (dataSegmentFile.exists()) {
+                readIndex(dataSegmentFile, SegmentIndexEntry.DATA);
+                dataSegment = new RandomAccessFile(dataSegmentFile, "r");
+            }
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Adds the entries of the index of the given file to the index of this
+     * reader.
+     *
+     * @param file the segment file or data segment file
+     * @param type the type of the chunks of the file
+     * @throws IOException if the index can not be read or contains an entry of
+     *                     a different type
+     */
+    protected void readIndex(File file, char type) throws IOException {
+        File indexFile = SegmentedFileBasedSink.getIndexFile(file);
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(indexFile), StandardCharsets.UTF_8))) {
+            String line = reader.readLine();
+            while (line != null) {
+                if (!line.isEmpty()) {
+                    SegmentIndexEntry entry = SegmentIndexEntry.parse(line);
+                    if (entry.type != type) {
+                        throw new IOException("The index of " + file + " contains the unexpected entry \"" + line
+                                + "\".");
+                    }
+                    index.computeIfAbsent(entry.uri, k -> new ArrayList<>()).add(entry);
+                }
+                line = reader.readLine();
+            }
+        }
+    }
+
+    /**
+     * @return the crawled URIs of this segment
+     */
+    public Set<String> getUris() {
+        return Collections.unmodifiableSet(index.keySet());
+    }
+
+    /**
+     * Returns the N-Quads of the given URI.
+     *
+     * @param uri the crawled URI
+     * @return a stream containing the N-Quads or {@code null} if the segment
+     *         does not contain quads of the given URI
+     * @throws IOException if the segment can not be read
+     */
+    public InputStream openQuads(String uri) throws IOException {
+        return open(uri, SegmentIndexEntry.QUADS);
+    }
+
+    /**
+     * Returns the unstructured data of the given URI.
+     *
+     * @param uri the crawled URI
+     * @return a stream containing the data or {@code null} if the segment does
+     *         not contain data of the given URI
+     * @throws IOException if the segment can not be read
+     */
+    public InputStream openData(String uri) throws IOException {
+        return open(uri, SegmentIndexEntry.DATA);
+    }
+
+    protected InputStream open(String uri, char type) throws IOException {
+        List<SegmentIndexEntry> entries = index.get(uri);
+        if (entries == null) {
+            return null;
+        }
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        byte[] block = null;
+        long blockOffset = -1;
+        for (SegmentIndexEntry entry : entries) {
+            if (entry.type == type) {
+                // several chunks might be part of the same block
+                if (entry.blockOffset != blockOffset) {
+                    block = readBlock((type == SegmentIndexEntry.DATA) ? dataSegment : segment,
+                            entry.blockOffset, entry.blockLength);
+                    blockOffset = entry.blockOffset;
+                }
+                result.write(block, entry.offset, entry.length);
+            }
+        }
+        return (result.size() > 0) ? new ByteArrayInputStream(result.toByteArray()) : null;
+    }
+
+    protected byte[] readBlock(RandomAccessFile file, long offset, int length) throws IOException {
+        byte[] compressed = new byte[length];
+        synchronized (file) {
+            file.seek(offset);
+            file.readFully(compressed);
+        }
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return IOUtils.toByteArray(in);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (segment != null) {
+                segment.close();
+            }
+        } finally {
+            if (dataSegment != null) {
+                dataSegment.close();
+            }
+        }
+    }
+}
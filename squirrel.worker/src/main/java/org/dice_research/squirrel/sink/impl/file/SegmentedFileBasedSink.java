@@ -0,0 +1,719 @@
+package org.dice_research.squirrel.sink.impl.file;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.RDFFormat;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFWriter;
+import org.apache.jena.sparql.core.Quad;
+import org.dice_research.squirrel.Constants;
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.metadata.CrawlingActivity;
+import org.dice_research.squirrel.sink.Sink;
+import org.dice_research.squirrel.sink.impl.sparql.SparqlBasedSink;
+import org.dice_research.squirrel.utils.Closer;
+import org.dice_research.squirrel.vocab.Squirrel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A file based sink that writes the data of all crawled URIs into a small
+ * number of large segment files instead of creating one file per URI.
+ *
+ * <p>
+ * The triples of a crawled URI are written as N-Quads with the result graph
+ * of the URI (named like the graphs of the {@link SparqlBasedSink}) as graph.
+ * The data of several URIs is collected in blocks that are compressed in
+ * parallel. Every block is a GZIP member, i.e., a segment file is a valid GZIP
+ * file containing only N-Quads. The unstructured data of the crawled URIs is
+ * written to a separate data segment file (see
+ * {@link #getDataSegmentFile(int)}) with the same id. A new segment is started
+ * if the current segment exceeds a given size or age.
+ * </p>
+ *
+ * <p>
+ * For every segment file and data segment file, an index file (see
+ * {@link #getIndexFile(File)}) is written. It contains the position of the data of every URI (see
+ * {@link SegmentIndexEntry}) and enables the {@link SegmentReader} to read the
+ * data of a single URI without decompressing the complete segment.
+ * </p>
+ */
+public class SegmentedFileBasedSink implements Sink {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SegmentedFileBasedSink.class);
+
+    /**
+     * The default size (in bytes) of an uncompressed block (1 MiB).
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 1 << 20;
+    /**
+     * The default size (in bytes) of the uncompressed data of a segment (1 GiB).
+     */
+    public static final long DEFAULT_MAX_SEGMENT_SIZE = 1L << 30;
+    /**
+     * The default time (in ms) after which a new segment is started (1h).
+     */
+    public static final long DEFAULT_MAX_SEGMENT_TIME = 3600000;
+    /**
+     * The default time (in ms) after which an incomplete block is written.
+     */
+    public static final long DEFAULT_LINGER_TIME = 5000;
+
+    public static final String SEGMENT_FILE_SUFFIX = ".nq.gz";
+    public static final String DATA_SEGMENT_FILE_SUFFIX = ".data.gz";
+    public static final String INDEX_FILE_SUFFIX = ".idx";
+
+    /**
+     * Marks the end of the queue of the writer.
+     */
+    private static final Block END_OF_QUEUE = new Block(-1, SegmentIndexEntry.QUADS, 0);
+
+    protected File outputDirectory;
+    protected int blockSize;
+    protected long maxSegmentSize;
+    protected long maxSegmentTime;
+    protected long lingerTime;
+    protected CrawleableUri metadataGraphUri = new CrawleableUri(Constants.DEFAULT_META_DATA_GRAPH_URI);
+    /**
+     * The buffers of the URIs that are currently crawled.
+     */
+    protected Map<String, UriBuffer> buffers = new ConcurrentHashMap<>();
+    /**
+     * Prefix of the segment names to make sure that the segments of different
+     * runs do not overwrite each other.
+     */
+    protected String segmentPrefix = "segment_" + System.currentTimeMillis() + "_";
+
+    /**
+     * Guards the current blocks and the information about the current segment.
+     * The writer thread only uses {@link ReentrantLock#tryLock()} since a
+     * crawling thread might hold the lock while it waits for the writer.
+     */
+    protected ReentrantLock blockLock = new ReentrantLock();
+    /**
+     * The block of N-Quads that is currently filled.
+     */
+    protected Block currentBlock = null;
+    /**
+     * The block of unstructured data that is currently filled.
+     */
+    protected Block currentDataBlock = null;
+    /**
+     * The id of the segment to which new blocks are written.
+     */
+    protected int segmentId = 0;
+    /**
+     * The uncompressed size of the blocks of the current segment.
+     */
+    protected long segmentSize = 0;
+    /**
+     * The time at which the current segment has been started.
+     */
+    protected long segmentStart;
+
+    protected ExecutorService compressionExecutor;
+    /**
+     * The compressed blocks in the order in which they are written. The queue
+     * is bounded to block the crawling threads if the compression can not keep
+     * up.
+     */
+    protected BlockingQueue<Block> writeQueue;
+    protected Thread writerThread;
+    protected volatile boolean closed = false;
+
+    private AtomicLong writtenBlocks = new AtomicLong();
+    private AtomicLong writtenSegments = new AtomicLong();
+
+    /**
+     * Constructor using the default configuration.
+     *
+     * @param outputDirectory the directory to which the segments are written
+     */
+    public SegmentedFileBasedSink(File outputDirectory) {
+        this(outputDirectory, DEFAULT_BLOCK_SIZE, DEFAULT_MAX_SEGMENT_SIZE, DEFAULT_MAX_SEGMENT_TIME,
+                DEFAULT_LINGER_TIME, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param outputDirectory    the directory to which the segments are written
+     * @param blockSize          the size (in bytes) of an uncompressed block
+     * @param maxSegmentSize     the size (in bytes) of the uncompressed data
+     *                           after which a new segment is started
+     * @param maxSegmentTime     the time (in ms) after which a new segment is
+     *                           started
+     * @param lingerTime         the time (in ms) after which an incomplete block
+     *                           is written
+     * @param compressionThreads the number of threads compressing the blocks
+     */
+    public SegmentedFileBasedSink(File outputDirectory, int blockSize, long maxSegmentSize, long maxSegmentTime,
+            long lingerTime, int compressionThreads) {
+        if (compressionThreads < 1) {
+            throw new IllegalArgumentException("The number of compression threads has to be positive.");
+        }
+        this.outputDirectory = outputDirectory;
+        this.blockSize = blockSize;
+        this.maxSegmentSize = maxSegmentSize;
+        this.maxSegmentTime = maxSegmentTime;
+        this.lingerTime = lingerTime;
+        segmentStart = System.currentTimeMillis();
+        AtomicInteger threadId = new AtomicInteger();
+        compressionExecutor = Executors.newFixedThreadPool(compressionThreads, r -> {
+            Thread thread = new Thread(r, "segment-compression-" + threadId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        writeQueue = new ArrayBlockingQueue<>(2 * compressionThreads);
+        writerThread = new Thread(this::write, "segment-writer");
+        writerThread.start();
+    }
+
+    @Override
+    public void openSinkForUri(CrawleableUri uri) {
+        buffers.put(uri.getUri().toString(), new UriBuffer(uri));
+    }
+
+    /**
+     * Returns the buffer of the given URI. If the sink has not been opened for
+     * the URI, it is opened.
+     */
+    protected UriBuffer getBuffer(CrawleableUri uri) {
+        UriBuffer buffer = buffers.get(uri.getUri().toString());
+        if (buffer == null) {
+            if (!uri.equals(metadataGraphUri)) {
+                LOGGER.warn("Sink has not been opened for the uri, sink will be opened.");
+            }
+            buffer = buffers.computeIfAbsent(uri.getUri().toString(), k -> new UriBuffer(uri));
+        }
+        return buffer;
+    }
+
+    @Override
+    public void addTriple(CrawleableUri uri, Triple triple) {
+        UriBuffer buffer = getBuffer(uri);
+        synchronized (buffer) {
+            buffer.add(new Quad(buffer.getGraph(), triple));
+        }
+    }
+
+    @Override
+    public void addQuad(CrawleableUri uri, Quad quad) {
+        UriBuffer buffer = getBuffer(uri);
+        synchronized (buffer) {
+            buffer.add(quad);
+        }
+    }
+
+    @Override
+    public void addData(CrawleableUri uri, InputStream stream) {
+        UriBuffer buffer = getBuffer(uri);
+        byte[] chunk = new byte[blockSize];
+        try {
+            int length = fill(stream, chunk);
+            while (length > 0) {
+                synchronized (buffer) {
+                    buffer.dataSegments.add(append(buffer.uriString, SegmentIndexEntry.DATA, chunk, length));
+                }
+                length = fill(stream, chunk);
+            }
+        } catch (IOException e) {
+            LOGGER.error("Exception while writing unstructed data of " + buffer.uriString + ".", e);
+        }
+    }
+
+    private static int fill(InputStream stream, byte[] chunk) throws IOException {
+        int length = 0;
+        int read = stream.read(chunk);
+        while (read >= 0) {
+            length += read;
+            if (length == chunk.length) {
+                break;
+            }
+            read = stream.read(chunk, length, chunk.length - length);
+        }
+        return length;
+    }
+
+    @Override
+    public void closeSinkForUri(CrawleableUri uri) {
+        UriBuffer buffer = buffers.remove(uri.getUri().toString());
+        if (buffer == null) {
+            LOGGER.info("Try to close Sink for an uri, without open it before. Do nothing.");
+            return;
+        }
+        synchronized (buffer) {
+            buffer.flush();
+        }
+        // Add provenance information
+        CrawlingActivity activity = (CrawlingActivity) uri.getData(Constants.URI_CRAWLING_ACTIVITY);
+        if ((activity != null) && !uri.equals(metadataGraphUri)) {
+            activity.setNumberOfTriples(buffer.numberOfQuads);
+            for (Integer id : buffer.segments) {
+                activity.addOutputResource(getSegmentFile(id).toURI().toString(), Squirrel.ResultFile);
+            }
+            for (Integer id : buffer.dataSegments) {
+                activity.addOutputResource(getDataSegmentFile(id).toURI().toString(), Squirrel.ResultFile);
+            }
+        }
+    }
+
+    @Override
+    public void flushMetadata() {
+        UriBuffer buffer = buffers.get(metadataGraphUri.getUri().toString());
+        if (buffer != null) {
+            synchronized (buffer) {
+                buffer.flush();
+            }
+        }
+    }
+
+    /**
+     * Appends the given chunk to the current block of its type.
+     *
+     * @param uri    the crawled URI the chunk belongs to
+     * @param type   the type of the chunk
+     * @param data   the array containing the chunk
+     * @param length the length of the chunk
+     * @return the id of the segment the chunk will be written to
+     */
+    protected int append(String uri, char type, byte[] data, int length) {
+        blockLock.lock();
+        try {
+            return appendToBlock(uri, type, data, length);
+        } finally {
+            blockLock.unlock();
+        }
+    }
+
+    private int appendToBlock(String uri, char type, byte[] data, int length) {
+        Block block = getCurrentBlock(type);
+        if (block == null) {
+            // start a new segment if the current segment is large or old enough
+            long now = System.currentTimeMillis();
+            if ((segmentSize > 0) && ((segmentSize >= maxSegmentSize) || ((now - segmentStart) >= maxSegmentTime))) {
+                // the block of the other type still belongs to the old segment
+                submitBlocks(true);
+                ++segmentId;
+                segmentSize = 0;
+                segmentStart = now;
+            }
+            block = new Block(segmentId, type, Math.max(blockSize, length));
+            setCurrentBlock(type, block);
+        }
+        block.append(uri, data, length);
+        int id = block.segmentId;
+        if (block.size() >= blockSize) {
+            submitBlock(type, true);
+        }
+        return id;
+    }
+
+    private Block getCurrentBlock(char type) {
+        return (type == SegmentIndexEntry.DATA) ? currentDataBlock : currentBlock;
+    }
+
+    private void setCurrentBlock(char type, Block block) {
+        if (type == SegmentIndexEntry.DATA) {
+            currentDataBlock = block;
+        } else {
+            currentBlock = block;
+        }
+    }
+
+    /**
+     * Hands the current blocks of both types over to the compression and the
+     * writer. The caller has to hold the {@link #blockLock}.
+     *
+     * @param wait see {@link #submitBlock(char, boolean)}
+     */
+    protected void submitBlocks(boolean wait) {
+        submitBlock(SegmentIndexEntry.QUADS, wait);
+        submitBlock(SegmentIndexEntry.DATA, wait);
+    }
+
+    /**
+     * Hands the current block of the given type over to the compression and
+     * the writer. The caller has to hold the {@link #blockLock}.
+     *
+     * @param type the type of the block ({@link SegmentIndexEntry#QUADS} or
+     *             {@link SegmentIndexEntry#DATA})
+     * @param wait whether the method should wait if the queue of the writer is
+     *             full. If {@code false}, the block is only submitted if the
+     *             queue has free capacity.
+     */
+    protected void submitBlock(char type, boolean wait) {
+        Block block = getCurrentBlock(type);
+        if (block == null) {
+            return;
+        }
+        // only the writer removes blocks from the queue, so the capacity can
+        // not shrink while we hold the lock
+        if (!wait && (writeQueue.remainingCapacity() == 0)) {
+            return;
+        }
+        block.compressed = compressionExecutor.submit(block::compress);
+        try {
+            writeQueue.put(block);
+        } catch (InterruptedException e) {
+            LOGGER.error("Interrupted while waiting for the writer. The block will be written later.", e);
+            Thread.currentThread().interrupt();
+            return;
+        }
+        segmentSize += block.size();
+        setCurrentBlock(type, null);
+    }
+
+    /**
+     * The loop of the writer thread. It writes the compressed blocks in the
+     * order in which they have been submitted and updates the index of the
+     * segment file or data segment file.
+     */
+    protected void write() {
+        int openSegmentId = -1;
+        SegmentOutput quadsOutput = null;
+        SegmentOutput dataOutput = null;
+        try {
+            while (true) {
+                Block block = writeQueue.poll(lingerTime, TimeUnit.MILLISECONDS);
+                if (block == null) {
+                    flushLingeringBlock();
+                    continue;
+                }
+                if (block == END_OF_QUEUE) {
+                    break;
+                }
+                byte[] compressed;
+                try {
+                    compressed = block.compressed.get();
+                } catch (ExecutionException e) {
+                    LOGGER.error("Couldn't compress block. Its data will be lost.", e);
+                    continue;
+                }
+                if (block.segmentId != openSegmentId) {
+                    closeSegment(quadsOutput, dataOutput);
+                    quadsOutput = null;
+                    dataOutput = null;
+                    openSegmentId = block.segmentId;
+                }
+                boolean isData = block.type == SegmentIndexEntry.DATA;
+                File segmentFile = isData ? getDataSegmentFile(block.segmentId) : getSegmentFile(block.segmentId);
+                try {
+                    if (isData) {
+                        if (dataOutput == null) {
+                            dataOutput = new SegmentOutput(segmentFile);
+                        }
+                        dataOutput.write(block, compressed);
+                    } else {
+                        if (quadsOutput == null) {
+                            quadsOutput = new SegmentOutput(segmentFile);
+                        }
+                        quadsOutput.write(block, compressed);
+                    }
+                    writtenBlocks.incrementAndGet();
+                } catch (IOException e) {
+                    LOGGER.error("Couldn't write block to segment " + segmentFile + ". Its data will be lost.", e);
+                }
+            }
+        } catch (InterruptedException e) {
+            LOGGER.error("The writer has been interrupted.", e);
+        } finally {
+            closeSegment(quadsOutput, dataOutput);
+        }
+    }
+
+    private void closeSegment(SegmentOutput quadsOutput, SegmentOutput dataOutput) {
+        if (quadsOutput != null) {
+            quadsOutput.close();
+        }
+        if (dataOutput != null) {
+            dataOutput.close();
+        }
+        if ((quadsOutput != null) || (dataOutput != null)) {
+            writtenSegments.incrementAndGet();
+        }
+    }
+
+    /**
+     * Submits the current block if it has not been filled within the linger
+     * time. Called by the writer if there is nothing else to do.
+     */
+    protected void flushLingeringBlock() {
+        if (blockLock.tryLock()) {
+            try {
+                long now = System.currentTimeMillis();
+                if ((currentBlock != null) && ((now - currentBlock.created) >= lingerTime)) {
+                    submitBlock(SegmentIndexEntry.QUADS, false);
+                }
+                if ((currentDataBlock != null) && ((now - currentDataBlock.created) >= lingerTime)) {
+                    submitBlock(SegmentIndexEntry.DATA, false);
+                }
+            } finally {
+                blockLock.unlock();
+            }
+        }
+    }
+
+    public File getSegmentFile(int id) {
+        return new File(outputDirectory, String.format("%s%06d%s", segmentPrefix, id, SEGMENT_FILE_SUFFIX));
+    }
+
+    /**
+     * Returns the file containing the unstructured data of the given segment.
+     *
+     * @param id the id of the segment
+     * @return the data segment file
+     */
+    public File getDataSegmentFile(int id) {
+        return new File(outputDirectory, String.format("%s%06d%s", segmentPrefix, id, DATA_SEGMENT_FILE_SUFFIX));
+    }
+
+    /**
+     * Returns the data segment file that belongs to the given segment file.
+     *
+     * @param segmentFile the segment file containing the N-Quads
+     * @return the data segment file of the segment
+     */
+    public static File getDataSegmentFile(File segmentFile) {
+        String name = segmentFile.getName();
+        if (name.endsWith(SEGMENT_FILE_SUFFIX)) {
+            name = name.substring(0, name.length() - SEGMENT_FILE_SUFFIX.length());
+        }
+        return new File(segmentFile.getParentFile(), name + DATA_SEGMENT_FILE_SUFFIX);
+    }
+
+    /**
+     * Returns the index file of the given segment.
+     *
+     * @param segmentFile the segment file
+     * @return the index file of the segment
+     */
+    public static File getIndexFile(File segmentFile) {
+        return new File(segmentFile.getParentFile(), segmentFile.getName() + INDEX_FILE_SUFFIX);
+    }
+
+    /**
+     * @return the number of blocks that have been written
+     */
+    public long getWrittenBlocks() {
+        return writtenBlocks.get();
+    }
+
+    /**
+     * @return the number of segments that have been completed
+     */
+    public long getWrittenSegments() {
+        return writtenSegments.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeSinkForUri(metadataGraphUri);
+        for (String uri : buffers.keySet()) {
+            LOGGER.warn("The sink for {} has not been closed. Its data will be written now.", uri);
+            UriBuffer buffer = buffers.get(uri);
+            if (buffer != null) {
+                closeSinkForUri(buffer.uri);
+            }
+        }
+        if (!closed) {
+            closed = true;
+            try {
+                blockLock.lock();
+                try {
+                    submitBlocks(true);
+                } finally {
+                    blockLock.unlock();
+                }
+                writeQueue.put(END_OF_QUEUE);
+                writerThread.join();
+            } catch (InterruptedException e) {
+                LOGGER.error("Interrupted while waiting for the writer.", e);
+                Thread.currentThread().interrupt();
+            }
+            compressionExecutor.shutdown();
+        }
+    }
+
+    /**
+     * The serialized quads of a crawled URI that have not been appended to a
+     * block. This class is not thread-safe.
+     */
+    protected class UriBuffer {
+
+        protected CrawleableUri uri;
+        protected String uriString;
+        protected Node graph;
+        protected ByteArrayOutputStream data = new ByteArrayOutputStream();
+        protected StreamRDF stream;
+        protected long numberOfQuads = 0;
+        protected int chunkQuads = 0;
+        /**
+         * The ids of the segments containing the N-Quads of the URI.
+         */
+        protected Set<Integer> segments = new LinkedHashSet<>();
+        /**
+         * The ids of the segments containing the unstructured data of the URI.
+         */
+        protected Set<Integer> dataSegments = new LinkedHashSet<>();
+
+        public UriBuffer(CrawleableUri uri) {
+            this.uri = uri;
+            this.uriString = uri.getUri().toString();
+        }
+
+        public Node getGraph() {
+            if (graph == null) {
+                if (uri.equals(metadataGraphUri)) {
+                    graph = NodeFactory.createURI(uriString);
+                } else {
+                    graph = NodeFactory.createURI(SparqlBasedSink.getGraphId(uri));
+                }
+            }
+            return graph;
+        }
+
+        public void add(Quad quad) {
+            if (stream == null) {
+                stream = StreamRDFWriter.getWriterStream(data, RDFFormat.NQUADS_UTF8);
+                stream.start();
+            }
+            stream.quad(quad);
+            ++numberOfQuads;
+            ++chunkQuads;
+            // the stream writer buffers its output, so the size is checked only
+            // from time to time
+            if (((chunkQuads & 0xFF) == 0) && (data.size() >= blockSize)) {
+                flush();
+            }
+        }
+
+        public void flush() {
+            if (stream != null) {
+                stream.finish();
+                stream = null;
+                segments.add(append(uriString, SegmentIndexEntry.QUADS, data.toByteArray(), data.size()));
+                data.reset();
+                chunkQuads = 0;
+            }
+        }
+    }
+
+    /**
+     * A block containing the chunks of several URIs. All chunks of a block have
+     * the same type. A block is compressed as a single GZIP member.
+     */
+    protected static class Block {
+
+        protected int segmentId;
+        protected char type;
+        protected long created = System.currentTimeMillis();
+        protected ByteArrayOutputStream data;
+        protected List<String> uris = new ArrayList<>();
+        protected List<int[]> chunks = new ArrayList<>();
+        protected Future<byte[]> compressed;
+
+        public Block(int segmentId, char type, int capacity) {
+            this.segmentId = segmentId;
+            this.type = type;
+            data = new ByteArrayOutputStream(capacity);
+        }
+
+        public void append(String uri, byte[] chunk, int length) {
+            uris.add(uri);
+            chunks.add(new int[] { data.size(), length });
+            data.write(chunk, 0, length);
+        }
+
+        public int size() {
+            return data.size();
+        }
+
+        public byte[] compress() throws IOException {
+            ByteArrayOutputStream result = new ByteArrayOutputStream(data.size() / 4 + 64);
+            try (GZIPOutputStream out = new GZIPOutputStream(result, 64 * 1024)) {
+                data.writeTo(out);
+            }
+            return result.toByteArray();
+        }
+
+        public List<SegmentIndexEntry> getIndexEntries(long blockOffset, int blockLength) {
+            List<SegmentIndexEntry> entries = new ArrayList<>(uris.size());
+            for (int i = 0; i < uris.size(); ++i) {
+                entries.add(new SegmentIndexEntry(uris.get(i), type, blockOffset, blockLength,
+                        chunks.get(i)[0], chunks.get(i)[1]));
+            }
+            return entries;
+        }
+    }
+
+    /**
+     * A segment file or data segment file that is written together with its
+     * index. Only used by the writer thread.
+     */
+    protected static class SegmentOutput {
+
+        protected OutputStream segmentStream;
+        protected Writer indexWriter;
+        protected long position;
+
+        public SegmentOutput(File segmentFile) throws IOException {
+            // a segment that has been closed before is continued
+            position = segmentFile.length();
+            segmentStream = new BufferedOutputStream(new FileOutputStream(segmentFile, true));
+            try {
+                indexWriter = new BufferedWriter(new OutputStreamWriter(
+                        new FileOutputStream(getIndexFile(segmentFile), true), StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                Closer.close(segmentStream, LOGGER);
+                throw e;
+            }
+        }
+
+        public void write(Block block, byte[] compressed) throws IOException {
+            segmentStream.write(compressed);
+            segmentStream.flush();
+            for (SegmentIndexEntry entry : block.getIndexEntries(position, compressed.length)) {
+                indexWriter.write(entry.toLine());
+                indexWriter.write('\n');
+            }
+            indexWriter.flush();
+            position += compressed.length;
+        }
+
+        public void close() {
+            Closer.close(segmentStream, LOGGER);
+            Closer.close(indexWriter, LOGGER);
+        }
+    }
+}
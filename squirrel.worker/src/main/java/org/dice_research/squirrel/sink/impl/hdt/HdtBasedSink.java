@@ -1,178 +1,580 @@
 package org.dice_research.squirrel.sink.impl.hdt;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.URI;
+import java.io.OutputStream;
 import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.apache.jena.graph.Node;
 import org.apache.jena.graph.Triple;
 import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFWriter;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.vocabulary.XSD;
+import org.dice_research.squirrel.Constants;
 import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.metadata.CrawlingActivity;
+import org.dice_research.squirrel.sink.Sink;
 import org.dice_research.squirrel.sink.impl.file.FileBasedSink;
+import org.dice_research.squirrel.utils.Closer;
+import org.dice_research.squirrel.vocab.Squirrel;
 import org.rdfhdt.hdt.enums.RDFNotation;
+import org.rdfhdt.hdt.enums.ResultEstimationType;
 import org.rdfhdt.hdt.hdt.HDT;
 import org.rdfhdt.hdt.hdt.HDTManager;
 import org.rdfhdt.hdt.options.HDTSpecification;
+import org.rdfhdt.hdt.triples.IteratorTripleString;
+import org.rdfhdt.hdt.triples.TripleString;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-
 /**
- * 
- * HDT File based Sink, uses the FileBasedSink to store the triples of the URI
- * in a temp folder and parses it to HDT when the sink is closed
- * 
+ * A sink that stores the crawled triples as HDT files.
+ *
+ * <p>
+ * The triples of a crawled URI are kept in memory. Only graphs that exceed
+ * the maximum number of buffered triples are written to an intermediate
+ * N-Triples file. When the sink for a URI is closed, its graph is handed over
+ * to a small pool of conversion threads. Graphs that are smaller than the
+ * merge threshold are not written to their own HDT file. Instead, they are
+ * merged with other small graphs until the merged graph reaches a given size.
+ * This avoids the creation of thousands of tiny HDT files. If all conversion
+ * threads are busy and the maximum number of pending conversions is reached,
+ * the crawling threads are blocked until a conversion has finished.
+ * </p>
+ *
+ * <p>
+ * The {@link CrawlingActivity} of a crawled URI refers to the file that
+ * contains its triples. The meta data is written to its own file when the sink
+ * is closed.
+ * </p>
+ *
  * @author gsjunior
  *
  */
+public class HdtBasedSink implements Sink {
 
-public class HdtBasedSink extends FileBasedSink {
-	
     private static final Logger LOGGER = LoggerFactory.getLogger(HdtBasedSink.class);
 
-    private final ExecutorService EXECUTION_SERVICE = Executors.newScheduledThreadPool(100);
-	
+    /**
+     * The default number of conversion threads.
+     */
+    public static final int DEFAULT_POOL_SIZE = 2;
+    /**
+     * The default number of conversions that can be submitted before the
+     * crawling threads are blocked.
+     */
+    public static final int DEFAULT_MAX_PENDING_CONVERSIONS = 4;
+    /**
+     * The default number of triples a graph needs to have to be written to its
+     * own HDT file.
+     */
+    public static final int DEFAULT_MERGE_THRESHOLD = 10000;
+    /**
+     * The default number of triples after which the merged graphs are written
+     * to a HDT file.
+     */
+    public static final int DEFAULT_MERGED_FILE_SIZE = 500000;
+    /**
+     * The default number of triples of a single graph that are kept in memory
+     * before the graph is written to an intermediate file.
+     */
+    public static final int DEFAULT_MAX_BUFFERED_TRIPLES = 200000;
+    /**
+     * The maximum time (in seconds) the sink waits for the pending conversions
+     * when it is closed.
+     */
+    protected static final long TERMINATION_TIMEOUT = 3600;
+
+    /**
+     * input type for parsing the intermediate files
+     */
+    protected static final String INPUT_TYPE = "ntriples";
+
     protected File outputDirectory;
-    
     /**
-     * input type for parsing the file
+     * Directory for the intermediate files of large graphs.
+     */
+    protected File tempDirectory;
+    protected int mergeThreshold;
+    protected int mergedFileSize;
+    protected int maxBufferedTriples;
+    protected CrawleableUri metadataGraphUri = new CrawleableUri(Constants.DEFAULT_META_DATA_GRAPH_URI);
+    /**
+     * The graphs of the URIs that are currently crawled.
      */
-    protected String inputType = "ntriples";
-    
+    protected Map<String, GraphBuffer> graphs = new ConcurrentHashMap<>();
     /**
-     * outputstream for Metadata
+     * The small graphs that are merged into a single file.
      */
-    protected FileOutputStream out = null;
+    protected MergedGraph mergedGraph = null;
+    protected ExecutorService conversionExecutor;
+    protected Semaphore pendingConversions;
+    /**
+     * Prefix of the names of merged files to make sure that the files of
+     * different runs do not overwrite each other.
+     */
+    private String mergedFilePrefix = "merged_" + System.currentTimeMillis() + "_";
+    private AtomicInteger mergedFileId = new AtomicInteger();
 
-	/**
-	 * Creates a temp file for the FileBasedsink storage
-	 * 
-	 * @param outputDirectory
-	 * @throws IOException
-	 */
+    private AtomicLong createdFiles = new AtomicLong();
+    private AtomicLong failedConversions = new AtomicLong();
+
+    /**
+     * Constructor using the default configuration.
+     *
+     * @param outputDirectory the directory to which the HDT files are written
+     * @throws IOException if the directory for intermediate files can not be
+     *                     created
+     */
     public HdtBasedSink(File outputDirectory) throws IOException {
+        this(outputDirectory, DEFAULT_POOL_SIZE, DEFAULT_MAX_PENDING_CONVERSIONS, DEFAULT_MERGE_THRESHOLD,
+                DEFAULT_MERGED_FILE_SIZE, DEFAULT_MAX_BUFFERED_TRIPLES);
+    }
 
-    	super(Files.createDirectory(new File(outputDirectory + "_hdt").toPath()).toFile(),Lang.NT, false);
-		this.outputDirectory = outputDirectory;
-	}
-
-	@Override
-	public void addTriple(CrawleableUri uri, Triple triple) {
-		super.addTriple(uri, triple);
-	}
-
-	@Override
-	public void openSinkForUri(CrawleableUri uri) {
-		super.openSinkForUri(uri);
-	}
-	
-//	@Override
-//    public void addMetaData(Model model) {
-//    	
-//    	File metaDataOutputDirectory = new File(File.separator +outputDirectory.getAbsolutePath() + File.separator + "Metadata");
-//    	metaDataOutputDirectory.mkdirs();
-//    	
-//    	CrawleableUri curi = new CrawleableUri(Constants.DEFAULT_META_DATA_GRAPH_URI);
-//    	
-//		try {
-//			if(out == null) {
-//			out = new FileOutputStream(File.separator + metaDataOutputDirectory.getAbsolutePath() + File.separator  + UriUtils.generateFileName(curi.getUri().toString(), false));
-//			}
-//			StreamRDFWriter.write(out, model.getGraph(), Lang.NT);
-//			out.flush();
-//		} catch (Exception e) {
-//			// TODO Auto-generated catch block
-//			LOGGER.error("Error when storing metadata: " + e);
-//		}
-//    	
-//    }
-	
-	/**
-	 * Recovers the temp file generated and parse it to hdt
-	 * 
-	 * @author gsjunior
-	 */
-	@Override
-	public void closeSinkForUri(CrawleableUri uri) {
-		String  rdfInput = super.outputDirectory.getAbsolutePath() + File.separator
-                + generateFileName(uri, Lang.NT, false);
-		
-		super.closeSinkForUri(uri);
-		
-		EXECUTION_SERVICE.execute(new HDTParser(rdfInput,uri));
-		try {
-			EXECUTION_SERVICE.awaitTermination(1, TimeUnit.SECONDS);
-		} catch (InterruptedException e) {
-			LOGGER.error("",e);
-		}
-		
-//		HDT hdt;
-//		try {
-//			hdt = HDTManager.generateHDT(
-//			        rdfInput,         // Input RDF File
-//			        uri.getUri().toString(),          // Base URI
-//			        RDFNotation.parse(inputType), // Input Type
-//			        new HDTSpecification(),   // HDT Options
-//			        null              // Progress Listener
-//   );
-//			// Save generated HDT to a file
-//			hdt.saveToHDT(outputDirectory.getAbsolutePath() + File.separator
-//	                + generateFileName(uri.getUri().toString(), false), null);
-//			
-//		File file = new File(rdfInput);
-//		file.delete();
-//		} catch (Exception e) {
-//            LOGGER.error("Should close the sink for the URI \"" + uri.getUri().toString() + "\" but an error occurred.");
-//		}
-		
-	}
-
-	@Override
-	public void addData(CrawleableUri uri, InputStream stream) {
-		super.addData(uri, stream);		
-	}
-	
-    protected class HDTParser implements Runnable{
-
-    	private String rdfInput;
-    	private CrawleableUri uri;
-    	
-    	public HDTParser(String rdfInput, CrawleableUri uri) {
-			this.rdfInput = rdfInput;
-			this.uri = uri;
-		}
-    	
-		@Override
-		public void run() {
-			HDT hdt;
-			try {
-				hdt = HDTManager.generateHDT(
-				        rdfInput,         // Input RDF File
-				        uri.getUri().toString(),          // Base URI
-				        RDFNotation.parse(inputType), // Input Type
-				        new HDTSpecification(),   // HDT Options
-				        null              // Progress Listener
-	   );
-				// Save generated HDT to a file
-				hdt.saveToHDT(outputDirectory.getAbsolutePath() + File.separator
-		                + generateFileName(uri, null, false), null);
-			
-				File file = new File(rdfInput);
-				file.delete();
-		}catch (Exception e) {
-            LOGGER.error("Should close the sink for the URI \"" + uri.getUri().toString() + "\" but an error occurred.");
-		}
-    	
-    }
-	
-
-    }
-    
+    /**
+     * Constructor.
+     *
+     * @param outputDirectory       the directory to which the HDT files are
+     *                              written
+     * @param poolSize              the number of conversion threads
+     * @param maxPendingConversions the number of conversions that can be
+     *                              submitted before the crawling threads are
+     *                              blocked
+     * @param mergeThreshold        the number of triples a graph needs to have
+     *                              to be written to its own file. {@code 0}
+     *                              disables the merging.
+     * @param mergedFileSize        the number of triples after which merged
+     *                              graphs are written to a file
+     * @param maxBufferedTriples    the number of triples of a single graph that
+     *                              are kept in memory
+     * @throws IOException if the directory for intermediate files can not be
+     *                     created
+     */
+    public HdtBasedSink(File outputDirectory, int poolSize, int maxPendingConversions, int mergeThreshold,
+            int mergedFileSize, int maxBufferedTriples) throws IOException {
+        if (poolSize < 1) {
+            throw new IllegalArgumentException("The number of conversion threads has to be positive.");
+        }
+        if (maxPendingConversions < poolSize) {
+            throw new IllegalArgumentException(
+                    "The number of pending conversions can not be smaller than the number of conversion threads.");
+        }
+        this.outputDirectory = outputDirectory;
+        this.tempDirectory = Files.createDirectories(new File(outputDirectory + "_hdt").toPath()).toFile();
+        this.mergeThreshold = mergeThreshold;
+        this.mergedFileSize = mergedFileSize;
+        this.maxBufferedTriples = maxBufferedTriples;
+        pendingConversions = new Semaphore(maxPendingConversions);
+        AtomicInteger threadId = new AtomicInteger();
+        conversionExecutor = Executors.newFixedThreadPool(poolSize, r -> {
+            Thread thread = new Thread(r, "hdt-conversion-" + threadId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void openSinkForUri(CrawleableUri uri) {
+        graphs.put(uri.getUri().toString(), new GraphBuffer(uri));
+    }
+
+    /**
+     * Returns the graph of the given URI. If the sink has not been opened for
+     * the URI, it is opened.
+     */
+    protected GraphBuffer getGraph(CrawleableUri uri) {
+        GraphBuffer graph = graphs.get(uri.getUri().toString());
+        if (graph == null) {
+            if (!uri.equals(metadataGraphUri)) {
+                LOGGER.warn("Sink has not been opened for the uri, sink will be opened.");
+            }
+            graph = graphs.computeIfAbsent(uri.getUri().toString(), k -> new GraphBuffer(uri));
+        }
+        return graph;
+    }
+
+    @Override
+    public void addTriple(CrawleableUri uri, Triple triple) {
+        GraphBuffer graph = getGraph(uri);
+        synchronized (graph) {
+            try {
+                graph.add(triple);
+            } catch (Exception e) {
+                LOGGER.error("Exception while writing the triple \"" + triple.toString() + "\" from the URI \""
+                        + uri.getUri().toString() + "\". Ignoring it.", e);
+            }
+        }
+    }
+
+    /**
+     * Adds the triple of the given quad since HDT does not support quads.
+     */
+    @Override
+    public void addQuad(CrawleableUri uri, Quad quad) {
+        addTriple(uri, quad.asTriple());
+    }
+
+    @Override
+    public void addData(CrawleableUri uri, InputStream stream) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * The meta data is written when the sink is closed since a HDT file can not
+     * be extended.
+     */
+    @Override
+    public void flushMetadata() {
+        // nothing to do
+    }
+
+    @Override
+    public void closeSinkForUri(CrawleableUri uri) {
+        GraphBuffer graph = graphs.remove(uri.getUri().toString());
+        if (graph == null) {
+            LOGGER.info("Try to close Sink for an uri, without open it before. Do nothing.");
+            return;
+        }
+        File outputFile = null;
+        synchronized (graph) {
+            if (graph.numberOfTriples > 0) {
+                outputFile = convert(graph);
+            }
+        }
+        CrawlingActivity activity = (CrawlingActivity) uri.getData(Constants.URI_CRAWLING_ACTIVITY);
+        if ((activity != null) && (outputFile != null)) {
+            activity.setNumberOfTriples(graph.numberOfTriples);
+            activity.addOutputResource(outputFile.toURI().toString(), Squirrel.ResultFile);
+        }
+    }
+
+    /**
+     * Hands the given graph over to the conversion or merges it with other
+     * small graphs.
+     *
+     * @param graph the graph that should be converted
+     * @return the file to which the graph will be written
+     */
+    protected File convert(GraphBuffer graph) {
+        CrawleableUri uri = graph.uri;
+        File outputFile;
+        if (graph.tempFile != null) {
+            try {
+                graph.finishTempFile();
+            } catch (IOException e) {
+                LOGGER.error("Couldn't finish the intermediate file of " + uri.getUri()
+                        + ". Its triples will be lost.", e);
+                failedConversions.incrementAndGet();
+                return null;
+            }
+            File tempFile = graph.tempFile;
+            outputFile = getOutputFile(uri);
+            submit(() -> convertFile(tempFile, uri.getUri().toString(), outputFile));
+        } else if ((graph.numberOfTriples < mergeThreshold) && !uri.equals(metadataGraphUri)) {
+            MergedGraph fullGraph = null;
+            synchronized (this) {
+                if (mergedGraph == null) {
+                    mergedGraph = new MergedGraph(new File(outputDirectory,
+                            mergedFilePrefix + mergedFileId.incrementAndGet() + ".hdt"));
+                }
+                mergedGraph.triples.addAll(graph.triples);
+                outputFile = mergedGraph.file;
+                if (mergedGraph.triples.size() >= mergedFileSize) {
+                    fullGraph = mergedGraph;
+                    mergedGraph = null;
+                }
+            }
+            if (fullGraph != null) {
+                submitMergedGraph(fullGraph);
+            }
+        } else {
+            List<Triple> triples = graph.triples;
+            outputFile = getOutputFile(uri);
+            submit(() -> convert(triples, uri.getUri().toString(), outputFile));
+        }
+        return outputFile;
+    }
+
+    protected void submitMergedGraph(MergedGraph graph) {
+        submit(() -> convert(graph.triples, Constants.DEFAULT_RESULT_GRAPH_URI_PREFIX + graph.file.getName(),
+                graph.file));
+    }
+
+    /**
+     * Submits the given conversion. Blocks if the maximum number of pending
+     * conversions has been reached.
+     *
+     * @param conversion the conversion that should be executed
+     */
+    protected void submit(Runnable conversion) {
+        try {
+            pendingConversions.acquire();
+        } catch (InterruptedException e) {
+            LOGGER.error("Interrupted while waiting for a free conversion thread. "
+                    + "The conversion will be executed on this thread.", e);
+            Thread.currentThread().interrupt();
+            conversion.run();
+            return;
+        }
+        try {
+            conversionExecutor.execute(() -> {
+                try {
+                    conversion.run();
+                } finally {
+                    pendingConversions.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pendingConversions.release();
+            LOGGER.warn(
+                    "The conversion executor has been shut down. The conversion will be executed on this thread.");
+            conversion.run();
+        }
+    }
+
+    /**
+     * Writes the given triples to the given HDT file.
+     */
+    protected void convert(List<Triple> triples, String baseUri, File outputFile) {
+        try (HDT hdt = HDTManager.generateHDT(new TripleStringIterator(triples), baseUri, new HDTSpecification(),
+                null)) {
+            hdt.saveToHDT(outputFile.getAbsolutePath(), null);
+            createdFiles.incrementAndGet();
+        } catch (Exception e) {
+            LOGGER.error("Couldn't write the HDT file " + outputFile + ". Its " + triples.size()
+                    + " triples will be lost.", e);
+            failedConversions.incrementAndGet();
+        }
+    }
+
+    /**
+     * Converts the given N-Triples file into the given HDT file and deletes the
+     * N-Triples file.
+     */
+    protected void convertFile(File rdfInput, String baseUri, File outputFile) {
+        try (HDT hdt = HDTManager.generateHDT(rdfInput.getAbsolutePath(), baseUri, RDFNotation.parse(INPUT_TYPE),
+                new HDTSpecification(), null)) {
+            hdt.saveToHDT(outputFile.getAbsolutePath(), null);
+            createdFiles.incrementAndGet();
+        } catch (Exception e) {
+            LOGGER.error("Couldn't convert " + rdfInput + " to the HDT file " + outputFile + ".", e);
+            failedConversions.incrementAndGet();
+        } finally {
+            if (!rdfInput.delete()) {
+                LOGGER.warn("Couldn't delete the intermediate file {}.", rdfInput);
+            }
+        }
+    }
+
+    protected File getOutputFile(CrawleableUri uri) {
+        return new File(outputDirectory, FileBasedSink.generateFileName(uri, null, false));
+    }
+
+    /**
+     * @return the number of HDT files that have been written
+     */
+    public long getCreatedFiles() {
+        return createdFiles.get();
+    }
+
+    /**
+     * @return the number of graphs or merged graphs that couldn't be written
+     */
+    public long getFailedConversions() {
+        return failedConversions.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeSinkForUri(metadataGraphUri);
+        for (String uri : graphs.keySet()) {
+            LOGGER.warn("The sink for {} has not been closed. Its data will be written now.", uri);
+            GraphBuffer graph = graphs.get(uri);
+            if (graph != null) {
+                closeSinkForUri(graph.uri);
+            }
+        }
+        MergedGraph lastGraph;
+        synchronized (this) {
+            lastGraph = mergedGraph;
+            mergedGraph = null;
+        }
+        if (lastGraph != null) {
+            submitMergedGraph(lastGraph);
+        }
+        conversionExecutor.shutdown();
+        try {
+            if (!conversionExecutor.awaitTermination(TERMINATION_TIMEOUT, TimeUnit.SECONDS)) {
+                LOGGER.error("The pending conversions have not been finished in time. They will be discarded.");
+                conversionExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            LOGGER.error("Interrupted while waiting for the pending conversions.", e);
+            conversionExecutor.shutdownNow();
+        }
+        String[] tempFiles = tempDirectory.list();
+        if ((tempFiles != null) && (tempFiles.length == 0)) {
+            tempDirectory.delete();
+        }
+        LOGGER.info("Wrote {} HDT files. {} conversions failed.", getCreatedFiles(), getFailedConversions());
+    }
+
+    /**
+     * Transforms the given node into the string representation used by HDT.
+     */
+    public static String toHdtString(Node node) {
+        if (node.isURI()) {
+            return node.getURI();
+        } else if (node.isBlank()) {
+            return "_:" + node.getBlankNodeLabel();
+        } else if (node.isLiteral()) {
+            StringBuilder builder = new StringBuilder();
+            builder.append('"').append(node.getLiteralLexicalForm()).append('"');
+            String lang = node.getLiteralLanguage();
+            if ((lang != null) && !lang.isEmpty()) {
+                builder.append('@').append(lang);
+            } else if ((node.getLiteralDatatypeURI() != null)
+                    && !XSD.xstring.getURI().equals(node.getLiteralDatatypeURI())) {
+                builder.append("^^<").append(node.getLiteralDatatypeURI()).append('>');
+            }
+            return builder.toString();
+        } else {
+            return node.toString();
+        }
+    }
+
+    /**
+     * The triples of a crawled URI that have not been converted, yet. The
+     * triples are kept in memory until there are too many of them. After that,
+     * they are written to an intermediate N-Triples file. This class is not
+     * thread-safe.
+     */
+    protected class GraphBuffer {
+
+        protected CrawleableUri uri;
+        protected List<Triple> triples = new ArrayList<>();
+        protected long numberOfTriples = 0;
+        protected File tempFile;
+        protected OutputStream tempOutputStream;
+        protected StreamRDF tempStream;
+
+        public GraphBuffer(CrawleableUri uri) {
+            this.uri = uri;
+        }
+
+        public void add(Triple triple) throws IOException {
+            if (tempStream != null) {
+                tempStream.triple(triple);
+            } else {
+                triples.add(triple);
+                if (triples.size() > maxBufferedTriples) {
+                    createTempFile();
+                }
+            }
+            ++numberOfTriples;
+        }
+
+        protected void createTempFile() throws IOException {
+            tempFile = File.createTempFile("hdt_", ".nt", tempDirectory);
+            tempOutputStream = new BufferedOutputStream(new FileOutputStream(tempFile));
+            tempStream = StreamRDFWriter.getWriterStream(tempOutputStream, Lang.NT);
+            tempStream.start();
+            for (Triple triple : triples) {
+                tempStream.triple(triple);
+            }
+            triples = null;
+        }
+
+        public void finishTempFile() throws IOException {
+            try {
+                tempStream.finish();
+                tempOutputStream.flush();
+            } finally {
+                Closer.close(tempOutputStream, LOGGER);
+            }
+        }
+    }
+
+    /**
+     * Small graphs of several URIs that are written to a single file.
+     */
+    protected static class MergedGraph {
+
+        protected File file;
+        protected List<Triple> triples = new ArrayList<>();
+
+        public MergedGraph(File file) {
+            this.file = file;
+        }
+    }
+
+    /**
+     * Transforms the triples of a list into {@link TripleString}s on the fly.
+     */
+    protected static class TripleStringIterator implements IteratorTripleString {
+
+        private List<Triple> triples;
+        private int pos = 0;
+
+        public TripleStringIterator(List<Triple> triples) {
+            this.triples = triples;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return pos < triples.size();
+        }
+
+        @Override
+        public TripleString next() {
+            Triple triple = triples.get(pos);
+            ++pos;
+            return new TripleString(toHdtString(triple.getSubject()), toHdtString(triple.getPredicate()),
+                    toHdtString(triple.getObject()));
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return pos > 0;
+        }
+
+        @Override
+        public TripleString previous() {
+            --pos;
+            Triple triple = triples.get(pos);
+            return new TripleString(toHdtString(triple.getSubject()), toHdtString(triple.getPredicate()),
+                    toHdtString(triple.getObject()));
+        }
+
+        @Override
+        public void goToStart() {
+            pos = 0;
+        }
+
+        @Override
+        public long estimatedNumResults() {
+            return triples.size();
+        }
+
+        @Override
+        public ResultEstimationType numResultEstimation() {
+            return ResultEstimationType.EXACT;
+        }
+    }
 }
@@ -42,8 +42,8 @@ public abstract class AbstractBufferingSink implements TripleBasedSink, QuadBase
 
     @Override
     public void openSinkForUri(CrawleableUri uri) {
-        tripleBuffer.put(uri, new TripleBuffer());
-        quadBuffer.put(uri, new QuadBuffer());
+        tripleBuffer.put(uri, new TripleBuffer(bufferSize));
+        quadBuffer.put(uri, new QuadBuffer(bufferSize));
 
     }
 
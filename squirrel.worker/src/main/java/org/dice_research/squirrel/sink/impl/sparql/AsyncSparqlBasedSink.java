@@ -0,0 +1,390 @@
+package org.dice_research.squirrel.sink.impl.sparql;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.aksw.jena_sparql_api.core.QueryExecutionFactory;
+import org.aksw.jena_sparql_api.core.UpdateExecutionFactory;
+import org.aksw.jena_sparql_api.core.UpdateExecutionFactoryHttp;
+import org.aksw.jena_sparql_api.http.QueryExecutionFactoryHttp;
+import org.apache.jena.atlas.io.IndentedLineBuffer;
+import org.apache.jena.atlas.web.auth.HttpAuthenticator;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.out.NodeFormatter;
+import org.apache.jena.riot.out.NodeFormatterNT;
+import org.apache.jena.sparql.core.DatasetDescription;
+import org.apache.jena.sparql.core.Quad;
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link SparqlBasedSink} that does not send the updates on the crawling
+ * thread. The triples of a URI are serialized once into an
+ * {@code INSERT DATA} request that grows until it reaches a maximum number of
+ * triples or characters. The requests are executed by a bounded pool of
+ * threads, i.e., several requests are sent to the endpoint in parallel. Failed
+ * requests are retried with an exponentially increasing delay. If the maximum
+ * number of pending requests is reached, the threads adding data to this sink
+ * are blocked until a request has been finished.
+ *
+ * <p>
+ * Note that closing the sink for a URI does not wait for the requests of the
+ * URI. {@link #close()} waits until all pending requests have been executed.
+ * </p>
+ */
+@SuppressWarnings("deprecation")
+public class AsyncSparqlBasedSink extends SparqlBasedSink {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncSparqlBasedSink.class);
+
+    /**
+     * The default number of requests that are sent in parallel.
+     */
+    public static final int DEFAULT_CONNECTIONS = 4;
+    /**
+     * The default maximum number of requests that are waiting or executed.
+     */
+    public static final int DEFAULT_MAX_PENDING_UPDATES = 16;
+    /**
+     * The default maximum number of triples of a single request.
+     */
+    public static final int DEFAULT_MAX_UPDATE_TRIPLES = 10000;
+    /**
+     * The default maximum size of a single request in characters.
+     */
+    public static final int DEFAULT_MAX_UPDATE_SIZE = 2 * 1024 * 1024;
+    /**
+     * The maximum delay between two attempts of a request in ms.
+     */
+    protected static final long MAX_BACKOFF_DELAY = 60000;
+    /**
+     * The number of triples that are buffered before they are serialized.
+     */
+    protected static final int SERIALIZATION_BUFFER_SIZE = 500;
+    /**
+     * The time (in s) {@link #close()} waits for the pending requests.
+     */
+    protected static final long TERMINATION_TIMEOUT = 600;
+
+    protected final int maxUpdateTriples;
+    protected final int maxUpdateSize;
+    protected final long initialDelay;
+    protected final int maxAttempts;
+    /**
+     * The requests that are currently built, mapped by the URI whose data
+     * they contain.
+     */
+    protected Map<String, UpdateBuilder> openUpdates = new ConcurrentHashMap<>();
+    /**
+     * Permits for pending requests. A thread that would like to submit a
+     * request has to wait for a permit.
+     */
+    protected Semaphore pendingUpdates;
+    protected ExecutorService updateExecutor;
+
+    private AtomicLong sentTriples = new AtomicLong();
+    private AtomicLong sentUpdates = new AtomicLong();
+    private AtomicLong failedUpdates = new AtomicLong();
+
+    /**
+     * Constructor.
+     *
+     * @param queryExecFactory  the factory used to query the endpoint
+     * @param updateExecFactory the factory used to send updates to the
+     *                          endpoint. It has to be thread-safe.
+     * @param delay             the delay (in ms) before the second attempt of
+     *                          a failed request. It is doubled for every
+     *                          further attempt.
+     * @param attempts          the maximum number of attempts for a request
+     * @param connections       the number of requests that are sent in
+     *                          parallel
+     * @param maxPendingUpdates the maximum number of requests that are
+     *                          waiting or executed before adding data blocks
+     * @param maxUpdateTriples  the maximum number of triples of a request
+     * @param maxUpdateSize     the maximum size (in characters) of a request
+     */
+    public AsyncSparqlBasedSink(QueryExecutionFactory queryExecFactory, UpdateExecutionFactory updateExecFactory,
+            int delay, int attempts, int connections, int maxPendingUpdates, int maxUpdateTriples,
+            int maxUpdateSize) {
+        super(queryExecFactory, updateExecFactory, delay, attempts);
+        if (connections < 1) {
+            throw new IllegalArgumentException("The number of connections has to be positive.");
+        }
+        if (maxPendingUpdates < connections) {
+            throw new IllegalArgumentException(
+                    "The number of pending updates can not be smaller than the number of connections.");
+        }
+        this.initialDelay = delay;
+        this.maxAttempts = Math.max(1, attempts);
+        this.maxUpdateTriples = maxUpdateTriples;
+        this.maxUpdateSize = maxUpdateSize;
+        this.bufferSize = Math.min(SERIALIZATION_BUFFER_SIZE, maxUpdateTriples);
+        pendingUpdates = new Semaphore(maxPendingUpdates);
+        AtomicInteger threadId = new AtomicInteger();
+        updateExecutor = Executors.newFixedThreadPool(connections, r -> {
+            Thread thread = new Thread(r, "sparql-update-" + threadId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static AsyncSparqlBasedSink create(String sparqlEndpointUrl, String username, String password, int delay,
+            int attempts, int connections, int maxPendingUpdates) {
+        QueryExecutionFactory queryExecFactory = null;
+        UpdateExecutionFactory updateExecFactory = null;
+        HttpAuthenticator authenticator = createAuthenticator(username, password);
+        if (authenticator != null) {
+            queryExecFactory = new QueryExecutionFactoryHttp(sparqlEndpointUrl, new DatasetDescription(),
+                    authenticator);
+            updateExecFactory = new UpdateExecutionFactoryHttp(sparqlEndpointUrl, authenticator);
+        } else {
+            queryExecFactory = new QueryExecutionFactoryHttp(sparqlEndpointUrl);
+            updateExecFactory = new UpdateExecutionFactoryHttp(sparqlEndpointUrl);
+        }
+        return new AsyncSparqlBasedSink(queryExecFactory, updateExecFactory, delay, attempts, connections,
+                maxPendingUpdates, DEFAULT_MAX_UPDATE_TRIPLES, DEFAULT_MAX_UPDATE_SIZE);
+    }
+
+    @Override
+    protected void sendTriples(CrawleableUri uri, Collection<Triple> triples) {
+        if (triples.isEmpty()) {
+            return;
+        }
+        Node graph = createGraphNode(uri);
+        UpdateBuilder builder = openUpdates.computeIfAbsent(uri.getUri().toString(), k -> new UpdateBuilder());
+        synchronized (builder) {
+            for (Triple triple : triples) {
+                builder.add(graph, triple);
+            }
+            submitIfFull(uri, builder);
+        }
+    }
+
+    @Override
+    protected void sendQuads(CrawleableUri uri, Collection<Quad> quads) {
+        if (quads.isEmpty()) {
+            return;
+        }
+        UpdateBuilder builder = openUpdates.computeIfAbsent(uri.getUri().toString(), k -> new UpdateBuilder());
+        synchronized (builder) {
+            for (Quad quad : quads) {
+                builder.add(quad.getGraph(), quad.asTriple());
+            }
+            submitIfFull(uri, builder);
+        }
+    }
+
+    /**
+     * Submits the request of the given builder if it reached its maximum size.
+     * Has to be called while holding the lock of the builder.
+     */
+    protected void submitIfFull(CrawleableUri uri, UpdateBuilder builder) {
+        if ((builder.getNumberOfTriples() >= maxUpdateTriples) || (builder.getSize() >= maxUpdateSize)) {
+            String update = builder.build();
+            submit(uri, update, builder.reset());
+        }
+    }
+
+    protected Node createGraphNode(CrawleableUri uri) {
+        if (uri.equals(metadataGraphUri)) {
+            return NodeFactory.createURI(uri.getUri().toString());
+        } else {
+            return NodeFactory.createURI(getGraphId(uri));
+        }
+    }
+
+    @Override
+    public void closeSinkForUri(CrawleableUri uri) {
+        // flushes the buffered triples into the update builder
+        super.closeSinkForUri(uri);
+        UpdateBuilder builder = openUpdates.remove(uri.getUri().toString());
+        if (builder != null) {
+            synchronized (builder) {
+                if (builder.getNumberOfTriples() > 0) {
+                    submit(uri, builder.build(), builder.reset());
+                }
+            }
+        }
+    }
+
+    /**
+     * Submits the given request. Blocks if the maximum number of pending
+     * requests has been reached.
+     *
+     * @param uri      the URI whose data is contained in the request
+     * @param update   the request
+     * @param nTriples the number of triples of the request
+     */
+    protected void submit(CrawleableUri uri, String update, int nTriples) {
+        try {
+            pendingUpdates.acquire();
+        } catch (InterruptedException e) {
+            LOGGER.error("Interrupted while waiting for a free connection. The update for " + uri.getUri()
+                    + " will be executed on this thread.", e);
+            Thread.currentThread().interrupt();
+            execute(uri, update, nTriples);
+            return;
+        }
+        try {
+            updateExecutor.execute(() -> {
+                try {
+                    execute(uri, update, nTriples);
+                } finally {
+                    pendingUpdates.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pendingUpdates.release();
+            LOGGER.warn("The update executor has been shut down. The update for " + uri.getUri()
+                    + " will be executed on this thread.");
+            execute(uri, update, nTriples);
+        }
+    }
+
+    /**
+     * Executes the given request. A failed request is retried after a delay
+     * that is doubled after every attempt.
+     */
+    protected void execute(CrawleableUri uri, String update, int nTriples) {
+        long delay = initialDelay;
+        for (int i = 1; i <= maxAttempts; ++i) {
+            try {
+                updateExecFactory.createUpdateProcessor(update).execute();
+                sentTriples.addAndGet(nTriples);
+                sentUpdates.incrementAndGet();
+                return;
+            } catch (Exception e) {
+                if (i == maxAttempts) {
+                    LOGGER.error("Exception while sending update query with " + nTriples + " triples. URI: "
+                            + uri.getUri().toString(), e);
+                    failedUpdates.incrementAndGet();
+                    return;
+                }
+                LOGGER.info("An error was caught while inserting triples, trying again in {}ms, Attempt {} of {}",
+                        delay, i, maxAttempts);
+                if (delay > 0) {
+                    try {
+                        Thread.sleep(delay);
+                    } catch (InterruptedException e1) {
+                        Thread.currentThread().interrupt();
+                    }
+                    delay = Math.min(2 * delay, MAX_BACKOFF_DELAY);
+                }
+            }
+        }
+    }
+
+    public long getSentTriples() {
+        return sentTriples.get();
+    }
+
+    public long getSentUpdates() {
+        return sentUpdates.get();
+    }
+
+    public long getFailedUpdates() {
+        return failedUpdates.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeSinkForUri(metadataGraphUri);
+        updateExecutor.shutdown();
+        try {
+            if (!updateExecutor.awaitTermination(TERMINATION_TIMEOUT, TimeUnit.SECONDS)) {
+                LOGGER.error("The pending updates have not been sent in time. They will be discarded.");
+                updateExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            LOGGER.error("Interrupted while waiting for the pending updates.", e);
+            updateExecutor.shutdownNow();
+        }
+        LOGGER.info("Sent {} triples in {} updates. {} updates failed.", getSentTriples(), getSentUpdates(),
+                getFailedUpdates());
+        super.close();
+    }
+
+    /**
+     * Serializes triples into an {@code INSERT DATA} request. Consecutive
+     * triples of the same graph share a {@code GRAPH} block. Since the grammar
+     * of a block is recursive, SPARQL parsers (e.g., the one of Jena) might
+     * run out of stack for large blocks. Hence, a new block is started after
+     * {@link #MAX_TRIPLES_PER_BLOCK} triples. This class is not thread-safe.
+     */
+    protected static class UpdateBuilder {
+
+        private static final String PREFIX = "INSERT DATA {\n";
+        private static final String SUFFIX = "}\n}";
+        private static final int MAX_TRIPLES_PER_BLOCK = 256;
+
+        private final NodeFormatter formatter = new NodeFormatterNT();
+        private IndentedLineBuffer buffer = new IndentedLineBuffer();
+        private Node currentGraph = null;
+        private int nTriples = 0;
+        private int nTriplesInBlock = 0;
+
+        public UpdateBuilder() {
+            buffer.print(PREFIX);
+        }
+
+        public void add(Node graph, Triple triple) {
+            if (!graph.equals(currentGraph) || (nTriplesInBlock >= MAX_TRIPLES_PER_BLOCK)) {
+                if (currentGraph != null) {
+                    buffer.print("}\n");
+                }
+                buffer.print("GRAPH ");
+                formatter.format(buffer, graph);
+                buffer.print(" {\n");
+                currentGraph = graph;
+                nTriplesInBlock = 0;
+            }
+            formatter.format(buffer, triple.getSubject());
+            buffer.print(' ');
+            formatter.format(buffer, triple.getPredicate());
+            buffer.print(' ');
+            formatter.format(buffer, triple.getObject());
+            buffer.print(" .\n");
+            ++nTriples;
+            ++nTriplesInBlock;
+        }
+
+        public int getNumberOfTriples() {
+            return nTriples;
+        }
+
+        public int getSize() {
+            return buffer.getBuffer().length();
+        }
+
+        public String build() {
+            return buffer.asString() + SUFFIX;
+        }
+
+        /**
+         * Removes all triples.
+         *
+         * @return the number of triples that have been removed
+         */
+        public int reset() {
+            int removed = nTriples;
+            buffer.clear();
+            buffer.print(PREFIX);
+            currentGraph = null;
+            nTriples = 0;
+            nTriplesInBlock = 0;
+            return removed;
+        }
+    }
+}
@@ -0,0 +1,413 @@
+package org.dice_research.squirrel.sink.impl.sparql;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.auth.AuthScope;
+import org.apache.http.auth.UsernamePasswordCredentials;
+import org.apache.http.client.CredentialsProvider;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.BasicCredentialsProvider;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.util.EntityUtils;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFFormat;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFWriter;
+import org.apache.jena.sparql.core.Quad;
+import org.dice_research.squirrel.Constants;
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.metadata.CrawlingActivity;
+import org.dice_research.squirrel.sink.Sink;
+import org.dice_research.squirrel.utils.Closer;
+import org.dice_research.squirrel.vocab.Squirrel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A sink that uploads the crawled graphs to a triple store using the SPARQL
+ * 1.1 Graph Store HTTP Protocol. Instead of generating {@code INSERT DATA}
+ * queries, the triples of a graph are serialized (N-Triples by default or RDF
+ * Thrift if the store supports it) and sent with a single {@code POST}
+ * request to {@code <endpoint>?graph=<graph IRI>}. Graphs that are larger
+ * than the chunk size are sent in several requests. This enables the store to
+ * use its bulk loading. Quads are sent to the endpoint without a graph
+ * parameter (N-Quads or RDF Thrift), which is supported by stores like Fuseki.
+ *
+ * <p>
+ * The graphs are named like the graphs of the {@link SparqlBasedSink}.
+ * </p>
+ */
+public class GraphStoreProtocolSink implements Sink {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GraphStoreProtocolSink.class);
+
+    /**
+     * The default maximum size of a single request in bytes (8 MiB).
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+
+    /**
+     * The URL of the graph store endpoint.
+     */
+    protected String endpoint;
+    /**
+     * The format of the triples (N-Triples or RDF Thrift).
+     */
+    protected RDFFormat tripleFormat;
+    /**
+     * The format of the quads (N-Quads or RDF Thrift).
+     */
+    protected RDFFormat quadFormat;
+    /**
+     * The maximum size of a single request in bytes.
+     */
+    protected int chunkSize;
+    protected int attempts;
+    protected long delay;
+    protected CloseableHttpClient client;
+    protected CrawleableUri metadataGraphUri = new CrawleableUri(Constants.DEFAULT_META_DATA_GRAPH_URI);
+    /**
+     * The graphs that are currently uploaded, mapped by the URI whose data they
+     * contain.
+     */
+    protected Map<String, GraphUpload> uploads = new ConcurrentHashMap<>();
+
+    private AtomicLong sentTriples = new AtomicLong();
+    private AtomicLong sentRequests = new AtomicLong();
+    private AtomicLong failedRequests = new AtomicLong();
+
+    /**
+     * Constructor.
+     *
+     * @param endpoint  the URL of the graph store endpoint
+     * @param username  the name of the user or {@code null}
+     * @param password  the password of the user or {@code null}
+     * @param useThrift whether the data should be serialized as RDF Thrift
+     *                  instead of N-Triples/N-Quads
+     * @param chunkSize the maximum size (in bytes) of a single request
+     * @param attempts  the maximum number of attempts for a single request
+     * @param delay     the delay (in ms) between two attempts
+     */
+    public GraphStoreProtocolSink(String endpoint, String username, String password, boolean useThrift,
+            int chunkSize, int attempts, long delay) {
+        this.endpoint = endpoint;
+        if (useThrift) {
+            tripleFormat = RDFFormat.RDF_THRIFT;
+            quadFormat = RDFFormat.RDF_THRIFT;
+        } else {
+            tripleFormat = RDFFormat.NTRIPLES_UTF8;
+            quadFormat = RDFFormat.NQUADS_UTF8;
+        }
+        this.chunkSize = chunkSize;
+        this.attempts = Math.max(1, attempts);
+        this.delay = delay;
+        HttpClientBuilder builder = HttpClientBuilder.create().useSystemProperties();
+        if (username != null && password != null) {
+            CredentialsProvider credentialsProvider = new BasicCredentialsProvider();
+            credentialsProvider.setCredentials(AuthScope.ANY, new UsernamePasswordCredentials(username, password));
+            builder.setDefaultCredentialsProvider(credentialsProvider);
+        }
+        client = builder.build();
+    }
+
+    public static GraphStoreProtocolSink create(String endpoint) {
+        return create(endpoint, null, null, false);
+    }
+
+    public static GraphStoreProtocolSink create(String endpoint, String username, String password,
+            boolean useThrift) {
+        return new GraphStoreProtocolSink(endpoint, username, password, useThrift, DEFAULT_CHUNK_SIZE, 3, 1000);
+    }
+
+    @Override
+    public void openSinkForUri(CrawleableUri uri) {
+        uploads.put(uri.getUri().toString(), new GraphUpload(uri, getGraphId(uri)));
+    }
+
+    /**
+     * Returns the upload of the given URI. If the sink has not been opened for
+     * the URI, it is opened.
+     */
+    protected GraphUpload getUpload(CrawleableUri uri) {
+        GraphUpload upload = uploads.get(uri.getUri().toString());
+        if (upload == null) {
+            if (!uri.equals(metadataGraphUri)) {
+                LOGGER.warn("Sink has not been opened for the uri, sink will be opened.");
+            }
+            upload = uploads.computeIfAbsent(uri.getUri().toString(), k -> new GraphUpload(uri, getGraphId(uri)));
+        }
+        return upload;
+    }
+
+    @Override
+    public void addTriple(CrawleableUri uri, Triple triple) {
+        GraphUpload upload = getUpload(uri);
+        synchronized (upload) {
+            upload.addTriple(triple);
+        }
+    }
+
+    @Override
+    public void addQuad(CrawleableUri uri, Quad quad) {
+        GraphUpload upload = getUpload(uri);
+        synchronized (upload) {
+            upload.addQuad(quad);
+        }
+    }
+
+    @Override
+    public void addData(CrawleableUri uri, InputStream stream) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void closeSinkForUri(CrawleableUri uri) {
+        GraphUpload upload = uploads.remove(uri.getUri().toString());
+        if (upload == null) {
+            LOGGER.info("Try to close Sink for an uri, without open it before. Do nothing.");
+            return;
+        }
+        synchronized (upload) {
+            upload.flush();
+        }
+        CrawlingActivity activity = (CrawlingActivity) uri.getData(Constants.URI_CRAWLING_ACTIVITY);
+        if (activity != null) {
+            activity.setNumberOfTriples(upload.getNumberOfTriples());
+            if (!uri.equals(metadataGraphUri)) {
+                activity.addOutputResource(upload.getGraphId(), Squirrel.ResultGraph);
+            }
+        }
+    }
+
+    @Override
+    public void flushMetadata() {
+        GraphUpload upload = uploads.get(metadataGraphUri.getUri().toString());
+        if (upload != null) {
+            synchronized (upload) {
+                upload.flush();
+            }
+        }
+    }
+
+    /**
+     * Get the id of the graph in which the given uri is stored.
+     *
+     * @param uri The given uri.
+     * @return The id of the graph.
+     */
+    protected String getGraphId(CrawleableUri uri) {
+        if (uri.equals(metadataGraphUri)) {
+            return uri.getUri().toString();
+        } else {
+            return SparqlBasedSink.getGraphId(uri);
+        }
+    }
+
+    /**
+     * Sends the given data to the given URL. Failed requests are retried.
+     *
+     * @param url      the URL the data is posted to
+     * @param data     the buffer containing the serialized data
+     * @param length   the length of the data in the buffer
+     * @param lang     the language of the data
+     * @param nTriples the number of triples or quads in the data
+     * @return {@code true} if the data has been sent successfully
+     */
+    protected boolean post(String url, byte[] data, int length, Lang lang, long nTriples) {
+        for (int i = 1; i <= attempts; ++i) {
+            HttpPost post = new HttpPost(url);
+            post.setEntity(new ByteArrayEntity(data, 0, length, ContentType.create(lang.getContentType().getContentType())));
+            try (CloseableHttpResponse response = client.execute(post)) {
+                int status = response.getStatusLine().getStatusCode();
+                if ((status >= 200) && (status < 300)) {
+                    EntityUtils.consumeQuietly(response.getEntity());
+                    sentTriples.addAndGet(nTriples);
+                    sentRequests.incrementAndGet();
+                    return true;
+                }
+                LOGGER.info("Got status {} for a request with {} triples to {}. Attempt {} of {}.", status,
+                        nTriples, url, i, attempts);
+                logResponse(response);
+            } catch (IOException e) {
+                LOGGER.info("Exception while sending " + nTriples + " triples to " + url + ". Attempt " + i + " of "
+                        + attempts + ".", e);
+            }
+            if ((i < attempts) && (delay > 0)) {
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        LOGGER.error("Couldn't send {} triples to {}. They will be lost.", nTriples, url);
+        failedRequests.incrementAndGet();
+        return false;
+    }
+
+    private static void logResponse(HttpResponse response) {
+        try {
+            if ((response.getEntity() != null) && LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Response: {}", EntityUtils.toString(response.getEntity()));
+            } else {
+                EntityUtils.consumeQuietly(response.getEntity());
+            }
+        } catch (IOException e) {
+            // nothing to do
+        }
+    }
+
+    protected String createGraphUrl(String graphId) {
+        try {
+            return endpoint + (endpoint.contains("?") ? "&" : "?") + "graph="
+                    + URLEncoder.encode(graphId, StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException e) {
+            // UTF-8 is always supported
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public long getSentTriples() {
+        return sentTriples.get();
+    }
+
+    public long getSentRequests() {
+        return sentRequests.get();
+    }
+
+    public long getFailedRequests() {
+        return failedRequests.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeSinkForUri(metadataGraphUri);
+        for (String uri : uploads.keySet()) {
+            LOGGER.warn("The sink for {} has not been closed. Its data will be sent now.", uri);
+            GraphUpload upload = uploads.remove(uri);
+            if (upload != null) {
+                synchronized (upload) {
+                    upload.flush();
+                }
+            }
+        }
+        Closer.close(client, LOGGER);
+    }
+
+    /**
+     * The data of a single crawled URI that has not been sent, yet. The triples
+     * and quads are serialized directly into a buffer which is sent if it
+     * exceeds the chunk size or the sink for the URI is closed. This class is
+     * not thread-safe.
+     */
+    protected class GraphUpload {
+
+        private final String graphId;
+        private final String graphUrl;
+        private ChunkBuffer tripleBuffer;
+        private StreamRDF tripleStream;
+        private long tripleChunkSize = 0;
+        private ChunkBuffer quadBuffer;
+        private StreamRDF quadStream;
+        private long quadChunkSize = 0;
+        private long numberOfTriples = 0;
+
+        public GraphUpload(CrawleableUri uri, String graphId) {
+            this.graphId = graphId;
+            this.graphUrl = createGraphUrl(graphId);
+        }
+
+        public void addTriple(Triple triple) {
+            if (tripleStream == null) {
+                tripleBuffer = new ChunkBuffer();
+                tripleStream = StreamRDFWriter.getWriterStream(tripleBuffer, tripleFormat);
+                tripleStream.start();
+            }
+            tripleStream.triple(triple);
+            ++tripleChunkSize;
+            ++numberOfTriples;
+            // the stream writers buffer their output, so the size is checked
+            // only from time to time
+            if (((tripleChunkSize & 0xFF) == 0) && (tripleBuffer.size() >= chunkSize)) {
+                sendTriples();
+            }
+        }
+
+        public void addQuad(Quad quad) {
+            if (quadStream == null) {
+                quadBuffer = new ChunkBuffer();
+                quadStream = StreamRDFWriter.getWriterStream(quadBuffer, quadFormat);
+                quadStream.start();
+            }
+            quadStream.quad(quad);
+            ++quadChunkSize;
+            ++numberOfTriples;
+            if (((quadChunkSize & 0xFF) == 0) && (quadBuffer.size() >= chunkSize)) {
+                sendQuads();
+            }
+        }
+
+        protected void sendTriples() {
+            if (tripleStream != null) {
+                tripleStream.finish();
+                post(graphUrl, tripleBuffer.getBuffer(), tripleBuffer.size(), tripleFormat.getLang(),
+                        tripleChunkSize);
+                tripleStream = null;
+                tripleBuffer = null;
+                tripleChunkSize = 0;
+            }
+        }
+
+        protected void sendQuads() {
+            if (quadStream != null) {
+                quadStream.finish();
+                post(endpoint, quadBuffer.getBuffer(), quadBuffer.size(), quadFormat.getLang(), quadChunkSize);
+                quadStream = null;
+                quadBuffer = null;
+                quadChunkSize = 0;
+            }
+        }
+
+        public void flush() {
+            sendTriples();
+            sendQuads();
+        }
+
+        public String getGraphId() {
+            return graphId;
+        }
+
+        public long getNumberOfTriples() {
+            return numberOfTriples;
+        }
+    }
+
+    /**
+     * A {@link ByteArrayOutputStream} that gives access to its buffer to avoid
+     * copying it before it is sent.
+     */
+    protected static class ChunkBuffer extends ByteArrayOutputStream {
+
+        public ChunkBuffer() {
+            super(64 * 1024);
+        }
+
+        public byte[] getBuffer() {
+            return buf;
+        }
+    }
+}
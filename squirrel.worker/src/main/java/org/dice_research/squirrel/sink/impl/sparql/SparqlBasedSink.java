@@ -85,36 +85,8 @@ public class SparqlBasedSink extends AbstractBufferingSink implements AdvancedTr
             int attempts) {
         QueryExecutionFactory queryExecFactory = null;
         UpdateExecutionFactory updateExecFactory = null;
-        if (username != null && password != null) {
-            // Create the factory with the credentials
-            final Credentials credentials = new UsernamePasswordCredentials(username, password);
-            HttpAuthenticator authenticator = new HttpAuthenticator() {
-                @Override
-                public void invalidate() {
-                    // unused method in this implementation
-                }
-
-                @Override
-                public void apply(AbstractHttpClient client, HttpContext httpContext, URI target) {
-                    client.setCredentialsProvider(new CredentialsProvider() {
-                        @Override
-                        public void clear() {
-                            // unused method in this implementation
-
-                        }
-
-                        @Override
-                        public Credentials getCredentials(AuthScope scope) {
-                            return credentials;
-                        }
-
-                        @Override
-                        public void setCredentials(AuthScope arg0, Credentials arg1) {
-                            LOGGER.error("I am a read-only credential provider but got a call to set credentials.");
-                        }
-                    });
-                }
-            };
+        HttpAuthenticator authenticator = createAuthenticator(username, password);
+        if (authenticator != null) {
             queryExecFactory = new QueryExecutionFactoryHttp(sparqlEndpointUrl, new DatasetDescription(),
                     authenticator);
             updateExecFactory = new UpdateExecutionFactoryHttp(sparqlEndpointUrl, authenticator);
@@ -125,6 +97,48 @@ public class SparqlBasedSink extends AbstractBufferingSink implements AdvancedTr
         return new SparqlBasedSink(queryExecFactory, updateExecFactory, delay, attempts);
     }
 
+    /**
+     * Creates an authenticator for the given credentials.
+     *
+     * @param username the name of the user or {@code null}
+     * @param password the password of the user or {@code null}
+     * @return the authenticator or {@code null} if no credentials are given
+     */
+    protected static HttpAuthenticator createAuthenticator(String username, String password) {
+        if (username == null || password == null) {
+            return null;
+        }
+        // Create the factory with the credentials
+        final Credentials credentials = new UsernamePasswordCredentials(username, password);
+        return new HttpAuthenticator() {
+            @Override
+            public void invalidate() {
+                // unused method in this implementation
+            }
+
+            @Override
+            public void apply(AbstractHttpClient client, HttpContext httpContext, URI target) {
+                client.setCredentialsProvider(new CredentialsProvider() {
+                    @Override
+                    public void clear() {
+                        // unused method in this implementation
+
+                    }
+
+                    @Override
+                    public Credentials getCredentials(AuthScope scope) {
+                        return credentials;
+                    }
+
+                    @Override
+                    public void setCredentials(AuthScope arg0, Credentials arg1) {
+                        LOGGER.error("I am a read-only credential provider but got a call to set credentials.");
+                    }
+                });
+            }
+        };
+    }
+
     @Override
     public List<Triple> getTriplesForGraph(CrawleableUri uri) {
         Query selectQuery = null;
@@ -0,0 +1,410 @@
+package org.dice_research.squirrel.sink.impl.tdb;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.ReadWrite;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.tdb.TDBFactory;
+import org.dice_research.squirrel.Constants;
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.metadata.CrawlingActivity;
+import org.dice_research.squirrel.sink.Sink;
+import org.dice_research.squirrel.sink.impl.sparql.SparqlBasedSink;
+import org.dice_research.squirrel.vocab.Squirrel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A sink that stores the crawled data in an embedded TDB dataset. The triples
+ * of a crawled URI are stored in a named graph (named like the graphs of the
+ * {@link SparqlBasedSink}) while quads keep their graph.
+ *
+ * <p>
+ * The crawling threads only collect the data in small batches which are
+ * handed over to a single writer thread via a bounded queue. The writer adds
+ * the data within large write transactions that are committed if they
+ * exceed a given number of quads or are open for longer than a given time.
+ * Since TDB allows only one writer at a time, this avoids any contention
+ * between the crawling threads. If the writer can not keep up, the crawling
+ * threads are blocked when handing over their batches.
+ * </p>
+ */
+public class TdbBasedSink implements Sink {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TdbBasedSink.class);
+
+    /**
+     * The default number of quads a crawling thread collects before it hands
+     * them over to the writer.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    /**
+     * The default number of quads after which a write transaction is
+     * committed.
+     */
+    public static final int DEFAULT_MAX_TRANSACTION_SIZE = 500000;
+    /**
+     * The default time (in ms) after which a write transaction is committed.
+     */
+    public static final long DEFAULT_MAX_TRANSACTION_TIME = 5000;
+    /**
+     * The default number of batches that can wait for the writer.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 256;
+
+    /**
+     * Marks the end of the queue.
+     */
+    private static final List<Quad> END_OF_QUEUE = Collections.emptyList();
+
+    protected Dataset dataset;
+    protected int batchSize;
+    protected int maxTransactionSize;
+    protected long maxTransactionTime;
+    protected BlockingQueue<List<Quad>> queue;
+    protected Thread writerThread;
+    protected CrawleableUri metadataGraphUri = new CrawleableUri(Constants.DEFAULT_META_DATA_GRAPH_URI);
+    /**
+     * The batches of the URIs that are currently crawled.
+     */
+    protected Map<CrawleableUri, UriBatch> batches = new ConcurrentHashMap<>();
+    protected volatile boolean closed = false;
+
+    private AtomicLong writtenQuads = new AtomicLong();
+    private AtomicLong commits = new AtomicLong();
+    private AtomicLong failedQuads = new AtomicLong();
+
+    /**
+     * Constructor using the default configuration.
+     *
+     * @param directory the directory of the TDB dataset
+     */
+    public TdbBasedSink(File directory) {
+        this(directory, DEFAULT_BATCH_SIZE, DEFAULT_MAX_TRANSACTION_SIZE, DEFAULT_MAX_TRANSACTION_TIME,
+                DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param directory          the directory of the TDB dataset
+     * @param batchSize          the number of quads a crawling thread collects
+     *                           before it hands them over to the writer
+     * @param maxTransactionSize the number of quads after which a write
+     *                           transaction is committed
+     * @param maxTransactionTime the time (in ms) after which a write transaction
+     *                           is committed
+     * @param queueCapacity      the number of batches that can wait for the
+     *                           writer
+     */
+    public TdbBasedSink(File directory, int batchSize, int maxTransactionSize, long maxTransactionTime,
+            int queueCapacity) {
+        this(TDBFactory.createDataset(directory.getAbsolutePath()), batchSize, maxTransactionSize,
+                maxTransactionTime, queueCapacity);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param dataset            the TDB dataset the data is written to
+     * @param batchSize          the number of quads a crawling thread collects
+     *                           before it hands them over to the writer
+     * @param maxTransactionSize the number of quads after which a write
+     *                           transaction is committed
+     * @param maxTransactionTime the time (in ms) after which a write transaction
+     *                           is committed
+     * @param queueCapacity      the number of batches that can wait for the
+     *                           writer
+     */
+    public TdbBasedSink(Dataset dataset, int batchSize, int maxTransactionSize, long maxTransactionTime,
+            int queueCapacity) {
+        this.dataset = dataset;
+        this.batchSize = batchSize;
+        this.maxTransactionSize = maxTransactionSize;
+        this.maxTransactionTime = maxTransactionTime;
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        writerThread = new Thread(this::write, "tdb-writer");
+        writerThread.start();
+    }
+
+    @Override
+    public void openSinkForUri(CrawleableUri uri) {
+        batches.put(uri, new UriBatch(NodeFactory.createURI(getGraphId(uri))));
+    }
+
+    /**
+     * Returns the batch of the given URI. If the sink has not been opened for
+     * the URI, it is opened.
+     */
+    protected UriBatch getBatch(CrawleableUri uri) {
+        UriBatch batch = batches.get(uri);
+        if (batch == null) {
+            if (!uri.equals(metadataGraphUri)) {
+                LOGGER.warn("Sink has not been opened for the uri, sink will be opened.");
+            }
+            batch = batches.computeIfAbsent(uri, u -> new UriBatch(NodeFactory.createURI(getGraphId(u))));
+        }
+        return batch;
+    }
+
+    @Override
+    public void addTriple(CrawleableUri uri, Triple triple) {
+        UriBatch batch = getBatch(uri);
+        synchronized (batch) {
+            batch.add(new Quad(batch.graph, triple));
+        }
+    }
+
+    @Override
+    public void addQuad(CrawleableUri uri, Quad quad) {
+        UriBatch batch = getBatch(uri);
+        synchronized (batch) {
+            batch.add(quad);
+        }
+    }
+
+    @Override
+    public void addData(CrawleableUri uri, InputStream stream) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void closeSinkForUri(CrawleableUri uri) {
+        UriBatch batch = batches.remove(uri);
+        if (batch == null) {
+            LOGGER.info("Try to close Sink for an uri, without open it before. Do nothing.");
+            return;
+        }
+        synchronized (batch) {
+            batch.handOver();
+        }
+        CrawlingActivity activity = (CrawlingActivity) uri.getData(Constants.URI_CRAWLING_ACTIVITY);
+        if (activity != null) {
+            activity.setNumberOfTriples(batch.numberOfQuads);
+            if (!uri.equals(metadataGraphUri)) {
+                activity.addOutputResource(batch.graph.getURI(), Squirrel.ResultGraph);
+            }
+        }
+    }
+
+    @Override
+    public void flushMetadata() {
+        UriBatch batch = batches.get(metadataGraphUri);
+        if (batch != null) {
+            synchronized (batch) {
+                batch.handOver();
+            }
+        }
+    }
+
+    /**
+     * Hands the given quads over to the writer. Blocks if the queue of the
+     * writer is full.
+     */
+    protected void enqueue(List<Quad> quads) {
+        if (closed) {
+            LOGGER.error("The sink has already been closed. {} quads will be lost.", quads.size());
+            failedQuads.addAndGet(quads.size());
+            return;
+        }
+        try {
+            queue.put(quads);
+        } catch (InterruptedException e) {
+            LOGGER.error("Interrupted while waiting for the writer. {} quads will be lost.", quads.size());
+            failedQuads.addAndGet(quads.size());
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The loop of the writer thread. It takes the batches from the queue and
+     * adds them to the dataset until it gets the end of the queue.
+     */
+    protected void write() {
+        DatasetGraph dsg = dataset.asDatasetGraph();
+        boolean inTransaction = false;
+        long transactionSize = 0;
+        long transactionStart = 0;
+        List<Quad> quads;
+        try {
+            while (true) {
+                if (inTransaction) {
+                    long timeLeft = transactionStart + maxTransactionTime - System.currentTimeMillis();
+                    quads = (timeLeft > 0) ? queue.poll(timeLeft, TimeUnit.MILLISECONDS) : null;
+                } else {
+                    quads = queue.take();
+                }
+                if (quads == END_OF_QUEUE) {
+                    break;
+                }
+                if (quads != null) {
+                    try {
+                        if (!inTransaction) {
+                            dataset.begin(ReadWrite.WRITE);
+                            inTransaction = true;
+                            transactionStart = System.currentTimeMillis();
+                        }
+                        for (Quad quad : quads) {
+                            dsg.add(quad);
+                        }
+                        transactionSize += quads.size();
+                    } catch (Exception e) {
+                        LOGGER.error("Exception while adding quads. The current transaction will be aborted and "
+                                + (transactionSize + quads.size()) + " quads will be lost.", e);
+                        failedQuads.addAndGet(transactionSize + quads.size());
+                        if (inTransaction) {
+                            abort();
+                        }
+                        inTransaction = false;
+                        transactionSize = 0;
+                        continue;
+                    }
+                }
+                // commit if the transaction is large enough or open for too long
+                if (inTransaction && ((transactionSize >= maxTransactionSize)
+                        || (System.currentTimeMillis() - transactionStart) >= maxTransactionTime)) {
+                    commit(transactionSize);
+                    inTransaction = false;
+                    transactionSize = 0;
+                }
+            }
+        } catch (InterruptedException e) {
+            LOGGER.error("The writer has been interrupted.", e);
+        } finally {
+            if (inTransaction) {
+                commit(transactionSize);
+            }
+        }
+    }
+
+    private void commit(long transactionSize) {
+        try {
+            dataset.commit();
+            writtenQuads.addAndGet(transactionSize);
+            commits.incrementAndGet();
+            dataset.end();
+        } catch (Exception e) {
+            LOGGER.error("Couldn't commit transaction. " + transactionSize + " quads will be lost.", e);
+            failedQuads.addAndGet(transactionSize);
+            abort();
+        }
+    }
+
+    private void abort() {
+        try {
+            dataset.abort();
+        } catch (Exception e) {
+            LOGGER.error("Couldn't abort transaction.", e);
+        } finally {
+            dataset.end();
+        }
+    }
+
+    /**
+     * Get the id of the graph in which the given uri is stored.
+     *
+     * @param uri The given uri.
+     * @return The id of the graph.
+     */
+    protected String getGraphId(CrawleableUri uri) {
+        if (uri.equals(metadataGraphUri)) {
+            return uri.getUri().toString();
+        } else {
+            return SparqlBasedSink.getGraphId(uri);
+        }
+    }
+
+    /**
+     * @return the dataset of this sink. Note that it should only be accessed
+     *         within read transactions while the sink is running.
+     */
+    public Dataset getDataset() {
+        return dataset;
+    }
+
+    /**
+     * @return the number of quads that have been committed
+     */
+    public long getWrittenQuads() {
+        return writtenQuads.get();
+    }
+
+    /**
+     * @return the number of committed transactions
+     */
+    public long getCommits() {
+        return commits.get();
+    }
+
+    /**
+     * @return the number of quads that couldn't be written
+     */
+    public long getFailedQuads() {
+        return failedQuads.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeSinkForUri(metadataGraphUri);
+        for (CrawleableUri uri : batches.keySet()) {
+            LOGGER.warn("The sink for {} has not been closed. Its data will be written now.", uri.getUri());
+            closeSinkForUri(uri);
+        }
+        if (!closed) {
+            closed = true;
+            try {
+                queue.put(END_OF_QUEUE);
+                writerThread.join();
+            } catch (InterruptedException e) {
+                LOGGER.error("Interrupted while waiting for the writer.", e);
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * The quads of a crawled URI that have not been handed over to the writer.
+     * This class is not thread-safe.
+     */
+    protected class UriBatch {
+
+        private final Node graph;
+        private List<Quad> quads = new ArrayList<>(batchSize);
+        private long numberOfQuads = 0;
+
+        public UriBatch(Node graph) {
+            this.graph = graph;
+        }
+
+        public void add(Quad quad) {
+            quads.add(quad);
+            ++numberOfQuads;
+            if (quads.size() >= batchSize) {
+                handOver();
+            }
+        }
+
+        public void handOver() {
+            if (!quads.isEmpty()) {
+                enqueue(quads);
+                quads = new ArrayList<>(batchSize);
+            }
+        }
+    }
+}
@@ -0,0 +1,440 @@
+package org.dice_research.squirrel.worker.impl;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.dice_research.squirrel.Constants;
+import org.dice_research.squirrel.analyzer.Analyzer;
+import org.dice_research.squirrel.analyzer.mime.ContentClassifier;
+import org.dice_research.squirrel.collect.SqlBasedUriCollector;
+import org.dice_research.squirrel.collect.StreamingUriCollector;
+import org.dice_research.squirrel.collect.UriCollector;
+import org.dice_research.squirrel.configurator.WorkerPipelineConfiguration;
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.data.uri.serialize.Serializer;
+import org.dice_research.squirrel.fetcher.Fetcher;
+import org.dice_research.squirrel.fetcher.delay.StaticDelayer;
+import org.dice_research.squirrel.frontier.Frontier;
+import org.dice_research.squirrel.metadata.CrawlingActivity;
+import org.dice_research.squirrel.robots.RobotsManager;
+import org.dice_research.squirrel.robots.RobotsManagerImpl;
+import org.dice_research.squirrel.sink.Sink;
+import org.dice_research.squirrel.utils.Closer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link WorkerImpl} that crawls several URI sets at the same time. The
+ * crawling of a single URI is split into two stages which are connected by a
+ * bounded queue:
+ * <ol>
+ * <li>The fetching stage checks the robots.txt rules and fetches the URI. It
+ * is executed by a pool of I/O threads which limits the number of in-flight
+ * fetches.</li>
+ * <li>The processing stage decompresses and analyzes the fetched data, stores
+ * it in the sink and sends the new URIs to the frontier. It is executed by a
+ * (typically CPU-sized) pool of processing threads.</li>
+ * </ol>
+ *
+ * <p>
+ * The URIs of a single URI set are still fetched one after the other and the
+ * crawl delay between two of them is respected. However, the delay is
+ * implemented by scheduling the next fetch instead of blocking a thread with
+ * {@link Thread#sleep(long)}. The next URI of a set is fetched while the
+ * previous URI is still processed. The URI set is sent back to the frontier
+ * as soon as all its URIs have been processed.
+ * </p>
+ *
+ * <p>
+ * If the processing queue is full, the fetching threads are blocked until the
+ * processing threads catch up. Note that the sink, the collector, the fetcher,
+ * the analyzer, the robots manager and the frontier are shared by all threads
+ * and have to be thread-safe. The constructor rejects known implementations
+ * that are not thread-safe, i.e., the {@link RobotsManagerImpl} and the
+ * {@link SqlBasedUriCollector}.
+ * </p>
+ */
+public class PipelinedWorkerImpl extends WorkerImpl {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PipelinedWorkerImpl.class);
+
+    /**
+     * The time (in s) the worker waits for the URI sets it is crawling when it
+     * is terminated.
+     */
+    private static final long TERMINATION_TIMEOUT = 60;
+
+    protected final int maxInFlightFetches;
+    /**
+     * Permits for URI sets that are crawled at the same time. Since a URI set
+     * has at most one fetch in flight, this limits the number of fetches.
+     */
+    protected final Semaphore uriSetPermits;
+    /**
+     * Permits for the processing stage, i.e., the number of processing threads
+     * plus the size of the processing queue.
+     */
+    protected final Semaphore processingPermits;
+    protected final ExecutorService fetchingExecutor;
+    protected final ExecutorService processingExecutor;
+    /**
+     * Used to start delayed fetches without blocking one of the fetching
+     * threads.
+     */
+    protected final ScheduledExecutorService delayScheduler;
+
+    /**
+     * Constructor.
+     *
+     * @param frontier      Frontier implementation used by this worker to get
+     *                      URI sets and send new URIs to. Note that it is used
+     *                      by several threads.
+     * @param sink          Sink used by this worker to store crawled data.
+     * @param manager       RobotsManager for handling robots.txt files.
+     * @param serializer    Serializer for serializing and deserializing URIs.
+     * @param collector     The UriCollector implementation used by this worker.
+     * @param waitingTime   Time (in ms) the worker waits when the given frontier
+     *                      couldn't provide any URIs before requesting new URIs
+     *                      again.
+     * @param logDir        The directory to which a domain log will be written
+     *                      (or {@code null} if no log should be written).
+     * @param configuration The configuration of the thread pools and queues of
+     *                      this worker.
+     * @throws IllegalArgumentException if one of the given components is known
+     *                                  to be not thread-safe
+     */
+    public PipelinedWorkerImpl(Frontier frontier, Fetcher fetcher, Sink sink, Analyzer analyzer,
+            RobotsManager manager, Serializer serializer, UriCollector collector, long waitingTime, String logDir,
+            boolean sendAliveMessages, boolean storeMetadata, WorkerPipelineConfiguration configuration) {
+        super(frontier, fetcher, sink, analyzer, manager, serializer, collector, waitingTime, logDir,
+                sendAliveMessages, storeMetadata);
+        if (manager instanceof RobotsManagerImpl) {
+            throw new IllegalArgumentException(
+                    "The RobotsManagerImpl is not thread-safe. Please use a thread-safe robots manager, e.g., the CachingRobotsManager.");
+        }
+        UriCollector storingCollector = (collector instanceof StreamingUriCollector)
+                ? ((StreamingUriCollector) collector).getDecorated()
+                : collector;
+        if (storingCollector instanceof SqlBasedUriCollector) {
+            throw new IllegalArgumentException(
+                    "The SqlBasedUriCollector is not thread-safe. Please use a thread-safe collector, e.g., the MemoryMappedUriCollector.");
+        }
+        maxInFlightFetches = configuration.getMaxInFlightFetches();
+        uriSetPermits = new Semaphore(maxInFlightFetches);
+        processingPermits = new Semaphore(
+                configuration.getProcessingThreads() + configuration.getProcessingQueueSize());
+        fetchingExecutor = Executors.newFixedThreadPool(maxInFlightFetches, new NamedThreadFactory("fetcher"));
+        processingExecutor = Executors.newFixedThreadPool(configuration.getProcessingThreads(),
+                new NamedThreadFactory("processor"));
+        delayScheduler = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("delayer"));
+    }
+
+    @Override
+    public void run() {
+        terminateFlag = false;
+        List<CrawleableUri> urisToCrawl;
+        try {
+            while (!terminateFlag) {
+                // make sure that we do not crawl more URI sets than allowed
+                uriSetPermits.acquire();
+                urisToCrawl = null;
+                try {
+                    // ask the Frontier for work
+                    urisToCrawl = frontier.getNextUris();
+                } finally {
+                    if ((urisToCrawl == null) || (urisToCrawl.isEmpty())) {
+                        uriSetPermits.release();
+                    }
+                }
+                if ((urisToCrawl == null) || (urisToCrawl.isEmpty())) {
+                    // if there is no work, sleep for some time and ask again
+                    try {
+                        Thread.sleep(waitingTime);
+                    } catch (InterruptedException e) {
+                        LOGGER.debug("Interrupted while sleeping.", e);
+                    }
+                } else {
+                    new UriSetCrawling(urisToCrawl, null).start();
+                }
+            }
+            // wait for the URI sets that are still crawled
+            if (!uriSetPermits.tryAcquire(maxInFlightFetches, TERMINATION_TIMEOUT, TimeUnit.SECONDS)) {
+                LOGGER.warn("Some URI sets are still crawled after waiting {}s. They will be aborted.",
+                        TERMINATION_TIMEOUT);
+            }
+        } catch (Exception e) {
+            LOGGER.error("Got a severe exception. Aborting.", e);
+        } finally {
+            Closer.close(this, LOGGER);
+        }
+    }
+
+    /**
+     * Crawls the given URIs using the pipeline of this worker and blocks until
+     * they have been sent back to the frontier.
+     */
+    @Override
+    public void crawl(List<CrawleableUri> uris) {
+        CountDownLatch finished = new CountDownLatch(1);
+        try {
+            uriSetPermits.acquire();
+            new UriSetCrawling(uris, finished).start();
+            finished.await();
+        } catch (InterruptedException e) {
+            LOGGER.warn("Interrupted while waiting for the crawling of a URI set.", e);
+        }
+    }
+
+    /**
+     * Submits the given task to the processing stage. Blocks if the processing
+     * queue is full.
+     *
+     * @param task the task that should be executed by a processing thread
+     * @throws InterruptedException if the thread is interrupted while waiting
+     *                              for a place in the processing queue
+     */
+    protected void submitProcessing(Runnable task) throws InterruptedException {
+        processingPermits.acquire();
+        try {
+            processingExecutor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    processingPermits.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            processingPermits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        delayScheduler.shutdownNow();
+        fetchingExecutor.shutdownNow();
+        processingExecutor.shutdown();
+        try {
+            if (!processingExecutor.awaitTermination(TERMINATION_TIMEOUT, TimeUnit.SECONDS)) {
+                LOGGER.warn("The processing threads did not terminate in time.");
+                processingExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            LOGGER.warn("Interrupted while waiting for the processing threads.", e);
+            processingExecutor.shutdownNow();
+        }
+        super.close();
+    }
+
+    /**
+     * The state of a single URI set that is crawled. The URIs of the set are
+     * fetched one after the other. Every fetch triggers the fetching of the
+     * next URI, i.e., there is at most one task of this set in the fetching
+     * stage.
+     */
+    protected class UriSetCrawling {
+
+        private final List<CrawleableUri> uris;
+        private final Iterator<CrawleableUri> iterator;
+        /**
+         * The number of URIs of this set that haven't been processed, yet.
+         */
+        private final AtomicInteger pendingUris;
+        /**
+         * An optional latch that is counted down when the set has been sent to
+         * the frontier.
+         */
+        private final CountDownLatch finished;
+        /**
+         * The time stamp (in ms) at which the last request of this set has been
+         * finished or 0 if no request has been sent, yet. It is only accessed by
+         * the single task of this set that is in the fetching stage.
+         */
+        private volatile long lastRequestTimeStamp = 0;
+
+        public UriSetCrawling(List<CrawleableUri> uris, CountDownLatch finished) {
+            this.uris = uris;
+            this.iterator = uris.iterator();
+            this.pendingUris = new AtomicInteger(uris.size());
+            this.finished = finished;
+        }
+
+        public void start() {
+            if (uris.isEmpty()) {
+                finish();
+            } else {
+                fetchNext();
+            }
+        }
+
+        /**
+         * Submits the next crawleable URI of the set to the fetching stage.
+         */
+        protected void fetchNext() {
+            while (iterator.hasNext()) {
+                CrawleableUri uri = iterator.next();
+                if (isCrawleable(uri)) {
+                    try {
+                        fetchingExecutor.execute(() -> prepare(uri));
+                        return;
+                    } catch (RejectedExecutionException e) {
+                        // the worker is closing, i.e., this URI and the remaining URIs are not crawled
+                        LOGGER.error("The fetching stage rejected \"{}\". It will be ignored.", uri.getUri());
+                        uriDone();
+                    }
+                } else {
+                    uriDone();
+                }
+            }
+        }
+
+        /**
+         * Submits the fetching of the given URI to the fetching stage. If the
+         * task is rejected, the URI is marked as done.
+         */
+        protected void submitFetch(CrawleableUri uri, CrawlingActivity activity, long minWaitingTime) {
+            try {
+                fetchingExecutor.execute(() -> fetch(uri, activity, minWaitingTime));
+            } catch (RejectedExecutionException e) {
+                LOGGER.error("The fetching stage rejected \"{}\". It will be ignored.", uri.getUri());
+                uri.getData().remove(Constants.URI_CRAWLING_ACTIVITY);
+                uriDone();
+                fetchNext();
+            }
+        }
+
+        /**
+         * Checks whether the URI can be crawled and schedules its fetching.
+         */
+        protected void prepare(CrawleableUri uri) {
+            CrawlingActivity activity = null;
+            try {
+                activity = startCrawling(uri);
+                if (manager.isUriCrawlable(uri)) {
+                    long minWaitingTime = manager.getMinWaitingTime(uri);
+                    uri.addData(Constants.URI_CRAWL_DELAY_KEY, minWaitingTime);
+                    long waitingTime = (lastRequestTimeStamp + minWaitingTime) - System.currentTimeMillis();
+                    final CrawlingActivity crawlingActivity = activity;
+                    if ((lastRequestTimeStamp > 0) && (waitingTime > 0)) {
+                        delayScheduler.schedule(() -> submitFetch(uri, crawlingActivity, minWaitingTime),
+                                waitingTime, TimeUnit.MILLISECONDS);
+                    } else {
+                        fetch(uri, crawlingActivity, minWaitingTime);
+                    }
+                } else {
+                    rejectUri(uri, activity);
+                    finishCrawling(uri, activity);
+                    uri.getData().remove(Constants.URI_CRAWLING_ACTIVITY);
+                    uriDone();
+                    fetchNext();
+                }
+            } catch (Exception e) {
+                LOGGER.error("Unhandled exception while crawling \"" + uri.getUri().toString()
+                        + "\". It will be ignored.", e);
+                uri.getData().remove(Constants.URI_CRAWLING_ACTIVITY);
+                uriDone();
+                fetchNext();
+            }
+        }
+
+        /**
+         * Fetches the URI, hands the fetched data over to the processing stage
+         * and triggers the fetching of the next URI.
+         */
+        protected void fetch(CrawleableUri uri, CrawlingActivity activity, long minWaitingTime) {
+            File fetched = null;
+            try {
+                fetched = fetchUri(uri, activity, new StaticDelayer(minWaitingTime, lastRequestTimeStamp));
+            } finally {
+                lastRequestTimeStamp = System.currentTimeMillis();
+            }
+            final File fetchedData = fetched;
+            try {
+                submitProcessing(() -> process(uri, fetchedData, activity));
+            } catch (Exception e) {
+                LOGGER.error("Couldn't process \"" + uri.getUri().toString() + "\". It will be ignored.", e);
+                uri.getData().remove(Constants.URI_CRAWLING_ACTIVITY);
+                uriDone();
+            }
+            fetchNext();
+        }
+
+        /**
+         * Processes the fetched data of the given URI.
+         */
+        protected void process(CrawleableUri uri, File fetched, CrawlingActivity activity) {
+            try {
+                processFetchedData(uri, fetched, activity);
+                finishCrawling(uri, activity);
+            } catch (Exception e) {
+                LOGGER.error("Unhandled exception while crawling \"" + uri.getUri().toString()
+                        + "\". It will be ignored.", e);
+            } finally {
+                // Remove the activity and the classification of the fetched content since we
+                // don't want to send them back to the Frontier
+                uri.getData().remove(Constants.URI_CRAWLING_ACTIVITY);
+                ContentClassifier.removeClassification(uri);
+                uriDone();
+            }
+        }
+
+        /**
+         * Marks a URI of this set as done and finishes the set if it was the
+         * last one.
+         */
+        protected void uriDone() {
+            if (pendingUris.decrementAndGet() == 0) {
+                finish();
+            }
+        }
+
+        /**
+         * Sends the URI set back to the frontier and frees its permit.
+         */
+        protected void finish() {
+            try {
+                // make sure that the frontier knows the new URIs before the set is done
+                uriBatcher.flush();
+                frontier.crawlingDone(uris);
+            } catch (Exception e) {
+                LOGGER.error("Exception while sending the crawled URI set to the frontier.", e);
+            } finally {
+                uriSetPermits.release();
+                if (finished != null) {
+                    finished.countDown();
+                }
+            }
+        }
+    }
+
+    /**
+     * A thread factory creating daemon threads with a name that reflects their
+     * stage.
+     */
+    protected static class NamedThreadFactory implements ThreadFactory {
+
+        private final String prefix;
+        private final AtomicInteger count = new AtomicInteger();
+
+        public NamedThreadFactory(String stage) {
+            this.prefix = "worker-" + stage + "-";
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
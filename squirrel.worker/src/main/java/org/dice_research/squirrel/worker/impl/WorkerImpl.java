@@ -2,6 +2,7 @@ package org.dice_research.squirrel.worker.impl;
 
 import java.io.Closeable;
 import java.io.File;
+import java.io.IOException;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -11,8 +12,15 @@ import java.util.UUID;
 
 import org.dice_research.squirrel.Constants;
 import org.dice_research.squirrel.analyzer.Analyzer;
+import org.dice_research.squirrel.analyzer.StreamAnalyzer;
+import org.dice_research.squirrel.analyzer.compress.DecompressedContent;
 import org.dice_research.squirrel.analyzer.compress.impl.FileManager;
+import org.dice_research.squirrel.analyzer.mime.ContentClassifier;
+import org.dice_research.squirrel.collect.RotatingBloomFilter;
+import org.dice_research.squirrel.collect.StreamingUriCollector;
+import org.dice_research.squirrel.collect.UriBatcher;
 import org.dice_research.squirrel.collect.UriCollector;
+import org.dice_research.squirrel.configurator.UriBatchingConfiguration;
 import org.dice_research.squirrel.data.uri.CrawleableUri;
 import org.dice_research.squirrel.data.uri.serialize.Serializer;
 import org.dice_research.squirrel.fetcher.Fetcher;
@@ -46,7 +54,6 @@ public class WorkerImpl implements Worker, Closeable {
     @SuppressWarnings("unused")
     @Deprecated
     private static final long DEFAULT_WAITING_TIME = 10000;
-    private static final int MAX_URIS_PER_MESSAGE = 20;
     /**
      * TODO what was this attribute for?
      */
@@ -66,10 +73,25 @@ public class WorkerImpl implements Worker, Closeable {
     protected RobotsManager manager;
     protected Fetcher fetcher;
     protected UriProcessorInterface uriProcessor = new UriProcessor();
+    /**
+     * Sends the new URIs in batches to the frontier.
+     */
+    protected UriBatcher uriBatcher;
+    /**
+     * Flag indicating whether the collector hands over new URIs while the
+     * analyzers are running. In this case, the URIs returned by the analyzers
+     * have already been sent.
+     */
+    protected boolean streamsNewUris = false;
     protected Serializer serializer;
     protected String domainLogFile = null;
     protected long waitingTime;
-    protected boolean terminateFlag;
+    protected volatile boolean terminateFlag;
+    /**
+     * The time stamp (in ms) at which the last request of the current URI set
+     * has been finished or 0 if no request has been sent, yet.
+     */
+    protected long lastRequestTimeStamp = 0;
     private final String uri = Constants.DEFAULT_WORKER_URI_PREFIX + UUID.randomUUID().toString();
     @Deprecated
     private final int id = (int) Math.floor(Math.random() * 100000);
@@ -113,6 +135,14 @@ public class WorkerImpl implements Worker, Closeable {
             }
         }
         this.collector = collector;
+        UriBatchingConfiguration batchingConfig = UriBatchingConfiguration.getUriBatchingConfiguration();
+        uriBatcher = new UriBatcher(frontier, batchingConfig.getBatchSize(), batchingConfig.getLingerTime(),
+                new RotatingBloomFilter(batchingConfig.getSeenUrisCapacity(),
+                        UriBatchingConfiguration.SEEN_URIS_FALSE_POSITIVE_PROBABILITY));
+        if (collector instanceof StreamingUriCollector) {
+            ((StreamingUriCollector) collector).setListener(this::addNewUri);
+            streamsNewUris = true;
+        }
         // fetcher = new SimpleOrderedFetcherManager(
         // // new SparqlBasedFetcher(),
         // new SparqlBasedFetcher(), new SimpleCkanFetcher(), new FTPFetcher(),new
@@ -185,13 +215,12 @@ public class WorkerImpl implements Worker, Closeable {
 
     @Override
     public void crawl(List<CrawleableUri> uris) {
+        // the frontier makes sure that the server of the given URIs can be accessed
+        // directly
+        lastRequestTimeStamp = 0;
         // perform work
         for (CrawleableUri uri : uris) {
-            if (uri == null) {
-                LOGGER.error("Got null as CrawleableUri object. It will be ignored.");
-            } else if (uri.getUri() == null) {
-                LOGGER.error("Got a CrawleableUri object with getUri()=null. It will be ignored.");
-            } else {
+            if (isCrawleable(uri)) {
                 try {
                     performCrawling(uri);
                 } catch (Exception e) {
@@ -201,93 +230,54 @@ public class WorkerImpl implements Worker, Closeable {
             }
         }
         // send results to the Frontier
+        uriBatcher.flush();
         frontier.crawlingDone(uris);
     }
 
+    /**
+     * Checks whether the given URI object can be crawled and logs an error if
+     * not.
+     *
+     * @param uri the URI object that should be checked
+     * @return {@code true} if the given object and its URI are not {@code null}
+     */
+    protected static boolean isCrawleable(CrawleableUri uri) {
+        if (uri == null) {
+            LOGGER.error("Got null as CrawleableUri object. It will be ignored.");
+            return false;
+        } else if (uri.getUri() == null) {
+            LOGGER.error("Got a CrawleableUri object with getUri()=null. It will be ignored.");
+            return false;
+        }
+        return true;
+    }
+
     @Override
     public void performCrawling(CrawleableUri uri) {
-        // Create the activity object for this URI
-        uri.addData(Constants.UUID_KEY, UUID.randomUUID().toString());
-        CrawlingActivity activity = new CrawlingActivity(uri, getUri());
-        uri.addData(Constants.URI_CRAWLING_ACTIVITY, activity);
+        CrawlingActivity activity = startCrawling(uri);
         try {
- 
             if (manager.isUriCrawlable(uri)) {
-                // Make sure that there is a delay between the fetching of two URIs
-                
-                Delayer delayer = new StaticDelayer(manager.getMinWaitingTime(uri),
-                        System.currentTimeMillis());
-
-                // Fetch the URI content
-                LOGGER.debug("I start crawling {} now...", uri);
+                // Make sure that there is a delay between the fetching of two URIs of the
+                // same set. The delay before the first URI of the set is ensured by the
+                // frontier which gets the delay together with the crawled URI.
+                long minWaitingTime = manager.getMinWaitingTime(uri);
+                uri.addData(Constants.URI_CRAWL_DELAY_KEY, minWaitingTime);
                 File fetched = null;
                 try {
-                    fetched = fetcher.fetch(uri, delayer);
-                } catch (Exception e) {
-                    LOGGER.error("Exception while Fetching Data. Skipping...", e);
-                    activity.addStep(getClass(), "Exception while Fetching Data. " + e.getMessage());
-                }
-                List<File> fetchedFiles = new ArrayList<>();
-                if (fetched != null && fetched.isDirectory()) {
-                    fetchedFiles.addAll(TempPathUtils.searchPath4Files(fetched));
-                } else {
-                    fetchedFiles.add(fetched);
-                }
-
-                // If there is at least one file
-                if (fetchedFiles.size() > 0) {
-                    FileManager fm = new FileManager();
-                    List<File> fileList;
-                    try {
-                        // open the sink only if a fetcher has been found
-                        sink.openSinkForUri(uri);
-                        collector.openSinkForUri(uri);
-                        // Go over all files and analyze them
-                        LOGGER.info(" -- Processing URI: " + uri.getUri().toString());
-                        for (File data : fetchedFiles) {
-                            if (data != null) {
-                                fileList = fm.decompressFile(uri, data);
-                                LOGGER.info("Found " + fileList.size() + " files after decompression ");
-                                int cont = 1;
-                                for (File file : fileList) {
-                                    LOGGER.info("Analyzing file " + cont + " of: " + fileList.size());
-                                    Iterator<byte[]> resultUris = analyzer.analyze(uri, file, sink);
-                                    sendNewUris(resultUris);
-                                    cont++;
-                                }
-
-                            }
-                        }
-                    } catch (Exception e) {
-                        activity.addStep(getClass(), "Unhandled exception while Fetching Data. " + e.getMessage());
-                        activity.setState(CrawlingURIState.FAILED);
-                        activity.finishActivity(sink);
-                        throw e;
-                    } finally {
-                        // We don't want to handle any exception. Just make sure that sink and collector
-                        // do not handle this uri anymore.
-                        sink.closeSinkForUri(uri);
-                        collector.closeSinkForUri(uri);
-                    }
-                    // If we reach this point, the crawling was successful
-                    activity.setState(CrawlingURIState.SUCCESSFUL);
-                } else {
-                    // There are no files
-                    activity.addStep(getClass(), "No files for analysis available.");
-                    activity.setState(CrawlingURIState.FAILED);
+                    fetched = fetchUri(uri, activity, new StaticDelayer(minWaitingTime, lastRequestTimeStamp));
+                } finally {
+                    lastRequestTimeStamp = System.currentTimeMillis();
                 }
+                processFetchedData(uri, fetched, activity);
             } else {
-                LOGGER.info("Crawling {} is not allowed by the RobotsManager.", uri);
-                activity.addStep(manager.getClass(), "Decided to reject this URI.");
+                rejectUri(uri, activity);
             }
-            if(storeMetadata)
-                activity.finishActivity(sink);
-            // LOGGER.debug("Fetched {} triples", count);
-            setSpecificRecrawlTime(uri);
-
+            finishCrawling(uri, activity);
         } finally {
-            // Remove the activity since we don't want to send it back to the Frontier
+            // Remove the activity and the classification of the fetched content since we
+            // don't want to send them back to the Frontier
             uri.getData().remove(Constants.URI_CRAWLING_ACTIVITY);
+            ContentClassifier.removeClassification(uri);
         }
 
         // TODO (this is only a unsatisfying quick fix to avoid unreadable graphs
@@ -295,6 +285,145 @@ public class WorkerImpl implements Worker, Closeable {
         // return (ret.size() > 25) ? new ArrayList<>(ret.subList(0, 25)) : ret;
     }
 
+    /**
+     * Creates the activity object for the given URI and attaches it to the URI.
+     * Note that the activity has to be removed from the URI after the crawling
+     * has been finished.
+     *
+     * @param uri the URI that will be crawled
+     * @return the activity of the given URI
+     */
+    protected CrawlingActivity startCrawling(CrawleableUri uri) {
+        uri.addData(Constants.UUID_KEY, UUID.randomUUID().toString());
+        CrawlingActivity activity = new CrawlingActivity(uri, getUri());
+        uri.addData(Constants.URI_CRAWLING_ACTIVITY, activity);
+        return activity;
+    }
+
+    /**
+     * Handles a URI that is not allowed to be crawled.
+     *
+     * @param uri      the rejected URI
+     * @param activity the activity of the given URI
+     */
+    protected void rejectUri(CrawleableUri uri, CrawlingActivity activity) {
+        LOGGER.info("Crawling {} is not allowed by the RobotsManager.", uri);
+        activity.addStep(manager.getClass(), "Decided to reject this URI.");
+    }
+
+    /**
+     * Fetches the content of the given URI using the given {@link Delayer}.
+     *
+     * @param uri      the URI that should be fetched
+     * @param activity the activity of the given URI
+     * @param delayer  the delayer that should be used by the fetcher
+     * @return the fetched file (or directory) or {@code null} if an error
+     *         occurred
+     */
+    protected File fetchUri(CrawleableUri uri, CrawlingActivity activity, Delayer delayer) {
+        LOGGER.debug("I start crawling {} now...", uri);
+        try {
+            return fetcher.fetch(uri, delayer);
+        } catch (Exception e) {
+            LOGGER.error("Exception while Fetching Data. Skipping...", e);
+            activity.addStep(getClass(), "Exception while Fetching Data. " + e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Decompresses and analyzes the fetched data of the given URI. The analyzed
+     * data is stored in the sink while newly found URIs are sent to the
+     * frontier.
+     *
+     * @param uri      the URI the data has been fetched from
+     * @param fetched  the fetched file (or directory) or {@code null} if nothing
+     *                 has been fetched
+     * @param activity the activity of the given URI
+     */
+    protected void processFetchedData(CrawleableUri uri, File fetched, CrawlingActivity activity) {
+        List<File> fetchedFiles = new ArrayList<>();
+        if (fetched != null && fetched.isDirectory()) {
+            fetchedFiles.addAll(TempPathUtils.searchPath4Files(fetched));
+        } else {
+            fetchedFiles.add(fetched);
+        }
+
+        // If there is at least one file
+        if (fetchedFiles.size() > 0) {
+            FileManager fm = new FileManager();
+            try {
+                // open the sink only if a fetcher has been found
+                sink.openSinkForUri(uri);
+                collector.openSinkForUri(uri);
+                // Go over all files and analyze them
+                LOGGER.info(" -- Processing URI: " + uri.getUri().toString());
+                for (File data : fetchedFiles) {
+                    if (data != null) {
+                        try {
+                            // decompress the file while the analyzers read it
+                            fm.streamFile(uri, data, content -> {
+                                Iterator<byte[]> newUris = analyze(uri, content);
+                                // streamed URIs have already been handed to the batcher
+                                if (!streamsNewUris) {
+                                    sendNewUris(newUris);
+                                }
+                            });
+                        } catch (IOException e) {
+                            LOGGER.error("Exception while Decompressing Data. Skipping...", e);
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                activity.addStep(getClass(), "Unhandled exception while Fetching Data. " + e.getMessage());
+                activity.setState(CrawlingURIState.FAILED);
+                activity.finishActivity(sink);
+                throw e;
+            } finally {
+                // We don't want to handle any exception. Just make sure that sink and collector
+                // do not handle this uri anymore.
+                sink.closeSinkForUri(uri);
+                collector.closeSinkForUri(uri);
+            }
+            // If we reach this point, the crawling was successful
+            activity.setState(CrawlingURIState.SUCCESSFUL);
+        } else {
+            // There are no files
+            activity.addStep(getClass(), "No files for analysis available.");
+            activity.setState(CrawlingURIState.FAILED);
+        }
+    }
+
+    /**
+     * Hands the given content to the analyzer. If the analyzer can not handle
+     * streams, the content is written to disk first.
+     *
+     * @param uri     the URI the content belongs to
+     * @param content the (decompressed) fetched content
+     * @return an iterator over the newly found URIs
+     * @throws IOException if the content couldn't be written to disk
+     */
+    protected Iterator<byte[]> analyze(CrawleableUri uri, DecompressedContent content) throws IOException {
+        if (analyzer instanceof StreamAnalyzer) {
+            return ((StreamAnalyzer) analyzer).analyze(uri, content, sink);
+        } else {
+            return analyzer.analyze(uri, content.spill(), sink);
+        }
+    }
+
+    /**
+     * Stores the activity of the given URI (if the metadata should be stored).
+     *
+     * @param uri      the crawled URI
+     * @param activity the activity of the given URI
+     */
+    protected void finishCrawling(CrawleableUri uri, CrawlingActivity activity) {
+        if (storeMetadata)
+            activity.finishActivity(sink);
+        // LOGGER.debug("Fetched {} triples", count);
+        setSpecificRecrawlTime(uri);
+    }
+
     private void setSpecificRecrawlTime(CrawleableUri uri) {
         // TODO: implement special cases
 
@@ -314,35 +443,43 @@ public class WorkerImpl implements Worker, Closeable {
     }
 
     /**
-     * Sends the given URIs to the frontier.
+     * Sends the given URIs to the frontier. The URIs are deserialized and
+     * handed to {@link #addNewUri(CrawleableUri)}.
      * 
      * @param uriIterator an iterator used to iterate over all new URIs
      */
     public void sendNewUris(Iterator<byte[]> uriIterator) {
-        List<CrawleableUri> newUris = new ArrayList<>(MAX_URIS_PER_MESSAGE);
-        CrawleableUri newUri;
-        int packageCount = 0;
         while (uriIterator != null && uriIterator.hasNext()) {
             try {
-                newUri = serializer.deserialize(uriIterator.next());
-                uriProcessor.recognizeUriType(newUri);
-                newUris.add(newUri);
-                if ((newUris.size() >= (packageCount + 1) * MAX_URIS_PER_MESSAGE) && uriIterator.hasNext()) {
-                    frontier.addNewUris(
-                            new ArrayList<>(newUris.subList(packageCount * MAX_URIS_PER_MESSAGE, newUris.size())));
-                    packageCount++;
-                }
+                addNewUri(serializer.deserialize(uriIterator.next()));
             } catch (Exception e) {
                 LOGGER.warn("Couldn't handle the (de-)serialization of a URI. It will be ignored.", e);
             }
         }
-        frontier.addNewUris(newUris);
+    }
+
+    /**
+     * Adds the given new URI to the batch of URIs that will be sent to the
+     * frontier (if it hasn't been sent before).
+     * 
+     * @param newUri a newly found URI
+     */
+    public void addNewUri(CrawleableUri newUri) {
+        uriProcessor.recognizeUriType(newUri);
+        uriBatcher.add(newUri);
     }
 
     @Override
     public void close() {
+        if (streamsNewUris) {
+            ((StreamingUriCollector) collector).setListener(null);
+        }
+        Closer.close(uriBatcher, LOGGER);
         Closer.close(fetcher, LOGGER);
         Closer.close(sink, LOGGER);
+        if (analyzer instanceof Closeable) {
+            Closer.close((Closeable) analyzer, LOGGER);
+        }
     }
 
     public void setTerminateFlag(boolean terminateFlag) {
@@ -0,0 +1,125 @@
+package org.dice_research.squirrel.analyzer.impl;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.apache.commons.compress.utils.IOUtils;
+import org.apache.jena.riot.RDFLanguages;
+import org.apache.tika.Tika;
+import org.dice_research.squirrel.Constants;
+import org.dice_research.squirrel.analyzer.mime.ContentClassifier;
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the {@link ContentClassifier}.
+ */
+public class ContentClassifierTest {
+
+    private ContentClassifier classifier = ContentClassifier.getInstance();
+
+    @Test
+    public void testRdfXml() throws Exception {
+        File file = getResource("rdf_analyzer/new_york/new_york_rdf");
+        CrawleableUri curi = createUri();
+        Assert.assertEquals(new Tika().detect(file), classifier.getMimeType(curi, file));
+        Assert.assertEquals(RDFLanguages.RDFXML, classifier.getRdfLang(curi, file));
+        Assert.assertNull(classifier.getCompression(curi, file));
+    }
+
+    @Test
+    public void testTurtle() throws Exception {
+        File file = getResource("sample.ttl");
+        CrawleableUri curi = createUri();
+        Assert.assertEquals(new Tika().detect(file), classifier.getMimeType(curi, file));
+        Assert.assertEquals(RDFLanguages.TURTLE, classifier.getRdfLang(curi, file));
+    }
+
+    @Test
+    public void testTrustedHttpContentType() throws Exception {
+        File file = getResource("sample.nt");
+        CrawleableUri curi = createUri();
+        curi.addData(Constants.URI_HTTP_MIME_TYPE_KEY, "application/n-triples");
+        curi.addData(Constants.URI_HTTP_CHARSET_KEY, " charset=utf-8");
+        classifier.classify(curi, file);
+        Assert.assertEquals(RDFLanguages.NTRIPLES, classifier.getRdfLang(curi, file));
+        Assert.assertEquals("UTF-8", curi.getData(Constants.URI_CONTENT_CHARSET_KEY));
+    }
+
+    @Test
+    public void testHtml() throws Exception {
+        File file = createTempFile(".html");
+        try (OutputStream os = new FileOutputStream(file)) {
+            os.write(("<!DOCTYPE html><html><head><meta charset=\"ISO-8859-1\"><title>Test</title></head>"
+                    + "<body><p>Hello</p></body></html>").getBytes("ISO-8859-1"));
+        }
+        CrawleableUri curi = createUri();
+        Assert.assertEquals("text/html", classifier.getMimeType(curi, file));
+        Assert.assertEquals("ISO-8859-1", curi.getData(Constants.URI_CONTENT_CHARSET_KEY));
+        Assert.assertNull(classifier.getRdfLang(curi, file));
+    }
+
+    @Test
+    public void testCompressedFile() throws Exception {
+        File file = createTempFile("");
+        try (InputStream is = new FileInputStream(getResource("sample.ttl"));
+                OutputStream os = new GzipCompressorOutputStream(new FileOutputStream(file))) {
+            IOUtils.copy(is, os);
+        }
+        CrawleableUri curi = createUri();
+        Assert.assertEquals("application/gzip", classifier.getCompression(curi, file));
+        Assert.assertEquals("application/gzip", curi.getData(Constants.URI_CONTENT_MIME_TYPE_KEY));
+        Assert.assertNull(classifier.getRdfLang(curi, file));
+    }
+
+    /**
+     * The recorded classification has to be reused without reading the file
+     * again while a different file has to be classified anew.
+     */
+    @Test
+    public void testReuseOfResult() throws Exception {
+        File file = createTempFile("");
+        Files.copy(getResource("sample.ttl").toPath(), file.toPath(),
+                StandardCopyOption.REPLACE_EXISTING);
+        CrawleableUri curi = createUri();
+        String mimeType = classifier.getMimeType(curi, file);
+        Assert.assertTrue(ContentClassifier.isClassified(curi, file));
+        Assert.assertTrue(file.delete());
+        Assert.assertEquals(mimeType, classifier.getMimeType(curi, file));
+        Assert.assertEquals(RDFLanguages.TURTLE, classifier.getRdfLang(curi, file));
+
+        File other = getResource("rdf_analyzer/new_york/new_york_rdf");
+        Assert.assertFalse(ContentClassifier.isClassified(curi, other));
+        Assert.assertEquals(RDFLanguages.RDFXML, classifier.getRdfLang(curi, other));
+        Assert.assertEquals(other.getAbsolutePath(), curi.getData(Constants.URI_CONTENT_FILE_KEY));
+
+        // the classification must not be sent back to the frontier
+        ContentClassifier.removeClassification(curi);
+        Assert.assertFalse(ContentClassifier.isClassified(curi, other));
+        Assert.assertNull(curi.getData(Constants.URI_CONTENT_MIME_TYPE_KEY));
+        Assert.assertNull(curi.getData(Constants.URI_CONTENT_RDF_LANG_KEY));
+    }
+
+    private File getResource(String name) {
+        return new File(getClass().getClassLoader().getResource(name).getFile());
+    }
+
+    private static CrawleableUri createUri() throws Exception {
+        return new CrawleableUri(new URI("http://dice-research.org/squirrel/test"));
+    }
+
+    private static File createTempFile(String suffix) throws IOException {
+        File file = File.createTempFile("classifier", suffix);
+        file.deleteOnExit();
+        return file;
+    }
+}
@@ -7,6 +7,7 @@ import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
@@ -21,7 +22,9 @@ import org.apache.jena.rdf.model.StmtIterator;
 import org.apache.jena.riot.Lang;
 import org.apache.jena.riot.RDFDataMgr;
 import org.apache.jena.riot.system.StreamRDFBase;
+import org.dice_research.squirrel.analyzer.compress.DecompressedContent;
 import org.dice_research.squirrel.analyzer.compress.impl.FileManager;
+import org.dice_research.squirrel.analyzer.mime.ContentClassifier;
 import org.dice_research.squirrel.data.uri.CrawleableUri;
 import org.hamcrest.collection.IsIterableContainingInAnyOrder;
 import org.junit.After;
@@ -161,14 +164,18 @@ public class DecompressionTest {
         return gzipFile;
     }
     
-    private void assertDcompressedFiles(List<File> listFiles) {
-        
+    private List<Triple> getOriginalTriples() {
         StmtIterator iter = model.listStatements();
         List<Triple> originalTriples = new ArrayList<Triple>();
         while(iter.hasNext()) {
             originalTriples.add(iter.next().asTriple());
         }
+        return originalTriples;
+    }
+
+    private void assertDcompressedFiles(List<File> listFiles) {
         
+        List<Triple> originalTriples = getOriginalTriples();
         
         for (File file : listFiles) {
             List<Triple> listTriples = new ArrayList<Triple>();
@@ -217,6 +224,58 @@ public class DecompressionTest {
         assertDcompressedFiles(listFiles);
     }
     
+    /**
+     * Streams the given file and checks that every entry is handed over without
+     * being written to disk.
+     */
+    private void assertStreamedFile(File file) throws IOException {
+        List<Triple> originalTriples = getOriginalTriples();
+        List<DecompressedContent> contents = new ArrayList<DecompressedContent>();
+        fm.streamFile(testUri, file, content -> {
+            Assert.assertFalse(content.isOnDisk());
+            Assert.assertFalse(content.getFile().exists());
+            List<Triple> listTriples = new ArrayList<Triple>();
+            RDFDataMgr.parse(new FilterSinkRDF(listTriples), content.getStream(), Lang.NT);
+            Assert.assertThat(listTriples, IsIterableContainingInAnyOrder.containsInAnyOrder(originalTriples.toArray()));
+            contents.add(content);
+        });
+        Assert.assertEquals(rdfFiles.size(), contents.size());
+    }
+
+    @Test
+    public void bzipStreamingTest() throws IOException {
+        assertStreamedFile(bzipFile);
+    }
+
+    @Test
+    public void gzStreamingTest() throws IOException {
+        assertStreamedFile(gzFile);
+    }
+
+    @Test
+    public void tarStreamingTest() throws IOException {
+        assertStreamedFile(tarFile);
+    }
+
+    /**
+     * Entries that are written to disk by an analyzer have to be deleted
+     * after they have been analyzed.
+     */
+    @Test
+    public void spillTest() throws IOException {
+        List<File> spilledFiles = new ArrayList<File>();
+        fm.streamFile(testUri, gzFile, content -> {
+            File file = content.spill();
+            Assert.assertTrue(content.isOnDisk());
+            Assert.assertTrue(file.exists());
+            Assert.assertTrue(ContentClassifier.isClassified(testUri, file));
+            assertDcompressedFiles(Collections.singletonList(file));
+            spilledFiles.add(file);
+        });
+        Assert.assertEquals(1, spilledFiles.size());
+        Assert.assertFalse(spilledFiles.get(0).exists());
+    }
+
     @After
     public void deleteFiles() {
         tarFile.delete();
@@ -0,0 +1,193 @@
+package org.dice_research.squirrel.analyzer.manager;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.jena.rdf.model.Model;
+import org.dice_research.squirrel.Constants;
+import org.dice_research.squirrel.analyzer.AbstractAnalyzer;
+import org.dice_research.squirrel.analyzer.HtmlAnalyzer;
+import org.dice_research.squirrel.analyzer.commons.HtmlDocument;
+import org.dice_research.squirrel.analyzer.impl.MicrodataAnalyzer;
+import org.dice_research.squirrel.analyzer.impl.RDFaAnalyzer;
+import org.dice_research.squirrel.collect.SimpleUriCollector;
+import org.dice_research.squirrel.collect.UriCollector;
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.data.uri.serialize.Serializer;
+import org.dice_research.squirrel.data.uri.serialize.java.GzipJavaUriSerializer;
+import org.dice_research.squirrel.sink.Sink;
+import org.dice_research.squirrel.sink.impl.mem.InMemorySink;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks that the {@link SimpleAnalyzerManager} runs all eligible analyzers on
+ * a single shared HTML document and merges the URIs they found.
+ */
+public class SimpleAnalyzerManagerTest {
+
+    private static final String HTML = "<!DOCTYPE html><html><head><title>Test</title></head><body>"
+            + "<div vocab=\"http://schema.org/\" typeof=\"Person\" resource=\"http://example.org/alice\">"
+            + "<span property=\"name\">Alice</span></div>"
+            + "<div itemscope itemtype=\"http://schema.org/Person\" itemid=\"http://example.org/bob\">"
+            + "<span itemprop=\"name\">Bob</span></div></body></html>";
+
+    private File htmlFile;
+    private CrawleableUri curi;
+    private Serializer serializer = new GzipJavaUriSerializer();
+
+    @Before
+    public void prepare() throws Exception {
+        htmlFile = File.createTempFile("page", ".html");
+        try (OutputStream out = new FileOutputStream(htmlFile)) {
+            out.write(HTML.getBytes(StandardCharsets.UTF_8));
+        }
+        curi = new CrawleableUri(new URI("http://example.org/page"));
+        curi.addData(Constants.URI_HTTP_MIME_TYPE_KEY, "text/html");
+    }
+
+    @After
+    public void cleanUp() {
+        htmlFile.delete();
+    }
+
+    @Test
+    public void testSequentialFanOut() throws Exception {
+        runFanOut(1);
+    }
+
+    @Test
+    public void testParallelFanOut() throws Exception {
+        runFanOut(3);
+    }
+
+    /**
+     * Runs three analyzers that return overlapping URIs and checks that they got
+     * the same document and that every URI is returned only once.
+     */
+    protected void runFanOut(int threads) throws Exception {
+        UriCollector collector = new SimpleUriCollector(serializer);
+        List<AbstractAnalyzer> analyzers = Arrays.asList(new DummyAnalyzerA(collector), new DummyAnalyzerB(collector),
+                new DummyAnalyzerC(collector));
+        try (SimpleAnalyzerManager manager = new SimpleAnalyzerManager(analyzers, threads)) {
+            Iterator<byte[]> iterator = manager.analyze(curi, htmlFile, new InMemorySink());
+
+            Set<String> uris = new HashSet<>();
+            while (iterator.hasNext()) {
+                CrawleableUri uri = serializer.deserialize(iterator.next());
+                Assert.assertTrue("Got " + uri.getUri() + " twice.", uris.add(uri.getUri().toString()));
+            }
+            Assert.assertEquals(new HashSet<>(Arrays.asList("http://example.org/shared", "http://example.org/a",
+                    "http://example.org/b", "http://example.org/c")), uris);
+        }
+        HtmlDocument document = null;
+        for (AbstractAnalyzer analyzer : analyzers) {
+            DummyAnalyzer dummy = (DummyAnalyzer) analyzer;
+            Assert.assertNotNull(dummy.document);
+            if (document == null) {
+                document = dummy.document;
+            } else {
+                Assert.assertSame(document, dummy.document);
+            }
+        }
+    }
+
+    /**
+     * Runs the RDFa and the Microdata analyzer in parallel and checks that both
+     * wrote their triples to the sink.
+     */
+    @Test
+    public void testHtmlAnalyzers() throws Exception {
+        UriCollector collector = new SimpleUriCollector(serializer);
+        collector.openSinkForUri(curi);
+        InMemorySink sink = new InMemorySink();
+        sink.openSinkForUri(curi);
+        try (SimpleAnalyzerManager manager = new SimpleAnalyzerManager(
+                Arrays.asList(new RDFaAnalyzer(collector), new MicrodataAnalyzer(collector)), 2)) {
+            Iterator<byte[]> iterator = manager.analyze(curi, htmlFile, sink);
+            Set<String> uris = new HashSet<>();
+            while (iterator.hasNext()) {
+                uris.add(((CrawleableUri) serializer.deserialize(iterator.next())).getUri().toString());
+            }
+            Assert.assertTrue(uris.contains("http://example.org/alice"));
+            Assert.assertTrue(uris.contains("http://example.org/bob"));
+        }
+        Model model = sink.getCrawledRdfData().get(curi.getUri().toString());
+        Assert.assertTrue(model.containsResource(model.createResource("http://example.org/alice")));
+        Assert.assertTrue(model.containsResource(model.createResource("http://example.org/bob")));
+    }
+
+    protected static abstract class DummyAnalyzer extends AbstractAnalyzer implements HtmlAnalyzer {
+
+        private HtmlDocument document;
+        private String uri;
+
+        public DummyAnalyzer(UriCollector collector, String uri) {
+            super(collector);
+            this.uri = uri;
+        }
+
+        @Override
+        public Iterator<byte[]> analyze(CrawleableUri curi, File data, Sink sink) {
+            Assert.fail("The shared document should have been used.");
+            return null;
+        }
+
+        @Override
+        public Iterator<byte[]> analyze(CrawleableUri curi, HtmlDocument document, Sink sink) {
+            this.document = document;
+            try {
+                document.getJsoupDocument();
+                List<byte[]> uris = new ArrayList<>();
+                uris.add(serialize("http://example.org/shared"));
+                uris.add(serialize(uri));
+                return uris.iterator();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private static byte[] serialize(String uri) throws IOException {
+            try {
+                return new GzipJavaUriSerializer().serialize(new CrawleableUri(new URI(uri)));
+            } catch (java.net.URISyntaxException e) {
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        public boolean isElegible(CrawleableUri curi, File data) {
+            return true;
+        }
+    }
+
+    protected static class DummyAnalyzerA extends DummyAnalyzer {
+        public DummyAnalyzerA(UriCollector collector) {
+            super(collector, "http://example.org/a");
+        }
+    }
+
+    protected static class DummyAnalyzerB extends DummyAnalyzer {
+        public DummyAnalyzerB(UriCollector collector) {
+            super(collector, "http://example.org/b");
+        }
+    }
+
+    protected static class DummyAnalyzerC extends DummyAnalyzer {
+        public DummyAnalyzerC(UriCollector collector) {
+            super(collector, "http://example.org/c");
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package org.dice_research.squirrel.collect;
+
+import java.io.File;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.data.uri.serialize.java.GzipJavaUriSerializer;
+import org.dice_research.squirrel.utils.TempFileHelper;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MemoryMappedUriCollectorTest {
+
+    private GzipJavaUriSerializer serializer = new GzipJavaUriSerializer();
+    private File directory;
+    private MemoryMappedUriCollector collector;
+
+    @Before
+    public void prepare() throws Exception {
+        directory = TempFileHelper.getTempDir("segmentTest", "");
+        // use a tiny initial size to make sure that the segments have to grow
+        collector = new MemoryMappedUriCollector(serializer, directory, 64, 2);
+    }
+
+    @After
+    public void cleanUp() throws Exception {
+        collector.close();
+        Assert.assertEquals(0, directory.listFiles().length);
+        directory.delete();
+    }
+
+    @Test
+    public void testAddAndDeduplicate() throws Exception {
+        CrawleableUri uri = new CrawleableUri(new URI("http://example.org/test1"));
+        collector.openSinkForUri(uri);
+
+        Set<String> expectedUris = new TreeSet<String>();
+        for (int i = 0; i < 1000; ++i) {
+            String newUri = "http://example.org/entity" + i;
+            expectedUris.add(newUri);
+            collector.addNewUri(uri, new CrawleableUri(new URI(newUri)));
+            // add every URI twice
+            collector.addNewUri(uri, newUri);
+        }
+        Assert.assertEquals(expectedUris.size(), collector.getSize(uri));
+        Assert.assertEquals(expectedUris, readUris(collector.getUris(uri)));
+        collector.closeSinkForUri(uri);
+        Assert.assertEquals(0, collector.getSize(uri));
+    }
+
+    @Test
+    public void testSegmentReuse() throws Exception {
+        CrawleableUri uri1 = new CrawleableUri(new URI("http://example.org/test1"));
+        CrawleableUri uri2 = new CrawleableUri(new URI("http://example.org/test2"));
+        collector.openSinkForUri(uri1);
+        collector.openSinkForUri(uri2);
+        collector.addNewUri(uri1, "http://example.org/a");
+        collector.addNewUri(uri2, "http://example.org/b");
+        collector.addNewUri(uri2, "http://example.org/c");
+        Assert.assertEquals(2, directory.listFiles().length);
+
+        // the URIs of different sinks are kept separated
+        Set<String> expectedUris = new TreeSet<String>();
+        expectedUris.add("http://example.org/a");
+        Assert.assertEquals(expectedUris, readUris(collector.getUris(uri1)));
+        expectedUris.clear();
+        expectedUris.add("http://example.org/b");
+        expectedUris.add("http://example.org/c");
+        Assert.assertEquals(expectedUris, readUris(collector.getUris(uri2)));
+
+        collector.closeSinkForUri(uri1);
+        collector.closeSinkForUri(uri2);
+
+        // a reused segment has to be empty and must not know the old fingerprints
+        collector.openSinkForUri(uri1);
+        Assert.assertEquals(2, directory.listFiles().length);
+        Assert.assertFalse(collector.getUris(uri1).hasNext());
+        collector.addNewUri(uri1, "http://example.org/b");
+        expectedUris.clear();
+        expectedUris.add("http://example.org/b");
+        Assert.assertEquals(expectedUris, readUris(collector.getUris(uri1)));
+        collector.closeSinkForUri(uri1);
+    }
+
+    @Test
+    public void testUnknownUri() throws Exception {
+        CrawleableUri uri = new CrawleableUri(new URI("http://example.org/test1"));
+        collector.addNewUri(uri, "http://example.org/a");
+        Assert.assertFalse(collector.getUris(uri).hasNext());
+        Assert.assertEquals(0, collector.getSize(uri));
+    }
+
+    protected Set<String> readUris(Iterator<byte[]> iterator) throws Exception {
+        List<byte[]> serialized = new ArrayList<>();
+        while (iterator.hasNext()) {
+            serialized.add(iterator.next());
+        }
+        Set<String> uris = new TreeSet<String>();
+        for (byte[] data : serialized) {
+            uris.add(((CrawleableUri) serializer.deserialize(data)).getUri().toString());
+        }
+        return uris;
+    }
+}
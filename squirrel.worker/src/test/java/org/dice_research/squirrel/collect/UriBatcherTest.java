@@ -0,0 +1,163 @@
+package org.dice_research.squirrel.collect;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.data.uri.UriFingerprint;
+import org.dice_research.squirrel.frontier.Frontier;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class UriBatcherTest {
+
+    @Test
+    public void testBatchingAndDeduplication() throws Exception {
+        DummyFrontier frontier = new DummyFrontier();
+        try (UriBatcher batcher = new UriBatcher(frontier, 10, 0, new RotatingBloomFilter(1000, 0.001))) {
+            for (int i = 0; i < 25; ++i) {
+                Assert.assertTrue(batcher.add(createUri(i)));
+                // duplicates are not sent
+                Assert.assertFalse(batcher.add(createUri(i)));
+            }
+            // two full batches have been sent, the remaining URIs wait for a flush
+            Assert.assertEquals(2, frontier.batches.size());
+            batcher.flush();
+            Assert.assertEquals(3, frontier.batches.size());
+            Assert.assertEquals(5, frontier.batches.get(2).size());
+            // URIs of earlier batches are still known
+            Assert.assertFalse(batcher.add(createUri(0)));
+            batcher.flush();
+            Assert.assertEquals(3, frontier.batches.size());
+
+            Assert.assertEquals(51, batcher.getAddedUris());
+            Assert.assertEquals(25, batcher.getSentUris());
+        }
+        Set<String> sent = new HashSet<>();
+        for (List<CrawleableUri> batch : frontier.batches) {
+            for (CrawleableUri uri : batch) {
+                Assert.assertTrue(sent.add(uri.getUri().toString()));
+            }
+        }
+        Assert.assertEquals(25, sent.size());
+    }
+
+    @Test
+    public void testFailedSending() throws Exception {
+        DummyFrontier frontier = new DummyFrontier();
+        frontier.failures = 1;
+        try (UriBatcher batcher = new UriBatcher(frontier, 2, 0, new RotatingBloomFilter(1000, 0.001))) {
+            Assert.assertTrue(batcher.add(createUri(0)));
+            Assert.assertTrue(batcher.add(createUri(1)));
+            // the batch couldn't be sent, so its URIs are accepted again
+            Assert.assertEquals(0, frontier.batches.size());
+            Assert.assertEquals(0, batcher.getSentUris());
+            Assert.assertTrue(batcher.add(createUri(0)));
+            Assert.assertTrue(batcher.add(createUri(1)));
+            Assert.assertEquals(1, frontier.batches.size());
+            Assert.assertEquals(2, batcher.getSentUris());
+            // now, they are known
+            Assert.assertFalse(batcher.add(createUri(0)));
+            Assert.assertFalse(batcher.add(createUri(1)));
+        }
+    }
+
+    @Test
+    public void testLingerTime() throws Exception {
+        DummyFrontier frontier = new DummyFrontier();
+        try (UriBatcher batcher = new UriBatcher(frontier, 1000, 50, new RotatingBloomFilter(1000, 0.001))) {
+            batcher.add(createUri(0));
+            batcher.add(createUri(1));
+            long start = System.currentTimeMillis();
+            while (frontier.batches.isEmpty() && ((System.currentTimeMillis() - start) < 5000)) {
+                Thread.sleep(10);
+            }
+            Assert.assertEquals(1, frontier.batches.size());
+            Assert.assertEquals(2, frontier.batches.get(0).size());
+        }
+    }
+
+    @Test
+    public void testFilterRotation() {
+        RotatingBloomFilter filter = new RotatingBloomFilter(100, 0.001);
+        for (int i = 0; i < 100; ++i) {
+            Assert.assertTrue(filter.add(fingerprint(i)));
+        }
+        // the second generation still knows the fingerprints of the first one
+        for (int i = 100; i < 200; ++i) {
+            filter.add(fingerprint(i));
+        }
+        for (int i = 0; i < 200; ++i) {
+            Assert.assertTrue(filter.mightContain(fingerprint(i)));
+        }
+        // the third generation replaces the first one
+        for (int i = 200; i < 300; ++i) {
+            filter.add(fingerprint(i));
+        }
+        int known = 0;
+        for (int i = 0; i < 100; ++i) {
+            if (filter.mightContain(fingerprint(i))) {
+                ++known;
+            }
+        }
+        Assert.assertTrue("Too many fingerprints are still known: " + known, known < 5);
+    }
+
+    private static long fingerprint(int id) {
+        return UriFingerprint.fingerprint("http://example.org/resource" + id);
+    }
+
+    private static CrawleableUri createUri(int id) throws Exception {
+        return new CrawleableUri(new URI("http://example.org/resource" + id));
+    }
+
+    protected static class DummyFrontier implements Frontier {
+
+        private List<List<CrawleableUri>> batches = Collections.synchronizedList(new ArrayList<>());
+        /**
+         * The number of calls of {@link #addNewUris(List)} that should fail.
+         */
+        private int failures = 0;
+
+        @Override
+        public List<CrawleableUri> getNextUris() {
+            return null;
+        }
+
+        @Override
+        public void addNewUri(CrawleableUri uri) {
+            addNewUris(Collections.singletonList(uri));
+        }
+
+        @Override
+        public void addNewUris(List<CrawleableUri> newUris) {
+            if (failures > 0) {
+                --failures;
+                throw new IllegalStateException("Simulated failure.");
+            }
+            batches.add(newUris);
+        }
+
+        @Override
+        public void crawlingDone(List<CrawleableUri> uris) {
+        }
+
+        @Override
+        public int getNumberOfPendingUris() {
+            return 0;
+        }
+
+        @Override
+        public boolean doesRecrawling() {
+            return false;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
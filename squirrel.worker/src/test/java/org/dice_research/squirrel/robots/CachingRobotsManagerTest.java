@@ -0,0 +1,213 @@
+package org.dice_research.squirrel.robots;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.tika.metadata.Metadata;
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.utils.TempFileHelper;
+import org.junit.Assert;
+import org.junit.Test;
+
+import crawlercommons.fetcher.BaseFetchException;
+import crawlercommons.fetcher.FetchedResult;
+import crawlercommons.fetcher.IOFetchException;
+import crawlercommons.fetcher.Payload;
+import crawlercommons.fetcher.http.BaseHttpFetcher;
+import crawlercommons.fetcher.http.UserAgent;
+import crawlercommons.robots.SimpleRobotRulesParser;
+
+public class CachingRobotsManagerTest {
+
+    private static final String ROBOTS_FILE = "User-agent: *\nDisallow: /private/\nCrawl-delay: 5\n";
+
+    @Test
+    public void testCachingPerOrigin() throws Exception {
+        DummyFetcher fetcher = new DummyFetcher();
+        DummyClockRobotsManager manager = new DummyClockRobotsManager(fetcher, 1000, null);
+
+        Assert.assertTrue(manager.isUriCrawlable(new CrawleableUri(new URI("http://example.org/public/a"))));
+        Assert.assertFalse(manager.isUriCrawlable(new CrawleableUri(new URI("http://example.org/private/a"))));
+        // the default port and upper case letters lead to the same origin
+        Assert.assertFalse(manager.isUriCrawlable(new CrawleableUri(new URI("HTTP://Example.org:80/private/b"))));
+        Assert.assertEquals(5000, manager.getMinWaitingTime(new CrawleableUri(new URI("http://example.org/"))));
+        Assert.assertEquals(1, fetcher.requests.get());
+        Assert.assertEquals(3, manager.getHits());
+
+        // a different scheme or port is a different origin
+        manager.isUriCrawlable(new CrawleableUri(new URI("https://example.org/public/a")));
+        manager.isUriCrawlable(new CrawleableUri(new URI("http://example.org:8080/public/a")));
+        Assert.assertEquals(3, fetcher.requests.get());
+        Assert.assertEquals(3, manager.getCacheSize());
+
+        // the rules expire after their time to live
+        manager.time += 999;
+        manager.isUriCrawlable(new CrawleableUri(new URI("http://example.org/public/a")));
+        Assert.assertEquals(3, fetcher.requests.get());
+        manager.time += 1;
+        manager.isUriCrawlable(new CrawleableUri(new URI("http://example.org/public/a")));
+        Assert.assertEquals(4, fetcher.requests.get());
+        Assert.assertEquals(4, manager.getFetches());
+    }
+
+    @Test
+    public void testFailedFetches() throws Exception {
+        DummyFetcher fetcher = new DummyFetcher();
+        fetcher.fail = true;
+        DummyClockRobotsManager manager = new DummyClockRobotsManager(fetcher, 1000, null);
+        CrawleableUri uri = new CrawleableUri(new URI("http://example.org/public/a"));
+
+        // visits are deferred if the robots.txt couldn't be fetched
+        Assert.assertFalse(manager.isUriCrawlable(uri));
+        Assert.assertFalse(manager.isUriCrawlable(uri));
+        Assert.assertEquals(1, fetcher.requests.get());
+        Assert.assertEquals(1, manager.getFailedFetches());
+
+        // the failure is cached for a shorter time
+        fetcher.fail = false;
+        manager.time += 100;
+        Assert.assertTrue(manager.isUriCrawlable(uri));
+        Assert.assertEquals(2, fetcher.requests.get());
+        Assert.assertEquals(1, manager.getFailedFetches());
+    }
+
+    @Test
+    public void testSingleFetchPerOrigin() throws Exception {
+        DummyFetcher fetcher = new DummyFetcher();
+        fetcher.blocker = new CountDownLatch(1);
+        DummyClockRobotsManager manager = new DummyClockRobotsManager(fetcher, 1000, null);
+        List<Thread> threads = new ArrayList<>();
+        AtomicInteger crawlable = new AtomicInteger();
+        for (int i = 0; i < 8; ++i) {
+            final int id = i;
+            Thread thread = new Thread(() -> {
+                try {
+                    if (manager.isUriCrawlable(new CrawleableUri(new URI("http://example.org/public/" + id)))) {
+                        crawlable.incrementAndGet();
+                    }
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        // give the threads time to wait for the fetching thread
+        Thread.sleep(200);
+        fetcher.blocker.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertEquals(8, crawlable.get());
+        Assert.assertEquals(1, fetcher.requests.get());
+    }
+
+    @Test
+    public void testSizeBound() throws Exception {
+        DummyFetcher fetcher = new DummyFetcher();
+        CachingRobotsManager manager = new CachingRobotsManager(fetcher, new SimpleRobotRulesParser(), 10,
+                CachingRobotsManager.DEFAULT_TTL, CachingRobotsManager.DEFAULT_FAILURE_TTL, null);
+        for (int i = 0; i < 100; ++i) {
+            manager.isUriCrawlable(new CrawleableUri(new URI("http://host" + i + ".example.org/")));
+            Assert.assertTrue(manager.getCacheSize() <= 10);
+        }
+        Assert.assertTrue(manager.getEvictions() > 0);
+        Assert.assertEquals(100, fetcher.requests.get());
+    }
+
+    @Test
+    public void testPersistence() throws Exception {
+        File tempDir = TempFileHelper.getTempDir("robots", "");
+        try {
+            File cacheFile = new File(tempDir, "robots.cache");
+            DummyFetcher fetcher = new DummyFetcher();
+            DummyClockRobotsManager manager = new DummyClockRobotsManager(fetcher, 1000, cacheFile);
+            Assert.assertFalse(manager.isUriCrawlable(new CrawleableUri(new URI("http://example.org/private/a"))));
+            Assert.assertTrue(manager.isUriCrawlable(new CrawleableUri(new URI("http://example.com/public/a"))));
+            // failed fetches are not persisted
+            fetcher.fail = true;
+            manager.isUriCrawlable(new CrawleableUri(new URI("http://example.net/public/a")));
+            manager.close();
+
+            fetcher = new DummyFetcher();
+            manager = new DummyClockRobotsManager(fetcher, 1000, cacheFile);
+            Assert.assertEquals(2, manager.getCacheSize());
+            Assert.assertFalse(manager.isUriCrawlable(new CrawleableUri(new URI("http://example.org/private/a"))));
+            Assert.assertTrue(manager.isUriCrawlable(new CrawleableUri(new URI("http://example.com/public/a"))));
+            Assert.assertEquals(0, fetcher.requests.get());
+            manager.close();
+
+            // expired entries are not loaded
+            manager = new DummyClockRobotsManager(fetcher, 1000, cacheFile);
+            manager.time += 1000;
+            manager.cache.clear();
+            manager.load(cacheFile);
+            Assert.assertEquals(0, manager.getCacheSize());
+        } finally {
+            FileUtils.deleteQuietly(tempDir);
+        }
+    }
+
+    /**
+     * A manager with a clock that is controlled by the test.
+     */
+    public static class DummyClockRobotsManager extends CachingRobotsManager {
+
+        protected long time = 1000000;
+
+        public DummyClockRobotsManager(BaseHttpFetcher fetcher, long ttl, File cacheFile) {
+            super(fetcher, new SimpleRobotRulesParser(), 100, ttl, ttl / 10, cacheFile);
+        }
+
+        @Override
+        protected long currentTime() {
+            return time;
+        }
+    }
+
+    /**
+     * A fetcher that returns the same robots.txt file for every origin or fails
+     * with an IO exception.
+     */
+    public static class DummyFetcher extends BaseHttpFetcher {
+
+        private static final long serialVersionUID = 1L;
+
+        protected AtomicInteger requests = new AtomicInteger();
+        protected volatile boolean fail = false;
+        protected CountDownLatch blocker = null;
+
+        public DummyFetcher() {
+            super(1, new UserAgent("test", "test@example.org", "http://example.org"));
+        }
+
+        @Override
+        public FetchedResult get(String url, Payload payload) throws BaseFetchException {
+            requests.incrementAndGet();
+            if (blocker != null) {
+                try {
+                    blocker.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (fail) {
+                throw new IOFetchException(url, new IOException("Connection refused"));
+            }
+            byte[] content = ROBOTS_FILE.getBytes(StandardCharsets.UTF_8);
+            return new FetchedResult(url, url, System.currentTimeMillis(), new Metadata(), content, "text/plain",
+                    0, payload, url, 0, "127.0.0.1", 200, "OK");
+        }
+
+        @Override
+        public void abort() {
+        }
+    }
+}
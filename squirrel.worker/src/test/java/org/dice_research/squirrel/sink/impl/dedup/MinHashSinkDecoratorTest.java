@@ -0,0 +1,66 @@
+package org.dice_research.squirrel.sink.impl.dedup;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.vocabulary.RDFS;
+import org.dice_research.squirrel.Constants;
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.deduplication.hashing.impl.MinHashFunction;
+import org.dice_research.squirrel.deduplication.hashing.impl.MinHashValue;
+import org.dice_research.squirrel.deduplication.hashing.impl.SimpleTripleHashFunction;
+import org.dice_research.squirrel.sink.impl.mem.InMemorySink;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MinHashSinkDecoratorTest {
+
+    @Test
+    public void test() throws Exception {
+        InMemorySink decorated = new InMemorySink();
+        MinHashSinkDecorator sink = new MinHashSinkDecorator(decorated);
+
+        List<Triple> triples = new ArrayList<>();
+        for (int i = 0; i < 20; ++i) {
+            triples.add(new Triple(NodeFactory.createURI("http://example.org/r" + i), RDFS.label.asNode(),
+                    NodeFactory.createLiteral("label " + i)));
+        }
+        CrawleableUri uri1 = new CrawleableUri(new URI("http://example.org/dataset1"));
+        CrawleableUri uri2 = new CrawleableUri(new URI("http://example.org/dataset2"));
+        sink.openSinkForUri(uri1);
+        sink.openSinkForUri(uri2);
+        for (int i = 0; i < triples.size(); ++i) {
+            sink.addTriple(uri1, triples.get(i));
+            // the second URI gets the same triples as quads in reversed order
+            sink.addQuad(uri2, new Quad(NodeFactory.createURI("http://example.org/graph"),
+                    triples.get(triples.size() - i - 1)));
+        }
+        // the triple with a blank node is ignored
+        sink.addTriple(uri2, new Triple(NodeFactory.createBlankNode(), RDFS.label.asNode(),
+                NodeFactory.createLiteral("blank")));
+        Assert.assertNull(uri1.getData(Constants.URI_HASH_KEY));
+        sink.closeSinkForUri(uri1);
+        sink.closeSinkForUri(uri2);
+
+        MinHashValue expected = new MinHashFunction(new SimpleTripleHashFunction()).hash(triples);
+        Assert.assertEquals(expected, uri1.getData(Constants.URI_HASH_KEY));
+        Assert.assertEquals(expected, uri2.getData(Constants.URI_HASH_KEY));
+        // the data has been forwarded to the decorated sink
+        Assert.assertEquals(triples.size(), decorated.getCrawledRdfData().get(uri1.getUri().toString()).size());
+
+        // an empty graph gets a signature as well while the metadata graph does not
+        CrawleableUri uri3 = new CrawleableUri(new URI("http://example.org/empty"));
+        sink.openSinkForUri(uri3);
+        sink.closeSinkForUri(uri3);
+        Assert.assertNotNull(uri3.getData(Constants.URI_HASH_KEY));
+        CrawleableUri metadataUri = new CrawleableUri(Constants.DEFAULT_META_DATA_GRAPH_URI);
+        sink.openSinkForUri(metadataUri);
+        sink.addTriple(metadataUri, triples.get(0));
+        sink.closeSinkForUri(metadataUri);
+        Assert.assertNull(metadataUri.getData(Constants.URI_HASH_KEY));
+    }
+}
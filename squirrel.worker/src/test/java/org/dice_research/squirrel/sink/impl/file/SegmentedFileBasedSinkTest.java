@@ -0,0 +1,160 @@
+package org.dice_research.squirrel.sink.impl.file;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.vocabulary.RDFS;
+import org.dice_research.squirrel.Constants;
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.sink.impl.sparql.SparqlBasedSink;
+import org.dice_research.squirrel.utils.TempFileHelper;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SegmentedFileBasedSinkTest {
+
+    private File directory;
+
+    @Before
+    public void prepare() throws Exception {
+        directory = TempFileHelper.getTempDir("segmentedSinkTest", "");
+    }
+
+    @After
+    public void cleanUp() throws Exception {
+        FileUtils.deleteQuietly(directory);
+    }
+
+    @Test
+    public void testSegmentsAndIndex() throws Exception {
+        int numberOfUris = 200;
+        // small blocks and segments to make sure that several segments are
+        // created and that the data of the large URI is split into chunks
+        SegmentedFileBasedSink sink = new SegmentedFileBasedSink(directory, 4096, 64 * 1024, 60000, 60000, 2);
+        List<CrawleableUri> uris = new ArrayList<>();
+        for (int i = 0; i < numberOfUris; ++i) {
+            CrawleableUri uri = new CrawleableUri(new URI("http://example.org/dataset" + i));
+            uri.addData(Constants.UUID_KEY, Integer.toString(i));
+            uris.add(uri);
+            sink.openSinkForUri(uri);
+            int numberOfTriples = (i == 0) ? 2000 : (i % 10) + 1;
+            for (int j = 0; j < numberOfTriples; ++j) {
+                sink.addTriple(uri, new Triple(NodeFactory.createURI("http://example.org/r" + j),
+                        RDFS.label.asNode(), NodeFactory.createLiteral("label " + i + " " + j)));
+            }
+            sink.closeSinkForUri(uri);
+        }
+        CrawleableUri dataUri = new CrawleableUri(new URI("http://example.org/file.txt"));
+        sink.openSinkForUri(dataUri);
+        sink.addData(dataUri, new ByteArrayInputStream("unstructured data".getBytes(StandardCharsets.UTF_8)));
+        sink.closeSinkForUri(dataUri);
+        sink.close();
+
+        File[] segments = directory
+                .listFiles(f -> f.getName().endsWith(SegmentedFileBasedSink.SEGMENT_FILE_SUFFIX));
+        Assert.assertTrue("Expected several segments but got " + segments.length, segments.length > 1);
+        Assert.assertEquals(segments.length, sink.getWrittenSegments());
+
+        Set<String> foundUris = new HashSet<>();
+        int segmentsOfLargeUri = 0;
+        Dataset completeDataset = DatasetFactory.createTxnMem();
+        for (File segment : segments) {
+            try (SegmentReader reader = new SegmentReader(segment)) {
+                if (reader.getUris().contains(uris.get(0).getUri().toString())) {
+                    ++segmentsOfLargeUri;
+                }
+                for (String uri : reader.getUris()) {
+                    foundUris.add(uri);
+                    InputStream in = reader.openQuads(uri);
+                    if (in != null) {
+                        RDFDataMgr.read(completeDataset, in, Lang.NQUADS);
+                    }
+                }
+            }
+            // a segment is a valid GZIP file containing only N-Quads
+            try (InputStream in = new GZIPInputStream(new FileInputStream(segment))) {
+                Dataset segmentDataset = DatasetFactory.createTxnMem();
+                RDFDataMgr.read(segmentDataset, in, Lang.NQUADS);
+                Assert.assertFalse(segmentDataset.isEmpty());
+            }
+        }
+        Assert.assertEquals(numberOfUris + 1, foundUris.size());
+        // the data of the large URI is larger than a segment
+        Assert.assertTrue(segmentsOfLargeUri > 1);
+        for (int i = 0; i < numberOfUris; ++i) {
+            Model model = completeDataset.getNamedModel(SparqlBasedSink.getGraphId(uris.get(i)));
+            Assert.assertEquals((i == 0) ? 2000 : (i % 10) + 1, model.size());
+            Assert.assertTrue(model.contains(model.getResource("http://example.org/r0"), RDFS.label,
+                    "label " + i + " 0"));
+        }
+
+        // the unstructured data is written to a separate data segment
+        File[] dataSegments = directory
+                .listFiles(f -> f.getName().endsWith(SegmentedFileBasedSink.DATA_SEGMENT_FILE_SUFFIX));
+        Assert.assertEquals(1, dataSegments.length);
+        try (InputStream in = new GZIPInputStream(new FileInputStream(dataSegments[0]))) {
+            Assert.assertEquals("unstructured data", IOUtils.toString(in, StandardCharsets.UTF_8));
+        }
+
+        // read the data of a single URI
+        File dataSegment = null;
+        for (File segment : segments) {
+            try (SegmentReader reader = new SegmentReader(segment)) {
+                if (reader.getUris().contains(dataUri.getUri().toString())) {
+                    dataSegment = segment;
+                    Assert.assertNull(reader.openQuads(dataUri.getUri().toString()));
+                    Assert.assertEquals("unstructured data", IOUtils
+                            .toString(reader.openData(dataUri.getUri().toString()), StandardCharsets.UTF_8));
+                }
+            }
+        }
+        Assert.assertEquals(dataSegments[0], SegmentedFileBasedSink.getDataSegmentFile(dataSegment));
+    }
+
+    @Test
+    public void testLingerTime() throws Exception {
+        SegmentedFileBasedSink sink = new SegmentedFileBasedSink(directory, 1 << 20, 1 << 30, 60000, 50, 1);
+        try {
+            CrawleableUri uri = new CrawleableUri(new URI("http://example.org/dataset"));
+            uri.addData(Constants.UUID_KEY, "123");
+            sink.openSinkForUri(uri);
+            sink.addTriple(uri, new Triple(NodeFactory.createURI("http://example.org/r"), RDFS.label.asNode(),
+                    NodeFactory.createLiteral("r")));
+            sink.closeSinkForUri(uri);
+
+            // the incomplete block is written without closing the sink
+            long start = System.currentTimeMillis();
+            while ((sink.getWrittenBlocks() == 0) && ((System.currentTimeMillis() - start) < 5000)) {
+                Thread.sleep(10);
+            }
+            Assert.assertEquals(1, sink.getWrittenBlocks());
+            try (SegmentReader reader = new SegmentReader(sink.getSegmentFile(0))) {
+                Dataset dataset = DatasetFactory.createTxnMem();
+                RDFDataMgr.read(dataset, reader.openQuads(uri.getUri().toString()), Lang.NQUADS);
+                Assert.assertEquals(1, dataset.getNamedModel(SparqlBasedSink.getGraphId(uri)).size());
+            }
+        } finally {
+            sink.close();
+        }
+    }
+}
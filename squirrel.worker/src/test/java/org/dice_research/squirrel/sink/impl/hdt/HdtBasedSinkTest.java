@@ -128,9 +128,50 @@ public class HdtBasedSinkTest {
         runTest(false);
     }
 
+    @Test
+    public void testMergingSmallGraphs() throws IOException, NotFoundException {
+        // all graphs are smaller than the threshold
+        HdtBasedSink sink = new HdtBasedSink(tempDirectory, 1, 1, 100, 1000, 100);
+        writeModels(sink);
+        sink.close();
+        Assert.assertEquals(1, sink.getCreatedFiles());
+        Assert.assertEquals(0, sink.getFailedConversions());
+
+        File[] files = tempDirectory.listFiles();
+        Assert.assertEquals(1, files.length);
+        Model readModel = readHdt(files[0].getAbsolutePath());
+        for (int i = 0; i < models.length; ++i) {
+            StmtIterator iterator = models[i].listStatements();
+            while (iterator.hasNext()) {
+                Statement s = iterator.next();
+                Assert.assertTrue("The merged file does not contain " + s, readModel.contains(s));
+            }
+        }
+    }
+
+    @Test
+    public void testIntermediateFile() throws IOException, NotFoundException {
+        // the graphs are written to intermediate files after 5 triples
+        Sink sink = new HdtBasedSink(tempDirectory, 1, 1, 0, 1000, 5);
+        writeModels(sink);
+        sink.close();
+        for (int i = 0; i < models.length; ++i) {
+            checkModel(models[i], modelUris[i], false);
+        }
+        Assert.assertFalse(new File(tempDirectory + "_hdt").exists());
+    }
+
     public void runTest(boolean useCompression) throws IOException, NotFoundException {
         Sink sink = createSink(useCompression);
+        writeModels(sink);
+        sink.close();
 
+        for (int i = 0; i < models.length; ++i) {
+            checkModel(models[i], modelUris[i], useCompression);
+        }
+    }
+
+    protected void writeModels(Sink sink) {
         Semaphore writingFinishedMutex = new Semaphore(0);
         for (int i = 0; i < models.length; ++i) {
             EXECUTION_SERVICE
@@ -141,14 +182,12 @@ public class HdtBasedSinkTest {
         } catch (InterruptedException e) {
             e.printStackTrace();
         }
-
-        for (int i = 0; i < models.length; ++i) {
-            checkModel(models[i], modelUris[i], useCompression);
-        }
     }
 
     protected Sink createSink(boolean useCompression) throws IOException {
-        return new HdtBasedSink(tempDirectory);
+        // disable the merging to get a file per graph
+        return new HdtBasedSink(tempDirectory, 2, 4, 0, HdtBasedSink.DEFAULT_MERGED_FILE_SIZE,
+                HdtBasedSink.DEFAULT_MAX_BUFFERED_TRIPLES);
     }
 
     private void checkModel(Model model, URI uri, boolean useCompression) throws NotFoundException {
@@ -184,21 +223,12 @@ public class HdtBasedSinkTest {
             IOUtils.closeQuietly(in);
         }
 
-        readModel = ModelFactory.createDefaultModel();
+        readModel = readHdt(hdt);
         String errorMsg = "The read model of " + uri.toString() + ": " + readModel
                 + " does not fit the expected model: " + model;
         StmtIterator iterator = model.listStatements();
         Statement s;
         
-        IteratorTripleString it = hdt.search("", "", "");        
-        while(it.hasNext()) {
-        	TripleString ts = it.next();
-        	Resource subject  = readModel.createResource(ts.getSubject().toString());
-        	Property predicate = readModel.createProperty(ts.getPredicate().toString());
-        	Resource object  = readModel.createResource(ts.getObject().toString());
-        	readModel.add(subject, predicate, object);
-        }
-        
         
 //        while (iterator.hasNext()) {
 //            s = iterator.next();
@@ -211,6 +241,25 @@ public class HdtBasedSinkTest {
         }
     }
 
+    private static Model readHdt(String file) throws IOException, NotFoundException {
+        try (HDT hdt = HDTManager.loadHDT(file, null)) {
+            return readHdt(hdt);
+        }
+    }
+
+    private static Model readHdt(HDT hdt) throws NotFoundException {
+        Model readModel = ModelFactory.createDefaultModel();
+        IteratorTripleString it = hdt.search("", "", "");
+        while (it.hasNext()) {
+            TripleString ts = it.next();
+            Resource subject = readModel.createResource(ts.getSubject().toString());
+            Property predicate = readModel.createProperty(ts.getPredicate().toString());
+            Resource object = readModel.createResource(ts.getObject().toString());
+            readModel.add(subject, predicate, object);
+        }
+        return readModel;
+    }
+
     protected class SinkInput implements Runnable {
 
         private Sink sink;
@@ -0,0 +1,127 @@
+package org.dice_research.squirrel.sink.impl.sparql;
+
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.aksw.jena_sparql_api.core.QueryExecutionFactoryDataset;
+import org.aksw.jena_sparql_api.core.UpdateExecutionFactoryDataset;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.update.UpdateFactory;
+import org.apache.jena.update.UpdateProcessor;
+import org.apache.jena.vocabulary.RDFS;
+import org.dice_research.squirrel.Constants;
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AsyncSparqlBasedSinkTest {
+
+    @Test
+    public void testBatchedUpdates() throws Exception {
+        Dataset dataset = DatasetFactory.createTxnMem();
+        FlakyUpdateExecutionFactory updateExecFactory = new FlakyUpdateExecutionFactory(dataset, 0);
+        CrawleableUri uri = new CrawleableUri(new URI("http://example.org/dataset"));
+        uri.addData(Constants.UUID_KEY, "123");
+
+        AsyncSparqlBasedSink sink = new AsyncSparqlBasedSink(new QueryExecutionFactoryDataset(dataset),
+                updateExecFactory, 0, 1, 2, 2, 10, AsyncSparqlBasedSink.DEFAULT_MAX_UPDATE_SIZE);
+        try {
+            sink.openSinkForUri(uri);
+            for (int i = 0; i < 35; ++i) {
+                // the literal contains characters that broke the former query generation
+                sink.addTriple(uri, new Triple(NodeFactory.createURI("http://example.org/r" + i),
+                        RDFS.label.asNode(), NodeFactory.createLiteral("label {} \"" + i + "\"\n")));
+            }
+            sink.closeSinkForUri(uri);
+        } finally {
+            sink.close();
+        }
+        Assert.assertEquals(4, sink.getSentUpdates());
+        Assert.assertEquals(35, sink.getSentTriples());
+        Assert.assertEquals(0, sink.getFailedUpdates());
+
+        Model model = dataset.getNamedModel(SparqlBasedSink.getGraphId(uri));
+        Assert.assertEquals(35, model.size());
+        Assert.assertTrue(model.contains(model.getResource("http://example.org/r7"), RDFS.label,
+                "label {} \"7\"\n"));
+    }
+
+    @Test
+    public void testLargeUpdate() throws Exception {
+        Dataset dataset = DatasetFactory.createTxnMem();
+        CrawleableUri uri = new CrawleableUri(new URI("http://example.org/dataset"));
+        uri.addData(Constants.UUID_KEY, "789");
+
+        AsyncSparqlBasedSink sink = new AsyncSparqlBasedSink(new QueryExecutionFactoryDataset(dataset),
+                new FlakyUpdateExecutionFactory(dataset, 0), 0, 1, 1, 1, 10000,
+                AsyncSparqlBasedSink.DEFAULT_MAX_UPDATE_SIZE);
+        try {
+            sink.openSinkForUri(uri);
+            for (int i = 0; i < 5000; ++i) {
+                sink.addTriple(uri, new Triple(NodeFactory.createURI("http://example.org/r" + i),
+                        RDFS.label.asNode(), NodeFactory.createLiteral("r" + i)));
+            }
+            sink.closeSinkForUri(uri);
+        } finally {
+            sink.close();
+        }
+        // a single update has to be parsed without exceeding the stack of the thread
+        Assert.assertEquals(1, sink.getSentUpdates());
+        Assert.assertEquals(0, sink.getFailedUpdates());
+        Assert.assertEquals(5000, dataset.getNamedModel(SparqlBasedSink.getGraphId(uri)).size());
+    }
+
+    @Test
+    public void testRetry() throws Exception {
+        Dataset dataset = DatasetFactory.createTxnMem();
+        FlakyUpdateExecutionFactory updateExecFactory = new FlakyUpdateExecutionFactory(dataset, 2);
+        CrawleableUri uri = new CrawleableUri(new URI("http://example.org/dataset"));
+        uri.addData(Constants.UUID_KEY, "456");
+
+        AsyncSparqlBasedSink sink = new AsyncSparqlBasedSink(new QueryExecutionFactoryDataset(dataset),
+                updateExecFactory, 10, 3, 1, 1, 100, AsyncSparqlBasedSink.DEFAULT_MAX_UPDATE_SIZE);
+        try {
+            sink.openSinkForUri(uri);
+            sink.addTriple(uri, new Triple(NodeFactory.createURI("http://example.org/r"), RDFS.label.asNode(),
+                    NodeFactory.createLiteral("r")));
+            sink.closeSinkForUri(uri);
+        } finally {
+            sink.close();
+        }
+        // two failed attempts and a successful one
+        Assert.assertEquals(3, updateExecFactory.attempts.get());
+        Assert.assertEquals(1, sink.getSentUpdates());
+        Assert.assertEquals(0, sink.getFailedUpdates());
+        Assert.assertEquals(1, dataset.getNamedModel(SparqlBasedSink.getGraphId(uri)).size());
+    }
+
+    /**
+     * Executes the updates on a local dataset after the given number of
+     * attempts failed.
+     */
+    protected static class FlakyUpdateExecutionFactory extends UpdateExecutionFactoryDataset {
+
+        private Dataset dataset;
+        private int failures;
+        private AtomicInteger attempts = new AtomicInteger();
+
+        public FlakyUpdateExecutionFactory(Dataset dataset, int failures) {
+            super(dataset);
+            this.dataset = dataset;
+            this.failures = failures;
+        }
+
+        @Override
+        public UpdateProcessor createUpdateProcessor(String updateRequestStr) {
+            if (attempts.incrementAndGet() <= failures) {
+                throw new IllegalStateException("Simulated connection problem.");
+            }
+            return org.apache.jena.update.UpdateExecutionFactory.create(UpdateFactory.create(updateRequestStr),
+                    dataset);
+        }
+    }
+}
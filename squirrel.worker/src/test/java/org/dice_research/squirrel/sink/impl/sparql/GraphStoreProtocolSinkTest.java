@@ -0,0 +1,142 @@
+package org.dice_research.squirrel.sink.impl.sparql;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.RDFLanguages;
+import org.apache.jena.vocabulary.RDFS;
+import org.dice_research.squirrel.Constants;
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.simulation.AbstractServerMockUsingTest;
+import org.junit.Assert;
+import org.junit.Test;
+import org.simpleframework.http.Request;
+import org.simpleframework.http.Response;
+import org.simpleframework.http.Status;
+import org.simpleframework.http.core.Container;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class GraphStoreProtocolSinkTest extends AbstractServerMockUsingTest {
+
+    private static final int NUMBER_OF_TRIPLES = 2000;
+
+    public GraphStoreProtocolSinkTest() {
+        super(new GraphStoreContainer());
+    }
+
+    @Test
+    public void testChunkedUpload() throws Exception {
+        runTest(false, 8 * 1024);
+    }
+
+    @Test
+    public void testThriftUpload() throws Exception {
+        runTest(true, 8 * 1024);
+    }
+
+    @Test
+    public void testSingleRequestPerGraph() throws Exception {
+        GraphStoreContainer store = (GraphStoreContainer) container;
+        runTest(false, GraphStoreProtocolSink.DEFAULT_CHUNK_SIZE);
+        Assert.assertEquals(1, store.requests.get());
+    }
+
+    @Test
+    public void testRetry() throws Exception {
+        GraphStoreContainer store = (GraphStoreContainer) container;
+        store.failures.set(2);
+        runTest(false, GraphStoreProtocolSink.DEFAULT_CHUNK_SIZE);
+        Assert.assertEquals(3, store.requests.get());
+    }
+
+    protected void runTest(boolean useThrift, int chunkSize) throws Exception {
+        GraphStoreContainer store = (GraphStoreContainer) container;
+        CrawleableUri uri = new CrawleableUri(new URI("http://example.org/dataset"));
+        uri.addData(Constants.UUID_KEY, "123");
+
+        GraphStoreProtocolSink sink = new GraphStoreProtocolSink(HTTP_SERVER_ADDRESS + "/data", null, null,
+                useThrift, chunkSize, 3, 10);
+        try {
+            sink.openSinkForUri(uri);
+            for (int i = 0; i < NUMBER_OF_TRIPLES; ++i) {
+                // the literal contains characters that broke the former query generation
+                sink.addTriple(uri, new Triple(NodeFactory.createURI("http://example.org/r" + i),
+                        RDFS.label.asNode(), NodeFactory.createLiteral("label {} \"" + i + "\"\n")));
+            }
+            sink.closeSinkForUri(uri);
+        } finally {
+            sink.close();
+        }
+        Assert.assertNull(store.throwable);
+        Assert.assertEquals(NUMBER_OF_TRIPLES, sink.getSentTriples());
+        Assert.assertEquals(0, sink.getFailedRequests());
+        if (chunkSize < GraphStoreProtocolSink.DEFAULT_CHUNK_SIZE) {
+            Assert.assertTrue(sink.getSentRequests() > 1);
+        }
+
+        Model model = store.dataset.getNamedModel(SparqlBasedSink.getGraphId(uri));
+        Assert.assertEquals(NUMBER_OF_TRIPLES, model.size());
+        Assert.assertTrue(model.contains(model.getResource("http://example.org/r7"), RDFS.label,
+                "label {} \"7\"\n"));
+    }
+
+    /**
+     * A simple graph store that adds the posted data to an in-memory dataset.
+     * The first requests fail if the number of failures is set.
+     */
+    protected static class GraphStoreContainer implements Container {
+
+        private static final Logger LOGGER = LoggerFactory.getLogger(GraphStoreContainer.class);
+
+        private Dataset dataset = DatasetFactory.createTxnMem();
+        private AtomicInteger requests = new AtomicInteger();
+        private AtomicInteger failures = new AtomicInteger();
+        private Throwable throwable;
+
+        @Override
+        public void handle(Request request, Response response) {
+            requests.incrementAndGet();
+            try {
+                if (failures.getAndDecrement() > 0) {
+                    response.setCode(Status.INTERNAL_SERVER_ERROR.code);
+                } else if (!"POST".equals(request.getMethod())) {
+                    throwable = new IllegalArgumentException("Got an unexpected " + request.getMethod() + " request.");
+                    response.setCode(Status.BAD_REQUEST.code);
+                } else {
+                    Lang lang = RDFLanguages.contentTypeToLang(request.getValue("Content-Type"));
+                    String graph = request.getQuery().get("graph");
+                    try (InputStream in = request.getInputStream()) {
+                        synchronized (dataset) {
+                            if (graph != null) {
+                                Model model = dataset.getNamedModel(graph);
+                                RDFDataMgr.read(model, in, lang);
+                            } else {
+                                RDFDataMgr.read(dataset, in, lang);
+                            }
+                        }
+                    }
+                    response.setCode(Status.OK.code);
+                }
+            } catch (Exception e) {
+                LOGGER.error("Got exception.", e);
+                throwable = e;
+                response.setCode(Status.INTERNAL_SERVER_ERROR.code);
+            } finally {
+                try {
+                    response.close();
+                } catch (IOException e) {
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package org.dice_research.squirrel.sink.impl.tdb;
+
+import java.io.File;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.ReadWrite;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.tdb.TDBFactory;
+import org.apache.jena.vocabulary.RDFS;
+import org.dice_research.squirrel.Constants;
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.sink.impl.sparql.SparqlBasedSink;
+import org.dice_research.squirrel.utils.TempFileHelper;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TdbBasedSinkTest {
+
+    private File directory;
+
+    @Before
+    public void prepare() throws Exception {
+        directory = TempFileHelper.getTempDir("tdbSinkTest", "");
+    }
+
+    @After
+    public void cleanUp() throws Exception {
+        FileUtils.deleteQuietly(directory);
+    }
+
+    @Test
+    public void testParallelCrawlingThreads() throws Exception {
+        int numberOfThreads = 4;
+        int triplesPerUri = 5000;
+        // small transactions to make sure that several commits are necessary
+        TdbBasedSink sink = new TdbBasedSink(directory, 100, 2000, 60000, 4);
+        List<CrawleableUri> uris = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < numberOfThreads; ++i) {
+            CrawleableUri uri = new CrawleableUri(new URI("http://example.org/dataset" + i));
+            uri.addData(Constants.UUID_KEY, Integer.toString(i));
+            uris.add(uri);
+            threads.add(new Thread(() -> {
+                sink.openSinkForUri(uri);
+                for (int j = 0; j < triplesPerUri; ++j) {
+                    sink.addTriple(uri, new Triple(NodeFactory.createURI("http://example.org/r" + j),
+                            RDFS.label.asNode(), NodeFactory.createLiteral("label " + j)));
+                }
+                sink.closeSinkForUri(uri);
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        sink.close();
+
+        Assert.assertEquals(numberOfThreads * triplesPerUri, sink.getWrittenQuads());
+        Assert.assertEquals(0, sink.getFailedQuads());
+        Assert.assertTrue(sink.getCommits() >= (numberOfThreads * triplesPerUri) / 2000);
+
+        // the data is persisted in the directory
+        Dataset dataset = TDBFactory.createDataset(directory.getAbsolutePath());
+        dataset.begin(ReadWrite.READ);
+        try {
+            for (CrawleableUri uri : uris) {
+                Model model = dataset.getNamedModel(SparqlBasedSink.getGraphId(uri));
+                Assert.assertEquals(triplesPerUri, model.size());
+                Assert.assertTrue(
+                        model.contains(model.getResource("http://example.org/r7"), RDFS.label, "label 7"));
+            }
+        } finally {
+            dataset.end();
+        }
+    }
+
+    @Test
+    public void testQuadsAndMetadata() throws Exception {
+        Dataset dataset = TDBFactory.createDataset();
+        // commit after a short time instead of a large number of quads
+        TdbBasedSink sink = new TdbBasedSink(dataset, 10, Integer.MAX_VALUE, 50, 16);
+        CrawleableUri uri = new CrawleableUri(new URI("http://example.org/dataset"));
+        uri.addData(Constants.UUID_KEY, "123");
+        try {
+            sink.openSinkForUri(uri);
+            for (int i = 0; i < 25; ++i) {
+                sink.addQuad(uri, new Quad(NodeFactory.createURI("http://example.org/graph"),
+                        NodeFactory.createURI("http://example.org/r" + i), RDFS.label.asNode(),
+                        NodeFactory.createLiteral("r" + i)));
+            }
+            sink.closeSinkForUri(uri);
+
+            Model metadata = ModelFactory.createDefaultModel();
+            metadata.add(metadata.createResource("http://example.org/activity"), RDFS.label, "activity");
+            sink.addMetaData(metadata);
+
+            long start = System.currentTimeMillis();
+            while ((sink.getWrittenQuads() < 26) && ((System.currentTimeMillis() - start) < 5000)) {
+                Thread.sleep(10);
+            }
+            // the data has been committed without closing the sink
+            Assert.assertEquals(26, sink.getWrittenQuads());
+        } finally {
+            sink.close();
+        }
+
+        dataset.begin(ReadWrite.READ);
+        try {
+            Assert.assertEquals(25, dataset.getNamedModel("http://example.org/graph").size());
+            Assert.assertEquals(1,
+                    dataset.getNamedModel(Constants.DEFAULT_META_DATA_GRAPH_URI.toString()).size());
+        } finally {
+            dataset.end();
+        }
+    }
+}
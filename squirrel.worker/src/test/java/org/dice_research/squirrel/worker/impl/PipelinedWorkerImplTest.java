@@ -0,0 +1,324 @@
+package org.dice_research.squirrel.worker.impl;
+
+import java.io.File;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.jena.graph.Triple;
+import org.apache.jena.sparql.core.Quad;
+import org.dice_research.squirrel.analyzer.Analyzer;
+import org.dice_research.squirrel.collect.SqlBasedUriCollector;
+import org.dice_research.squirrel.collect.StreamingUriCollector;
+import org.dice_research.squirrel.collect.UriCollector;
+import org.dice_research.squirrel.configurator.WorkerPipelineConfiguration;
+import org.dice_research.squirrel.data.uri.CrawleableUri;
+import org.dice_research.squirrel.data.uri.serialize.binary.BinaryUriSerializer;
+import org.dice_research.squirrel.fetcher.Fetcher;
+import org.dice_research.squirrel.fetcher.delay.Delayer;
+import org.dice_research.squirrel.frontier.Frontier;
+import org.dice_research.squirrel.robots.RobotsManager;
+import org.dice_research.squirrel.robots.RobotsManagerImpl;
+import org.dice_research.squirrel.sink.Sink;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks that the {@link PipelinedWorkerImpl} crawls several URI sets in
+ * parallel while the URIs of a single set are fetched with the crawl delay
+ * between them.
+ */
+public class PipelinedWorkerImplTest {
+
+    private static final int NUMBER_OF_SETS = 6;
+    private static final int URIS_PER_SET = 3;
+    private static final long CRAWL_DELAY = 200;
+    private static final long FETCH_DURATION = 100;
+
+    @Test
+    public void test() throws Exception {
+        List<List<CrawleableUri>> sets = new ArrayList<>();
+        for (int i = 0; i < NUMBER_OF_SETS; ++i) {
+            List<CrawleableUri> set = new ArrayList<>();
+            for (int j = 0; j < URIS_PER_SET; ++j) {
+                set.add(new CrawleableUri(new URI("http://host" + i + ".org/resource" + j)));
+            }
+            sets.add(set);
+        }
+        // add a null entry which should be ignored
+        sets.get(0).add(null);
+
+        DummyFrontier frontier = new DummyFrontier(sets);
+        DummyFetcher fetcher = new DummyFetcher();
+        PipelinedWorkerImpl worker = new PipelinedWorkerImpl(frontier, fetcher, new DummySink(), new DummyAnalyzer(),
+                new DummyRobotsManager(), new BinaryUriSerializer(), new DummyCollector(), 10, null, false, false,
+                new WorkerPipelineConfiguration(4, 2, 2));
+        frontier.worker = worker;
+
+        Thread thread = new Thread(worker);
+        thread.start();
+        thread.join(30000);
+        Assert.assertFalse("The worker did not terminate.", thread.isAlive());
+
+        // all sets have been sent back completely
+        Assert.assertEquals(NUMBER_OF_SETS, frontier.crawledSets.size());
+        for (List<CrawleableUri> set : sets) {
+            Assert.assertTrue(frontier.crawledSets.contains(set));
+        }
+        Assert.assertEquals(NUMBER_OF_SETS * URIS_PER_SET, fetcher.fetchTimes.size());
+        // The sets should have been crawled in parallel
+        Assert.assertTrue("Expected parallel fetches but got " + fetcher.maxParallelFetches.get(),
+                fetcher.maxParallelFetches.get() > 1);
+        Assert.assertTrue(fetcher.maxParallelFetches.get() <= 4);
+        // The crawl delay should have been respected within every set
+        for (List<CrawleableUri> set : sets) {
+            long lastEnd = 0;
+            for (CrawleableUri uri : set) {
+                if (uri != null) {
+                    long[] times = fetcher.fetchTimes.get(uri.getUri().toString());
+                    Assert.assertNotNull(times);
+                    if (lastEnd > 0) {
+                        Assert.assertTrue("Crawl delay has not been respected for " + uri.getUri(),
+                                (times[0] - lastEnd) >= CRAWL_DELAY);
+                    }
+                    lastEnd = times[1];
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRejectedFetches() throws Exception {
+        List<CrawleableUri> set = new ArrayList<>();
+        for (int j = 0; j < URIS_PER_SET; ++j) {
+            set.add(new CrawleableUri(new URI("http://host.org/resource" + j)));
+        }
+        DummyFrontier frontier = new DummyFrontier(Collections.singletonList(set));
+        DummyFetcher fetcher = new DummyFetcher();
+        ClosingRobotsManager manager = new ClosingRobotsManager();
+        PipelinedWorkerImpl worker = new PipelinedWorkerImpl(frontier, fetcher, new DummySink(), new DummyAnalyzer(),
+                manager, new BinaryUriSerializer(), new DummyCollector(), 10, null, false, false,
+                new WorkerPipelineConfiguration(4, 2, 2));
+        frontier.worker = worker;
+        manager.worker = worker;
+
+        // the fetching stage is shut down while the second URI waits for its crawl delay
+        Thread thread = new Thread(() -> worker.crawl(set));
+        thread.start();
+        thread.join(10000);
+        Assert.assertFalse("The URI set has not been finished.", thread.isAlive());
+        Assert.assertEquals(1, frontier.crawledSets.size());
+        Assert.assertEquals(1, fetcher.fetchTimes.size());
+
+        // the worker does not hang if it can't fetch anything
+        thread = new Thread(() -> worker.crawl(set));
+        thread.start();
+        thread.join(10000);
+        Assert.assertFalse("The URI set has not been finished.", thread.isAlive());
+        Assert.assertEquals(2, frontier.crawledSets.size());
+        Assert.assertEquals(1, fetcher.fetchTimes.size());
+        worker.close();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNotThreadSafeRobotsManager() throws Exception {
+        new PipelinedWorkerImpl(new DummyFrontier(Collections.emptyList()), new DummyFetcher(), new DummySink(),
+                new DummyAnalyzer(), new RobotsManagerImpl(null), new BinaryUriSerializer(), new DummyCollector(), 10,
+                null, false, false, new WorkerPipelineConfiguration(4, 2, 2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNotThreadSafeCollector() throws Exception {
+        // a collector that does not create a database
+        SqlBasedUriCollector collector = new SqlBasedUriCollector(new BinaryUriSerializer(), null) {
+            @Override
+            public void create(String dbPath) {
+            }
+        };
+        new PipelinedWorkerImpl(new DummyFrontier(Collections.emptyList()), new DummyFetcher(), new DummySink(),
+                new DummyAnalyzer(), new DummyRobotsManager(), new BinaryUriSerializer(),
+                new StreamingUriCollector(collector), 10, null, false, false,
+                new WorkerPipelineConfiguration(4, 2, 2));
+    }
+
+    protected static class DummyFrontier implements Frontier {
+
+        private List<List<CrawleableUri>> sets;
+        private int nextSet = 0;
+        private List<List<CrawleableUri>> crawledSets = Collections.synchronizedList(new ArrayList<>());
+        private PipelinedWorkerImpl worker;
+
+        public DummyFrontier(List<List<CrawleableUri>> sets) {
+            this.sets = sets;
+        }
+
+        @Override
+        public synchronized List<CrawleableUri> getNextUris() {
+            if (nextSet < sets.size()) {
+                return sets.get(nextSet++);
+            } else {
+                return null;
+            }
+        }
+
+        @Override
+        public void addNewUri(CrawleableUri uri) {
+        }
+
+        @Override
+        public void addNewUris(List<CrawleableUri> newUris) {
+        }
+
+        @Override
+        public void crawlingDone(List<CrawleableUri> uris) {
+            crawledSets.add(uris);
+            if (crawledSets.size() == sets.size()) {
+                worker.setTerminateFlag(true);
+            }
+        }
+
+        @Override
+        public int getNumberOfPendingUris() {
+            return 0;
+        }
+
+        @Override
+        public boolean doesRecrawling() {
+            return false;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    protected static class DummyFetcher implements Fetcher {
+
+        private Map<String, long[]> fetchTimes = new ConcurrentHashMap<>();
+        private AtomicInteger parallelFetches = new AtomicInteger();
+        private AtomicInteger maxParallelFetches = new AtomicInteger();
+
+        @Override
+        public File fetch(CrawleableUri uri, Delayer delayer) {
+            try {
+                delayer.getRequestPermission();
+                long start = System.currentTimeMillis();
+                int parallel = parallelFetches.incrementAndGet();
+                maxParallelFetches.accumulateAndGet(parallel, Math::max);
+                Thread.sleep(FETCH_DURATION);
+                parallelFetches.decrementAndGet();
+                fetchTimes.put(uri.getUri().toString(), new long[] { start, System.currentTimeMillis() });
+            } catch (InterruptedException e) {
+                Assert.fail("Interrupted");
+            } finally {
+                delayer.requestFinished();
+            }
+            return null;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    protected static class DummyRobotsManager implements RobotsManager {
+
+        @Override
+        public boolean isUriCrawlable(CrawleableUri curi) {
+            return true;
+        }
+
+        @Override
+        public long getMinWaitingTime(CrawleableUri curi) {
+            return CRAWL_DELAY;
+        }
+    }
+
+    /**
+     * A robots manager that shuts down the fetching stage of the worker when it
+     * is asked for the second URI.
+     */
+    protected static class ClosingRobotsManager extends DummyRobotsManager {
+
+        private PipelinedWorkerImpl worker;
+
+        @Override
+        public long getMinWaitingTime(CrawleableUri curi) {
+            if (curi.getUri().toString().endsWith("resource1")) {
+                worker.fetchingExecutor.shutdown();
+            }
+            return super.getMinWaitingTime(curi);
+        }
+    }
+
+    protected static class DummyAnalyzer implements Analyzer {
+
+        @Override
+        public Iterator<byte[]> analyze(CrawleableUri curi, File data, Sink sink) {
+            return null;
+        }
+
+        @Override
+        public boolean isElegible(CrawleableUri curi, File data) {
+            return true;
+        }
+    }
+
+    protected static class DummySink implements Sink {
+
+        @Override
+        public void addTriple(CrawleableUri uri, Triple triple) {
+        }
+
+        @Override
+        public void addQuad(CrawleableUri uri, Quad quad) {
+        }
+
+        @Override
+        public void addData(CrawleableUri uri, InputStream stream) {
+        }
+
+        @Override
+        public void openSinkForUri(CrawleableUri uri) {
+        }
+
+        @Override
+        public void closeSinkForUri(CrawleableUri uri) {
+        }
+
+        @Override
+        public void flushMetadata() {
+        }
+    }
+
+    protected static class DummyCollector implements UriCollector {
+
+        @Override
+        public void openSinkForUri(CrawleableUri uri) {
+        }
+
+        @Override
+        public void closeSinkForUri(CrawleableUri uri) {
+        }
+
+        @Override
+        public void addNewUri(CrawleableUri uri, CrawleableUri newUri) {
+        }
+
+        @Override
+        public Iterator<byte[]> getUris(CrawleableUri uri) {
+            return Collections.emptyIterator();
+        }
+
+        @Override
+        public long getSize(CrawleableUri uri) {
+            return 0;
+        }
+    }
+}